@@ -5,8 +5,14 @@ import de.kaicraft.adminpanel.api.ServerControlAPI;
 import de.kaicraft.adminpanel.api.WorldAPI;
 import de.kaicraft.adminpanel.auth.AuthManager;
 import de.kaicraft.adminpanel.backup.BackupManager;
+import de.kaicraft.adminpanel.backup.RestoreManager;
 import de.kaicraft.adminpanel.config.ConfigManager;
+import de.kaicraft.adminpanel.console.ConsoleLogPipeline;
 import de.kaicraft.adminpanel.database.DatabaseManager;
+import de.kaicraft.adminpanel.events.PlayerPresenceTracker;
+import de.kaicraft.adminpanel.metrics.MetricsCollector;
+import de.kaicraft.adminpanel.metrics.MetricsHistory;
+import de.kaicraft.adminpanel.scheduler.DeadlineScheduler;
 import de.kaicraft.adminpanel.stats.PlayerStatsListener;
 import de.kaicraft.adminpanel.stats.PlayerStatsManager;
 import de.kaicraft.adminpanel.update.PaperVersionChecker;
@@ -22,6 +28,9 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.util.Map;
+
 /**
  * Main plugin class for PaperPanel
  * Provides a web-based admin interface for Minecraft Paper servers
@@ -36,6 +45,15 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
     private PaperVersionChecker versionChecker;
     private AuditLogger auditLogger;
     private BackupManager backupManager;
+    private PlayerPresenceTracker presenceTracker;
+    private MetricsCollector metricsCollector;
+    private DeadlineScheduler deadlineScheduler;
+
+    @Override
+    public void onLoad() {
+        // Swap in a staged restore while no world is loaded yet
+        RestoreManager.applyPending(new File("backups", "restore"), getLogger());
+    }
 
     @Override
     public void onEnable() {
@@ -56,16 +74,31 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
 
         // Initialize stats manager
         statsManager = new PlayerStatsManager(this, databaseManager);
+        statsManager.initialize();
+        statsManager.startFlusher();
         getLogger().info("Player stats system initialized");
 
         // Register stats listener
         getServer().getPluginManager().registerEvents(
                 new PlayerStatsListener(statsManager), this);
 
+        // Track online players for the live event stream
+        presenceTracker = new PlayerPresenceTracker(this);
+        presenceTracker.initialize();
+        getServer().getPluginManager().registerEvents(presenceTracker, this);
+
+        // Sample server metrics on the main thread for the dashboard
+        metricsCollector = new MetricsCollector(this, new MetricsHistory(this, databaseManager));
+        metricsCollector.start();
+
         // Initialize authentication manager
         authManager = new AuthManager(this, configManager);
         getLogger().info("Authentication system initialized");
 
+        // Single timer thread for auto-backups and scheduled updates
+        deadlineScheduler = new DeadlineScheduler(getLogger());
+        deadlineScheduler.start();
+
         // Initialize backup manager
         backupManager = new BackupManager(this, databaseManager);
         backupManager.startScheduler();
@@ -79,12 +112,12 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
 
             try {
                 // Initialize Phase 3 APIs
-                PlayerAPI playerAPI = new PlayerAPI(this, statsManager);
+                PlayerAPI playerAPI = new PlayerAPI(this, statsManager, presenceTracker);
                 ServerControlAPI serverControlAPI = new ServerControlAPI(this);
                 WorldAPI worldAPI = new WorldAPI(this);
 
                 webServer = new WebServer(this, configManager, authManager,
-                        playerAPI, serverControlAPI, worldAPI, backupManager, databaseManager);
+                        playerAPI, serverControlAPI, worldAPI, backupManager, databaseManager, presenceTracker);
                 webServer.start();
 
                 // Start updates scheduler
@@ -121,6 +154,11 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
             versionChecker.stopPeriodicCheck();
         }
 
+        // Stop metrics sampling
+        if (metricsCollector != null) {
+            metricsCollector.stop();
+        }
+
         // Stop backup manager scheduler
         if (backupManager != null) {
             backupManager.stopScheduler();
@@ -131,11 +169,20 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
             webServer.getUpdatesAPI().stopScheduler();
         }
 
+        if (deadlineScheduler != null) {
+            deadlineScheduler.stop();
+        }
+
         // Stop web server
         if (webServer != null) {
             webServer.stop();
         }
 
+        // Write out buffered player stats
+        if (statsManager != null) {
+            statsManager.shutdown();
+        }
+
         // Close database connection
         if (databaseManager != null) {
             databaseManager.close();
@@ -202,7 +249,20 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
                         sender.sendMessage("§7Port: §f" + configManager.getPort());
                         sender.sendMessage("§7Active Sessions: §f" + authManager.getActiveSessionCount());
                         sender.sendMessage("§7WebSocket Clients: §f" +
-                                webServer.getWebSocketHandler().getClientCount());
+                                webServer.getWebSocketHandler().getClientCount() + " §7console, §f" +
+                                webServer.getEventStreamHandler().getClientCount() + " §7events");
+
+                        ConsoleLogPipeline pipeline = webServer.getConsolePipeline();
+                        sender.sendMessage("§7Console Queue: §f" + pipeline.getQueuedCount() + "/" +
+                                pipeline.getCapacity() + " §7(dropped: §f" + pipeline.getDroppedCount() +
+                                "§7, batches: §f" + pipeline.getBatchesSent() + "§7)");
+
+                        for (Map<String, Object> client : webServer.getWebSocketHandler().getClientStats()) {
+                            sender.sendMessage("§7  - §f" + client.get("username") + " §7queued: §f" +
+                                    client.get("queuedLines") + "/" + client.get("highWaterLines") +
+                                    " §7dropped: §f" + client.get("droppedLines") +
+                                    " §7lagged: §f" + client.get("lagEvents") + "x");
+                        }
                     }
                     return true;
 
@@ -254,26 +314,18 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
         @Override
         public void append(LogEvent event) {
             try {
-                if (webServer == null) {
+                WebServer server = webServer;
+                if (server == null) {
                     return;
                 }
 
-                // Format log message
-                String level = event.getLevel().name();
-                String loggerName = event.getLoggerName();
-                String message = event.getMessage().getFormattedMessage();
-
-                // Build formatted log line
-                String formattedMessage = String.format("[%s] [%s] %s",
-                        level,
-                        loggerName.substring(loggerName.lastIndexOf('.') + 1),
-                        message);
-
-                // Add to console history
-                webServer.getConsoleAPI().addToHistory(formattedMessage);
-
-                // Broadcast to WebSocket clients
-                webServer.getWebSocketHandler().broadcast(formattedMessage);
+                // Only capture the raw fields here; formatting and broadcasting
+                // happen on the pipeline's drain thread
+                server.getConsolePipeline().submit(
+                        event.getLevel().name(),
+                        event.getLoggerName(),
+                        event.getMessage().getFormattedMessage(),
+                        event.getTimeMillis());
 
             } catch (Exception e) {
                 // Silently fail to avoid log spam
@@ -310,4 +362,12 @@ public class ServerAdminPanelPlugin extends JavaPlugin {
     public DatabaseManager getDatabaseManager() {
         return databaseManager;
     }
+
+    public MetricsCollector getMetricsCollector() {
+        return metricsCollector;
+    }
+
+    public DeadlineScheduler getDeadlineScheduler() {
+        return deadlineScheduler;
+    }
 }
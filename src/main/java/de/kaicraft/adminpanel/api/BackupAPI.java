@@ -3,12 +3,18 @@ package de.kaicraft.adminpanel.api;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.backup.BackupCatalog;
+import de.kaicraft.adminpanel.backup.BackupJob;
 import de.kaicraft.adminpanel.backup.BackupManager;
 import de.kaicraft.adminpanel.backup.BackupManager.*;
+import de.kaicraft.adminpanel.backup.RestoreManager;
+import de.kaicraft.adminpanel.web.RangedFileResponse;
 import io.javalin.http.Context;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -34,18 +40,7 @@ public class BackupAPI {
         try {
             List<BackupInfo> backups = backupManager.listBackups();
 
-            List<Map<String, Object>> backupList = backups.stream().map(b -> Map.<String, Object>of(
-                "id", b.id,
-                "filename", b.filename,
-                "sizeBytes", b.sizeBytes,
-                "sizeMB", Math.round(b.sizeBytes / 1024.0 / 1024.0 * 100) / 100.0,
-                "createdAt", b.createdAt,
-                "createdBy", b.createdBy != null ? b.createdBy : "unknown",
-                "backupType", b.backupType,
-                "includesWorlds", b.includesWorlds,
-                "includesPlugins", b.includesPlugins,
-                "includesConfigs", b.includesConfigs
-            )).collect(Collectors.toList());
+            List<Map<String, Object>> backupList = backups.stream().map(this::toMap).collect(Collectors.toList());
 
             ctx.json(Map.of(
                 "success", true,
@@ -70,6 +65,7 @@ public class BackupAPI {
             boolean includesWorlds = body.has("includesWorlds") && body.get("includesWorlds").getAsBoolean();
             boolean includesPlugins = body.has("includesPlugins") && body.get("includesPlugins").getAsBoolean();
             boolean includesConfigs = body.has("includesConfigs") && body.get("includesConfigs").getAsBoolean();
+            boolean incremental = body.has("incremental") && body.get("incremental").getAsBoolean();
 
             // At least one must be selected
             if (!includesWorlds && !includesPlugins && !includesConfigs) {
@@ -83,25 +79,16 @@ public class BackupAPI {
             String username = ctx.attribute("username");
             if (username == null) username = "unknown";
 
-            BackupOptions options = new BackupOptions(includesWorlds, includesPlugins, includesConfigs);
+            BackupOptions options = new BackupOptions(includesWorlds, includesPlugins, includesConfigs, incremental);
 
-            // Run backup asynchronously
-            String finalUsername = username;
-            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
-                BackupResult result = backupManager.createBackup(options, finalUsername);
-
-                // We can't respond after async, but the backup is created
-                if (result.success) {
-                    plugin.getLogger().info("Backup created successfully: " + result.filename);
-                } else {
-                    plugin.getLogger().warning("Backup failed: " + result.message);
-                }
-            });
+            // Runs on the backup queue; progress is reported through /ws/backups
+            BackupJob job = backupManager.getJobQueue().submit(options, username);
 
             ctx.json(Map.of(
                 "success", true,
                 "message", "Backup creation started",
-                "status", "creating"
+                "status", "creating",
+                "job", job
             ));
 
         } catch (Exception e) {
@@ -113,6 +100,164 @@ public class BackupAPI {
         }
     }
 
+    /**
+     * GET /api/v1/backups/jobs - List queued, running and recent backup jobs
+     */
+    public void listJobs(Context ctx) {
+        try {
+            String limitParam = ctx.queryParam("limit");
+            int limit = limitParam != null ? Math.max(0, Math.min(100, Integer.parseInt(limitParam))) : 20;
+
+            ctx.json(Map.of(
+                "success", true,
+                "jobs", backupManager.getJobQueue().getJobs(limit)
+            ));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", "Invalid limit"
+            ));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error listing backup jobs: " + e.getMessage());
+            ctx.status(500).json(Map.of(
+                "success", false,
+                "error", "Failed to list backup jobs: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * POST /api/v1/backups/jobs/{id}/cancel - Cancel a queued or running backup job
+     */
+    public void cancelJob(Context ctx) {
+        try {
+            int id = Integer.parseInt(ctx.pathParam("id"));
+            String username = ctx.attribute("username");
+            if (username == null) username = "unknown";
+
+            if (!backupManager.getJobQueue().cancel(id, username)) {
+                ctx.status(404).json(Map.of(
+                    "success", false,
+                    "error", "No active backup job with this ID"
+                ));
+                return;
+            }
+
+            if (plugin.getAuditLogger() != null) {
+                plugin.getAuditLogger().logUserAction(username, "cancel-backup", "Cancelled backup job #" + id);
+            }
+
+            ctx.json(Map.of(
+                "success", true,
+                "message", "Backup job cancelled"
+            ));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", "Invalid job ID"
+            ));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error cancelling backup job: " + e.getMessage());
+            ctx.status(500).json(Map.of(
+                "success", false,
+                "error", "Failed to cancel backup job: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * POST /api/v1/backups/{id}/restore - Stage a restore that is applied on the next restart.
+     * Body: {"paths": ["world", "plugins/Foo"]} and/or
+     * {"region": {"world": "world", "minX": -2, "minZ": -2, "maxX": 1, "maxZ": 1}}; empty restores everything.
+     */
+    public void restoreBackup(Context ctx) {
+        try {
+            int id = Integer.parseInt(ctx.pathParam("id"));
+            if (backupManager.getBackup(id) == null) {
+                ctx.status(404).json(Map.of(
+                    "success", false,
+                    "error", "Backup not found"
+                ));
+                return;
+            }
+
+            JsonObject body = ctx.body().isBlank() ? new JsonObject() : gson.fromJson(ctx.body(), JsonObject.class);
+            List<String> paths = new ArrayList<>();
+            if (body.has("paths")) {
+                body.getAsJsonArray("paths").forEach(path -> paths.add(path.getAsString()));
+            }
+            RestoreManager.RestoreSelection selection;
+            if (body.has("region")) {
+                JsonObject region = body.getAsJsonObject("region");
+                selection = new RestoreManager.RestoreSelection(paths, region.get("world").getAsString(),
+                    region.get("minX").getAsInt(), region.get("minZ").getAsInt(),
+                    region.get("maxX").getAsInt(), region.get("maxZ").getAsInt());
+            } else {
+                selection = new RestoreManager.RestoreSelection(paths, null, 0, 0, 0, 0);
+            }
+
+            String username = ctx.attribute("username");
+            if (username == null) username = "unknown";
+
+            BackupJob job = backupManager.getJobQueue().submitRestore(id, selection, username);
+
+            ctx.json(Map.of(
+                "success", true,
+                "message", "Restore queued; it is applied on the next restart",
+                "job", job
+            ));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", "Invalid backup ID or region coordinates"
+            ));
+        } catch (IllegalArgumentException | NullPointerException | ClassCastException | UnsupportedOperationException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", "Invalid restore selection: " + e.getMessage()
+            ));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error starting restore: " + e.getMessage());
+            ctx.status(500).json(Map.of(
+                "success", false,
+                "error", "Failed to start restore: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * GET /api/v1/backups/restore/pending - The restore waiting for the next restart
+     */
+    public void getPendingRestore(Context ctx) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("restore", backupManager.getRestoreManager().getPending());
+        ctx.json(response);
+    }
+
+    /**
+     * DELETE /api/v1/backups/restore/pending - Cancel the restore waiting for the next restart
+     */
+    public void cancelPendingRestore(Context ctx) {
+        if (!backupManager.getRestoreManager().cancelPending()) {
+            ctx.status(404).json(Map.of(
+                "success", false,
+                "error", "No restore is pending"
+            ));
+            return;
+        }
+
+        String username = ctx.attribute("username");
+        if (username != null && plugin.getAuditLogger() != null) {
+            plugin.getAuditLogger().logUserAction(username, "cancel-restore", "Cancelled pending restore");
+        }
+
+        ctx.json(Map.of(
+            "success", true,
+            "message", "Pending restore cancelled"
+        ));
+    }
+
     /**
      * GET /api/v1/backups/{id} - Get backup details
      */
@@ -131,18 +276,7 @@ public class BackupAPI {
 
             ctx.json(Map.of(
                 "success", true,
-                "backup", Map.of(
-                    "id", backup.id,
-                    "filename", backup.filename,
-                    "sizeBytes", backup.sizeBytes,
-                    "sizeMB", Math.round(backup.sizeBytes / 1024.0 / 1024.0 * 100) / 100.0,
-                    "createdAt", backup.createdAt,
-                    "createdBy", backup.createdBy != null ? backup.createdBy : "unknown",
-                    "backupType", backup.backupType,
-                    "includesWorlds", backup.includesWorlds,
-                    "includesPlugins", backup.includesPlugins,
-                    "includesConfigs", backup.includesConfigs
-                )
+                "backup", toMap(backup)
             ));
         } catch (NumberFormatException e) {
             ctx.status(400).json(Map.of(
@@ -195,9 +329,10 @@ public class BackupAPI {
     }
 
     /**
-     * GET /api/v1/backups/{id}/download - Download backup as ZIP
+     * GET /api/v1/backups/{id}/entries?prefix=world/region - Browse the files of a backup from its catalogue.
+     * Lists the files directly in the prefix and its subdirectories with their file count and size.
      */
-    public void downloadBackup(Context ctx) {
+    public void listEntries(Context ctx) {
         try {
             int id = Integer.parseInt(ctx.pathParam("id"));
             BackupInfo backup = backupManager.getBackup(id);
@@ -210,11 +345,88 @@ public class BackupAPI {
                 return;
             }
 
-            File file = backupManager.getBackupFile(id);
-            if (file == null || !file.exists()) {
+            BackupCatalog.Listing listing = backupManager.getCatalog().list(backup, ctx.queryParam("prefix"));
+
+            ctx.json(Map.of(
+                "success", true,
+                "prefix", listing.prefix,
+                "directories", listing.directories,
+                "files", listing.files
+            ));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", "Invalid backup ID"
+            ));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error listing backup entries: " + e.getMessage());
+            ctx.status(500).json(Map.of(
+                "success", false,
+                "error", "Failed to list backup entries: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * POST /api/v1/backups/{id}/verify - Queue an integrity check of a backup
+     */
+    public void verifyBackup(Context ctx) {
+        try {
+            int id = Integer.parseInt(ctx.pathParam("id"));
+            BackupInfo backup = backupManager.getBackup(id);
+
+            if (backup == null) {
                 ctx.status(404).json(Map.of(
                     "success", false,
-                    "error", "Backup file not found on disk"
+                    "error", "Backup not found"
+                ));
+                return;
+            }
+
+            if (!backupManager.getVerifier().submit(id)) {
+                ctx.status(409).json(Map.of(
+                    "success", false,
+                    "error", "Backup is already being verified"
+                ));
+                return;
+            }
+
+            String username = ctx.attribute("username");
+            if (username != null && plugin.getAuditLogger() != null) {
+                plugin.getAuditLogger().logUserAction(username, "verify-backup",
+                    "Requested verification of backup: " + backup.filename);
+            }
+
+            ctx.json(Map.of(
+                "success", true,
+                "message", "Verification queued"
+            ));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", "Invalid backup ID"
+            ));
+        }
+    }
+
+    /**
+     * GET /api/v1/backups/{id}/download - Download backup as ZIP.
+     * Honours Range requests; ?path= (repeatable) downloads only the selected files.
+     */
+    public void downloadBackup(Context ctx) {
+        try {
+            int id = Integer.parseInt(ctx.pathParam("id"));
+            BackupInfo backup = backupManager.getBackup(id);
+
+            if (backup == null) {
+                ctx.status(404).json(Map.of(
+                    "success", false,
+                    "error", "Backup not found"
                 ));
                 return;
             }
@@ -225,17 +437,62 @@ public class BackupAPI {
                     "Downloaded backup: " + backup.filename);
             }
 
-            ctx.header("Content-Disposition", "attachment; filename=\"" + backup.filename + "\"");
-            ctx.header("Content-Length", String.valueOf(file.length()));
-            ctx.contentType("application/zip");
-            ctx.result(new FileInputStream(file));
+            // ?path=world/region&path=plugins/Foo streams just those files as a new archive
+            List<String> paths = ctx.queryParams("path");
+            if (!paths.isEmpty()) {
+                String name = backup.filename.replaceAll("\\.zip$", "") + "-partial.zip";
+                ctx.header("Content-Disposition", "attachment; filename=\"" + name + "\"");
+                ctx.contentType("application/zip");
+                backupManager.writeSelection(backup, paths, ctx.res().getOutputStream());
+                return;
+            }
+
+            if (backup.isIncremental()) {
+                // Rebuilt from the block store on the fly, so the length is not known up front
+                ctx.header("Content-Disposition", "attachment; filename=\"" + backup.filename + "\"");
+                ctx.contentType("application/zip");
+                backupManager.getIncrementalStore().writeZip(backup.id, ctx.res().getOutputStream());
+                return;
+            }
+
+            File file = backupManager.getBackupFile(id);
+            if ((file == null || !file.exists()) && !backup.remoteTargets.isEmpty()) {
+                // Only kept on remote storage: relay it, without range support
+                ctx.header("Content-Disposition", "attachment; filename=\"" + backup.filename + "\"");
+                ctx.header("Content-Length", String.valueOf(backup.sizeBytes));
+                ctx.contentType("application/zip");
+                try (InputStream in = backupManager.openArchive(backup)) {
+                    in.transferTo(ctx.res().getOutputStream());
+                }
+                return;
+            }
+            if (file == null || !file.exists()) {
+                ctx.status(404).json(Map.of(
+                    "success", false,
+                    "error", "Backup file not found on disk"
+                ));
+                return;
+            }
+
+            // Supports resuming with Range / If-Range and sends the file without heap copies
+            RangedFileResponse.send(ctx, file, "application/zip", backup.filename);
 
         } catch (NumberFormatException e) {
             ctx.status(400).json(Map.of(
                 "success", false,
                 "error", "Invalid backup ID"
             ));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
         } catch (Exception e) {
+            if (ctx.res().isCommitted()) {
+                // Part of the body is already out; the client sees a truncated download
+                plugin.getLogger().warning("Backup download aborted: " + e.getMessage());
+                return;
+            }
             plugin.getLogger().warning("Error downloading backup: " + e.getMessage());
             ctx.status(500).json(Map.of(
                 "success", false,
@@ -244,6 +501,29 @@ public class BackupAPI {
         }
     }
 
+    private Map<String, Object> toMap(BackupInfo b) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", b.id);
+        map.put("filename", b.filename);
+        map.put("sizeBytes", b.sizeBytes);
+        map.put("sizeMB", Math.round(b.sizeBytes / 1024.0 / 1024.0 * 100) / 100.0);
+        map.put("createdAt", b.createdAt);
+        map.put("createdBy", b.createdBy != null ? b.createdBy : "unknown");
+        map.put("backupType", b.backupType);
+        map.put("includesWorlds", b.includesWorlds);
+        map.put("includesPlugins", b.includesPlugins);
+        map.put("includesConfigs", b.includesConfigs);
+        map.put("format", b.format);
+        map.put("sha256", b.sha256);
+        map.put("verifiedAt", b.verifiedAt > 0 ? b.verifiedAt : null);
+        map.put("verifyStatus", b.verifyStatus);
+        map.put("verifyError", b.verifyError);
+        map.put("verifying", backupManager.getVerifier().isPending(b.id));
+        map.put("storedLocally", b.storedLocally);
+        map.put("remoteTargets", b.remoteTargets);
+        return map;
+    }
+
     /**
      * GET /api/v1/backups/schedules - Get all auto-backup schedules
      */
@@ -317,6 +597,11 @@ public class BackupAPI {
                     "error", "Failed to save schedule"
                 ));
             }
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
         } catch (Exception e) {
             plugin.getLogger().warning("Error saving schedule: " + e.getMessage());
             ctx.status(500).json(Map.of(
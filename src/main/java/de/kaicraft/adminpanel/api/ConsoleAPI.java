@@ -3,6 +3,8 @@ package de.kaicraft.adminpanel.api;
 import com.google.gson.Gson;
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
 import de.kaicraft.adminpanel.config.ConfigManager;
+import de.kaicraft.adminpanel.console.ConsoleHistory;
+import de.kaicraft.adminpanel.model.ConsoleLine;
 import de.kaicraft.adminpanel.util.ApiResponse;
 import de.kaicraft.adminpanel.util.TypeScriptEndpoint;
 import io.javalin.http.Context;
@@ -10,7 +12,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * API endpoints for console management (command execution, history)
@@ -19,7 +20,7 @@ public class ConsoleAPI {
     private final ServerAdminPanelPlugin plugin;
     private final ConfigManager config;
     private final Gson gson;
-    private final Deque<String> consoleHistory;
+    private final ConsoleHistory consoleHistory;
     private final int maxHistoryLines;
 
     public ConsoleAPI(ServerAdminPanelPlugin plugin, ConfigManager config) {
@@ -27,46 +28,45 @@ public class ConsoleAPI {
         this.config = config;
         this.gson = new Gson();
         this.maxHistoryLines = config.getMaxHistoryLines();
-        this.consoleHistory = new ConcurrentLinkedDeque<>();
+        this.consoleHistory = new ConsoleHistory(maxHistoryLines);
     }
 
     /**
      * Add a line to console history
+     * @return the stored line with its sequence id
      */
-    public void addToHistory(String line) {
-        consoleHistory.addLast(line);
-
-        // Trim history if it exceeds max size
-        while (consoleHistory.size() > maxHistoryLines) {
-            consoleHistory.removeFirst();
-        }
+    public ConsoleLine addToHistory(long timestamp, String level, String logger, String message) {
+        return consoleHistory.append(timestamp, level, logger, message);
     }
 
     /**
      * GET /api/console/history
-     * Get console output history
+     * Get console output history, optionally only lines after a sequence id (?epoch=&since=)
      */
-    @TypeScriptEndpoint(path = "GET /api/v1/console/history", responseType = "{ lines: string[], total: number }")
+    @TypeScriptEndpoint(path = "GET /api/v1/console/history",
+            responseType = "{ lines: ConsoleLine[], total: number, epoch: number, lastSeq: number, truncated: boolean, reset: boolean }")
     public void getHistory(Context ctx) {
         try {
-            // Get optional limit parameter
+            // Get optional limit and since parameters
             String limitParam = ctx.queryParam("limit");
             int limit = limitParam != null ? Integer.parseInt(limitParam) : maxHistoryLines;
+            String sinceParam = ctx.queryParam("since");
+            long since = sinceParam != null ? Long.parseLong(sinceParam) : 0;
+            String epochParam = ctx.queryParam("epoch");
+            long epoch = epochParam != null ? Long.parseLong(epochParam) : 0;
 
-            // Get last N lines
-            List<String> lines = new ArrayList<>();
-            Iterator<String> iterator = consoleHistory.descendingIterator();
-            int count = 0;
-
-            while (iterator.hasNext() && count < limit) {
-                lines.add(0, iterator.next());
-                count++;
-            }
+            ConsoleHistory.Slice slice = consoleHistory.since(epoch, since, limit);
 
             Map<String, Object> data = new HashMap<>();
-            data.put("lines", lines);
+            data.put("lines", slice.lines);
             data.put("total", consoleHistory.size());
+            data.put("epoch", slice.epoch);
+            data.put("lastSeq", slice.lastSeq);
+            data.put("truncated", slice.truncated);
+            data.put("reset", slice.reset);
             ctx.status(200).json(ApiResponse.success(data));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(ApiResponse.error("Invalid limit, epoch or since parameter"));
         } catch (Exception e) {
             plugin.getAuditLogger().logApiError("GET /api/v1/console/history", e.getMessage(), e);
             ctx.status(500).json(ApiResponse.error("Failed to retrieve console history"));
@@ -145,9 +145,16 @@ public class ConsoleAPI {
     }
 
     /**
-     * Get console history as list
+     * Get console history after the given sequence id of the given epoch (0 for everything held)
+     */
+    public ConsoleHistory.Slice getHistorySince(long epoch, long since) {
+        return consoleHistory.since(epoch, since, maxHistoryLines);
+    }
+
+    /**
+     * Epoch that the sequence ids of broadcast lines belong to
      */
-    public List<String> getHistoryList() {
-        return new ArrayList<>(consoleHistory);
+    public long getHistoryEpoch() {
+        return consoleHistory.getEpoch();
     }
 }
@@ -2,15 +2,13 @@ package de.kaicraft.adminpanel.api;
 
 import com.google.gson.Gson;
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
-import de.kaicraft.adminpanel.model.DashboardStats;
+import de.kaicraft.adminpanel.metrics.MetricsSnapshot;
 import de.kaicraft.adminpanel.model.UpdateStatus;
 import de.kaicraft.adminpanel.update.PaperVersionChecker;
 import de.kaicraft.adminpanel.util.ApiResponse;
 import de.kaicraft.adminpanel.util.TypeScriptEndpoint;
 import io.javalin.http.Context;
-import org.bukkit.Bukkit;
 
-import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,57 +26,18 @@ public class DashboardAPI {
 
     /**
      * GET /api/v1/dashboard/stats
-     * Get server statistics for dashboard
+     * Get server statistics for dashboard (latest sample from the metrics collector)
      */
     @TypeScriptEndpoint(path = "/api/v1/dashboard/stats", method = "GET", description = "Get server statistics")
     public void getStats(Context ctx) {
         try {
-            // TPS (Ticks Per Second)
-            double tps = Math.round(getTPS() * 100.0) / 100.0;
-
-            // Player counts
-            int onlinePlayers = Bukkit.getOnlinePlayers().size();
-            int maxPlayers = Bukkit.getMaxPlayers();
-
-            // Memory usage
-            Runtime runtime = Runtime.getRuntime();
-            long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-            long maxMemory = runtime.maxMemory();
-
-            DashboardStats.MemoryInfo memory = new DashboardStats.MemoryInfo(
-                usedMemory,
-                maxMemory,
-                usedMemory / (1024 * 1024),
-                maxMemory / (1024 * 1024),
-                (int) Math.round((double) usedMemory / maxMemory * 100)
-            );
-
-            // Uptime
-            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
-            String uptimeFormatted = formatUptime(uptime);
-
-            // Server version
-            String version = Bukkit.getVersion();
-            String bukkitVersion = Bukkit.getBukkitVersion();
-
-            // World information
-            int worlds = Bukkit.getWorlds().size();
-
-            // Loaded chunks
-            int totalChunks = 0;
-            for (org.bukkit.World world : Bukkit.getWorlds()) {
-                totalChunks += world.getLoadedChunks().length;
+            MetricsSnapshot snapshot = plugin.getMetricsCollector().getSnapshot();
+            if (snapshot == null) {
+                ctx.status(503).json(ApiResponse.error("Server statistics are not available yet"));
+                return;
             }
 
-            // Plugin count
-            int plugins = Bukkit.getPluginManager().getPlugins().length;
-
-            DashboardStats stats = new DashboardStats(
-                tps, onlinePlayers, maxPlayers, memory, uptime, uptimeFormatted,
-                version, bukkitVersion, worlds, totalChunks, plugins
-            );
-
-            ctx.status(200).json(ApiResponse.success("stats", stats));
+            ctx.status(200).json(ApiResponse.success("stats", snapshot.getDashboardStats()));
             
         } catch (Exception e) {
             plugin.getAuditLogger().logApiError("GET /api/v1/dashboard/stats", e.getMessage(), e);
@@ -86,43 +45,6 @@ public class DashboardAPI {
         }
     }
 
-    /**
-     * Get server TPS (average of last minute)
-     */
-    private double getTPS() {
-        try {
-            // Paper API method for getting TPS
-            return Bukkit.getTPS()[0]; // 1-minute average
-        } catch (Exception e) {
-            // Fallback if Paper API not available
-            return 20.0;
-        }
-    }
-
-    /**
-     * Format uptime in human-readable format
-     */
-    private String formatUptime(long millis) {
-        long seconds = millis / 1000;
-        long minutes = seconds / 60;
-        long hours = minutes / 60;
-        long days = hours / 24;
-
-        seconds %= 60;
-        minutes %= 60;
-        hours %= 24;
-
-        if (days > 0) {
-            return String.format("%dd %dh %dm %ds", days, hours, minutes, seconds);
-        } else if (hours > 0) {
-            return String.format("%dh %dm %ds", hours, minutes, seconds);
-        } else if (minutes > 0) {
-            return String.format("%dm %ds", minutes, seconds);
-        } else {
-            return String.format("%ds", seconds);
-        }
-    }
-
     /**
      * GET /api/v1/dashboard/update-status
      * Get server update status
@@ -141,7 +63,12 @@ public class DashboardAPI {
                 status.latestBuild,
                 status.downloadUrl,
                 status.lastCheck,
-                status.needsCheck
+                status.needsCheck,
+                status.backupStatus,
+                status.backupProgress,
+                status.downloadStatus,
+                status.downloadedBytes,
+                status.downloadTotalBytes
             );
             
             ctx.json(ApiResponse.success("updateStatus", updateStatus));
@@ -1,6 +1,10 @@
 package de.kaicraft.adminpanel.api;
 
+import com.google.gson.Gson;
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.logs.IndexedLogFile;
+import de.kaicraft.adminpanel.logs.LogIndexCache;
+import de.kaicraft.adminpanel.logs.LogSearchEngine;
 import de.kaicraft.adminpanel.model.LogFileInfo;
 import de.kaicraft.adminpanel.model.LogMatch;
 import de.kaicraft.adminpanel.util.ApiResponse;
@@ -8,9 +12,12 @@ import de.kaicraft.adminpanel.util.TypeScriptEndpoint;
 import io.javalin.http.Context;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -20,13 +27,18 @@ import java.util.stream.Stream;
 public class LogViewerAPI {
     private final ServerAdminPanelPlugin plugin;
     private final Path logsDirectory;
+    private final LogIndexCache logIndex = new LogIndexCache();
+    private final LogSearchEngine searchEngine;
+    private final Gson gson = new Gson();
     private static final int MAX_SEARCH_RESULTS = 200;
     private static final int MAX_FILE_READ_LINES = 5000;
 
     public LogViewerAPI(ServerAdminPanelPlugin plugin) {
         this.plugin = plugin;
         this.logsDirectory = plugin.getDataFolder().toPath().resolve("logs");
-        
+        this.searchEngine = new LogSearchEngine(logIndex,
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
         // Create logs directory if it doesn't exist
         try {
             Files.createDirectories(logsDirectory);
@@ -43,12 +55,15 @@ public class LogViewerAPI {
     public void getLogFiles(Context ctx) {
         try {
             List<LogFileInfo> files = new ArrayList<>();
-            
+
             if (Files.exists(logsDirectory)) {
                 try (Stream<Path> paths = Files.walk(logsDirectory, 1)) {
-                    files = paths
+                    List<Path> logPaths = paths
                         .filter(Files::isRegularFile)
                         .filter(p -> p.toString().endsWith(".log"))
+                        .collect(Collectors.toList());
+                    logIndex.retain(logPaths);
+                    files = logPaths.stream()
                         .map(this::createLogFileInfo)
                         .filter(Objects::nonNull)
                         .sorted(Comparator.comparing(LogFileInfo::getModified).reversed())
@@ -64,10 +79,11 @@ public class LogViewerAPI {
     }
 
     /**
-     * GET /api/v1/logs/read/{filename}
-     * Read contents of a specific log file
+     * GET /api/v1/logs/read/{filename}?fromLine=&count= or ?tail=
+     * Read a page of a log file. fromLine is 1-based; without it the last lines are returned
+     * (tail, default and maximum 5000).
      */
-    @TypeScriptEndpoint(path = "GET /api/v1/logs/read/{filename}", responseType = "{ lines: string[] }")
+    @TypeScriptEndpoint(path = "GET /api/v1/logs/read/{filename}", responseType = "LogPage")
     public void readLogFile(Context ctx) {
         try {
             String filename = ctx.pathParam("filename");
@@ -84,19 +100,29 @@ public class LogViewerAPI {
                 return;
             }
 
+            String fromParam = ctx.queryParam("fromLine");
+            String countParam = ctx.queryParam(fromParam != null ? "count" : "tail");
+            int count = countParam != null ? Integer.parseInt(countParam) : MAX_FILE_READ_LINES;
+            count = Math.max(0, Math.min(count, MAX_FILE_READ_LINES));
+
             String username = ctx.attribute("username");
             plugin.getAuditLogger().logUserAction(username, "read-log", filename);
 
-            List<String> lines = Files.readAllLines(logFile);
-            
-            // Limit lines to prevent memory issues
-            if (lines.size() > MAX_FILE_READ_LINES) {
-                lines = lines.subList(lines.size() - MAX_FILE_READ_LINES, lines.size());
-            }
+            // Only the requested page is read, from the nearest indexed line
+            IndexedLogFile log = logIndex.get(logFile);
+            long totalLines = log.getLineCount();
+            long fromLine = fromParam != null
+                ? Math.max(0, Long.parseLong(fromParam) - 1)
+                : Math.max(0, totalLines - count);
+            List<String> lines = log.readLines(fromLine, count);
 
             Map<String, Object> data = new HashMap<>();
             data.put("lines", lines);
+            data.put("fromLine", fromLine + 1);
+            data.put("totalLines", totalLines);
             ctx.status(200).json(ApiResponse.success(data));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(ApiResponse.error("Invalid fromLine, count or tail parameter"));
         } catch (Exception e) {
             plugin.getAuditLogger().logApiError("GET /api/v1/logs/read/{filename}", e.getMessage(), e);
             ctx.status(500).json(ApiResponse.error("Failed to read log file"));
@@ -105,31 +131,46 @@ public class LogViewerAPI {
 
     /**
      * POST /api/v1/logs/search
-     * Search across log files
+     * Search across log files. Body: query, files, limit, regex, levels, from, to (ms), context.
+     * With "Accept: application/x-ndjson" each match is streamed as {"match": ...} as soon as it is
+     * found, followed by a final {"done": true, ...} line; otherwise all matches are returned at once.
      */
     @TypeScriptEndpoint(path = "POST /api/v1/logs/search", responseType = "LogMatch[]")
     public void searchLogs(Context ctx) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, Object> request = ctx.bodyAsClass(Map.class);
-            
+
             String query = (String) request.get("query");
             @SuppressWarnings("unchecked")
             List<String> fileFilter = (List<String>) request.get("files");
-            Integer limitParam = (Integer) request.get("limit");
-            int limit = limitParam != null ? Math.min(limitParam, MAX_SEARCH_RESULTS) : MAX_SEARCH_RESULTS;
+            @SuppressWarnings("unchecked")
+            List<String> levels = (List<String>) request.get("levels");
+            Number limitParam = (Number) request.get("limit");
+            int limit = limitParam != null ? Math.min(limitParam.intValue(), MAX_SEARCH_RESULTS) : MAX_SEARCH_RESULTS;
+            Number from = (Number) request.get("from");
+            Number to = (Number) request.get("to");
+            Number context = (Number) request.get("context");
 
             if (query == null || query.trim().isEmpty()) {
                 ctx.status(400).json(ApiResponse.error("Search query is required"));
                 return;
             }
 
+            LogSearchEngine.Query searchQuery;
+            try {
+                searchQuery = new LogSearchEngine.Query(query, Boolean.TRUE.equals(request.get("regex")),
+                    levels != null ? levels : List.of(),
+                    from != null ? from.longValue() : 0, to != null ? to.longValue() : 0,
+                    context != null ? context.intValue() : 0, limit);
+            } catch (PatternSyntaxException e) {
+                ctx.status(400).json(ApiResponse.error("Invalid regular expression: " + e.getDescription()));
+                return;
+            }
+
             String username = ctx.attribute("username");
             plugin.getAuditLogger().logUserAction(username, "search-logs", query);
 
-            List<LogMatch> matches = new ArrayList<>();
-            String searchTerm = query.toLowerCase();
-
             // Get files to search
             List<Path> filesToSearch;
             if (fileFilter != null && !fileFilter.isEmpty()) {
@@ -146,24 +187,15 @@ public class LogViewerAPI {
                 }
             }
 
-            // Search through files
-            for (Path file : filesToSearch) {
-                if (matches.size() >= limit) break;
-
-                try {
-                    List<String> lines = Files.readAllLines(file);
-                    for (int i = 0; i < lines.size() && matches.size() < limit; i++) {
-                        String line = lines.get(i);
-                        if (line.toLowerCase().contains(searchTerm)) {
-                            LogMatch match = new LogMatch(i + 1, line, file.getFileName().toString());
-                            matches.add(match);
-                        }
-                    }
-                } catch (IOException e) {
-                    plugin.getLogger().warning("Failed to search file " + file.getFileName() + ": " + e.getMessage());
-                }
+            String accept = ctx.header("Accept");
+            if (accept != null && accept.contains("application/x-ndjson")) {
+                streamSearch(ctx, filesToSearch, searchQuery);
+                return;
             }
 
+            List<LogMatch> matches = Collections.synchronizedList(new ArrayList<>());
+            searchEngine.search(filesToSearch, searchQuery, matches::add);
+
             ctx.status(200).json(ApiResponse.success("matches", matches));
         } catch (Exception e) {
             plugin.getAuditLogger().logApiError("POST /api/v1/logs/search", e.getMessage(), e);
@@ -171,6 +203,52 @@ public class LogViewerAPI {
         }
     }
 
+    /**
+     * Write matches as newline-delimited JSON while the search is still running
+     */
+    private void streamSearch(Context ctx, List<Path> files, LogSearchEngine.Query query) throws IOException {
+        ctx.status(200);
+        ctx.contentType("application/x-ndjson");
+        ctx.header("Cache-Control", "no-cache");
+        OutputStream out = ctx.res().getOutputStream();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        AtomicBoolean clientGone = new AtomicBoolean();
+        try {
+            LogSearchEngine.Summary result = searchEngine.search(files, query, match -> {
+                try {
+                    writeLine(out, Map.of("match", match));
+                } catch (IOException e) {
+                    clientGone.set(true);
+                    throw e;
+                }
+            });
+            summary.put("done", true);
+            summary.put("matches", result.matches);
+            summary.put("limitReached", result.limitReached);
+            summary.put("filesSearched", result.filesSearched);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            summary.put("error", "Search interrupted");
+        } catch (IOException e) {
+            if (clientGone.get()) {
+                return; // The client went away; the search stopped with it
+            }
+            plugin.getAuditLogger().logApiError("POST /api/v1/logs/search", e.getMessage(), e);
+            summary.put("error", "Failed to search logs");
+        }
+        try {
+            writeLine(out, summary);
+        } catch (IOException ignored) {
+            // The client is gone
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write((gson.toJson(value) + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
     /**
      * GET /api/v1/logs/download/{filename}
      * Download a log file
@@ -224,21 +302,21 @@ public class LogViewerAPI {
                 type = "server";
             }
             
-            long size = Files.size(path);
-            long modified = Files.getLastModifiedTime(path).toMillis();
-            
-            // Count lines (optional, can be slow for large files)
-            int lines = 0;
-            try {
-                lines = (int) Files.lines(path).count();
-            } catch (Exception e) {
-                // Skip line count if it fails
-            }
-            
-            return new LogFileInfo(name, type, size, modified, lines);
+            // Size and line count come from the index, which only reads what was appended since last time
+            IndexedLogFile log = logIndex.get(path);
+            int lines = (int) Math.min(Integer.MAX_VALUE, log.getLineCount());
+
+            return new LogFileInfo(name, type, log.getSize(), log.getLastModified(), lines);
         } catch (IOException e) {
             plugin.getLogger().warning("Failed to get info for log file " + path.getFileName() + ": " + e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Stop the search threads when the web server shuts down
+     */
+    public void shutdown() {
+        searchEngine.shutdown();
+    }
 }
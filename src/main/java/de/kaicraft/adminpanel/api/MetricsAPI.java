@@ -0,0 +1,54 @@
+package de.kaicraft.adminpanel.api;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.metrics.Metric;
+import de.kaicraft.adminpanel.metrics.MetricsHistory;
+import de.kaicraft.adminpanel.util.ApiResponse;
+import de.kaicraft.adminpanel.util.TypeScriptEndpoint;
+import io.javalin.http.Context;
+
+/**
+ * API endpoints for historical server metrics
+ */
+public class MetricsAPI {
+    private static final long DEFAULT_RANGE_MS = 3600_000L;
+
+    private final ServerAdminPanelPlugin plugin;
+
+    public MetricsAPI(ServerAdminPanelPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * GET /api/v1/metrics/series?metric=tps&from=&to=&step=
+     * Downsampled min/max/avg of one metric. from/to are epoch milliseconds
+     * (default: the last hour), step is the bucket size in seconds (default: about 300 points).
+     */
+    @TypeScriptEndpoint(path = "GET /api/v1/metrics/series", responseType = "MetricSeries")
+    public void getSeries(Context ctx) {
+        try {
+            Metric metric = Metric.fromKey(ctx.queryParam("metric"));
+            if (metric == null) {
+                ctx.status(400).json(ApiResponse.error("Unknown metric"));
+                return;
+            }
+
+            String toParam = ctx.queryParam("to");
+            String fromParam = ctx.queryParam("from");
+            String stepParam = ctx.queryParam("step");
+            long to = toParam != null ? Long.parseLong(toParam) : System.currentTimeMillis();
+            long from = fromParam != null ? Long.parseLong(fromParam) : to - DEFAULT_RANGE_MS;
+            int step = stepParam != null ? Integer.parseInt(stepParam) : 0;
+
+            MetricsHistory history = plugin.getMetricsCollector().getHistory();
+            ctx.status(200).json(ApiResponse.success(history.query(metric, from, to, step)));
+        } catch (NumberFormatException e) {
+            ctx.status(400).json(ApiResponse.error("Invalid from, to or step parameter"));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            plugin.getAuditLogger().logApiError("GET /api/v1/metrics/series", e.getMessage(), e);
+            ctx.status(500).json(ApiResponse.error("Failed to retrieve metrics"));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package de.kaicraft.adminpanel.api;
 
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.events.PlayerPresenceTracker;
 import de.kaicraft.adminpanel.stats.PlayerStatsManager;
 import de.kaicraft.adminpanel.util.ApiResponse;
 import de.kaicraft.adminpanel.util.TypeScriptEndpoint;
@@ -9,14 +10,17 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * API endpoints for player management
  */
 public class PlayerAPI {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final ServerAdminPanelPlugin plugin;
     private final PlayerStatsManager statsManager;
+    private final PlayerPresenceTracker presenceTracker;
 
     /**
      * Request body for kick player endpoint
@@ -40,59 +44,98 @@ public class PlayerAPI {
         public Long expiresAt; // null for permanent ban
     }
 
-    public PlayerAPI(ServerAdminPanelPlugin plugin, PlayerStatsManager statsManager) {
+    public PlayerAPI(ServerAdminPanelPlugin plugin, PlayerStatsManager statsManager,
+                     PlayerPresenceTracker presenceTracker) {
         this.plugin = plugin;
         this.statsManager = statsManager;
+        this.presenceTracker = presenceTracker;
     }
 
     /**
-     * GET /api/players
-     * Get list of all players (online and offline)
+     * GET /api/players?limit=&cursor=&sort=&q=
+     * Get one page of players (online and offline), newest first or by name.
+     * Pass the returned nextCursor to fetch the following page.
      */
-    @TypeScriptEndpoint(path = "GET /api/v1/players", responseType = "{ players: PlayerInfo[] }")
+    @TypeScriptEndpoint(path = "GET /api/v1/players", responseType = "{ players: PlayerInfo[], nextCursor: string | null, onlineCount: number }")
     public void getPlayers(Context ctx) {
         try {
-            List<Map<String, Object>> allPlayers = statsManager.getAllPlayers();
-
-            // Get online player UUIDs
-            Set<String> onlineUUIDs = Bukkit.getOnlinePlayers().stream()
-                    .map(p -> p.getUniqueId().toString())
-                    .collect(Collectors.toSet());
-
-            // Get ban list
-            org.bukkit.BanList banList = Bukkit.getBanList(org.bukkit.BanList.Type.NAME);
-
-            // Enrich with online status
-            allPlayers.forEach(player -> {
-                player.put("online", onlineUUIDs.contains(player.get("uuid")));
-                // Check if player is banned
-                String playerName = (String) player.get("name");
-                player.put("banned", banList.isBanned(playerName));
-            });
-
-            // Add current online players not yet in database
+            String limitParam = ctx.queryParam("limit");
+            int limit = limitParam != null ? Integer.parseInt(limitParam) : DEFAULT_PAGE_SIZE;
+            limit = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+            String cursor = ctx.queryParam("cursor");
+            String query = ctx.queryParam("q");
+            String prefix = query != null ? query.trim() : null;
+            PlayerStatsManager.PlayerSort sort = PlayerStatsManager.PlayerSort.fromParam(ctx.queryParam("sort"));
+
+            PlayerStatsManager.PlayerPage page = statsManager.getPlayerPage(sort, cursor, prefix, limit);
+            List<Map<String, Object>> players = page.getPlayers();
+
+            Map<UUID, Player> online = new HashMap<>();
             for (Player player : Bukkit.getOnlinePlayers()) {
-                String uuid = player.getUniqueId().toString();
-                if (!allPlayers.stream().anyMatch(p -> p.get("uuid").equals(uuid))) {
+                online.put(player.getUniqueId(), player);
+            }
+            Set<String> bannedNames = getBannedNames();
+
+            for (Map<String, Object> player : players) {
+                player.put("online", online.containsKey(UUID.fromString((String) player.get("uuid"))));
+                player.put("banned", isBanned(bannedNames, (String) player.get("name")));
+            }
+
+            // Players who joined moments ago may not have a row yet; show them on the first page
+            if (cursor == null || cursor.isEmpty()) {
+                long now = System.currentTimeMillis();
+                for (UUID uuid : statsManager.findUnrecordedPlayers(online.keySet())) {
+                    Player player = online.get(uuid);
+                    if (prefix != null && !player.getName().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                        continue;
+                    }
                     Map<String, Object> playerData = new HashMap<>();
-                    playerData.put("uuid", uuid);
+                    playerData.put("uuid", uuid.toString());
                     playerData.put("name", player.getName());
                     playerData.put("online", true);
-                    playerData.put("banned", banList.isBanned(player.getName()));
-                    playerData.put("firstJoin", System.currentTimeMillis());
-                    playerData.put("lastSeen", System.currentTimeMillis());
+                    playerData.put("banned", isBanned(bannedNames, player.getName()));
+                    playerData.put("firstJoin", now);
+                    playerData.put("lastSeen", now);
                     playerData.put("totalPlaytime", 0L);
-                    allPlayers.add(playerData);
+                    players.add(0, playerData);
                 }
             }
 
-            ctx.status(200).json(ApiResponse.success("players", allPlayers));
+            Map<String, Object> response = new HashMap<>();
+            response.put("players", players);
+            response.put("nextCursor", page.getNextCursor());
+            response.put("onlineCount", online.size());
+
+            ctx.status(200).json(ApiResponse.success(response));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException from the limit parameter
+            ctx.status(400).json(ApiResponse.error("Invalid limit or cursor parameter"));
         } catch (Exception e) {
             plugin.getAuditLogger().logApiError("GET /api/v1/players", e.getMessage(), e);
             ctx.status(500).json(ApiResponse.error("Failed to retrieve players"));
         }
     }
 
+    /**
+     * Lower-cased names with an active ban, built once per request instead of a ban lookup per row
+     */
+    private Set<String> getBannedNames() {
+        Set<String> names = new HashSet<>();
+        org.bukkit.BanList banList = Bukkit.getBanList(org.bukkit.BanList.Type.NAME);
+        Date now = new Date();
+        for (Object value : banList.getEntries()) {
+            org.bukkit.BanEntry<?> entry = (org.bukkit.BanEntry<?>) value;
+            if (entry.getExpiration() == null || entry.getExpiration().after(now)) {
+                names.add(entry.getTarget().toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    private static boolean isBanned(Set<String> bannedNames, String name) {
+        return name != null && bannedNames.contains(name.toLowerCase(Locale.ROOT));
+    }
+
     /**
      * GET /api/players/{uuid}
      * Get specific player details
@@ -249,6 +292,7 @@ public class PlayerAPI {
                 org.bukkit.BanList banList = Bukkit.getBanList(org.bukkit.BanList.Type.NAME);
                 java.util.Date expiresDate = body.expiresAt != null ? new java.util.Date(body.expiresAt) : null;
                 banList.addBan(playerName, reason, expiresDate, username);
+                presenceTracker.recordBan(uuid, playerName, true, reason);
 
                 // Kick if online
                 if (player != null && player.isOnline()) {
@@ -292,6 +336,7 @@ public class PlayerAPI {
             Bukkit.getScheduler().runTask(plugin, () -> {
                 org.bukkit.BanList banList = Bukkit.getBanList(org.bukkit.BanList.Type.NAME);
                 banList.pardon(playerName);
+                presenceTracker.recordBan(uuid, playerName, false, null);
             });
 
             Map<String, Object> data = new HashMap<>();
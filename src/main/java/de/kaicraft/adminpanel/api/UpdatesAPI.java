@@ -6,6 +6,7 @@ import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
 import de.kaicraft.adminpanel.backup.BackupManager;
 import de.kaicraft.adminpanel.database.DatabaseManager;
 import de.kaicraft.adminpanel.model.UpdateStatus;
+import de.kaicraft.adminpanel.scheduler.DeadlineScheduler;
 import de.kaicraft.adminpanel.update.PaperVersionChecker;
 import de.kaicraft.adminpanel.util.ApiResponse;
 import io.javalin.http.Context;
@@ -17,11 +18,12 @@ import java.util.*;
  * API endpoints for update management and history
  */
 public class UpdatesAPI {
+    private static final long STARTUP_DELAY_MS = 60_000;
+
     private final ServerAdminPanelPlugin plugin;
     private final DatabaseManager databaseManager;
     private final BackupManager backupManager;
     private final Gson gson;
-    private int schedulerTaskId = -1;
 
     public UpdatesAPI(ServerAdminPanelPlugin plugin, DatabaseManager databaseManager, BackupManager backupManager) {
         this.plugin = plugin;
@@ -31,15 +33,19 @@ public class UpdatesAPI {
     }
 
     /**
-     * Start the scheduler to check for scheduled updates
+     * Arm the timers of all pending scheduled updates
      */
     public void startScheduler() {
-        schedulerTaskId = plugin.getServer().getScheduler().runTaskTimerAsynchronously(
-            plugin,
-            this::checkScheduledUpdates,
-            20L * 60,  // 1 minute initial delay
-            20L * 60   // 1 minute period
-        ).getTaskId();
+        try {
+            // Updates that fell due while the server was down run shortly after startup
+            long earliest = System.currentTimeMillis() + STARTUP_DELAY_MS;
+            String query = "SELECT * FROM scheduled_updates WHERE status = 'pending'";
+            for (Map<String, Object> row : databaseManager.query(query, this::mapScheduledUpdate)) {
+                armScheduledUpdate((Integer) row.get("id"), Math.max((Long) row.get("scheduledTime"), earliest));
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Error loading scheduled updates: " + e.getMessage());
+        }
 
         plugin.getLogger().info("Update scheduler started");
     }
@@ -48,79 +54,95 @@ public class UpdatesAPI {
      * Stop the scheduler
      */
     public void stopScheduler() {
-        if (schedulerTaskId != -1) {
-            plugin.getServer().getScheduler().cancelTask(schedulerTaskId);
-            schedulerTaskId = -1;
+        DeadlineScheduler scheduler = plugin.getDeadlineScheduler();
+        if (scheduler == null) return;
+        try {
+            String query = "SELECT * FROM scheduled_updates WHERE status = 'pending'";
+            for (Map<String, Object> row : databaseManager.query(query, this::mapScheduledUpdate)) {
+                scheduler.cancel(scheduleKey((Integer) row.get("id")));
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Error stopping update scheduler: " + e.getMessage());
+        }
+    }
+
+    private static String scheduleKey(int id) {
+        return "scheduled-update:" + id;
+    }
+
+    private void armScheduledUpdate(int id, long dueAt) {
+        DeadlineScheduler scheduler = plugin.getDeadlineScheduler();
+        if (scheduler != null) {
+            scheduler.schedule(scheduleKey(id), dueAt, () -> executeScheduledUpdate(id));
         }
     }
 
     /**
-     * Check for pending scheduled updates
+     * Timer callback: install a scheduled update unless it was cancelled in the meantime
      */
-    private void checkScheduledUpdates() {
+    private void executeScheduledUpdate(int id) {
         try {
-            long currentTime = System.currentTimeMillis();
-
-            String query = "SELECT * FROM scheduled_updates WHERE status = 'pending' AND scheduled_time <= ?";
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setLong(1, currentTime);
-                ResultSet rs = stmt.executeQuery();
-
-                while (rs.next()) {
-                    int id = rs.getInt("id");
-                    String version = rs.getString("version");
-                    int buildNumber = rs.getInt("build_number");
-                    String createdBy = rs.getString("created_by");
-
-                    plugin.getLogger().info("Executing scheduled update: " + version + " build #" + buildNumber);
-
-                    // Mark as executing
-                    updateScheduledUpdateStatus(id, "executing", null);
-
-                    // Run installation on main thread
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        try {
-                            PaperVersionChecker checker = plugin.getVersionChecker();
-
-                            // Record the update history before installation
-                            recordUpdateHistory(checker, createdBy, true, null);
-
-                            // Execute installation
-                            checker.installUpdate().thenAccept(result -> {
-                                if (result.success) {
-                                    updateScheduledUpdateStatus(id, "completed", System.currentTimeMillis());
-                                } else {
-                                    updateScheduledUpdateStatus(id, "failed", System.currentTimeMillis());
-                                }
-                            });
-                        } catch (Exception e) {
-                            plugin.getLogger().warning("Scheduled update failed: " + e.getMessage());
+            Map<String, Object> row = databaseManager.queryOne(
+                "SELECT * FROM scheduled_updates WHERE id = ?", this::mapScheduledUpdate, id);
+            // Claim the row so a cancel racing with the timer cannot also win
+            int claimed = databaseManager.update(
+                "UPDATE scheduled_updates SET status = 'executing' WHERE id = ? AND status = 'pending'", id);
+            if (row == null || claimed == 0) {
+                return;
+            }
+
+            String version = (String) row.get("version");
+            int buildNumber = (Integer) row.get("buildNumber");
+            String createdBy = (String) row.get("createdBy");
+
+            plugin.getLogger().info("Executing scheduled update: " + version + " build #" + buildNumber);
+
+            // Run installation on main thread
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                try {
+                    PaperVersionChecker checker = plugin.getVersionChecker();
+
+                    // Record the update history before installation
+                    recordUpdateHistory(checker, createdBy, true, null);
+
+                    // Execute installation
+                    checker.installUpdate().thenAccept(result -> {
+                        if (result.success) {
+                            updateScheduledUpdateStatus(id, "completed", System.currentTimeMillis());
+                        } else {
                             updateScheduledUpdateStatus(id, "failed", System.currentTimeMillis());
                         }
                     });
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Scheduled update failed: " + e.getMessage());
+                    updateScheduledUpdateStatus(id, "failed", System.currentTimeMillis());
                 }
-            }
+            });
         } catch (SQLException e) {
-            plugin.getLogger().warning("Error checking scheduled updates: " + e.getMessage());
+            plugin.getLogger().warning("Error executing scheduled update " + id + ": " + e.getMessage());
         }
     }
 
+    private Map<String, Object> mapScheduledUpdate(ResultSet rs) throws SQLException {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", rs.getInt("id"));
+        entry.put("scheduledTime", rs.getLong("scheduled_time"));
+        entry.put("version", rs.getString("version"));
+        entry.put("buildNumber", rs.getInt("build_number"));
+        entry.put("createdBy", rs.getString("created_by"));
+        entry.put("createdAt", rs.getLong("created_at"));
+        entry.put("status", rs.getString("status"));
+        entry.put("notes", rs.getString("notes"));
+        return entry;
+    }
+
     /**
      * Update the status of a scheduled update
      */
     private void updateScheduledUpdateStatus(int id, String status, Long executedAt) {
         try {
             String query = "UPDATE scheduled_updates SET status = ?, executed_at = ? WHERE id = ?";
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setString(1, status);
-                if (executedAt != null) {
-                    stmt.setLong(2, executedAt);
-                } else {
-                    stmt.setNull(2, Types.INTEGER);
-                }
-                stmt.setInt(3, id);
-                stmt.executeUpdate();
-            }
+            databaseManager.update(query, status, executedAt, id);
         } catch (SQLException e) {
             plugin.getLogger().warning("Error updating scheduled update status: " + e.getMessage());
         }
@@ -144,7 +166,10 @@ public class UpdatesAPI {
                 status.lastCheck,
                 status.needsCheck,
                 status.backupStatus,
-                status.backupProgress
+                status.backupProgress,
+                status.downloadStatus,
+                status.downloadedBytes,
+                status.downloadTotalBytes
             );
 
             ctx.json(ApiResponse.success("updateStatus", updateStatus));
@@ -206,7 +231,7 @@ public class UpdatesAPI {
                 }
             });
 
-            ctx.json(ApiResponse.successMessage("Update download started. Check server logs for progress."));
+            ctx.json(ApiResponse.successMessage("Update download started"));
 
         } catch (Exception e) {
             plugin.getLogger().warning("Error downloading update: " + e.getMessage());
@@ -257,39 +282,30 @@ public class UpdatesAPI {
      * GET /api/v1/updates/history - Get update history
      */
     public void getHistory(Context ctx) {
-        try {
-            List<Map<String, Object>> history = new ArrayList<>();
-
-            String query = "SELECT * FROM update_history ORDER BY updated_at DESC LIMIT 50";
-            try (Statement stmt = databaseManager.getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-
-                while (rs.next()) {
-                    Map<String, Object> entry = new HashMap<>();
-                    entry.put("id", rs.getInt("id"));
-                    entry.put("fromVersion", rs.getString("from_version"));
-                    entry.put("fromBuild", rs.getInt("from_build"));
-                    entry.put("toVersion", rs.getString("to_version"));
-                    entry.put("toBuild", rs.getInt("to_build"));
-                    entry.put("updatedAt", rs.getLong("updated_at"));
-                    entry.put("updatedBy", rs.getString("updated_by"));
-                    entry.put("backupCreated", rs.getBoolean("backup_created"));
-                    entry.put("backupFilename", rs.getString("backup_filename"));
-                    entry.put("success", rs.getBoolean("success"));
-                    entry.put("notes", rs.getString("notes"));
-                    history.add(entry);
-                }
-            }
-
-            ctx.json(Map.of(
+        // Read on the database reader pool so the request thread is not held while SQLite works
+        String query = "SELECT * FROM update_history ORDER BY updated_at DESC LIMIT 50";
+        ctx.future(() -> databaseManager.queryAsync(query, rs -> {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("id", rs.getInt("id"));
+                entry.put("fromVersion", rs.getString("from_version"));
+                entry.put("fromBuild", rs.getInt("from_build"));
+                entry.put("toVersion", rs.getString("to_version"));
+                entry.put("toBuild", rs.getInt("to_build"));
+                entry.put("updatedAt", rs.getLong("updated_at"));
+                entry.put("updatedBy", rs.getString("updated_by"));
+                entry.put("backupCreated", rs.getBoolean("backup_created"));
+                entry.put("backupFilename", rs.getString("backup_filename"));
+                entry.put("success", rs.getBoolean("success"));
+                entry.put("notes", rs.getString("notes"));
+                return entry;
+            }).thenAccept(history -> ctx.json(Map.of(
                 "success", true,
                 "history", history
-            ));
-
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Error getting update history: " + e.getMessage());
-            ctx.status(500).json(ApiResponse.error("Failed to get update history"));
-        }
+            ))).exceptionally(e -> {
+                plugin.getLogger().warning("Error getting update history: " + e.getMessage());
+                ctx.status(500).json(ApiResponse.error("Failed to get update history"));
+                return null;
+            }));
     }
 
     /**
@@ -330,32 +346,22 @@ public class UpdatesAPI {
                 VALUES (?, ?, ?, ?, ?, 'pending', ?)
             """;
 
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query,
-                    Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setLong(1, scheduledTime);
-                stmt.setString(2, status.latestVersion);
-                stmt.setInt(3, Integer.parseInt(status.latestBuild));
-                stmt.setString(4, username);
-                stmt.setLong(5, System.currentTimeMillis());
-                stmt.setString(6, notes);
-                stmt.executeUpdate();
+            long id = databaseManager.insert(query, scheduledTime, status.latestVersion,
+                Integer.parseInt(status.latestBuild), username, System.currentTimeMillis(), notes);
+            armScheduledUpdate((int) id, scheduledTime);
 
-                ResultSet keys = stmt.getGeneratedKeys();
-                int id = keys.next() ? keys.getInt(1) : -1;
-
-                if (plugin.getAuditLogger() != null) {
-                    plugin.getAuditLogger().logUserAction(username, "schedule-update",
-                        "Scheduled update to build #" + status.latestBuild + " for " + new java.util.Date(scheduledTime));
-                }
-
-                ctx.json(Map.of(
-                    "success", true,
-                    "message", "Update scheduled successfully",
-                    "id", id,
-                    "scheduledTime", scheduledTime
-                ));
+            if (plugin.getAuditLogger() != null) {
+                plugin.getAuditLogger().logUserAction(username, "schedule-update",
+                    "Scheduled update to build #" + status.latestBuild + " for " + new java.util.Date(scheduledTime));
             }
 
+            ctx.json(Map.of(
+                "success", true,
+                "message", "Update scheduled successfully",
+                "id", id,
+                "scheduledTime", scheduledTime
+            ));
+
         } catch (SQLException e) {
             plugin.getLogger().warning("Error scheduling update: " + e.getMessage());
             ctx.status(500).json(ApiResponse.error("Failed to schedule update"));
@@ -369,36 +375,16 @@ public class UpdatesAPI {
      * GET /api/v1/updates/scheduled - Get all scheduled updates
      */
     public void getScheduledUpdates(Context ctx) {
-        try {
-            List<Map<String, Object>> updates = new ArrayList<>();
-
-            String query = "SELECT * FROM scheduled_updates WHERE status IN ('pending', 'executing') ORDER BY scheduled_time ASC";
-            try (Statement stmt = databaseManager.getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-
-                while (rs.next()) {
-                    Map<String, Object> entry = new HashMap<>();
-                    entry.put("id", rs.getInt("id"));
-                    entry.put("scheduledTime", rs.getLong("scheduled_time"));
-                    entry.put("version", rs.getString("version"));
-                    entry.put("buildNumber", rs.getInt("build_number"));
-                    entry.put("createdBy", rs.getString("created_by"));
-                    entry.put("createdAt", rs.getLong("created_at"));
-                    entry.put("status", rs.getString("status"));
-                    entry.put("notes", rs.getString("notes"));
-                    updates.add(entry);
-                }
-            }
-
-            ctx.json(Map.of(
+        String query = "SELECT * FROM scheduled_updates WHERE status IN ('pending', 'executing') ORDER BY scheduled_time ASC";
+        ctx.future(() -> databaseManager.queryAsync(query, this::mapScheduledUpdate)
+            .thenAccept(updates -> ctx.json(Map.of(
                 "success", true,
                 "scheduledUpdates", updates
-            ));
-
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Error getting scheduled updates: " + e.getMessage());
-            ctx.status(500).json(ApiResponse.error("Failed to get scheduled updates"));
-        }
+            ))).exceptionally(e -> {
+                plugin.getLogger().warning("Error getting scheduled updates: " + e.getMessage());
+                ctx.status(500).json(ApiResponse.error("Failed to get scheduled updates"));
+                return null;
+            }));
     }
 
     /**
@@ -411,24 +397,23 @@ public class UpdatesAPI {
             if (username == null) username = "unknown";
 
             String query = "UPDATE scheduled_updates SET status = 'cancelled', cancelled_at = ? WHERE id = ? AND status = 'pending'";
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setLong(1, System.currentTimeMillis());
-                stmt.setInt(2, id);
-                int updated = stmt.executeUpdate();
-
-                if (updated > 0) {
-                    if (plugin.getAuditLogger() != null) {
-                        plugin.getAuditLogger().logUserAction(username, "cancel-scheduled-update",
-                            "Cancelled scheduled update ID: " + id);
-                    }
-
-                    ctx.json(Map.of(
-                        "success", true,
-                        "message", "Scheduled update cancelled"
-                    ));
-                } else {
-                    ctx.status(404).json(ApiResponse.error("Scheduled update not found or already executed"));
+            int updated = databaseManager.update(query, System.currentTimeMillis(), id);
+
+            if (updated > 0) {
+                if (plugin.getDeadlineScheduler() != null) {
+                    plugin.getDeadlineScheduler().cancel(scheduleKey(id));
+                }
+                if (plugin.getAuditLogger() != null) {
+                    plugin.getAuditLogger().logUserAction(username, "cancel-scheduled-update",
+                        "Cancelled scheduled update ID: " + id);
                 }
+
+                ctx.json(Map.of(
+                    "success", true,
+                    "message", "Scheduled update cancelled"
+                ));
+            } else {
+                ctx.status(404).json(ApiResponse.error("Scheduled update not found or already executed"));
             }
 
         } catch (NumberFormatException e) {
@@ -462,18 +447,9 @@ public class UpdatesAPI {
                 VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
 
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setString(1, status.currentVersion);
-                stmt.setInt(2, fromBuild);
-                stmt.setString(3, status.latestVersion);
-                stmt.setInt(4, Integer.parseInt(status.latestBuild));
-                stmt.setLong(5, System.currentTimeMillis());
-                stmt.setString(6, username);
-                stmt.setBoolean(7, backupCreated);
-                stmt.setString(8, backupFilename);
-                stmt.setBoolean(9, true);
-                stmt.executeUpdate();
-            }
+            databaseManager.update(query, status.currentVersion, fromBuild, status.latestVersion,
+                Integer.parseInt(status.latestBuild), System.currentTimeMillis(), username,
+                backupCreated, backupFilename, true);
 
         } catch (SQLException e) {
             plugin.getLogger().warning("Error recording update history: " + e.getMessage());
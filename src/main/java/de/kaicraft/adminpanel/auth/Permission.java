@@ -61,6 +61,7 @@ public enum Permission {
     CREATE_BACKUP("create_backup", "Create Backups", "backup"),
     DELETE_BACKUP("delete_backup", "Delete Backups", "backup"),
     DOWNLOAD_BACKUP("download_backup", "Download Backups", "backup"),
+    RESTORE_BACKUP("restore_backup", "Restore Backups", "backup"),
     MANAGE_AUTO_BACKUP("manage_auto_backup", "Manage Auto-Backup Settings", "backup"),
 
     // System Admin (cannot be revoked from ADMIN role)
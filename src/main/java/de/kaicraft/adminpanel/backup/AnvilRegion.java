@@ -0,0 +1,207 @@
+package de.kaicraft.adminpanel.backup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and rebuilds Anvil region files (.mca).
+ *
+ * A region file starts with two 4 KiB tables of 1024 entries: the chunk
+ * locations (3-byte sector offset, 1-byte sector count) and the time each
+ * chunk was last saved. A chunk is a 4-byte length, a compression type byte
+ * and the already compressed payload. Backups keep the type byte plus payload
+ * of every chunk as one block, so region files can be rebuilt from blocks.
+ */
+public final class AnvilRegion {
+    public static final int SECTOR_SIZE = 4096;
+    public static final int CHUNK_SLOTS = 1024;
+    private static final int HEADER_SIZE = 2 * SECTOR_SIZE;
+    private static final int MAX_SECTOR_COUNT = 255;
+
+    private AnvilRegion() {
+    }
+
+    /**
+     * Whether a file name looks like a region file (region/, entities/ and poi/ all use the format)
+     */
+    public static boolean isRegionFile(String path) {
+        return path.endsWith(".mca");
+    }
+
+    /**
+     * Read both header tables
+     * @return null if the file is too short to be a region file
+     */
+    public static Header readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                return null;
+            }
+        }
+        buffer.flip();
+
+        int[] locations = new int[CHUNK_SLOTS];
+        int[] timestamps = new int[CHUNK_SLOTS];
+        for (int i = 0; i < CHUNK_SLOTS; i++) {
+            locations[i] = buffer.getInt();
+        }
+        for (int i = 0; i < CHUNK_SLOTS; i++) {
+            timestamps[i] = buffer.getInt();
+        }
+        return new Header(locations, timestamps);
+    }
+
+    /**
+     * Read the compression type byte and payload of one chunk
+     * @return null if the location does not point at a well-formed chunk
+     */
+    public static byte[] readChunk(FileChannel channel, int location) throws IOException {
+        long offset = (long) (location >>> 8) * SECTOR_SIZE;
+        int sectors = location & 0xFF;
+        if (offset < HEADER_SIZE || sectors == 0 || offset + 5 > channel.size()) {
+            return null;
+        }
+
+        ByteBuffer prefix = ByteBuffer.allocate(4);
+        channel.read(prefix, offset);
+        prefix.flip();
+        if (prefix.remaining() < 4) {
+            return null;
+        }
+        int length = prefix.getInt();
+        // The length covers the type byte and must fit in the sectors the header gives the chunk
+        if (length < 1 || length + 4L > (long) sectors * SECTOR_SIZE) {
+            return null;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(length);
+        long position = offset + 4;
+        while (data.hasRemaining()) {
+            int n = channel.read(data, position + data.position());
+            if (n < 0) {
+                return null;
+            }
+        }
+        return data.array();
+    }
+
+    /**
+     * Rebuild a region file with the chunks packed one after another
+     */
+    public static void write(List<ChunkRef> chunks, ChunkLoader loader, OutputStream out) throws IOException {
+        byte[][] data = new byte[chunks.size()][];
+        int[] locations = new int[CHUNK_SLOTS];
+        int[] timestamps = new int[CHUNK_SLOTS];
+        int sector = HEADER_SIZE / SECTOR_SIZE;
+
+        for (int i = 0; i < chunks.size(); i++) {
+            ChunkRef chunk = chunks.get(i);
+            data[i] = loader.load(chunk.hash);
+            int sectors = (4 + data[i].length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+            if (sectors > MAX_SECTOR_COUNT) {
+                throw new IOException("Chunk " + chunk.slot + " does not fit in a region file");
+            }
+            locations[chunk.slot] = (sector << 8) | sectors;
+            timestamps[chunk.slot] = chunk.timestamp;
+            sector += sectors;
+        }
+
+        DataOutputStream dos = new DataOutputStream(out);
+        for (int location : locations) {
+            dos.writeInt(location);
+        }
+        for (int timestamp : timestamps) {
+            dos.writeInt(timestamp);
+        }
+        byte[] padding = new byte[SECTOR_SIZE];
+        for (byte[] chunk : data) {
+            dos.writeInt(chunk.length);
+            dos.write(chunk);
+            int used = (4 + chunk.length) % SECTOR_SIZE;
+            if (used != 0) {
+                dos.write(padding, 0, SECTOR_SIZE - used);
+            }
+        }
+        dos.flush();
+    }
+
+    /**
+     * Serialize the chunk list of a region: count, then slot, timestamp and block hash per chunk
+     */
+    public static byte[] encodeIndex(List<ChunkRef> chunks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + chunks.size() * 38);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(chunks.size());
+            for (ChunkRef chunk : chunks) {
+                out.writeShort(chunk.slot);
+                out.writeInt(chunk.timestamp);
+                out.write(chunk.hash);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static List<ChunkRef> decodeIndex(byte[] index, int hashLength) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+        int count = in.readUnsignedShort();
+        List<ChunkRef> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = in.readUnsignedShort();
+            int timestamp = in.readInt();
+            byte[] hash = new byte[hashLength];
+            in.readFully(hash);
+            chunks.add(new ChunkRef(slot, timestamp, hash));
+        }
+        return chunks;
+    }
+
+    /**
+     * Location and timestamp tables of a region file
+     */
+    public static class Header {
+        public final int[] locations;
+        public final int[] timestamps;
+
+        public Header(int[] locations, int[] timestamps) {
+            this.locations = locations;
+            this.timestamps = timestamps;
+        }
+    }
+
+    /**
+     * One chunk of a backed-up region: its slot, save time and the block holding its data
+     */
+    public static class ChunkRef {
+        public final int slot;
+        public final int timestamp;
+        public final byte[] hash;
+
+        public ChunkRef(int slot, int timestamp, byte[] hash) {
+            this.slot = slot;
+            this.timestamp = timestamp;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Source of chunk data by block hash
+     */
+    @FunctionalInterface
+    public interface ChunkLoader {
+        byte[] load(byte[] hash) throws IOException;
+    }
+}
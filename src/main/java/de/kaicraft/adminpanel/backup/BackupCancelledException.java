@@ -0,0 +1,12 @@
+package de.kaicraft.adminpanel.backup;
+
+import java.io.IOException;
+
+/**
+ * Thrown from inside a running backup once its job has been cancelled
+ */
+public class BackupCancelledException extends IOException {
+    public BackupCancelledException() {
+        super("Backup was cancelled");
+    }
+}
@@ -0,0 +1,212 @@
+package de.kaicraft.adminpanel.backup;
+
+import de.kaicraft.adminpanel.database.DatabaseManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of the files inside each backup, kept in SQLite so a backup can be browsed
+ * without opening or downloading it.
+ *
+ * ZIP backups are recorded in backup_entries when they are written; archives that predate
+ * the catalogue are indexed from their central directory the first time they are browsed.
+ * Incremental backups already have their manifest in backup_files.
+ */
+public class BackupCatalog {
+    private final DatabaseManager databaseManager;
+    private final IncrementalBackupStore incrementalStore;
+
+    public BackupCatalog(DatabaseManager databaseManager, IncrementalBackupStore incrementalStore) {
+        this.databaseManager = databaseManager;
+        this.incrementalStore = incrementalStore;
+    }
+
+    /**
+     * Store the entries of a newly written archive
+     */
+    public void record(int backupId, List<Entry> entries) throws SQLException {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            rows.add(new Object[] {backupId, entry.path, entry.size, entry.compressedSize, entry.crc, entry.mtime});
+        }
+        databaseManager.batch("""
+            INSERT OR REPLACE INTO backup_entries (backup_id, path, size, compressed_size, crc, mtime)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """, rows);
+    }
+
+    public void delete(int backupId) throws SQLException {
+        databaseManager.update("DELETE FROM backup_entries WHERE backup_id = ?", backupId);
+    }
+
+    /**
+     * Read the entries of an archive from its central directory, without decompressing anything
+     */
+    public static List<Entry> readCentralDirectory(File archive) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> all = zip.entries();
+            while (all.hasMoreElements()) {
+                ZipEntry entry = all.nextElement();
+                if (!entry.isDirectory()) {
+                    entries.add(new Entry(entry.getName(), entry.getSize(), entry.getCompressedSize(),
+                        entry.getCrc(), entry.getTime()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * List the direct children of a directory in a backup: files, and subdirectories with
+     * the number and total size of the files below them. Subdirectories are counted in SQL,
+     * so only the rows of the listed directory itself are read.
+     * @param prefix directory inside the backup, empty for the root
+     */
+    public Listing list(BackupManager.BackupInfo backup, String prefix) throws IOException, SQLException {
+        String dir = normalizePrefix(prefix);
+        String table = backup.isIncremental() ? "backup_files" : "backup_entries";
+        if (!backup.isIncremental()) {
+            ensureIndexed(backup);
+        }
+
+        // Path below the listed directory; SQLite counts characters, not UTF-16 units
+        String rest = "substr(path, " + (dir.codePointCount(0, dir.length()) + 1) + ")";
+        List<Directory> directories = queryRange(
+            "SELECT substr(" + rest + ", 1, instr(" + rest + ", '/') - 1) AS name, COUNT(*) AS files, "
+                + "SUM(size) AS size FROM " + table + " WHERE backup_id = ?",
+            "AND instr(" + rest + ", '/') > 0 GROUP BY name ORDER BY name",
+            rs -> new Directory(dir + rs.getString("name"), rs.getLong("files"), rs.getLong("size")),
+            backup.id, dir);
+
+        List<Entry> files;
+        if (backup.isIncremental()) {
+            files = queryRange("SELECT path, size, mtime, hash FROM backup_files WHERE backup_id = ?",
+                "AND instr(" + rest + ", '/') = 0 ORDER BY path",
+                rs -> new Entry(rs.getString("path"), rs.getLong("size"), rs.getLong("mtime"),
+                HexFormat.of().formatHex(rs.getBytes("hash"))), backup.id, dir);
+        } else {
+            files = queryRange(
+                "SELECT path, size, compressed_size, crc, mtime FROM backup_entries WHERE backup_id = ?",
+                "AND instr(" + rest + ", '/') = 0 ORDER BY path", this::mapEntry, backup.id, dir);
+        }
+        return new Listing(dir, directories, files);
+    }
+
+    /**
+     * Index an archive from before the catalogue existed, once
+     */
+    private void ensureIndexed(BackupManager.BackupInfo backup) throws IOException, SQLException {
+        if (isIndexed(backup.id)) {
+            return;
+        }
+        File file = new File(backup.filePath);
+        if (!file.isFile()) {
+            throw new IOException("Backup file not found on disk");
+        }
+        record(backup.id, readCentralDirectory(file));
+    }
+
+    private boolean isIndexed(int backupId) throws SQLException {
+        return databaseManager.queryOne("SELECT 1 FROM backup_entries WHERE backup_id = ? LIMIT 1",
+            rs -> true, backupId) != null;
+    }
+
+    /**
+     * Run a query over the rows of a backup whose path starts with the prefix.
+     * The prefix becomes a key range so the (backup_id, path) primary key is used.
+     * @param select query up to and including its {@code backup_id = ?} condition
+     * @param tail further conditions, grouping and ordering
+     */
+    private <T> List<T> queryRange(String select, String tail, DatabaseManager.RowMapper<T> mapper, int backupId,
+                                   String prefix) throws SQLException {
+        if (prefix.isEmpty()) {
+            return databaseManager.query(select + " " + tail, mapper, backupId);
+        }
+        // The prefix ends with '/', so bumping that character gives the first path past the range
+        String upper = prefix.substring(0, prefix.length() - 1) + (char) ('/' + 1);
+        return databaseManager.query(select + " AND path >= ? AND path < ? " + tail, mapper,
+            backupId, prefix, upper);
+    }
+
+    private Entry mapEntry(ResultSet rs) throws SQLException {
+        return new Entry(rs.getString("path"), rs.getLong("size"), rs.getLong("compressed_size"),
+            rs.getLong("crc"), rs.getLong("mtime"));
+    }
+
+    private static String normalizePrefix(String prefix) {
+        if (prefix == null) return "";
+        String normalized = prefix.replace('\\', '/').replaceAll("^/+|/+$", "");
+        if (normalized.isEmpty()) return "";
+        if (Arrays.asList(normalized.split("/")).contains("..")) {
+            throw new IllegalArgumentException("Invalid prefix: " + prefix);
+        }
+        return normalized + "/";
+    }
+
+    /**
+     * One file in a backup. ZIP entries carry their CRC-32, incremental files their SHA-256.
+     */
+    public static class Entry {
+        public final String path;
+        public final long size;
+        public final Long compressedSize;
+        public final Long crc;
+        public final long mtime;
+        public final String sha256;
+
+        public Entry(String path, long size, long compressedSize, long crc, long mtime) {
+            this.path = path;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.crc = crc;
+            this.mtime = mtime;
+            this.sha256 = null;
+        }
+
+        public Entry(String path, long size, long mtime, String sha256) {
+            this.path = path;
+            this.size = size;
+            this.compressedSize = null;
+            this.crc = null;
+            this.mtime = mtime;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * A subdirectory with the files below it
+     */
+    public static class Directory {
+        public final String path;
+        public final long files;
+        public final long size;
+
+        private Directory(String path, long files, long size) {
+            this.path = path;
+            this.files = files;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Contents of one directory of a backup
+     */
+    public static class Listing {
+        public final String prefix;
+        public final List<Directory> directories;
+        public final List<Entry> files;
+
+        public Listing(String prefix, List<Directory> directories, List<Entry> files) {
+            this.prefix = prefix;
+            this.directories = directories;
+            this.files = files;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package de.kaicraft.adminpanel.backup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Files selected for one backup, with the path each one gets inside the backup
+ */
+public class BackupFileSet {
+    private final List<Entry> entries = new ArrayList<>();
+    private long totalBytes;
+
+    /**
+     * Add a single file under the given path
+     */
+    public void addFile(File file, String path) {
+        if (file.isFile()) {
+            Entry entry = new Entry(file, path, file.length(), file.lastModified());
+            entries.add(entry);
+            totalBytes += entry.length;
+        }
+    }
+
+    /**
+     * Add every file below a directory, in a stable order
+     */
+    public void addDirectory(File dir, String path) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addDirectory(file, path + "/" + file.getName());
+            } else {
+                addFile(file, path + "/" + file.getName());
+            }
+        }
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Combined size of all files when they were listed
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * One file with the size and modification time seen when it was listed
+     */
+    public static class Entry {
+        private final File file;
+        private final String path;
+        private final long length;
+        private final long lastModified;
+
+        private Entry(File file, String path, long length, long lastModified) {
+            this.file = file;
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        public File getFile() { return file; }
+        public String getPath() { return path; }
+        public long getLength() { return length; }
+        public long getLastModified() { return lastModified; }
+    }
+}
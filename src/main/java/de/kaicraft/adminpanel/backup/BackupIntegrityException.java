@@ -0,0 +1,17 @@
+package de.kaicraft.adminpanel.backup;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the stored data of a backup does not match its checksums or cannot be decoded,
+ * as opposed to an error while reading it
+ */
+public class BackupIntegrityException extends IOException {
+    public BackupIntegrityException(String message) {
+        super(message);
+    }
+
+    public BackupIntegrityException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,173 @@
+package de.kaicraft.adminpanel.backup;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One entry of the backup queue, as stored in backup_jobs and sent to the web panel
+ */
+public class BackupJob {
+    public static final String KIND_MANUAL = "manual";
+    public static final String KIND_SCHEDULED = "scheduled";
+    public static final String KIND_UPDATE = "update";
+    public static final String KIND_RESTORE = "restore";
+
+    public static final String STATE_QUEUED = "queued";
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_COMPLETED = "completed";
+    public static final String STATE_FAILED = "failed";
+    public static final String STATE_CANCELLED = "cancelled";
+
+    private final int id;
+    private final String kind;
+    private final String requestedBy;
+    private final boolean includesWorlds;
+    private final boolean includesPlugins;
+    private final boolean includesConfigs;
+    private final boolean incremental;
+    private final long createdAt;
+    // Backup being restored (restore jobs only)
+    private final int backupId;
+    private volatile String state;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String phase;
+    private volatile long bytesDone;
+    private volatile long bytesTotal;
+    private volatile long filesDone;
+    private volatile long filesTotal;
+    private volatile String backupFilename;
+    private volatile String error;
+
+    // Not sent to clients
+    private final transient String retentionType;
+    private final transient int retentionValue;
+    private final transient String selection;
+    private final transient CompletableFuture<BackupManager.BackupResult> result = new CompletableFuture<>();
+    private transient volatile BackupProgress progress;
+    transient long lastPublished;
+    transient long lastPersisted;
+
+    BackupJob(int id, String kind, String requestedBy, BackupManager.BackupOptions options,
+              String retentionType, int retentionValue, int backupId, String selection,
+              long createdAt, String state) {
+        this.id = id;
+        this.kind = kind;
+        this.requestedBy = requestedBy;
+        this.includesWorlds = options.includesWorlds;
+        this.includesPlugins = options.includesPlugins;
+        this.includesConfigs = options.includesConfigs;
+        this.incremental = options.incremental;
+        this.retentionType = retentionType;
+        this.retentionValue = retentionValue;
+        this.backupId = backupId;
+        this.selection = selection;
+        this.createdAt = createdAt;
+        this.state = state;
+    }
+
+    static BackupJob fromRow(ResultSet rs) throws SQLException {
+        BackupManager.BackupOptions options = new BackupManager.BackupOptions(
+            rs.getBoolean("includes_worlds"),
+            rs.getBoolean("includes_plugins"),
+            rs.getBoolean("includes_configs"),
+            rs.getBoolean("incremental")
+        );
+        BackupJob job = new BackupJob(rs.getInt("id"), rs.getString("kind"), rs.getString("requested_by"), options,
+            rs.getString("retention_type"), rs.getInt("retention_value"), rs.getInt("backup_id"),
+            rs.getString("selection"), rs.getLong("created_at"), rs.getString("state"));
+        job.startedAt = rs.getLong("started_at");
+        job.finishedAt = rs.getLong("finished_at");
+        job.phase = rs.getString("phase");
+        job.bytesDone = rs.getLong("bytes_done");
+        job.bytesTotal = rs.getLong("bytes_total");
+        job.filesDone = rs.getLong("files_done");
+        job.filesTotal = rs.getLong("files_total");
+        job.backupFilename = rs.getString("backup_filename");
+        job.error = rs.getString("error");
+        return job;
+    }
+
+    BackupManager.BackupOptions getOptions() {
+        return new BackupManager.BackupOptions(includesWorlds, includesPlugins, includesConfigs, incremental);
+    }
+
+    /**
+     * Whether another request for the same backup can simply wait for this job
+     */
+    boolean isSameBackup(String kind, BackupManager.BackupOptions options) {
+        return this.kind.equals(kind)
+            && !KIND_RESTORE.equals(kind)
+            && includesWorlds == options.includesWorlds
+            && includesPlugins == options.includesPlugins
+            && includesConfigs == options.includesConfigs
+            && incremental == options.incremental;
+    }
+
+    void markRunning(BackupProgress progress) {
+        this.progress = progress;
+        this.state = STATE_RUNNING;
+        this.startedAt = System.currentTimeMillis();
+    }
+
+    void markRequeued() {
+        this.progress = null;
+        this.state = STATE_QUEUED;
+        this.phase = null;
+        this.bytesDone = 0;
+        this.filesDone = 0;
+    }
+
+    void markFinished(String state, String backupFilename, String error) {
+        this.state = state;
+        this.backupFilename = backupFilename;
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Copy the live counters of a running job
+     */
+    void captureProgress() {
+        BackupProgress current = progress;
+        if (current != null) {
+            phase = current.getPhase();
+            bytesDone = current.getBytesDone();
+            bytesTotal = current.getBytesTotal();
+            filesDone = current.getFilesDone();
+            filesTotal = current.getFilesTotal();
+        }
+    }
+
+    public int getId() { return id; }
+    public String getKind() { return kind; }
+    public String getRequestedBy() { return requestedBy; }
+    public String getState() { return state; }
+    public long getCreatedAt() { return createdAt; }
+    public long getStartedAt() { return startedAt; }
+    public long getFinishedAt() { return finishedAt; }
+    public String getPhase() { return phase; }
+    public long getBytesDone() { return bytesDone; }
+    public long getBytesTotal() { return bytesTotal; }
+    public long getFilesDone() { return filesDone; }
+    public long getFilesTotal() { return filesTotal; }
+    public String getBackupFilename() { return backupFilename; }
+    public String getError() { return error; }
+    public int getBackupId() { return backupId; }
+    String getRetentionType() { return retentionType; }
+    int getRetentionValue() { return retentionValue; }
+    String getSelection() { return selection; }
+    BackupProgress getProgress() { return progress; }
+
+    /**
+     * Completes with the backup result once the job has finished, failed or was cancelled
+     */
+    public CompletableFuture<BackupManager.BackupResult> getResult() {
+        return result;
+    }
+
+    public boolean isActive() {
+        return STATE_QUEUED.equals(state) || STATE_RUNNING.equals(state);
+    }
+}
@@ -0,0 +1,350 @@
+package de.kaicraft.adminpanel.backup;
+
+import com.google.gson.Gson;
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.database.DatabaseManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs backups one at a time on a dedicated thread.
+ *
+ * Manual, scheduled and update backups all go through this queue, so two backups
+ * never compete for the disk. A request for a backup that is already waiting in the
+ * queue joins the waiting job instead of adding another one. Jobs are stored in
+ * backup_jobs; jobs that were queued or running when the server stopped are picked
+ * up again on the next start.
+ */
+public class BackupJobQueue {
+    private static final long PUBLISH_INTERVAL_MS = 250;
+    private static final long PERSIST_INTERVAL_MS = 2000;
+    private static final int KEEP_FINISHED_JOBS = 100;
+    private static final Gson GSON = new Gson();
+
+    private final ServerAdminPanelPlugin plugin;
+    private final DatabaseManager databaseManager;
+    private final BackupManager backupManager;
+    private final Map<Integer, BackupJob> activeJobs = new ConcurrentHashMap<>();
+    private volatile Consumer<BackupJob> listener = job -> {};
+    private volatile ExecutorService executor;
+    private volatile boolean stopping;
+
+    public BackupJobQueue(ServerAdminPanelPlugin plugin, DatabaseManager databaseManager, BackupManager backupManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.backupManager = backupManager;
+    }
+
+    /**
+     * Start the worker thread and resume jobs left over from the last run
+     */
+    public synchronized void start() {
+        if (executor != null) return;
+        stopping = false;
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "PaperPanel-Backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            long now = System.currentTimeMillis();
+            // Nobody is waiting for an update backup any more after a restart
+            databaseManager.update(
+                "UPDATE backup_jobs SET state = ?, error = ?, finished_at = ? WHERE kind = ? AND state IN (?, ?)",
+                BackupJob.STATE_FAILED, "Interrupted by a server restart", now,
+                BackupJob.KIND_UPDATE, BackupJob.STATE_QUEUED, BackupJob.STATE_RUNNING);
+            databaseManager.update(
+                "UPDATE backup_jobs SET state = ?, phase = NULL, bytes_done = 0, files_done = 0 WHERE state = ?",
+                BackupJob.STATE_QUEUED, BackupJob.STATE_RUNNING);
+            databaseManager.update(
+                "DELETE FROM backup_jobs WHERE state IN (?, ?, ?) AND id NOT IN " +
+                "(SELECT id FROM backup_jobs ORDER BY id DESC LIMIT ?)",
+                BackupJob.STATE_COMPLETED, BackupJob.STATE_FAILED, BackupJob.STATE_CANCELLED, KEEP_FINISHED_JOBS);
+
+            List<BackupJob> pending = databaseManager.query(
+                "SELECT * FROM backup_jobs WHERE state = ? ORDER BY id", BackupJob::fromRow, BackupJob.STATE_QUEUED);
+            for (BackupJob job : pending) {
+                enqueue(job);
+            }
+            if (!pending.isEmpty()) {
+                plugin.getLogger().info("Resuming " + pending.size() + " queued backup job(s)");
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to restore backup queue: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop the worker. A running job is cancelled and stays queued for the next start.
+     */
+    public void stop() {
+        ExecutorService current;
+        synchronized (this) {
+            current = executor;
+            if (current == null) return;
+            executor = null;
+            stopping = true;
+        }
+
+        for (BackupJob job : activeJobs.values()) {
+            BackupProgress progress = job.getProgress();
+            if (progress != null) {
+                progress.cancel();
+            }
+        }
+        current.shutdownNow();
+        try {
+            if (!current.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Backup job did not stop within 10 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Anyone still waiting on a result gets an answer; the rows stay queued
+        for (BackupJob job : activeJobs.values()) {
+            job.getResult().complete(new BackupManager.BackupResult(false, "Server is shutting down", null, 0));
+        }
+        activeJobs.clear();
+    }
+
+    /**
+     * Queue a backup, or return the queued job that will already produce the same backup
+     */
+    public BackupJob submit(String kind, BackupManager.BackupOptions options, String requestedBy,
+                            String retentionType, int retentionValue) {
+        return submit(kind, options, requestedBy, retentionType, retentionValue, 0, null);
+    }
+
+    /**
+     * Queue staging a restore of part of a backup
+     */
+    public BackupJob submitRestore(int backupId, RestoreManager.RestoreSelection selection, String requestedBy) {
+        return submit(BackupJob.KIND_RESTORE, new BackupManager.BackupOptions(false, false, false), requestedBy,
+            null, 0, backupId, GSON.toJson(selection));
+    }
+
+    private BackupJob submit(String kind, BackupManager.BackupOptions options, String requestedBy,
+                             String retentionType, int retentionValue, int backupId, String selection) {
+        synchronized (this) {
+            for (BackupJob job : activeJobs.values()) {
+                if (BackupJob.STATE_QUEUED.equals(job.getState()) && job.isSameBackup(kind, options)) {
+                    return job;
+                }
+            }
+
+            long now = System.currentTimeMillis();
+            try {
+                long id = databaseManager.insert(
+                    "INSERT INTO backup_jobs (kind, state, requested_by, includes_worlds, includes_plugins, " +
+                    "includes_configs, incremental, retention_type, retention_value, backup_id, selection, " +
+                    "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    kind, BackupJob.STATE_QUEUED, requestedBy, options.includesWorlds, options.includesPlugins,
+                    options.includesConfigs, options.incremental, retentionType, retentionValue, backupId,
+                    selection, now);
+                BackupJob job = new BackupJob((int) id, kind, requestedBy, options,
+                    retentionType, retentionValue, backupId, selection, now, BackupJob.STATE_QUEUED);
+                enqueue(job);
+                plugin.getLogger().info("Queued " + kind + " backup job #" + id + " for " + requestedBy);
+                return job;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to queue backup: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Queue a manual backup
+     */
+    public BackupJob submit(BackupManager.BackupOptions options, String requestedBy) {
+        return submit(BackupJob.KIND_MANUAL, options, requestedBy, null, 0);
+    }
+
+    /**
+     * Queue the full backup taken before a server update
+     * @param incremental store it as a snapshot that only writes data changed since the last one
+     */
+    public BackupJob submitUpdateBackup(String requestedBy, boolean incremental) {
+        return submit(BackupJob.KIND_UPDATE, new BackupManager.BackupOptions(true, true, true, incremental),
+            requestedBy, null, 0);
+    }
+
+    /**
+     * Cancel a queued or running job
+     * @return false if the job is not active
+     */
+    public boolean cancel(int jobId, String username) {
+        BackupJob job = activeJobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+
+        synchronized (job) {
+            if (BackupJob.STATE_QUEUED.equals(job.getState())) {
+                finish(job, BackupJob.STATE_CANCELLED, null, "Cancelled by " + username,
+                    new BackupManager.BackupResult(false, "Backup was cancelled", null, 0));
+            } else {
+                BackupProgress progress = job.getProgress();
+                if (progress != null) {
+                    progress.cancel();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Active jobs followed by the most recent finished ones
+     */
+    public List<BackupJob> getJobs(int historyLimit) throws SQLException {
+        List<BackupJob> jobs = new ArrayList<>(activeJobs.values());
+        jobs.forEach(BackupJob::captureProgress);
+        jobs.sort(Comparator.comparingInt(BackupJob::getId));
+        jobs.addAll(databaseManager.query(
+            "SELECT * FROM backup_jobs WHERE state IN (?, ?, ?) ORDER BY id DESC LIMIT ?", BackupJob::fromRow,
+            BackupJob.STATE_COMPLETED, BackupJob.STATE_FAILED, BackupJob.STATE_CANCELLED, historyLimit));
+        return jobs;
+    }
+
+    public List<BackupJob> getActiveJobs() {
+        List<BackupJob> jobs = new ArrayList<>(activeJobs.values());
+        jobs.forEach(BackupJob::captureProgress);
+        jobs.sort(Comparator.comparingInt(BackupJob::getId));
+        return jobs;
+    }
+
+    /**
+     * Receives every state change and, at most every 250ms, progress of the running job
+     */
+    public void setListener(Consumer<BackupJob> listener) {
+        this.listener = listener != null ? listener : job -> {};
+    }
+
+    private void enqueue(BackupJob job) {
+        ExecutorService current = executor;
+        if (current == null) {
+            throw new IllegalStateException("Backup queue is not running");
+        }
+        activeJobs.put(job.getId(), job);
+        current.execute(() -> run(job));
+        publish(job);
+    }
+
+    private void run(BackupJob job) {
+        BackupProgress progress = new BackupProgress(createThrottle(), () -> onProgress(job));
+        synchronized (job) {
+            // Cancelled while it was waiting, or the queue is shutting down
+            if (!BackupJob.STATE_QUEUED.equals(job.getState()) || stopping) {
+                return;
+            }
+            job.markRunning(progress);
+        }
+        persist(job);
+        publish(job);
+
+        BackupManager.BackupResult result;
+        try {
+            if (BackupJob.KIND_UPDATE.equals(job.getKind())) {
+                result = backupManager.createUpdateBackup(job.getRequestedBy(), job.getOptions().incremental, progress);
+            } else if (BackupJob.KIND_RESTORE.equals(job.getKind())) {
+                RestoreManager.RestoreSelection selection =
+                    GSON.fromJson(job.getSelection(), RestoreManager.RestoreSelection.class);
+                result = backupManager.stageRestore(job.getBackupId(), selection, job.getRequestedBy(), progress);
+            } else {
+                result = backupManager.createBackup(job.getOptions(), job.getRequestedBy(), progress);
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("Backup job #" + job.getId() + " failed: " + e.getMessage());
+            result = new BackupManager.BackupResult(false, e.getMessage(), null, 0);
+        }
+        job.captureProgress();
+
+        if (!result.success && stopping && !BackupJob.KIND_UPDATE.equals(job.getKind())) {
+            // Interrupted by shutdown; run it again after the restart
+            job.markRequeued();
+            persist(job);
+            return;
+        }
+
+        if (result.success) {
+            if (job.getRetentionType() != null) {
+                backupManager.applyRetentionPolicy(job.getRetentionType(), job.getRetentionValue());
+            }
+            finish(job, BackupJob.STATE_COMPLETED, result.filename, null, result);
+        } else if (progress.isCancelled()) {
+            finish(job, BackupJob.STATE_CANCELLED, null, result.message, result);
+        } else {
+            finish(job, BackupJob.STATE_FAILED, null, result.message, result);
+        }
+    }
+
+    private void finish(BackupJob job, String state, String filename, String error,
+                        BackupManager.BackupResult result) {
+        job.markFinished(state, filename, error);
+        persist(job);
+        activeJobs.remove(job.getId());
+        publish(job);
+        job.getResult().complete(result);
+    }
+
+    private void onProgress(BackupJob job) {
+        long now = System.currentTimeMillis();
+        boolean publish;
+        boolean persist;
+        synchronized (job) {
+            publish = now - job.lastPublished >= PUBLISH_INTERVAL_MS;
+            persist = now - job.lastPersisted >= PERSIST_INTERVAL_MS;
+            if (publish) job.lastPublished = now;
+            if (persist) job.lastPersisted = now;
+        }
+
+        if (publish || persist) {
+            job.captureProgress();
+        }
+        if (publish) {
+            publish(job);
+        }
+        if (persist) {
+            databaseManager.updateAsync(
+                "UPDATE backup_jobs SET phase = ?, bytes_done = ?, bytes_total = ?, files_done = ?, files_total = ? " +
+                "WHERE id = ?",
+                job.getPhase(), job.getBytesDone(), job.getBytesTotal(), job.getFilesDone(), job.getFilesTotal(),
+                job.getId());
+        }
+    }
+
+    private void persist(BackupJob job) {
+        try {
+            databaseManager.update(
+                "UPDATE backup_jobs SET state = ?, started_at = ?, finished_at = ?, phase = ?, bytes_done = ?, " +
+                "bytes_total = ?, files_done = ?, files_total = ?, backup_filename = ?, error = ? WHERE id = ?",
+                job.getState(), job.getStartedAt(), job.getFinishedAt(), job.getPhase(), job.getBytesDone(),
+                job.getBytesTotal(), job.getFilesDone(), job.getFilesTotal(), job.getBackupFilename(),
+                job.getError(), job.getId());
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to save backup job #" + job.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void publish(BackupJob job) {
+        try {
+            listener.accept(job);
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Backup job listener failed: " + e.getMessage());
+        }
+    }
+
+    private IoThrottle createThrottle() {
+        return new IoThrottle(plugin.getConfigManager().getBackupIoLimitMbPerSecond() * 1024L * 1024L);
+    }
+}
@@ -1,22 +1,42 @@
 package de.kaicraft.adminpanel.backup;
 
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.backup.storage.LocalBackupStorage;
+import de.kaicraft.adminpanel.backup.storage.ReplicatingOutputStream;
+import de.kaicraft.adminpanel.backup.storage.StorageTarget;
 import de.kaicraft.adminpanel.database.DatabaseManager;
+import de.kaicraft.adminpanel.scheduler.CronExpression;
+import de.kaicraft.adminpanel.scheduler.DeadlineScheduler;
+import org.bukkit.configuration.ConfigurationSection;
 
 import java.io.*;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 /**
  * Manages backup creation, storage, and scheduling for PaperPanel
  */
 public class BackupManager {
+    private static final String[] WORLD_DIRS = {"world", "world_nether", "world_the_end"};
+
     private final ServerAdminPanelPlugin plugin;
     private final DatabaseManager databaseManager;
     private final File backupDir;
-    private int schedulerTaskId = -1;
+    private final IncrementalBackupStore incrementalStore;
+    private final SnapshotCoordinator snapshotCoordinator;
+    private final BackupJobQueue jobQueue;
+    private final RestoreManager restoreManager;
+    private final BackupCatalog catalog;
+    private final BackupVerifier verifier;
+    private final StorageTarget localTarget;
+    private final List<StorageTarget> remoteTargets;
 
     public BackupManager(ServerAdminPanelPlugin plugin, DatabaseManager databaseManager) {
         this.plugin = plugin;
@@ -26,23 +46,51 @@ public class BackupManager {
         if (!backupDir.exists()) {
             backupDir.mkdirs();
         }
+        this.incrementalStore = new IncrementalBackupStore(plugin, databaseManager, new File(backupDir, "store"));
+        this.snapshotCoordinator = new SnapshotCoordinator(plugin, new File(backupDir, "staging"));
+        this.jobQueue = new BackupJobQueue(plugin, databaseManager, this);
+        this.restoreManager = new RestoreManager(plugin, incrementalStore, new File(backupDir, "restore"));
+        this.catalog = new BackupCatalog(databaseManager, incrementalStore);
+        this.verifier = new BackupVerifier(plugin, databaseManager, this);
+        this.localTarget = new StorageTarget(StorageTarget.LOCAL, new LocalBackupStorage(backupDir),
+            plugin.getConfigManager().getBackupLocalRetentionType(),
+            plugin.getConfigManager().getBackupLocalRetentionValue());
+        this.remoteTargets = loadRemoteTargets();
 
         // Scan and import any existing backups not in DB
         scanExistingBackups();
     }
 
     /**
-     * Start the scheduler for auto-backups and scheduled updates
+     * Start the job queue and arm the timers of all enabled auto-backup schedules
      */
     public void startScheduler() {
-        // Run every minute to check for scheduled tasks
-        schedulerTaskId = plugin.getServer().getScheduler().runTaskTimerAsynchronously(
-            plugin,
-            this::checkScheduledTasks,
-            20L * 60,  // 1 minute initial delay
-            20L * 60   // 1 minute period
-        ).getTaskId();
+        // Pick up jobs that were queued or running when the server stopped
+        jobQueue.start();
+
+        try {
+            long currentTime = System.currentTimeMillis();
+            String query = "SELECT * FROM auto_backup_schedules WHERE enabled = 1";
+            for (AutoBackupSchedule schedule : databaseManager.query(query, this::mapSchedule)) {
+                long nextRun = schedule.nextRun;
+
+                // Runs missed while the server was down are skipped, not caught up all at once
+                if (nextRun == 0 || (currentTime - nextRun) > (2 * 60 * 1000)) {
+                    plugin.getLogger().warning(String.format("Skipping schedule ID %d: next_run is too old or 0 (was: %s). Recalculating...",
+                        schedule.id,
+                        new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(nextRun))));
+
+                    nextRun = calculateNextRun(schedule.scheduleType, schedule.intervalValue, schedule.cronExpression);
+                    String updateQuery = "UPDATE auto_backup_schedules SET next_run = ?, updated_at = ? WHERE id = ?";
+                    databaseManager.update(updateQuery, nextRun, currentTime, schedule.id);
+                }
+                armSchedule(schedule.id, nextRun);
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.getLogger().warning("Error loading auto-backup schedules: " + e.getMessage());
+        }
 
+        verifier.start();
         plugin.getLogger().info("Backup scheduler started");
     }
 
@@ -50,99 +98,77 @@ public class BackupManager {
      * Stop the scheduler
      */
     public void stopScheduler() {
-        if (schedulerTaskId != -1) {
-            plugin.getServer().getScheduler().cancelTask(schedulerTaskId);
-            schedulerTaskId = -1;
+        DeadlineScheduler scheduler = plugin.getDeadlineScheduler();
+        if (scheduler != null) {
+            for (AutoBackupSchedule schedule : getAutoBackupSchedules()) {
+                scheduler.cancel(scheduleKey(schedule.id));
+            }
         }
+        verifier.stop();
+        jobQueue.stop();
     }
 
     /**
-     * Check for scheduled tasks (auto-backups)
+     * Queue through which all backups run, one at a time
      */
-    private void checkScheduledTasks() {
-        try {
-            long currentTime = System.currentTimeMillis();
-
-            // Check for auto-backup schedules that need to run
-            String query = "SELECT * FROM auto_backup_schedules WHERE enabled = 1 AND next_run <= ?";
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setLong(1, currentTime);
-                ResultSet rs = stmt.executeQuery();
-
-                while (rs.next()) {
-                    int scheduleId = rs.getInt("id");
-                    long nextRun = rs.getLong("next_run");
-                    boolean includesWorlds = rs.getBoolean("includes_worlds");
-                    boolean includesPlugins = rs.getBoolean("includes_plugins");
-                    boolean includesConfigs = rs.getBoolean("includes_configs");
-                    String scheduleType = rs.getString("schedule_type");
-                    int intervalValue = rs.getInt("interval_value");
-                    String retentionType = rs.getString("retention_type");
-                    int retentionValue = rs.getInt("retention_value");
-
-                    // Safety check: Skip if next_run is 0 or suspiciously recent (within last 2 minutes)
-                    // This prevents immediate execution on schedule creation
-                    if (nextRun == 0 || (currentTime - nextRun) > (2 * 60 * 1000)) {
-                        plugin.getLogger().warning(String.format("Skipping schedule ID %d: next_run is too old or 0 (was: %s). Recalculating...",
-                            scheduleId,
-                            new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(nextRun))));
-
-                        // Recalculate and update next_run to prevent running again
-                        long newNextRun = calculateNextRun(scheduleType, intervalValue);
-                        String updateQuery = "UPDATE auto_backup_schedules SET next_run = ?, updated_at = ? WHERE id = ?";
-                        try (PreparedStatement updateStmt = databaseManager.getConnection().prepareStatement(updateQuery)) {
-                            updateStmt.setLong(1, newNextRun);
-                            updateStmt.setLong(2, currentTime);
-                            updateStmt.setInt(3, scheduleId);
-                            updateStmt.executeUpdate();
-                        }
-                        continue; // Skip to next schedule
-                    }
-
-                    plugin.getLogger().info(String.format("Running scheduled backup (ID: %d, Type: %s, Next run was: %s)",
-                        scheduleId, scheduleType,
-                        new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(nextRun))));
-
-                    // Calculate next run time IMMEDIATELY to prevent concurrent executions
-                    long newNextRun = calculateNextRun(scheduleType, intervalValue);
-
-                    // Update the schedule BEFORE starting the backup to prevent other scheduler ticks from running it again
-                    String updateQuery = "UPDATE auto_backup_schedules SET last_run = ?, next_run = ?, updated_at = ? WHERE id = ?";
-                    try (PreparedStatement updateStmt = databaseManager.getConnection().prepareStatement(updateQuery)) {
-                        updateStmt.setLong(1, currentTime);
-                        updateStmt.setLong(2, newNextRun);
-                        updateStmt.setLong(3, currentTime);
-                        updateStmt.setInt(4, scheduleId);
-                        updateStmt.executeUpdate();
-                    }
-
-                    plugin.getLogger().info(String.format("Updated schedule ID %d: next_run set to %s",
-                        scheduleId,
-                        new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(newNextRun))));
+    public BackupJobQueue getJobQueue() {
+        return jobQueue;
+    }
 
-                    // Create the backup
-                    BackupOptions options = new BackupOptions(includesWorlds, includesPlugins, includesConfigs);
-                    BackupResult result = createBackup(options, "auto-scheduler");
+    private static String scheduleKey(int scheduleId) {
+        return "auto-backup:" + scheduleId;
+    }
 
-                    if (result.success) {
-                        plugin.getLogger().info("Auto-backup completed: " + result.filename);
+    /**
+     * Set the timer of a schedule; a next run of -1 (a cron expression that never fires) leaves it unarmed
+     */
+    private void armSchedule(int scheduleId, long nextRun) {
+        DeadlineScheduler scheduler = plugin.getDeadlineScheduler();
+        if (scheduler == null) return;
+        if (nextRun < 0) {
+            scheduler.cancel(scheduleKey(scheduleId));
+            return;
+        }
+        scheduler.schedule(scheduleKey(scheduleId), nextRun, () -> runSchedule(scheduleId));
+    }
 
-                        // Apply retention policy
-                        applyRetentionPolicy(retentionType, retentionValue);
-                    } else {
-                        plugin.getLogger().warning("Auto-backup failed: " + result.message);
-                    }
-                }
+    /**
+     * Timer callback: queue the backup of a due schedule and arm its next run
+     */
+    private void runSchedule(int scheduleId) {
+        try {
+            long currentTime = System.currentTimeMillis();
+            AutoBackupSchedule schedule = databaseManager.queryOne(
+                "SELECT * FROM auto_backup_schedules WHERE id = ? AND enabled = 1", this::mapSchedule, scheduleId);
+            if (schedule == null) {
+                return;
             }
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Error checking scheduled tasks: " + e.getMessage());
+
+            plugin.getLogger().info(String.format("Running scheduled backup (ID: %d, Type: %s, Next run was: %s)",
+                scheduleId, schedule.scheduleType,
+                new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(schedule.nextRun))));
+
+            long newNextRun = calculateNextRun(schedule.scheduleType, schedule.intervalValue, schedule.cronExpression);
+            String updateQuery = "UPDATE auto_backup_schedules SET last_run = ?, next_run = ?, updated_at = ? WHERE id = ?";
+            databaseManager.update(updateQuery, currentTime, newNextRun, currentTime, scheduleId);
+            armSchedule(scheduleId, newNextRun);
+
+            // Queue the backup; the queue applies the retention policy once it succeeded
+            BackupOptions options = new BackupOptions(schedule.includesWorlds, schedule.includesPlugins,
+                schedule.includesConfigs, plugin.getConfigManager().isBackupIncrementalForSchedules());
+            jobQueue.submit(BackupJob.KIND_SCHEDULED, options, "auto-scheduler",
+                schedule.retentionType, schedule.retentionValue);
+        } catch (SQLException | IllegalArgumentException e) {
+            plugin.getLogger().warning("Error running scheduled backup " + scheduleId + ": " + e.getMessage());
         }
     }
 
     /**
      * Calculate the next run time based on schedule type
+     * @return epoch millis, or -1 if a cron expression never fires
+     * @throws IllegalArgumentException if the cron expression is invalid
      */
-    private long calculateNextRun(String scheduleType, int intervalValue) {
+    private long calculateNextRun(String scheduleType, int intervalValue, String cronExpression) {
         long now = System.currentTimeMillis();
 
         long calculatedNextRun = switch (scheduleType) {
@@ -150,9 +176,15 @@ public class BackupManager {
             case "every-6-hours" -> now + (6L * 60 * 60 * 1000);
             case "weekly" -> now + (7L * 24 * 60 * 60 * 1000);
             case "custom" -> now + ((long) intervalValue * 60 * 60 * 1000); // intervalValue in hours
+            case "cron" -> CronExpression.parse(cronExpression).nextAfter(now);
             default -> now + (24L * 60 * 60 * 1000);
         };
 
+        if (calculatedNextRun < 0) {
+            plugin.getLogger().warning("Cron expression '" + cronExpression + "' never fires");
+            return -1;
+        }
+
         plugin.getLogger().info(String.format("Calculated next run for '%s': %s (in %d hours)",
             scheduleType,
             new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(calculatedNextRun)),
@@ -165,236 +197,435 @@ public class BackupManager {
      * Create a backup with the specified options
      */
     public BackupResult createBackup(BackupOptions options, String username) {
-        try {
-            String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new java.util.Date());
-            String filename = "backup-" + timestamp + ".zip";
-            File backupFile = new File(backupDir, filename);
-
-            plugin.getLogger().info("Creating backup: " + filename);
-
-            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(backupFile))) {
-                // Backup worlds if selected
-                if (options.includesWorlds) {
-                    String[] worldDirs = {"world", "world_nether", "world_the_end"};
-                    for (String dirName : worldDirs) {
-                        File dir = new File(dirName);
-                        if (dir.exists()) {
-                            zipDirectory(dir, dir.getName(), zos);
-                            plugin.getLogger().info("  + " + dirName);
-                        }
-                    }
-                }
-
-                // Backup plugins if selected
-                if (options.includesPlugins) {
-                    File pluginsDir = new File("plugins");
-                    if (pluginsDir.exists()) {
-                        zipDirectory(pluginsDir, "plugins", zos);
-                        plugin.getLogger().info("  + plugins");
-                    }
-                }
-
-                // Backup configs if selected
-                if (options.includesConfigs) {
-                    String[] configFiles = {
-                        "server.properties", "bukkit.yml", "spigot.yml", "paper.yml",
-                        "paper-global.yml", "paper-world-defaults.yml",
-                        "eula.txt", "ops.json", "whitelist.json", "banned-players.json", "banned-ips.json"
-                    };
-
-                    for (String fileName : configFiles) {
-                        File file = new File(fileName);
-                        if (file.exists() && file.isFile()) {
-                            addFileToZip(file, fileName, zos);
-                            plugin.getLogger().info("  + " + fileName);
-                        }
-                    }
-
-                    // Also include config directory if it exists
-                    File configDir = new File("config");
-                    if (configDir.exists()) {
-                        zipDirectory(configDir, "config", zos);
-                        plugin.getLogger().info("  + config/");
-                    }
-                }
-            }
-
-            long fileSize = backupFile.length();
-            plugin.getLogger().info("Backup complete: " + filename + " (" + (fileSize / 1024 / 1024) + " MB)");
-
-            // Record in database
-            recordBackup(filename, backupFile.getAbsolutePath(), fileSize, username, "manual", options);
-
-            // Log audit
-            if (plugin.getAuditLogger() != null) {
-                plugin.getAuditLogger().logUserAction(username, "create-backup",
-                    "Created backup: " + filename + " (worlds=" + options.includesWorlds +
-                    ", plugins=" + options.includesPlugins + ", configs=" + options.includesConfigs + ")");
-            }
-
-            return new BackupResult(true, "Backup created successfully", filename, fileSize);
+        return createBackup(options, username, BackupProgress.untracked());
+    }
 
-        } catch (Exception e) {
-            plugin.getLogger().severe("Backup creation failed: " + e.getMessage());
-            e.printStackTrace();
-            return new BackupResult(false, "Backup failed: " + e.getMessage(), null, 0);
-        }
+    /**
+     * Create a backup with the specified options, reporting to the given progress.
+     * Callers normally go through {@link BackupJobQueue} so backups never run concurrently.
+     */
+    public BackupResult createBackup(BackupOptions options, String username, BackupProgress progress) {
+        return runBackup(options, username, "manual", progress);
     }
 
     /**
      * Create a backup specifically for updates (used by PaperVersionChecker)
      */
     public BackupResult createUpdateBackup(String username) {
-        BackupOptions options = new BackupOptions(true, true, true);
+        return createUpdateBackup(username, false, BackupProgress.untracked());
+    }
+
+    /**
+     * Create a full update backup, reporting to the given progress
+     * @param incremental store it as a snapshot, so only data changed since the last one is written
+     */
+    public BackupResult createUpdateBackup(String username, boolean incremental, BackupProgress progress) {
+        return runBackup(new BackupOptions(true, true, true, incremental), username, "update", progress);
+    }
+
+    /**
+     * Collect the selected files and write them as a ZIP archive or an incremental snapshot
+     * @param backupType "manual" or "update"; update backups also keep the start scripts
+     */
+    private BackupResult runBackup(BackupOptions options, String username, String backupType, BackupProgress progress) {
+        boolean update = "update".equals(backupType);
+        String label = (update ? "update " : "") + (options.incremental ? "incremental " : "") + "backup";
+        SnapshotCoordinator.StagedWorlds worlds = null;
         try {
             String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new java.util.Date());
-            String filename = "update-backup-" + timestamp + ".zip";
+            String filename = (update ? "update-" : "") + (options.incremental ? "incremental-" : "backup-")
+                + timestamp + ".zip";
             File backupFile = new File(backupDir, filename);
 
-            plugin.getLogger().info("Creating update backup: " + filename);
+            plugin.getLogger().info("Creating " + label + ": " + filename);
 
-            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(backupFile))) {
-                // Backup worlds
-                String[] worldDirs = {"world", "world_nether", "world_the_end"};
-                for (String dirName : worldDirs) {
-                    File dir = new File(dirName);
-                    if (dir.exists()) {
-                        zipDirectory(dir, dir.getName(), zos);
+            BackupFileSet files = new BackupFileSet();
+
+            // Backup worlds if selected, from a flushed snapshot
+            if (options.includesWorlds) {
+                progress.begin("staging", 0, 0);
+                worlds = snapshotCoordinator.stage(progress, WORLD_DIRS);
+                progress.checkCancelled();
+                for (String dirName : WORLD_DIRS) {
+                    File dir = worlds.getDirectory(dirName);
+                    if (dir != null) {
+                        files.addDirectory(dir, dirName);
                         plugin.getLogger().info("  + " + dirName);
                     }
                 }
+            }
 
-                // Backup plugins
+            // Backup plugins if selected
+            if (options.includesPlugins) {
                 File pluginsDir = new File("plugins");
                 if (pluginsDir.exists()) {
-                    zipDirectory(pluginsDir, "plugins", zos);
+                    files.addDirectory(pluginsDir, "plugins");
                     plugin.getLogger().info("  + plugins");
                 }
+            }
 
-                // Backup configs
-                String[] configFiles = {
+            // Backup configs if selected
+            if (options.includesConfigs) {
+                List<String> configFiles = new ArrayList<>(List.of(
                     "server.properties", "bukkit.yml", "spigot.yml", "paper.yml",
                     "paper-global.yml", "paper-world-defaults.yml",
-                    "start.sh", "run.sh", "start.bat", "run.bat",
                     "eula.txt", "ops.json", "whitelist.json", "banned-players.json", "banned-ips.json"
-                };
+                ));
+                if (update) {
+                    // The update rewrites the start script, so keep the old one
+                    configFiles.addAll(List.of("start.sh", "run.sh", "start.bat", "run.bat"));
+                }
 
                 for (String fileName : configFiles) {
                     File file = new File(fileName);
                     if (file.exists() && file.isFile()) {
-                        addFileToZip(file, fileName, zos);
+                        files.addFile(file, fileName);
                         plugin.getLogger().info("  + " + fileName);
                     }
                 }
+
+                // Also include config directory if it exists
+                File configDir = new File("config");
+                if (configDir.exists()) {
+                    files.addDirectory(configDir, "config");
+                    plugin.getLogger().info("  + config/");
+                }
             }
 
-            long fileSize = backupFile.length();
-            plugin.getLogger().info("Update backup complete: " + filename + " (" + (fileSize / 1024 / 1024) + " MB)");
+            long fileSize;
+            progress.begin(options.incremental ? "storing" : "compressing", files.size(), files.getTotalBytes());
+            if (options.incremental) {
+                fileSize = createIncrementalSnapshot(filename, files, username, backupType, options, progress);
+            } else {
+                StoredArchive stored = writeArchive(files, filename, progress);
 
-            // Record in database
-            recordBackup(filename, backupFile.getAbsolutePath(), fileSize, username, "update", options);
+                fileSize = stored.archive.size;
+                plugin.getLogger().info((update ? "Update backup" : "Backup") + " complete: " + filename
+                    + " (" + (fileSize / 1024 / 1024) + " MB)");
 
-            return new BackupResult(true, "Update backup created successfully", filename, fileSize);
+                // Record in database
+                long backupId = recordBackup(filename, backupFile.getAbsolutePath(), fileSize, username, backupType, options);
+                recordCopies(backupId, filename, stored);
+                recordArchive(backupId, stored.archive);
+            }
 
+            // Log audit
+            if (!update && plugin.getAuditLogger() != null) {
+                plugin.getAuditLogger().logUserAction(username, "create-backup",
+                    "Created backup: " + filename + " (worlds=" + options.includesWorlds +
+                    ", plugins=" + options.includesPlugins + ", configs=" + options.includesConfigs +
+                    ", incremental=" + options.incremental + ")");
+            }
+
+            return new BackupResult(true, (update ? "Update backup" : "Backup") + " created successfully",
+                filename, fileSize);
+
+        } catch (BackupCancelledException e) {
+            plugin.getLogger().info((update ? "Update backup" : "Backup") + " cancelled");
+            return new BackupResult(false, e.getMessage(), null, 0);
         } catch (Exception e) {
-            plugin.getLogger().severe("Update backup creation failed: " + e.getMessage());
+            plugin.getLogger().severe((update ? "Update backup" : "Backup") + " creation failed: " + e.getMessage());
             e.printStackTrace();
             return new BackupResult(false, "Backup failed: " + e.getMessage(), null, 0);
+        } finally {
+            if (worlds != null) {
+                worlds.close();
+            }
         }
     }
 
     /**
-     * Zip directory recursively
+     * Compress the files on a dedicated pool into a ZIP archive, streamed to every storage target at once
      */
-    private void zipDirectory(File dir, String zipPath, ZipOutputStream zos) throws IOException {
-        File[] files = dir.listFiles();
-        if (files == null) return;
+    private StoredArchive writeArchive(BackupFileSet files, String filename, BackupProgress progress)
+            throws IOException {
+        ParallelZipWriter zip = new ParallelZipWriter(
+            plugin.getConfigManager().getBackupCompressionLevel(),
+            plugin.getConfigManager().getBackupCompressionChunkSizeMb() * 1024 * 1024
+        );
+
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = createCompressionPool();
+        ReplicatingOutputStream out = ReplicatingOutputStream.open(getWriteTargets(), filename, (target, e) ->
+            plugin.getLogger().warning("Storage target " + target.getName() + " failed, continuing without it: "
+                + e.getMessage()));
+        ParallelZipWriter.Archive archive;
+        try {
+            archive = zip.write(files, out, pool, progress);
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+        plugin.getLogger().info(String.format("Compressed %d files with %d threads in %.1fs",
+            files.size(), pool.getParallelism(), (System.currentTimeMillis() - start) / 1000.0));
+        return new StoredArchive(archive, out.getStored());
+    }
 
-        for (File file : files) {
-            if (file.isDirectory()) {
-                zipDirectory(file, zipPath + "/" + file.getName(), zos);
-            } else {
-                addFileToZip(file, zipPath + "/" + file.getName(), zos);
+    /**
+     * Targets a new archive is written to: the backups directory unless it is disabled, and every remote target
+     */
+    private List<StorageTarget> getWriteTargets() {
+        List<StorageTarget> targets = new ArrayList<>();
+        if (plugin.getConfigManager().isBackupLocalStorageEnabled() || remoteTargets.isEmpty()) {
+            targets.add(localTarget);
+        }
+        targets.addAll(remoteTargets);
+        return targets;
+    }
+
+    private List<StorageTarget> loadRemoteTargets() {
+        List<StorageTarget> targets = new ArrayList<>();
+        ConfigurationSection section = plugin.getConfigManager().getBackupStorageTargets();
+        if (section == null) return targets;
+
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection targetSection = section.getConfigurationSection(name);
+            if (targetSection == null) continue;
+            try {
+                StorageTarget target = StorageTarget.fromConfig(name, targetSection);
+                targets.add(target);
+                plugin.getLogger().info("Backup storage target " + name + ": " + target.getStorage().describe());
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Ignoring backup storage target " + name + ": " + e.getMessage());
             }
         }
+        return targets;
+    }
+
+    private StorageTarget findTarget(String name) {
+        if (StorageTarget.LOCAL.equals(name)) return localTarget;
+        for (StorageTarget target : remoteTargets) {
+            if (target.getName().equals(name)) return target;
+        }
+        return null;
+    }
+
+    /**
+     * Record which targets hold the archive. The local copy is a flag on the backup row.
+     */
+    private void recordCopies(long backupId, String filename, StoredArchive stored) throws SQLException {
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>();
+        boolean local = false;
+        for (StorageTarget target : stored.targets) {
+            if (target.isLocal()) {
+                local = true;
+                continue;
+            }
+            rows.add(new Object[] {backupId, target.getName(), stored.archive.size, now});
+            plugin.getLogger().info("Stored " + filename + " on " + target.getName() + " ("
+                + target.getStorage().describe() + ")");
+        }
+        if (!rows.isEmpty()) {
+            databaseManager.batch(
+                "INSERT OR REPLACE INTO backup_copies (backup_id, target, size, stored_at) VALUES (?, ?, ?, ?)", rows);
+        }
+        if (!local) {
+            databaseManager.update("UPDATE backups SET stored_locally = 0 WHERE id = ?", backupId);
+        }
+    }
+
+    /**
+     * Open a ZIP backup for reading: the local file if there is one, otherwise a remote copy
+     */
+    public InputStream openArchive(BackupInfo backup) throws IOException {
+        File file = new File(backup.filePath);
+        if (backup.storedLocally && file.isFile()) {
+            return new FileInputStream(file);
+        }
+        for (String name : backup.remoteTargets) {
+            StorageTarget target = findTarget(name);
+            if (target != null) {
+                return target.getStorage().openRead(backup.filename);
+            }
+        }
+        throw new FileNotFoundException("No stored copy of " + backup.filename + " is reachable");
+    }
+
+    /**
+     * Fetch a remote-only ZIP backup into the backups directory so it can be extracted
+     */
+    private File downloadCopy(BackupInfo backup, BackupProgress progress) throws IOException {
+        File file = new File(backupDir, backup.filename + ".download");
+        progress.begin("downloading", 1, backup.sizeBytes);
+        try (InputStream in = openArchive(backup);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 256 * 1024)) {
+            byte[] buffer = new byte[256 * 1024];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                progress.checkCancelled();
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        progress.fileDone(file.length());
+        return file;
+    }
+
+    /**
+     * Store the checksum and entry catalogue of a written archive.
+     * The backup itself is fine without them, so failures are only logged.
+     */
+    private void recordArchive(long backupId, ParallelZipWriter.Archive archive) {
+        try {
+            databaseManager.update("UPDATE backups SET sha256 = ? WHERE id = ?", archive.sha256, backupId);
+            catalog.record((int) backupId, archive.entries);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to catalogue backup " + backupId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Store the files in the block store and record the snapshot
+     * @return bytes newly added to the store
+     */
+    private long createIncrementalSnapshot(String filename, BackupFileSet files, String username, String backupType,
+                                           BackupOptions options, BackupProgress progress) throws IOException, SQLException {
+        long backupId = recordBackup(filename, incrementalStore.getStoreDir().getAbsolutePath(), 0,
+            username, backupType, options);
+
+        ForkJoinPool pool = createCompressionPool();
+        try {
+            IncrementalBackupStore.SnapshotStats stats = incrementalStore.snapshot((int) backupId, files, pool, progress);
+            databaseManager.update("UPDATE backups SET size_bytes = ? WHERE id = ?", stats.addedBytes, backupId);
+
+            plugin.getLogger().info(String.format("Incremental backup complete: %s (%d files, %d unchanged, %d MB total, %d MB new)",
+                filename, stats.files, stats.unchangedFiles, stats.totalBytes / 1024 / 1024, stats.addedBytes / 1024 / 1024));
+            return stats.addedBytes;
+        } catch (IOException | SQLException | RuntimeException e) {
+            // Drop the half-written snapshot; its blocks go with the next garbage collection
+            incrementalStore.deleteManifest((int) backupId);
+            databaseManager.update("DELETE FROM backups WHERE id = ?", backupId);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
     }
 
     /**
-     * Add a single file to the ZIP
+     * Extract and verify part of a backup so it replaces the live files on the next restart.
+     * Runs on the backup queue like a backup.
      */
-    private void addFileToZip(File file, String entryPath, ZipOutputStream zos) throws IOException {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            ZipEntry zipEntry = new ZipEntry(entryPath);
-            zos.putNextEntry(zipEntry);
+    public BackupResult stageRestore(int backupId, RestoreManager.RestoreSelection selection, String username,
+                                     BackupProgress progress) {
+        BackupInfo backup = getBackup(backupId);
+        if (backup == null) {
+            return new BackupResult(false, "Backup not found", null, 0);
+        }
 
-            byte[] buffer = new byte[8192];
-            int length;
-            while ((length = fis.read(buffer)) > 0) {
-                zos.write(buffer, 0, length);
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = createCompressionPool();
+        File download = null;
+        try {
+            if (!backup.isIncremental() && !(backup.storedLocally && new File(backup.filePath).isFile())) {
+                download = downloadCopy(backup, progress);
+                backup = backup.withFilePath(download.getPath());
             }
+            RestoreManager.RestorePlan plan = restoreManager.stage(backup, selection, username, pool, progress);
+            plugin.getLogger().info(String.format("Staged restore of %s in %.1fs: %s", backup.filename,
+                (System.currentTimeMillis() - start) / 1000.0, String.join(", ", plan.targets)));
+
+            if (plugin.getAuditLogger() != null) {
+                plugin.getAuditLogger().logUserAction(username, "restore-backup",
+                    "Staged restore of " + backup.filename + ": " + String.join(", ", plan.targets));
+            }
+            return new BackupResult(true, "Restore staged; it is applied on the next restart",
+                backup.filename, progress.getBytesDone());
+        } catch (BackupCancelledException e) {
+            plugin.getLogger().info("Restore cancelled");
+            return new BackupResult(false, e.getMessage(), null, 0);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Restore of " + backup.filename + " failed: " + e.getMessage());
+            return new BackupResult(false, "Restore failed: " + e.getMessage(), null, 0);
+        } finally {
+            pool.shutdownNow();
+            if (download != null) {
+                download.delete();
+            }
+        }
+    }
+
+    /**
+     * Staged restores and the swap applied on restart
+     */
+    public RestoreManager getRestoreManager() {
+        return restoreManager;
+    }
 
-            zos.closeEntry();
+    private ForkJoinPool createCompressionPool() {
+        int threads = plugin.getConfigManager().getBackupCompressionThreads();
+        if (threads <= 0) {
+            // Leave one core for the server tick
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
         }
+        return new ForkJoinPool(threads);
+    }
+
+    /**
+     * Index of the files inside each backup
+     */
+    public BackupCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Background integrity checks of stored backups
+     */
+    public BackupVerifier getVerifier() {
+        return verifier;
+    }
+
+    /**
+     * Block store holding the contents of incremental backups
+     */
+    public IncrementalBackupStore getIncrementalStore() {
+        return incrementalStore;
     }
 
     /**
      * Record backup in database
      */
-    private void recordBackup(String filename, String filePath, long sizeBytes,
+    private long recordBackup(String filename, String filePath, long sizeBytes,
                                String createdBy, String backupType, BackupOptions options) throws SQLException {
         String query = """
             INSERT INTO backups (filename, file_path, size_bytes, created_at, created_by, backup_type,
-                                 includes_worlds, includes_plugins, includes_configs)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                                 includes_worlds, includes_plugins, includes_configs, format)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
-        try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-            stmt.setString(1, filename);
-            stmt.setString(2, filePath);
-            stmt.setLong(3, sizeBytes);
-            stmt.setLong(4, System.currentTimeMillis());
-            stmt.setString(5, createdBy);
-            stmt.setString(6, backupType);
-            stmt.setBoolean(7, options.includesWorlds);
-            stmt.setBoolean(8, options.includesPlugins);
-            stmt.setBoolean(9, options.includesConfigs);
-            stmt.executeUpdate();
-        }
+        return databaseManager.insert(query, filename, filePath, sizeBytes, System.currentTimeMillis(), createdBy,
+                backupType, options.includesWorlds, options.includesPlugins, options.includesConfigs,
+                options.incremental ? BackupInfo.FORMAT_INCREMENTAL : BackupInfo.FORMAT_ZIP);
     }
 
     /**
      * List all backups from database
      */
     public List<BackupInfo> listBackups() {
-        List<BackupInfo> backups = new ArrayList<>();
-
         try {
             String query = "SELECT * FROM backups ORDER BY created_at DESC";
-            try (Statement stmt = databaseManager.getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-
-                while (rs.next()) {
-                    BackupInfo info = new BackupInfo(
-                        rs.getInt("id"),
-                        rs.getString("filename"),
-                        rs.getString("file_path"),
-                        rs.getLong("size_bytes"),
-                        rs.getLong("created_at"),
-                        rs.getString("created_by"),
-                        rs.getString("backup_type"),
-                        rs.getBoolean("includes_worlds"),
-                        rs.getBoolean("includes_plugins"),
-                        rs.getBoolean("includes_configs"),
-                        rs.getString("notes")
-                    );
-                    backups.add(info);
-                }
+            List<BackupInfo> backups = databaseManager.query(query, this::mapBackup);
+            Map<Integer, BackupInfo> byId = new HashMap<>();
+            for (BackupInfo backup : backups) {
+                byId.put(backup.id, backup);
             }
+            databaseManager.query("SELECT backup_id, target FROM backup_copies ORDER BY target", rs -> {
+                BackupInfo backup = byId.get(rs.getInt("backup_id"));
+                if (backup != null) {
+                    backup.remoteTargets.add(rs.getString("target"));
+                }
+                return null;
+            });
+            return backups;
         } catch (SQLException e) {
             plugin.getLogger().warning("Error listing backups: " + e.getMessage());
+            return new ArrayList<>();
         }
-
-        return backups;
     }
 
     /**
@@ -403,31 +634,39 @@ public class BackupManager {
     public BackupInfo getBackup(int id) {
         try {
             String query = "SELECT * FROM backups WHERE id = ?";
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setInt(1, id);
-                ResultSet rs = stmt.executeQuery();
-
-                if (rs.next()) {
-                    return new BackupInfo(
-                        rs.getInt("id"),
-                        rs.getString("filename"),
-                        rs.getString("file_path"),
-                        rs.getLong("size_bytes"),
-                        rs.getLong("created_at"),
-                        rs.getString("created_by"),
-                        rs.getString("backup_type"),
-                        rs.getBoolean("includes_worlds"),
-                        rs.getBoolean("includes_plugins"),
-                        rs.getBoolean("includes_configs"),
-                        rs.getString("notes")
-                    );
-                }
+            BackupInfo backup = databaseManager.queryOne(query, this::mapBackup, id);
+            if (backup != null) {
+                backup.remoteTargets.addAll(databaseManager.query(
+                    "SELECT target FROM backup_copies WHERE backup_id = ? ORDER BY target",
+                    rs -> rs.getString("target"), id));
             }
+            return backup;
         } catch (SQLException e) {
             plugin.getLogger().warning("Error getting backup: " + e.getMessage());
+            return null;
         }
+    }
 
-        return null;
+    private BackupInfo mapBackup(ResultSet rs) throws SQLException {
+        return new BackupInfo(
+            rs.getInt("id"),
+            rs.getString("filename"),
+            rs.getString("file_path"),
+            rs.getLong("size_bytes"),
+            rs.getLong("created_at"),
+            rs.getString("created_by"),
+            rs.getString("backup_type"),
+            rs.getBoolean("includes_worlds"),
+            rs.getBoolean("includes_plugins"),
+            rs.getBoolean("includes_configs"),
+            rs.getString("notes"),
+            rs.getString("format"),
+            rs.getString("sha256"),
+            rs.getLong("verified_at"),
+            rs.getString("verify_status"),
+            rs.getString("verify_error"),
+            rs.getBoolean("stored_locally")
+        );
     }
 
     /**
@@ -435,7 +674,7 @@ public class BackupManager {
      */
     public File getBackupFile(int id) {
         BackupInfo backup = getBackup(id);
-        if (backup != null) {
+        if (backup != null && !backup.isIncremental() && backup.storedLocally) {
             File file = new File(backup.filePath);
             if (file.exists()) {
                 return file;
@@ -444,6 +683,86 @@ public class BackupManager {
         return null;
     }
 
+    /**
+     * Stream the selected files of a backup as a new ZIP archive, without a temporary file.
+     * Entries of ZIP backups are decompressed and compressed again at the fastest level.
+     */
+    public void writeSelection(BackupInfo backup, Collection<String> paths, OutputStream out)
+            throws IOException, SQLException {
+        Predicate<String> include = pathFilter(paths);
+        if (backup.isIncremental()) {
+            incrementalStore.writeZip(backup.id, include, out);
+            return;
+        }
+
+        if (!backup.storedLocally || !new File(backup.filePath).isFile()) {
+            writeSelection(openArchive(backup), include, out);
+            return;
+        }
+
+        try (ZipFile source = new ZipFile(backup.filePath);
+             ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024))) {
+            zos.setLevel(Deflater.BEST_SPEED);
+            Enumeration<? extends ZipEntry> entries = source.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !include.test(entry.getName())) continue;
+
+                ZipEntry copy = new ZipEntry(entry.getName());
+                copy.setTime(entry.getTime());
+                zos.putNextEntry(copy);
+                try (InputStream in = source.getInputStream(entry)) {
+                    in.transferTo(zos);
+                }
+                zos.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Copy the selected entries of an archive read front to back, e.g. from remote storage
+     */
+    private static void writeSelection(InputStream archive, Predicate<String> include, OutputStream out)
+            throws IOException {
+        try (ZipInputStream zin = new ZipInputStream(new BufferedInputStream(archive, 256 * 1024));
+             ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024))) {
+            zos.setLevel(Deflater.BEST_SPEED);
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                if (entry.isDirectory() || !include.test(entry.getName())) continue;
+
+                ZipEntry copy = new ZipEntry(entry.getName());
+                copy.setTime(entry.getTime());
+                zos.putNextEntry(copy);
+                zin.transferTo(zos);
+                zos.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Matches a path if it equals one of the selected paths or lies below one of them
+     */
+    static Predicate<String> pathFilter(Collection<String> paths) {
+        List<String> selected = new ArrayList<>();
+        for (String path : paths) {
+            String normalized = path.replace('\\', '/').replaceAll("^/+|/+$", "");
+            if (normalized.isEmpty()) continue;
+            if (Arrays.asList(normalized.split("/")).contains("..")) {
+                throw new IllegalArgumentException("Invalid path: " + path);
+            }
+            selected.add(normalized);
+        }
+        return name -> {
+            for (String path : selected) {
+                if (name.equals(path) || name.startsWith(path + "/")) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
     /**
      * Delete a backup
      */
@@ -454,17 +773,27 @@ public class BackupManager {
         }
 
         try {
-            // Delete file
-            File file = new File(backup.filePath);
-            if (file.exists()) {
-                file.delete();
+            // Delete file or snapshot manifest
+            if (backup.storedLocally) {
+                deleteBackupData(backup);
+            }
+
+            // Delete remote copies
+            for (String name : backup.remoteTargets) {
+                StorageTarget target = findTarget(name);
+                if (target == null) {
+                    plugin.getLogger().warning("Storage target " + name + " is no longer configured; its copy of "
+                        + backup.filename + " was left in place");
+                    continue;
+                }
+                deleteCopy(backup, target);
             }
 
             // Delete from database
-            String query = "DELETE FROM backups WHERE id = ?";
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setInt(1, id);
-                stmt.executeUpdate();
+            removeBackupRecord(backup);
+
+            if (backup.isIncremental()) {
+                incrementalStore.collectGarbage();
             }
 
             // Log audit
@@ -484,108 +813,136 @@ public class BackupManager {
 
     /**
      * Apply retention policy - delete old backups based on settings
-     * Only applies to auto-scheduled backups, not manual or update backups
+     * Only applies to auto-scheduled backups, not manual or update backups.
+     * Each storage target is pruned on its own, with its own retention if it has one;
+     * a backup is removed once no target holds a copy of it any more.
      */
     public void applyRetentionPolicy(String retentionType, int retentionValue) {
-        if (retentionType == null || retentionValue <= 0) return;
+        List<StorageTarget> targets = new ArrayList<>();
+        targets.add(localTarget);
+        targets.addAll(remoteTargets);
 
         try {
-            if ("keep-last".equals(retentionType)) {
-                // Keep only the last N auto-scheduled backups
-                // First, get IDs of backups to delete
-                String selectQuery = """
-                    SELECT id, file_path, filename FROM backups
-                    WHERE backup_type = 'manual' AND created_by = 'auto-scheduler'
-                    AND id NOT IN (
-                        SELECT id FROM backups
-                        WHERE backup_type = 'manual' AND created_by = 'auto-scheduler'
-                        ORDER BY created_at DESC
-                        LIMIT ?
-                    )
-                """;
-
-                List<Integer> idsToDelete = new ArrayList<>();
-
-                try (PreparedStatement selectStmt = databaseManager.getConnection().prepareStatement(selectQuery)) {
-                    selectStmt.setInt(1, retentionValue);
-                    ResultSet rs = selectStmt.executeQuery();
-
-                    while (rs.next()) {
-                        int id = rs.getInt("id");
-                        String filePath = rs.getString("file_path");
-                        String filename = rs.getString("filename");
-
-                        // Delete the file
-                        File file = new File(filePath);
-                        if (file.exists()) {
-                            file.delete();
-                            plugin.getLogger().info("Retention policy: deleted old backup file " + filename);
-                        }
-
-                        idsToDelete.add(id);
+            boolean removedSnapshots = false;
+            for (StorageTarget target : targets) {
+                String type = target.getRetentionType(retentionType);
+                int value = target.getRetentionValue(retentionValue);
+                if (type == null || value <= 0) continue;
+
+                for (BackupInfo backup : selectExpired(target, type, value)) {
+                    if (deleteCopy(backup, target)) {
+                        plugin.getLogger().info("Retention policy: deleted old backup " + backup.filename
+                            + (target.isLocal() ? "" : " from " + target.getName()));
+                        removedSnapshots |= backup.isIncremental();
                     }
                 }
+            }
 
-                // Delete records from database
-                if (!idsToDelete.isEmpty()) {
-                    String deleteQuery = "DELETE FROM backups WHERE id = ?";
-                    try (PreparedStatement deleteStmt = databaseManager.getConnection().prepareStatement(deleteQuery)) {
-                        for (int id : idsToDelete) {
-                            deleteStmt.setInt(1, id);
-                            deleteStmt.executeUpdate();
-                        }
-                    }
-                    plugin.getLogger().info("Retention policy: cleaned up " + idsToDelete.size() + " old backup records");
-                }
-
-            } else if ("delete-older".equals(retentionType)) {
-                // Delete auto-scheduled backups older than N days
-                long cutoffTime = System.currentTimeMillis() - ((long) retentionValue * 24 * 60 * 60 * 1000);
+            // Delete records of backups that have no copy left
+            List<BackupInfo> orphaned = databaseManager.query("""
+                SELECT * FROM backups
+                WHERE stored_locally = 0
+                AND NOT EXISTS (SELECT 1 FROM backup_copies WHERE backup_copies.backup_id = backups.id)
+            """, this::mapBackup);
+            for (BackupInfo backup : orphaned) {
+                removeBackupRecord(backup);
+            }
+            if (!orphaned.isEmpty()) {
+                plugin.getLogger().info("Retention policy: cleaned up " + orphaned.size() + " old backup records");
+            }
+            if (removedSnapshots) {
+                incrementalStore.collectGarbage();
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Error applying retention policy: " + e.getMessage());
+        }
+    }
 
-                // Get backups to delete for file cleanup (only auto-scheduled ones)
-                String selectQuery = """
-                    SELECT id, file_path, filename FROM backups
-                    WHERE backup_type = 'manual' AND created_by = 'auto-scheduler'
-                    AND created_at < ?
-                """;
+    /**
+     * Auto-scheduled backups on a target that fall outside the retention policy
+     */
+    private List<BackupInfo> selectExpired(StorageTarget target, String retentionType, int retentionValue)
+            throws SQLException {
+        List<BackupInfo> backups;
+        if (target.isLocal()) {
+            backups = databaseManager.query("""
+                SELECT * FROM backups
+                WHERE backup_type = 'manual' AND created_by = 'auto-scheduler' AND stored_locally = 1
+                ORDER BY created_at DESC
+            """, this::mapBackup);
+        } else {
+            backups = databaseManager.query("""
+                SELECT b.* FROM backups b
+                JOIN backup_copies c ON c.backup_id = b.id
+                WHERE c.target = ? AND b.backup_type = 'manual' AND b.created_by = 'auto-scheduler'
+                ORDER BY b.created_at DESC
+            """, this::mapBackup, target.getName());
+        }
 
-                List<Integer> idsToDelete = new ArrayList<>();
+        if ("keep-last".equals(retentionType)) {
+            // Keep only the last N auto-scheduled backups
+            return backups.subList(Math.min(retentionValue, backups.size()), backups.size());
+        } else if ("delete-older".equals(retentionType)) {
+            // Delete auto-scheduled backups older than N days
+            long cutoffTime = System.currentTimeMillis() - ((long) retentionValue * 24 * 60 * 60 * 1000);
+            List<BackupInfo> expired = new ArrayList<>();
+            for (BackupInfo backup : backups) {
+                if (backup.createdAt < cutoffTime) {
+                    expired.add(backup);
+                }
+            }
+            return expired;
+        }
+        return List.of();
+    }
 
-                try (PreparedStatement selectStmt = databaseManager.getConnection().prepareStatement(selectQuery)) {
-                    selectStmt.setLong(1, cutoffTime);
-                    ResultSet rs = selectStmt.executeQuery();
+    /**
+     * Remove the copy of a backup held by one target
+     * @return false if a remote copy could not be deleted; it is tried again on the next run
+     */
+    private boolean deleteCopy(BackupInfo backup, StorageTarget target) throws SQLException {
+        if (target.isLocal()) {
+            deleteBackupData(backup);
+            databaseManager.update("UPDATE backups SET stored_locally = 0 WHERE id = ?", backup.id);
+            return true;
+        }
 
-                    while (rs.next()) {
-                        int id = rs.getInt("id");
-                        String filePath = rs.getString("file_path");
-                        String filename = rs.getString("filename");
+        try {
+            target.getStorage().delete(backup.filename);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to delete " + backup.filename + " from " + target.getName()
+                + ": " + e.getMessage());
+            return false;
+        }
+        databaseManager.update("DELETE FROM backup_copies WHERE backup_id = ? AND target = ?",
+            backup.id, target.getName());
+        return true;
+    }
 
-                        // Delete the file
-                        File file = new File(filePath);
-                        if (file.exists()) {
-                            file.delete();
-                            plugin.getLogger().info("Retention policy: deleted old backup file " + filename);
-                        }
+    /**
+     * Remove the ZIP file of a backup, or the manifest of an incremental snapshot
+     */
+    private void deleteBackupData(BackupInfo backup) throws SQLException {
+        if (backup.isIncremental()) {
+            incrementalStore.deleteManifest(backup.id);
+            return;
+        }
 
-                        idsToDelete.add(id);
-                    }
-                }
+        File file = new File(backup.filePath);
+        if (file.exists()) {
+            file.delete();
+        }
+    }
 
-                // Delete records from database
-                if (!idsToDelete.isEmpty()) {
-                    String deleteQuery = "DELETE FROM backups WHERE id = ?";
-                    try (PreparedStatement deleteStmt = databaseManager.getConnection().prepareStatement(deleteQuery)) {
-                        for (int id : idsToDelete) {
-                            deleteStmt.setInt(1, id);
-                            deleteStmt.executeUpdate();
-                        }
-                    }
-                    plugin.getLogger().info("Retention policy: cleaned up " + idsToDelete.size() + " old backup records");
-                }
-            }
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Error applying retention policy: " + e.getMessage());
+    /**
+     * Remove a backup from the database along with its catalogue and copy records
+     */
+    private void removeBackupRecord(BackupInfo backup) throws SQLException {
+        if (!backup.isIncremental()) {
+            catalog.delete(backup.id);
         }
+        databaseManager.update("DELETE FROM backup_copies WHERE backup_id = ?", backup.id);
+        databaseManager.update("DELETE FROM backups WHERE id = ?", backup.id);
     }
 
     /**
@@ -599,22 +956,21 @@ public class BackupManager {
             try {
                 // Check if already in DB
                 String query = "SELECT id FROM backups WHERE filename = ?";
-                try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                    stmt.setString(1, file.getName());
-                    ResultSet rs = stmt.executeQuery();
-
-                    if (!rs.next()) {
-                        // Not in DB, add it
-                        String backupType = file.getName().startsWith("update-") ? "update" :
-                                           file.getName().startsWith("server-backup-") ? "update" : "manual";
-
-                        BackupOptions options = new BackupOptions(true, true, true); // Assume all content for legacy backups
-                        recordBackup(file.getName(), file.getAbsolutePath(), file.length(),
-                                    "system-import", backupType, options);
-                        plugin.getLogger().info("Imported existing backup to database: " + file.getName());
-                    }
+                Integer existing = databaseManager.queryOne(query, rs -> rs.getInt("id"), file.getName());
+
+                if (existing == null) {
+                    // Not in DB, add it
+                    String backupType = file.getName().startsWith("update-") ? "update" :
+                                       file.getName().startsWith("server-backup-") ? "update" : "manual";
+
+                    BackupOptions options = new BackupOptions(true, true, true); // Assume all content for legacy backups
+                    long backupId = recordBackup(file.getName(), file.getAbsolutePath(), file.length(),
+                                "system-import", backupType, options);
+                    // Only the central directory is read; the verifier checks the contents later
+                    catalog.record((int) backupId, BackupCatalog.readCentralDirectory(file));
+                    plugin.getLogger().info("Imported existing backup to database: " + file.getName());
                 }
-            } catch (SQLException e) {
+            } catch (SQLException | IOException e) {
                 plugin.getLogger().warning("Error importing backup " + file.getName() + ": " + e.getMessage());
             }
         }
@@ -626,48 +982,44 @@ public class BackupManager {
      * Get all auto-backup schedules
      */
     public List<AutoBackupSchedule> getAutoBackupSchedules() {
-        List<AutoBackupSchedule> schedules = new ArrayList<>();
-
         try {
             String query = "SELECT * FROM auto_backup_schedules ORDER BY created_at DESC";
-            try (Statement stmt = databaseManager.getConnection().createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-
-                while (rs.next()) {
-                    AutoBackupSchedule schedule = new AutoBackupSchedule(
-                        rs.getInt("id"),
-                        rs.getBoolean("enabled"),
-                        rs.getString("schedule_type"),
-                        rs.getInt("interval_value"),
-                        rs.getString("cron_expression"),
-                        rs.getBoolean("includes_worlds"),
-                        rs.getBoolean("includes_plugins"),
-                        rs.getBoolean("includes_configs"),
-                        rs.getString("retention_type"),
-                        rs.getInt("retention_value"),
-                        rs.getLong("last_run"),
-                        rs.getLong("next_run"),
-                        rs.getString("created_by"),
-                        rs.getLong("created_at"),
-                        rs.getLong("updated_at")
-                    );
-                    schedules.add(schedule);
-                }
-            }
+            return databaseManager.query(query, this::mapSchedule);
         } catch (SQLException e) {
             plugin.getLogger().warning("Error listing auto-backup schedules: " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
 
-        return schedules;
+    private AutoBackupSchedule mapSchedule(ResultSet rs) throws SQLException {
+        return new AutoBackupSchedule(
+            rs.getInt("id"),
+            rs.getBoolean("enabled"),
+            rs.getString("schedule_type"),
+            rs.getInt("interval_value"),
+            rs.getString("cron_expression"),
+            rs.getBoolean("includes_worlds"),
+            rs.getBoolean("includes_plugins"),
+            rs.getBoolean("includes_configs"),
+            rs.getString("retention_type"),
+            rs.getInt("retention_value"),
+            rs.getLong("last_run"),
+            rs.getLong("next_run"),
+            rs.getString("created_by"),
+            rs.getLong("created_at"),
+            rs.getLong("updated_at")
+        );
     }
 
     /**
-     * Create or update an auto-backup schedule
+     * Create or update an auto-backup schedule and re-arm its timer
+     * @throws IllegalArgumentException if a cron schedule has an invalid expression
      */
     public boolean saveAutoBackupSchedule(AutoBackupSchedule schedule, String username) {
+        long now = System.currentTimeMillis();
+        long nextRun = calculateNextRun(schedule.scheduleType, schedule.intervalValue, schedule.cronExpression);
         try {
-            long now = System.currentTimeMillis();
-            long nextRun = calculateNextRun(schedule.scheduleType, schedule.intervalValue);
+            int scheduleId = schedule.id;
 
             plugin.getLogger().info(String.format("Saving schedule (ID: %d, Type: %s) with next_run: %s",
                 schedule.id, schedule.scheduleType,
@@ -683,21 +1035,10 @@ public class BackupManager {
                     WHERE id = ?
                 """;
 
-                try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                    stmt.setBoolean(1, schedule.enabled);
-                    stmt.setString(2, schedule.scheduleType);
-                    stmt.setInt(3, schedule.intervalValue);
-                    stmt.setString(4, schedule.cronExpression);
-                    stmt.setBoolean(5, schedule.includesWorlds);
-                    stmt.setBoolean(6, schedule.includesPlugins);
-                    stmt.setBoolean(7, schedule.includesConfigs);
-                    stmt.setString(8, schedule.retentionType);
-                    stmt.setInt(9, schedule.retentionValue);
-                    stmt.setLong(10, nextRun);
-                    stmt.setLong(11, now);
-                    stmt.setInt(12, schedule.id);
-                    stmt.executeUpdate();
-                }
+                databaseManager.update(query, schedule.enabled, schedule.scheduleType, schedule.intervalValue,
+                        schedule.cronExpression, schedule.includesWorlds, schedule.includesPlugins,
+                        schedule.includesConfigs, schedule.retentionType, schedule.retentionValue,
+                        nextRun, now, schedule.id);
             } else {
                 // Create new
                 String query = """
@@ -707,22 +1048,16 @@ public class BackupManager {
                     VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
                 """;
 
-                try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                    stmt.setBoolean(1, schedule.enabled);
-                    stmt.setString(2, schedule.scheduleType);
-                    stmt.setInt(3, schedule.intervalValue);
-                    stmt.setString(4, schedule.cronExpression);
-                    stmt.setBoolean(5, schedule.includesWorlds);
-                    stmt.setBoolean(6, schedule.includesPlugins);
-                    stmt.setBoolean(7, schedule.includesConfigs);
-                    stmt.setString(8, schedule.retentionType);
-                    stmt.setInt(9, schedule.retentionValue);
-                    stmt.setLong(10, nextRun);
-                    stmt.setString(11, username);
-                    stmt.setLong(12, now);
-                    stmt.setLong(13, now);
-                    stmt.executeUpdate();
-                }
+                scheduleId = (int) databaseManager.insert(query, schedule.enabled, schedule.scheduleType,
+                        schedule.intervalValue, schedule.cronExpression, schedule.includesWorlds,
+                        schedule.includesPlugins, schedule.includesConfigs, schedule.retentionType,
+                        schedule.retentionValue, nextRun, username, now, now);
+            }
+
+            if (schedule.enabled) {
+                armSchedule(scheduleId, nextRun);
+            } else if (plugin.getDeadlineScheduler() != null) {
+                plugin.getDeadlineScheduler().cancel(scheduleKey(scheduleId));
             }
 
             // Log audit
@@ -745,17 +1080,17 @@ public class BackupManager {
     public boolean deleteAutoBackupSchedule(int id, String username) {
         try {
             String query = "DELETE FROM auto_backup_schedules WHERE id = ?";
-            try (PreparedStatement stmt = databaseManager.getConnection().prepareStatement(query)) {
-                stmt.setInt(1, id);
-                int deleted = stmt.executeUpdate();
-
-                if (deleted > 0) {
-                    if (plugin.getAuditLogger() != null) {
-                        plugin.getAuditLogger().logUserAction(username, "delete-auto-backup-schedule",
-                            "Deleted auto-backup schedule ID: " + id);
-                    }
-                    return true;
+            int deleted = databaseManager.update(query, id);
+
+            if (deleted > 0) {
+                if (plugin.getDeadlineScheduler() != null) {
+                    plugin.getDeadlineScheduler().cancel(scheduleKey(id));
                 }
+                if (plugin.getAuditLogger() != null) {
+                    plugin.getAuditLogger().logUserAction(username, "delete-auto-backup-schedule",
+                        "Deleted auto-backup schedule ID: " + id);
+                }
+                return true;
             }
         } catch (SQLException e) {
             plugin.getLogger().warning("Error deleting auto-backup schedule: " + e.getMessage());
@@ -772,11 +1107,18 @@ public class BackupManager {
         public final boolean includesWorlds;
         public final boolean includesPlugins;
         public final boolean includesConfigs;
+        public final boolean incremental;
 
         public BackupOptions(boolean includesWorlds, boolean includesPlugins, boolean includesConfigs) {
+            this(includesWorlds, includesPlugins, includesConfigs, false);
+        }
+
+        public BackupOptions(boolean includesWorlds, boolean includesPlugins, boolean includesConfigs,
+                             boolean incremental) {
             this.includesWorlds = includesWorlds;
             this.includesPlugins = includesPlugins;
             this.includesConfigs = includesConfigs;
+            this.incremental = incremental;
         }
     }
 
@@ -797,10 +1139,26 @@ public class BackupManager {
         }
     }
 
+    /**
+     * A written archive and the targets that stored it
+     */
+    private static class StoredArchive {
+        final ParallelZipWriter.Archive archive;
+        final List<StorageTarget> targets;
+
+        StoredArchive(ParallelZipWriter.Archive archive, List<StorageTarget> targets) {
+            this.archive = archive;
+            this.targets = targets;
+        }
+    }
+
     /**
      * Backup metadata
      */
     public static class BackupInfo {
+        public static final String FORMAT_ZIP = "zip";
+        public static final String FORMAT_INCREMENTAL = "incremental";
+
         public final int id;
         public final String filename;
         public final String filePath;
@@ -812,10 +1170,22 @@ public class BackupManager {
         public final boolean includesPlugins;
         public final boolean includesConfigs;
         public final String notes;
+        public final String format;
+        // SHA-256 of the ZIP file, taken while it was written
+        public final String sha256;
+        public final long verifiedAt;
+        public final String verifyStatus;
+        public final String verifyError;
+        // False once the file in the backups directory is gone and only remote copies remain
+        public final boolean storedLocally;
+        // Names of the remote targets holding a copy
+        public final List<String> remoteTargets = new ArrayList<>();
 
         public BackupInfo(int id, String filename, String filePath, long sizeBytes, long createdAt,
                          String createdBy, String backupType, boolean includesWorlds,
-                         boolean includesPlugins, boolean includesConfigs, String notes) {
+                         boolean includesPlugins, boolean includesConfigs, String notes, String format,
+                         String sha256, long verifiedAt, String verifyStatus, String verifyError,
+                         boolean storedLocally) {
             this.id = id;
             this.filename = filename;
             this.filePath = filePath;
@@ -827,6 +1197,30 @@ public class BackupManager {
             this.includesPlugins = includesPlugins;
             this.includesConfigs = includesConfigs;
             this.notes = notes;
+            this.format = format;
+            this.sha256 = sha256;
+            this.verifiedAt = verifiedAt;
+            this.verifyStatus = verifyStatus;
+            this.verifyError = verifyError;
+            this.storedLocally = storedLocally;
+        }
+
+        /**
+         * The same backup read from another file, e.g. a downloaded remote copy
+         */
+        BackupInfo withFilePath(String path) {
+            BackupInfo copy = new BackupInfo(id, filename, path, sizeBytes, createdAt, createdBy, backupType,
+                includesWorlds, includesPlugins, includesConfigs, notes, format, sha256, verifiedAt,
+                verifyStatus, verifyError, true);
+            copy.remoteTargets.addAll(remoteTargets);
+            return copy;
+        }
+
+        /**
+         * Whether this backup is a manifest in the block store rather than a ZIP file
+         */
+        public boolean isIncremental() {
+            return FORMAT_INCREMENTAL.equals(format);
         }
     }
 
@@ -0,0 +1,107 @@
+package de.kaicraft.adminpanel.backup;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress, cancellation and I/O throttling of one running backup.
+ * The backup code calls {@link #read} for every block it reads and {@link #fileDone} after each file;
+ * both are safe to call from any compression thread. Bytes count towards progress as they are read,
+ * so large files move the progress too, and {@link #fileDone} only adds what was not read block by block.
+ */
+public class BackupProgress {
+    private final IoThrottle throttle;
+    private final Runnable listener;
+    private final AtomicLong bytesDone = new AtomicLong();
+    private final AtomicLong filesDone = new AtomicLong();
+    private volatile long bytesTotal;
+    private volatile long filesTotal;
+    private volatile String phase = "queued";
+    private volatile boolean cancelled;
+
+    /**
+     * @param listener called after every change; must be cheap
+     */
+    public BackupProgress(IoThrottle throttle, Runnable listener) {
+        this.throttle = throttle;
+        this.listener = listener;
+    }
+
+    /**
+     * Progress that nobody watches and that is never throttled
+     */
+    public static BackupProgress untracked() {
+        return new BackupProgress(new IoThrottle(0), () -> {});
+    }
+
+    /**
+     * Start a new phase over the given amount of data
+     */
+    public void begin(String phase, long filesTotal, long bytesTotal) {
+        this.phase = phase;
+        this.filesTotal = filesTotal;
+        this.bytesTotal = bytesTotal;
+        filesDone.set(0);
+        bytesDone.set(0);
+        listener.run();
+    }
+
+    /**
+     * Wait for the rate limiter, count the bytes as done, and bail out if the job was cancelled
+     */
+    public void read(long bytes) throws BackupCancelledException, InterruptedIOException {
+        checkCancelled();
+        try {
+            throttle.acquire(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backup interrupted");
+        }
+        count(bytes);
+    }
+
+    /**
+     * Like {@link #read}, but without the rate limiter, for reads that must finish as fast as possible
+     */
+    public void readUnthrottled(long bytes) throws BackupCancelledException {
+        checkCancelled();
+        count(bytes);
+    }
+
+    private void count(long bytes) {
+        if (bytes > 0) {
+            bytesDone.addAndGet(bytes);
+            listener.run();
+        }
+    }
+
+    /**
+     * Count one finished file
+     * @param unreadBytes bytes of the file that were not already counted through {@link #read}
+     */
+    public void fileDone(long unreadBytes) {
+        filesDone.incrementAndGet();
+        bytesDone.addAndGet(Math.max(0, unreadBytes));
+        listener.run();
+    }
+
+    public void checkCancelled() throws BackupCancelledException {
+        if (cancelled) {
+            throw new BackupCancelledException();
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getPhase() { return phase; }
+    public long getBytesDone() { return bytesDone.get(); }
+    public long getBytesTotal() { return bytesTotal; }
+    public long getFilesDone() { return filesDone.get(); }
+    public long getFilesTotal() { return filesTotal; }
+}
@@ -0,0 +1,311 @@
+package de.kaicraft.adminpanel.backup;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.database.DatabaseManager;
+import de.kaicraft.adminpanel.scheduler.DeadlineScheduler;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Re-reads backups in the background and flags the ones that no longer match their checksums.
+ *
+ * ZIP archives are hashed and compared with the SHA-256 taken while they were written.
+ * Archives without one (imported or older backups) have every entry checked against its
+ * CRC-32 instead, and their hash is recorded as the baseline for the next run. Incremental
+ * snapshots have every block checked against its SHA-256. Backups that only exist on remote
+ * storage are hashed as they are streamed back from there.
+ *
+ * Only data that fails its checksums or cannot be decoded marks a backup corrupt. A backup that
+ * could not be read at all (missing file, storage errors, expired credentials) is recorded as
+ * an error instead, and checked again on the next run.
+ *
+ * Verification runs on its own low-priority thread at a capped read rate, and pauses while
+ * a backup job is running so it never competes with one for the disk.
+ */
+public class BackupVerifier {
+    public static final String STATUS_OK = "ok";
+    public static final String STATUS_CORRUPT = "corrupt";
+    public static final String STATUS_ERROR = "error";
+
+    private static final String TIMER_KEY = "backup-verify";
+    private static final long STARTUP_DELAY_MS = 10L * 60 * 1000;
+    private static final long IDLE_POLL_MS = 5000;
+    private static final long IDLE_CHECK_MS = 1000;
+
+    private final ServerAdminPanelPlugin plugin;
+    private final DatabaseManager databaseManager;
+    private final BackupManager backupManager;
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private volatile ExecutorService executor;
+    private volatile BackupProgress current;
+
+    public BackupVerifier(ServerAdminPanelPlugin plugin, DatabaseManager databaseManager, BackupManager backupManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.backupManager = backupManager;
+    }
+
+    public synchronized void start() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "PaperPanel-Verify");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduleRun(System.currentTimeMillis() + STARTUP_DELAY_MS);
+    }
+
+    public void stop() {
+        ExecutorService running;
+        synchronized (this) {
+            running = executor;
+            if (running == null) return;
+            executor = null;
+        }
+        DeadlineScheduler scheduler = plugin.getDeadlineScheduler();
+        if (scheduler != null) {
+            scheduler.cancel(TIMER_KEY);
+        }
+
+        BackupProgress progress = current;
+        if (progress != null) {
+            progress.cancel();
+        }
+        running.shutdownNow();
+        try {
+            running.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending.clear();
+    }
+
+    private void scheduleRun(long dueAt) {
+        DeadlineScheduler scheduler = plugin.getDeadlineScheduler();
+        int intervalHours = plugin.getConfigManager().getBackupVerifyIntervalHours();
+        if (scheduler == null || intervalHours <= 0) return;
+
+        scheduler.schedule(TIMER_KEY, dueAt, () -> {
+            verifyAll();
+            scheduleRun(System.currentTimeMillis() + intervalHours * 60L * 60 * 1000);
+        });
+    }
+
+    /**
+     * Queue every backup, the ones verified longest ago first
+     */
+    public void verifyAll() {
+        try {
+            List<Integer> ids = databaseManager.query(
+                "SELECT id FROM backups ORDER BY COALESCE(verified_at, 0), id", rs -> rs.getInt("id"));
+            for (int id : ids) {
+                submit(id);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to list backups for verification: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queue one backup for verification
+     * @return false if it is already waiting or the verifier is stopped
+     */
+    public boolean submit(int backupId) {
+        ExecutorService target = executor;
+        if (target == null || !pending.add(backupId)) {
+            return false;
+        }
+        target.execute(() -> {
+            try {
+                waitForIdleQueue();
+                verify(backupId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                pending.remove(backupId);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Whether the backup is waiting for or undergoing verification
+     */
+    public boolean isPending(int backupId) {
+        return pending.contains(backupId);
+    }
+
+    private void waitForIdleQueue() throws InterruptedException {
+        while (backupManager.getJobQueue().getActiveJobs().stream()
+                .anyMatch(job -> BackupJob.STATE_RUNNING.equals(job.getState()))) {
+            Thread.sleep(IDLE_POLL_MS);
+        }
+    }
+
+    private void verify(int backupId) {
+        BackupManager.BackupInfo backup = backupManager.getBackup(backupId);
+        if (backup == null) return;
+
+        long limit = plugin.getConfigManager().getBackupVerifyIoLimitMbPerSecond() * 1024L * 1024;
+        BackupProgress progress = new YieldingProgress(new IoThrottle(limit));
+        current = progress;
+        long start = System.currentTimeMillis();
+        try {
+            String baseline = null;
+            if (backup.isIncremental()) {
+                backupManager.getIncrementalStore().verify(backup.id, progress);
+            } else {
+                baseline = verifyArchive(backup, progress);
+            }
+            recordResult(backup, STATUS_OK, null, baseline);
+            plugin.getLogger().info(String.format("Verified backup %s in %.1fs",
+                backup.filename, (System.currentTimeMillis() - start) / 1000.0));
+        } catch (BackupCancelledException | InterruptedIOException e) {
+            // Stopped with the server; verified again on the next run
+        } catch (BackupIntegrityException e) {
+            plugin.getLogger().severe("Backup " + backup.filename + " failed verification: " + e.getMessage());
+            recordResult(backup, STATUS_CORRUPT, e.getMessage(), null);
+        } catch (IOException e) {
+            // Could not read the backup, which says nothing about the backup itself
+            plugin.getLogger().warning("Could not verify backup " + backup.filename + ": " + e.getMessage());
+            recordResult(backup, STATUS_ERROR, e.getMessage(), null);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not verify backup " + backup.filename + ": " + e.getMessage());
+        } finally {
+            current = null;
+        }
+    }
+
+    /**
+     * Check a ZIP backup against its recorded hash, or against its entry CRCs if it has none yet
+     * @return the archive's hash if it should become the recorded baseline, otherwise null
+     */
+    private String verifyArchive(BackupManager.BackupInfo backup, BackupProgress progress) throws IOException {
+        File file = new File(backup.filePath);
+        boolean local = backup.storedLocally && file.isFile();
+        if (!local && backup.remoteTargets.isEmpty()) {
+            throw new FileNotFoundException("Backup file is missing: " + file.getName());
+        }
+
+        if (backup.sha256 == null && local) {
+            checkEntries(file, progress);
+        }
+
+        progress.begin("verifying", 1, backup.sizeBytes);
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[1024 * 1024];
+        try (InputStream in = backupManager.openArchive(backup)) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                progress.read(n);
+                digest.update(buffer, 0, n);
+            }
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        if (backup.sha256 == null) {
+            return hash;
+        }
+        if (!hash.equalsIgnoreCase(backup.sha256)) {
+            throw new BackupIntegrityException("Checksum mismatch: archive changed since it was written");
+        }
+        return null;
+    }
+
+    /**
+     * Decompress every entry and compare it with the CRC-32 and size in the central directory
+     */
+    private void checkEntries(File file, BackupProgress progress) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            long totalBytes = zip.stream().mapToLong(entry -> Math.max(0, entry.getSize())).sum();
+            progress.begin("verifying", zip.size(), totalBytes);
+            byte[] buffer = new byte[64 * 1024];
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) continue;
+
+                CRC32 crc = new CRC32();
+                long size = 0;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    int n;
+                    while ((n = in.read(buffer)) >= 0) {
+                        progress.read(n);
+                        crc.update(buffer, 0, n);
+                        size += n;
+                    }
+                }
+                if ((entry.getCrc() != -1 && crc.getValue() != entry.getCrc())
+                        || (entry.getSize() != -1 && size != entry.getSize())) {
+                    throw new BackupIntegrityException("Checksum mismatch in " + entry.getName());
+                }
+                progress.fileDone(0);
+            }
+        } catch (ZipException e) {
+            throw new BackupIntegrityException("Invalid ZIP archive: " + e.getMessage(), e);
+        }
+    }
+
+    private void recordResult(BackupManager.BackupInfo backup, String status, String error, String baseline) {
+        try {
+            databaseManager.update("""
+                UPDATE backups SET verified_at = ?, verify_status = ?, verify_error = ?,
+                    sha256 = COALESCE(sha256, ?)
+                WHERE id = ?
+            """, System.currentTimeMillis(), status, error, baseline, backup.id);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to record verification of " + backup.filename + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Progress that steps aside, between blocks, whenever a backup job starts, so a long
+     * verification does not hold the disk for the whole of a job that came after it
+     */
+    private class YieldingProgress extends BackupProgress {
+        private volatile long nextCheck;
+
+        YieldingProgress(IoThrottle throttle) {
+            super(throttle, () -> {});
+        }
+
+        @Override
+        public void read(long bytes) throws BackupCancelledException, InterruptedIOException {
+            long now = System.currentTimeMillis();
+            if (now >= nextCheck) {
+                try {
+                    waitForIdleQueue();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Verification interrupted");
+                }
+                nextCheck = System.currentTimeMillis() + IDLE_CHECK_MS;
+            }
+            super.read(bytes);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,628 @@
+package de.kaicraft.adminpanel.backup;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.database.DatabaseManager;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Content-addressed block store behind incremental backups.
+ *
+ * Files are cut into fixed-size blocks that are stored once under their SHA-256
+ * in store/objects. A backup is just a manifest in backup_files: path, size,
+ * mtime, file hash and the list of block hashes. Files whose size and mtime
+ * match the previous snapshot are taken over without being read again, and
+ * blocks no manifest points to are removed by {@link #collectGarbage()}.
+ *
+ * Region files (.mca) are stored per chunk instead: each chunk's compressed
+ * payload is a block as-is, and the file's block list is a single index block
+ * naming the chunks with their save timestamps. Chunks whose timestamp did not
+ * change since the previous snapshot are not even read.
+ */
+public class IncrementalBackupStore {
+    private static final int HASH_LENGTH = 32;
+    private static final int CODEC_RAW = 0;
+    private static final int CODEC_DEFLATE = 1;
+    private static final int LAYOUT_BLOCKS = 0;
+    private static final int LAYOUT_REGION = 1;
+
+    private final ServerAdminPanelPlugin plugin;
+    private final DatabaseManager databaseManager;
+    private final File storeDir;
+    private final File objectsDir;
+    private final int blockSize;
+    private final int level;
+    // Snapshots and garbage collection must never overlap
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public IncrementalBackupStore(ServerAdminPanelPlugin plugin, DatabaseManager databaseManager, File storeDir) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+        this.storeDir = storeDir;
+        this.objectsDir = new File(storeDir, "objects");
+        this.blockSize = Math.max(64, plugin.getConfigManager().getBackupIncrementalBlockSizeKb()) * 1024;
+        this.level = plugin.getConfigManager().getBackupCompressionLevel();
+    }
+
+    public File getStoreDir() {
+        return storeDir;
+    }
+
+    /**
+     * Store every file of the set and record the manifest for the given backup
+     */
+    public SnapshotStats snapshot(int backupId, BackupFileSet files, ForkJoinPool pool,
+                                  BackupProgress progress) throws IOException, SQLException {
+        lock.lock();
+        try {
+            Map<String, FileRecord> previous = loadPreviousManifest(backupId);
+            AtomicLong addedBytes = new AtomicLong();
+            List<FileRecord> records = new ArrayList<>(files.size());
+            List<ForkJoinTask<FileRecord>> tasks = new ArrayList<>();
+            int reused = 0;
+
+            for (BackupFileSet.Entry entry : files.getEntries()) {
+                FileRecord prior = previous.get(entry.getPath());
+                if (prior != null && prior.size == entry.getLength() && prior.mtime == entry.getLastModified()) {
+                    records.add(prior);
+                    reused++;
+                    progress.fileDone(prior.size);
+                } else {
+                    tasks.add(pool.submit(() -> storeFile(entry, prior, addedBytes, progress)));
+                }
+            }
+
+            try {
+                for (ForkJoinTask<FileRecord> task : tasks) {
+                    records.add(task.join());
+                }
+            } catch (UncheckedIOException e) {
+                tasks.forEach(task -> task.cancel(true));
+                throw e.getCause();
+            }
+
+            List<Object[]> rows = new ArrayList<>(records.size());
+            long totalBytes = 0;
+            for (FileRecord record : records) {
+                rows.add(new Object[]{backupId, record.path, record.size, record.mtime, record.hash, record.blocks,
+                    record.layout});
+                totalBytes += record.size;
+            }
+            databaseManager.batch(
+                "INSERT INTO backup_files (backup_id, path, size, mtime, hash, blocks, layout) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                rows);
+
+            return new SnapshotStats(records.size(), reused, totalBytes, addedBytes.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stream the snapshot of a backup as a regular ZIP archive
+     */
+    public void writeZip(int backupId, OutputStream out) throws IOException, SQLException {
+        writeZip(backupId, path -> true, out);
+    }
+
+    /**
+     * Stream the files of a snapshot whose path passes the filter as a ZIP archive
+     */
+    public void writeZip(int backupId, Predicate<String> include, OutputStream out) throws IOException, SQLException {
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024))) {
+            // Favour throughput: this runs while the client is waiting for bytes
+            zos.setLevel(Deflater.BEST_SPEED);
+            for (FileRecord record : getManifest(backupId)) {
+                if (!include.test(record.path)) continue;
+                ZipEntry entry = new ZipEntry(record.path);
+                entry.setTime(record.mtime);
+                zos.putNextEntry(entry);
+                writeContent(record, zos);
+                zos.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Rebuild every file of the snapshot below the target directory
+     */
+    public void restore(int backupId, File targetDir) throws IOException, SQLException {
+        restore(backupId, path -> true, targetDir, ForkJoinPool.commonPool(), BackupProgress.untracked());
+    }
+
+    /**
+     * Rebuild the files of the snapshot whose path passes the filter below the target directory, in parallel.
+     * Every block is checked against its hash; plain files are also checked as a whole.
+     */
+    public void restore(int backupId, Predicate<String> include, File targetDir, ForkJoinPool pool,
+                        BackupProgress progress) throws IOException, SQLException {
+        String root = targetDir.getCanonicalPath() + File.separator;
+        List<FileRecord> records = new ArrayList<>();
+        long totalBytes = 0;
+        for (FileRecord record : getManifest(backupId)) {
+            if (include.test(record.path)) {
+                records.add(record);
+                totalBytes += record.size;
+            }
+        }
+        progress.begin("restoring", records.size(), totalBytes);
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(records.size());
+        for (FileRecord record : records) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    restoreFile(record, targetDir, root, progress);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } catch (UncheckedIOException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw e.getCause();
+        }
+    }
+
+    private void restoreFile(FileRecord record, File targetDir, String root, BackupProgress progress)
+            throws IOException {
+        File file = new File(targetDir, record.path);
+        if (!file.getCanonicalPath().startsWith(root)) {
+            throw new IOException("Refusing to restore outside the target directory: " + record.path);
+        }
+        file.getParentFile().mkdirs();
+
+        MessageDigest digest = sha256();
+        ThrottledOutputStream throttled = new ThrottledOutputStream(
+            new DigestOutputStream(new FileOutputStream(file), digest), progress);
+        try (OutputStream out = new BufferedOutputStream(throttled, 64 * 1024)) {
+            writeContent(record, out);
+        }
+        // Rebuilt region files are packed differently from the original, so only their chunks are comparable
+        if (record.layout == LAYOUT_BLOCKS && !MessageDigest.isEqual(digest.digest(), record.hash)) {
+            throw new BackupIntegrityException("Checksum mismatch while restoring " + record.path);
+        }
+        file.setLastModified(record.mtime);
+        progress.fileDone(record.size - throttled.getCount());
+    }
+
+    /**
+     * Read back every file of a snapshot and check its blocks (and plain files as a whole) against their hashes
+     * @throws BackupIntegrityException naming the first missing or corrupt block
+     */
+    public void verify(int backupId, BackupProgress progress) throws IOException, SQLException {
+        List<FileRecord> records = getManifest(backupId);
+        long totalBytes = records.stream().mapToLong(record -> record.size).sum();
+        progress.begin("verifying", records.size(), totalBytes);
+
+        for (FileRecord record : records) {
+            MessageDigest digest = sha256();
+            ThrottledOutputStream out = new ThrottledOutputStream(
+                new DigestOutputStream(OutputStream.nullOutputStream(), digest), progress);
+            try (out) {
+                writeContent(record, out);
+            }
+            if (record.layout == LAYOUT_BLOCKS && !MessageDigest.isEqual(digest.digest(), record.hash)) {
+                throw new BackupIntegrityException("Checksum mismatch in " + record.path);
+            }
+            progress.fileDone(record.size - out.getCount());
+        }
+    }
+
+    /**
+     * Files recorded for a backup, in path order
+     */
+    public List<FileRecord> getManifest(int backupId) throws SQLException {
+        return databaseManager.query(
+            "SELECT path, size, mtime, hash, blocks, layout FROM backup_files WHERE backup_id = ? ORDER BY path",
+            this::mapRecord, backupId);
+    }
+
+    /**
+     * Drop the manifest of a backup. Its blocks stay until the next garbage collection.
+     */
+    public void deleteManifest(int backupId) throws SQLException {
+        databaseManager.update("DELETE FROM backup_files WHERE backup_id = ?", backupId);
+    }
+
+    /**
+     * Delete every stored block that no manifest references any more
+     * @return bytes freed
+     */
+    public long collectGarbage() throws SQLException {
+        lock.lock();
+        try {
+            Set<String> referenced = new HashSet<>();
+            for (byte[] blocks : databaseManager.query("SELECT DISTINCT blocks FROM backup_files", rs -> rs.getBytes(1))) {
+                for (int i = 0; i < blocks.length; i += HASH_LENGTH) {
+                    referenced.add(HexFormat.of().formatHex(blocks, i, i + HASH_LENGTH));
+                }
+            }
+
+            // Region indexes reference their chunk blocks
+            List<byte[]> indexes = databaseManager.query(
+                "SELECT DISTINCT blocks FROM backup_files WHERE layout = " + LAYOUT_REGION, rs -> rs.getBytes(1));
+            for (byte[] index : indexes) {
+                try {
+                    for (AnvilRegion.ChunkRef chunk : AnvilRegion.decodeIndex(readObject(index), HASH_LENGTH)) {
+                        referenced.add(HexFormat.of().formatHex(chunk.hash));
+                    }
+                } catch (IOException e) {
+                    // Without the index we cannot tell which chunks are live, so keep everything
+                    plugin.getLogger().warning("Backup store: skipping garbage collection, unreadable region index: " +
+                        e.getMessage());
+                    return 0;
+                }
+            }
+
+            long freed = 0;
+            int deleted = 0;
+            File[] buckets = objectsDir.listFiles(File::isDirectory);
+            if (buckets == null) return 0;
+
+            for (File bucket : buckets) {
+                File[] objects = bucket.listFiles();
+                if (objects == null) continue;
+                for (File object : objects) {
+                    // Leftover temp files from an interrupted snapshot go as well
+                    if (!referenced.contains(object.getName())) {
+                        long length = object.length();
+                        if (object.delete()) {
+                            freed += length;
+                            deleted++;
+                        }
+                    }
+                }
+                String[] remaining = bucket.list();
+                if (remaining != null && remaining.length == 0) {
+                    bucket.delete();
+                }
+            }
+
+            if (deleted > 0) {
+                plugin.getLogger().info("Backup store: removed " + deleted + " unreferenced blocks (" +
+                    (freed / 1024 / 1024) + " MB)");
+            }
+            return freed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, FileRecord> loadPreviousManifest(int backupId) throws SQLException {
+        Integer previousId = databaseManager.queryOne(
+            "SELECT MAX(id) FROM backups WHERE format = 'incremental' AND id < ?",
+            rs -> rs.getObject(1) != null ? rs.getInt(1) : null, backupId);
+
+        Map<String, FileRecord> manifest = new HashMap<>();
+        if (previousId != null) {
+            for (FileRecord record : getManifest(previousId)) {
+                manifest.put(record.path, record);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Hash and store one changed file. Runs on the pool.
+     */
+    private FileRecord storeFile(BackupFileSet.Entry entry, FileRecord prior, AtomicLong addedBytes,
+                                 BackupProgress progress) {
+        try {
+            FileRecord record = null;
+            AtomicLong readBytes = new AtomicLong();
+            if (AnvilRegion.isRegionFile(entry.getPath())) {
+                record = storeRegion(entry, prior, addedBytes, readBytes, progress);
+                // null: not a well-formed region file (or caught mid-write), store it as plain blocks
+            }
+            if (record == null) {
+                record = storeBlocks(entry, addedBytes, readBytes, progress);
+            }
+            progress.fileDone(record.size - readBytes.get());
+            return record;
+        } catch (BackupCancelledException e) {
+            throw new UncheckedIOException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to back up " + entry.getFile().getPath(), e);
+        }
+    }
+
+    /**
+     * Store a region file chunk by chunk, reusing every chunk whose timestamp is unchanged
+     * @return null if the file cannot be parsed as a region file
+     */
+    private FileRecord storeRegion(BackupFileSet.Entry entry, FileRecord prior, AtomicLong addedBytes,
+                                   AtomicLong readBytes, BackupProgress progress) throws IOException {
+        Map<Integer, AnvilRegion.ChunkRef> previous = new HashMap<>();
+        if (prior != null && prior.layout == LAYOUT_REGION) {
+            for (AnvilRegion.ChunkRef chunk : AnvilRegion.decodeIndex(readObject(prior.blocks), HASH_LENGTH)) {
+                previous.put(chunk.slot, chunk);
+            }
+        }
+
+        List<AnvilRegion.ChunkRef> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(entry.getFile().toPath(), StandardOpenOption.READ)) {
+            AnvilRegion.Header header = AnvilRegion.readHeader(channel);
+            if (header == null) {
+                return null;
+            }
+
+            for (int slot = 0; slot < AnvilRegion.CHUNK_SLOTS; slot++) {
+                int location = header.locations[slot];
+                if (location == 0) {
+                    continue;
+                }
+
+                int timestamp = header.timestamps[slot];
+                AnvilRegion.ChunkRef before = previous.get(slot);
+                if (before != null && before.timestamp == timestamp) {
+                    chunks.add(before);
+                    continue;
+                }
+
+                long sectorBytes = (long) (location & 0xFF) * AnvilRegion.SECTOR_SIZE;
+                progress.read(sectorBytes);
+                readBytes.addAndGet(sectorBytes);
+                byte[] data = AnvilRegion.readChunk(channel, location);
+                if (data == null) {
+                    return null;
+                }
+                // Payloads are already compressed by the server, so they are stored as they are
+                byte[] hash = sha256().digest(data);
+                addedBytes.addAndGet(putObject(hash, data, data.length, false));
+                chunks.add(new AnvilRegion.ChunkRef(slot, timestamp, hash));
+            }
+        }
+
+        byte[] index = AnvilRegion.encodeIndex(chunks);
+        byte[] indexHash = sha256().digest(index);
+        addedBytes.addAndGet(putObject(indexHash, index, index.length, true));
+        return new FileRecord(entry.getPath(), entry.getLength(), entry.getLastModified(), indexHash, indexHash,
+            LAYOUT_REGION);
+    }
+
+    /**
+     * Store a file as fixed-size blocks
+     */
+    private FileRecord storeBlocks(BackupFileSet.Entry entry, AtomicLong addedBytes,
+                                   AtomicLong readBytes, BackupProgress progress) throws IOException {
+        try (InputStream in = new FileInputStream(entry.getFile())) {
+            MessageDigest fileDigest = sha256();
+            ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+            byte[] buffer = new byte[blockSize];
+            long size = 0;
+            int n;
+
+            while ((n = in.readNBytes(buffer, 0, blockSize)) > 0) {
+                progress.read(n);
+                readBytes.addAndGet(n);
+                fileDigest.update(buffer, 0, n);
+                MessageDigest blockDigest = sha256();
+                blockDigest.update(buffer, 0, n);
+                byte[] hash = blockDigest.digest();
+                addedBytes.addAndGet(putObject(hash, buffer, n, true));
+                blocks.write(hash);
+                size += n;
+            }
+
+            return new FileRecord(entry.getPath(), size, entry.getLastModified(), fileDigest.digest(), blocks.toByteArray(),
+                LAYOUT_BLOCKS);
+        }
+    }
+
+    /**
+     * Store a block unless it already exists
+     * @return bytes written to disk
+     */
+    private long putObject(byte[] hash, byte[] data, int length, boolean tryCompress) throws IOException {
+        File file = objectFile(hash);
+        if (file.exists()) {
+            return 0;
+        }
+        file.getParentFile().mkdirs();
+
+        // Keep the deflated form only when it actually saves space
+        byte[] deflated = tryCompress ? deflate(data, length) : null;
+        boolean compressed = deflated != null && deflated.length < length;
+
+        File temp = new File(file.getParentFile(), file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(compressed ? CODEC_DEFLATE : CODEC_RAW);
+            if (compressed) {
+                out.write(deflated);
+            } else {
+                out.write(data, 0, length);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return 1 + (compressed ? deflated.length : length);
+    }
+
+    /**
+     * Load a block, undo its compression and check it against its hash
+     */
+    private byte[] readObject(byte[] hash) throws IOException {
+        byte[] data = decodeObject(hash);
+        if (!MessageDigest.isEqual(sha256().digest(data), hash)) {
+            throw new BackupIntegrityException("Backup block is corrupt: " + HexFormat.of().formatHex(hash));
+        }
+        return data;
+    }
+
+    private byte[] decodeObject(byte[] hash) throws IOException {
+        File file = objectFile(hash);
+        if (!file.exists()) {
+            throw new BackupIntegrityException("Backup block is missing: " + file.getName());
+        }
+
+        byte[] stored = Files.readAllBytes(file.toPath());
+        if (stored.length == 0 || stored[0] == CODEC_RAW) {
+            return stored.length == 0 ? stored : Arrays.copyOfRange(stored, 1, stored.length);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(blockSize);
+            byte[] buffer = new byte[64 * 1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new BackupIntegrityException("Backup block is truncated: " + file.getName());
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new BackupIntegrityException("Backup block is corrupt: " + file.getName(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void writeContent(FileRecord record, OutputStream out) throws IOException {
+        if (record.layout == LAYOUT_REGION) {
+            AnvilRegion.write(AnvilRegion.decodeIndex(readObject(record.blocks), HASH_LENGTH), this::readObject, out);
+            return;
+        }
+        for (int i = 0; i < record.blocks.length; i += HASH_LENGTH) {
+            out.write(readObject(Arrays.copyOfRange(record.blocks, i, i + HASH_LENGTH)));
+        }
+    }
+
+    private byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 2));
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private File objectFile(byte[] hash) {
+        String hex = HexFormat.of().formatHex(hash);
+        return new File(new File(objectsDir, hex.substring(0, 2)), hex);
+    }
+
+    private FileRecord mapRecord(ResultSet rs) throws SQLException {
+        return new FileRecord(
+            rs.getString("path"),
+            rs.getLong("size"),
+            rs.getLong("mtime"),
+            rs.getBytes("hash"),
+            rs.getBytes("blocks"),
+            rs.getInt("layout")
+        );
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Passes every write through the progress, so restores can be throttled and cancelled
+     */
+    private static class ThrottledOutputStream extends FilterOutputStream {
+        private final BackupProgress progress;
+        private long count;
+
+        ThrottledOutputStream(OutputStream out, BackupProgress progress) {
+            super(out);
+            this.progress = progress;
+        }
+
+        /**
+         * Bytes written so far, all of them already counted by the progress
+         */
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            progress.read(len);
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            progress.read(1);
+            out.write(b);
+            count++;
+        }
+    }
+
+    /**
+     * One file in a snapshot manifest
+     */
+    public static class FileRecord {
+        public final String path;
+        public final long size;
+        public final long mtime;
+        public final byte[] hash;
+        public final byte[] blocks;
+        public final int layout;
+
+        public FileRecord(String path, long size, long mtime, byte[] hash, byte[] blocks, int layout) {
+            this.path = path;
+            this.size = size;
+            this.mtime = mtime;
+            this.hash = hash;
+            this.blocks = blocks;
+            this.layout = layout;
+        }
+    }
+
+    /**
+     * Outcome of one incremental snapshot
+     */
+    public static class SnapshotStats {
+        public final int files;
+        public final int unchangedFiles;
+        public final long totalBytes;
+        public final long addedBytes;
+
+        public SnapshotStats(int files, int unchangedFiles, long totalBytes, long addedBytes) {
+            this.files = files;
+            this.unchangedFiles = unchangedFiles;
+            this.totalBytes = totalBytes;
+            this.addedBytes = addedBytes;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package de.kaicraft.adminpanel.backup;
+
+/**
+ * Token bucket that caps backup reads at a fixed rate, shared by all compression threads.
+ * Keeps backups from starving the server's own region file I/O.
+ */
+public class IoThrottle {
+    private final long bytesPerSecond;
+    // At most one second of burst
+    private final long capacity;
+    private long available;
+    private long lastRefill;
+
+    /**
+     * @param bytesPerSecond 0 or less disables throttling
+     */
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.capacity = Math.max(1, bytesPerSecond);
+        this.available = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public boolean isLimited() {
+        return bytesPerSecond > 0;
+    }
+
+    /**
+     * Block until the given number of bytes may be read
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0 || bytes <= 0) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            // The bucket is full after one idle second, and clamping first keeps the product from overflowing
+            long elapsed = Math.min(now - lastRefill, 1_000_000_000L);
+            available = Math.min(capacity, available + elapsed * bytesPerSecond / 1_000_000_000L);
+            lastRefill = now;
+            // Take the tokens now and let the balance go negative; the caller sleeps off the debt
+            available -= bytes;
+            waitNanos = available < 0 ? -available * 1_000_000_000L / bytesPerSecond : 0;
+        }
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+}
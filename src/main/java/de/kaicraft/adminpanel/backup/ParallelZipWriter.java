@@ -0,0 +1,492 @@
+package de.kaicraft.adminpanel.backup;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a standard ZIP archive whose entries are deflated in parallel.
+ *
+ * Every file is cut into fixed-size chunks which are compressed independently
+ * on a fork-join pool. Non-final chunks end with a sync flush, so the chunks of
+ * one file concatenate into a single valid deflate stream, and the chunk CRCs
+ * are combined instead of re-reading the file. The calling thread writes the
+ * chunks in order, keeping only a bounded window of compressed data in memory.
+ * Entry sizes go into data descriptors, so nothing has to be buffered per file.
+ * The archive is hashed as it is written, and the entries are returned for the catalogue.
+ */
+public class ParallelZipWriter {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int END_OF_CENTRAL = 0x06054b50;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    // Files this large get Zip64 sizes up front, leaving room for deflate overhead
+    private static final long ZIP64_FILE_THRESHOLD = 0xF0000000L;
+
+    private final int level;
+    private final int chunkSize;
+
+    /**
+     * @param level deflate level 0-9
+     * @param chunkSize bytes of input compressed per task
+     */
+    public ParallelZipWriter(int level, int chunkSize) {
+        this.level = Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, level));
+        this.chunkSize = Math.max(64 * 1024, chunkSize);
+    }
+
+    /**
+     * Compress the given files on the pool and write them as one archive
+     * @return size, SHA-256 and entries of the written archive
+     */
+    public Archive write(BackupFileSet files, File target, ForkJoinPool pool, BackupProgress progress) throws IOException {
+        try (OutputStream out = new FileOutputStream(target)) {
+            return write(files, out, pool, progress);
+        }
+    }
+
+    /**
+     * Compress the given files on the pool and write them as one archive to a stream.
+     * The stream is flushed but not closed, so the caller decides whether the result is kept.
+     * @return size, SHA-256 and entries of the written archive
+     */
+    public Archive write(BackupFileSet files, OutputStream sink, ForkJoinPool pool, BackupProgress progress)
+            throws IOException {
+        List<Chunk> plan = new ArrayList<>();
+        for (BackupFileSet.Entry source : files.getEntries()) {
+            int chunks = (int) Math.max(1, (source.getLength() + chunkSize - 1) / chunkSize);
+            for (int i = 0; i < chunks; i++) {
+                long offset = (long) i * chunkSize;
+                int length = (int) Math.min(chunkSize, Math.max(0, source.getLength() - offset));
+                plan.add(new Chunk(source, offset, length, i == 0, i == chunks - 1));
+            }
+        }
+
+        int window = Math.max(4, pool.getParallelism() * 3);
+        ArrayDeque<ForkJoinTask<Compressed>> inFlight = new ArrayDeque<>();
+        Iterator<Chunk> pending = plan.iterator();
+        List<CentralEntry> central = new ArrayList<>(files.size());
+        MessageDigest digest = sha256();
+
+        CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(
+            new DigestOutputStream(sink, digest), 256 * 1024));
+        try {
+            CentralEntry current = null;
+
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < window) {
+                    Chunk chunk = pending.next();
+                    inFlight.add(pool.submit(() -> compress(chunk, progress)));
+                }
+
+                Compressed result = join(inFlight.poll());
+                Chunk chunk = result.chunk;
+
+                if (chunk.first) {
+                    current = new CentralEntry(chunk.source, out.getCount());
+                    writeLocalHeader(out, current);
+                }
+
+                out.write(result.data, 0, result.data.length);
+                current.crc = crc32Combine(current.crc, result.crc, result.inputLength);
+                current.compressedSize += result.data.length;
+                current.size += result.inputLength;
+
+                if (chunk.last) {
+                    writeDataDescriptor(out, current);
+                    central.add(current);
+                    // Every chunk was counted when it was read
+                    progress.fileDone(0);
+                }
+            }
+
+            writeCentralDirectory(out, central);
+            out.flush();
+
+            List<BackupCatalog.Entry> entries = new ArrayList<>(central.size());
+            for (CentralEntry entry : central) {
+                entries.add(new BackupCatalog.Entry(entry.source.getPath(), entry.size, entry.compressedSize,
+                    entry.crc, entry.source.getLastModified()));
+            }
+            return new Archive(out.getCount(), HexFormat.of().formatHex(digest.digest()), entries);
+        } catch (IOException | RuntimeException e) {
+            for (ForkJoinTask<Compressed> task : inFlight) {
+                task.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Compressed join(ForkJoinTask<Compressed> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Read and deflate one chunk. Runs on the pool.
+     */
+    private Compressed compress(Chunk chunk, BackupProgress progress) {
+        byte[] input = new byte[chunk.length];
+        int read = 0;
+        if (chunk.length > 0) {
+            try {
+                progress.read(chunk.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try (FileChannel channel = FileChannel.open(chunk.source.getFile().toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.wrap(input);
+                // A file that shrank since it was listed just yields a shorter entry
+                while (buffer.hasRemaining()) {
+                    int n = channel.read(buffer, chunk.offset + buffer.position());
+                    if (n < 0) break;
+                    read += n;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + chunk.source.getFile().getPath(), e);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(input, 0, read);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(input, 0, read);
+            ByteArrayOutputStream data = new ByteArrayOutputStream(Math.max(64, read / 2));
+            byte[] buffer = new byte[64 * 1024];
+            if (chunk.last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    data.write(buffer, 0, n);
+                }
+            } else {
+                // Byte-align without a final block so the next chunk can follow directly
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    data.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return new Compressed(chunk, data.toByteArray(), crc.getValue(), read);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeLocalHeader(CountingOutputStream out, CentralEntry entry) throws IOException {
+        byte[] name = entry.source.getPath().getBytes(StandardCharsets.UTF_8);
+        boolean zip64 = entry.source.getLength() >= ZIP64_FILE_THRESHOLD;
+        entry.zip64Descriptor = zip64;
+
+        out.writeInt(LOCAL_HEADER);
+        out.writeShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+        out.writeShort(FLAG_DATA_DESCRIPTOR | FLAG_UTF8);
+        out.writeShort(METHOD_DEFLATED);
+        out.writeInt((int) entry.dosTime);
+        out.writeInt(0);
+        out.writeInt(zip64 ? (int) ZIP64_MAGIC : 0);
+        out.writeInt(zip64 ? (int) ZIP64_MAGIC : 0);
+        out.writeShort(name.length);
+        out.writeShort(zip64 ? 20 : 0);
+        out.write(name, 0, name.length);
+        if (zip64) {
+            out.writeShort(0x0001);
+            out.writeShort(16);
+            out.writeLong(0);
+            out.writeLong(0);
+        }
+    }
+
+    private static void writeDataDescriptor(CountingOutputStream out, CentralEntry entry) throws IOException {
+        out.writeInt(DATA_DESCRIPTOR);
+        out.writeInt((int) entry.crc);
+        if (entry.zip64Descriptor) {
+            out.writeLong(entry.compressedSize);
+            out.writeLong(entry.size);
+        } else {
+            out.writeInt((int) entry.compressedSize);
+            out.writeInt((int) entry.size);
+        }
+    }
+
+    private static void writeCentralDirectory(CountingOutputStream out, List<CentralEntry> entries) throws IOException {
+        long start = out.getCount();
+
+        for (CentralEntry entry : entries) {
+            byte[] name = entry.source.getPath().getBytes(StandardCharsets.UTF_8);
+            boolean bigSize = entry.size >= ZIP64_MAGIC;
+            boolean bigCompressed = entry.compressedSize >= ZIP64_MAGIC;
+            boolean bigOffset = entry.offset >= ZIP64_MAGIC;
+            int extraLength = (bigSize ? 8 : 0) + (bigCompressed ? 8 : 0) + (bigOffset ? 8 : 0);
+            boolean zip64 = extraLength > 0 || entry.zip64Descriptor;
+
+            out.writeInt(CENTRAL_HEADER);
+            out.writeShort(VERSION_ZIP64);
+            out.writeShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+            out.writeShort(FLAG_DATA_DESCRIPTOR | FLAG_UTF8);
+            out.writeShort(METHOD_DEFLATED);
+            out.writeInt((int) entry.dosTime);
+            out.writeInt((int) entry.crc);
+            out.writeInt(bigCompressed ? (int) ZIP64_MAGIC : (int) entry.compressedSize);
+            out.writeInt(bigSize ? (int) ZIP64_MAGIC : (int) entry.size);
+            out.writeShort(name.length);
+            out.writeShort(extraLength > 0 ? extraLength + 4 : 0);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeInt(0);
+            out.writeInt(bigOffset ? (int) ZIP64_MAGIC : (int) entry.offset);
+            out.write(name, 0, name.length);
+            if (extraLength > 0) {
+                out.writeShort(0x0001);
+                out.writeShort(extraLength);
+                if (bigSize) out.writeLong(entry.size);
+                if (bigCompressed) out.writeLong(entry.compressedSize);
+                if (bigOffset) out.writeLong(entry.offset);
+            }
+        }
+
+        long end = out.getCount();
+        long length = end - start;
+        int count = entries.size();
+        boolean zip64 = count >= 0xFFFF || start >= ZIP64_MAGIC || length >= ZIP64_MAGIC;
+
+        if (zip64) {
+            out.writeInt(ZIP64_END);
+            out.writeLong(44);
+            out.writeShort(VERSION_ZIP64);
+            out.writeShort(VERSION_ZIP64);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(count);
+            out.writeLong(count);
+            out.writeLong(length);
+            out.writeLong(start);
+
+            out.writeInt(ZIP64_LOCATOR);
+            out.writeInt(0);
+            out.writeLong(end);
+            out.writeInt(1);
+        }
+
+        out.writeInt(END_OF_CENTRAL);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(zip64 ? 0xFFFF : count);
+        out.writeShort(zip64 ? 0xFFFF : count);
+        out.writeInt(zip64 ? (int) ZIP64_MAGIC : (int) length);
+        out.writeInt(zip64 ? (int) ZIP64_MAGIC : (int) start);
+        out.writeShort(0);
+    }
+
+    /**
+     * MS-DOS date (high word) and time (low word) as stored in ZIP headers
+     */
+    private static long dosTime(long millis) {
+        LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (t.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (t.getYear() - 1980) << 25) | ((long) t.getMonthValue() << 21) | ((long) t.getDayOfMonth() << 16)
+                | ((long) t.getHour() << 11) | ((long) t.getMinute() << 5) | (t.getSecond() >> 1);
+    }
+
+    /**
+     * CRC-32 of two concatenated blocks from their individual CRCs (zlib's crc32_combine)
+     */
+    static long crc32Combine(long crc1, long crc2, long len2) {
+        if (len2 <= 0) {
+            return crc1;
+        }
+
+        long[] even = new long[32];
+        long[] odd = new long[32];
+
+        // Operator for one zero bit
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd); // two zero bits
+        gf2MatrixSquare(odd, even); // four zero bits
+
+        // Apply len2 zero bytes to crc1
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            len2 >>= 1;
+            if (len2 == 0) {
+                break;
+            }
+
+            gf2MatrixSquare(odd, even);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            len2 >>= 1;
+        } while (len2 != 0);
+
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] mat, long vec) {
+        long sum = 0;
+        int i = 0;
+        while (vec != 0) {
+            if ((vec & 1) != 0) {
+                sum ^= mat[i];
+            }
+            vec >>= 1;
+            i++;
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] mat) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+
+    private static class Chunk {
+        private final BackupFileSet.Entry source;
+        private final long offset;
+        private final int length;
+        private final boolean first;
+        private final boolean last;
+
+        private Chunk(BackupFileSet.Entry source, long offset, int length, boolean first, boolean last) {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    private static class Compressed {
+        private final Chunk chunk;
+        private final byte[] data;
+        private final long crc;
+        private final int inputLength;
+
+        private Compressed(Chunk chunk, byte[] data, long crc, int inputLength) {
+            this.chunk = chunk;
+            this.data = data;
+            this.crc = crc;
+            this.inputLength = inputLength;
+        }
+    }
+
+    /**
+     * What was written: archive size, hex SHA-256 of the whole file, and one catalogue entry per file
+     */
+    public static class Archive {
+        public final long size;
+        public final String sha256;
+        public final List<BackupCatalog.Entry> entries;
+
+        private Archive(long size, String sha256, List<BackupCatalog.Entry> entries) {
+            this.size = size;
+            this.sha256 = sha256;
+            this.entries = entries;
+        }
+    }
+
+    private static class CentralEntry {
+        private final BackupFileSet.Entry source;
+        private final long offset;
+        private final long dosTime;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private boolean zip64Descriptor;
+
+        private CentralEntry(BackupFileSet.Entry source, long offset) {
+            this.source = source;
+            this.offset = offset;
+            this.dosTime = dosTime(source.getLastModified());
+        }
+    }
+
+    /**
+     * Little-endian output that keeps track of the archive offset
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        void writeShort(int v) throws IOException {
+            write(v & 0xFF);
+            write((v >>> 8) & 0xFF);
+        }
+
+        void writeInt(int v) throws IOException {
+            writeShort(v & 0xFFFF);
+            writeShort((v >>> 16) & 0xFFFF);
+        }
+
+        void writeLong(long v) throws IOException {
+            writeInt((int) v);
+            writeInt((int) (v >>> 32));
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package de.kaicraft.adminpanel.backup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Restores backups without touching the running server.
+ *
+ * The selected files are extracted in parallel into backups/restore/staged and verified
+ * (CRC-32 for ZIP entries, SHA-256 for incremental snapshots). A plan listing the restore
+ * targets is written next to them. On the next start, before any world is loaded,
+ * {@link #applyPending} moves each live target aside into backups/restore/previous-<time>
+ * and renames the staged copy into its place. Both are plain renames on the same filesystem.
+ */
+public class RestoreManager {
+    private static final String PLAN_FILE = "pending.json";
+    private static final Pattern REGION_FILE = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+    private static final Set<String> REGION_DIRS = Set.of("region", "entities", "poi");
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final ServerAdminPanelPlugin plugin;
+    private final IncrementalBackupStore incrementalStore;
+    private final File restoreDir;
+    private final File stagedDir;
+
+    public RestoreManager(ServerAdminPanelPlugin plugin, IncrementalBackupStore incrementalStore, File restoreDir) {
+        this.plugin = plugin;
+        this.incrementalStore = incrementalStore;
+        this.restoreDir = restoreDir;
+        this.stagedDir = new File(restoreDir, "staged");
+    }
+
+    /**
+     * Extract and verify the selected part of a backup, then schedule it for the next restart.
+     * Replaces any restore that is still pending.
+     */
+    public RestorePlan stage(BackupManager.BackupInfo backup, RestoreSelection selection, String username,
+                             ForkJoinPool pool, BackupProgress progress) throws IOException, SQLException {
+        cancelPending();
+        Files.createDirectories(stagedDir.toPath());
+
+        Set<String> targets = new TreeSet<>();
+        Predicate<String> include = path -> {
+            String target = selection.targetFor(path, ownDataFolder());
+            if (target == null) return false;
+            synchronized (targets) {
+                targets.add(target);
+            }
+            return true;
+        };
+
+        try {
+            if (backup.isIncremental()) {
+                incrementalStore.restore(backup.id, include, stagedDir, pool, progress);
+            } else {
+                extractZip(new File(backup.filePath), include, pool, progress);
+            }
+            progress.checkCancelled();
+        } catch (IOException | SQLException | RuntimeException e) {
+            deleteRecursively(stagedDir.toPath());
+            throw e;
+        }
+
+        if (targets.isEmpty()) {
+            deleteRecursively(stagedDir.toPath());
+            throw new IOException("Nothing in the backup matches the selection");
+        }
+
+        RestorePlan plan = new RestorePlan(backup.id, backup.filename, username, System.currentTimeMillis(),
+            new ArrayList<>(targets));
+        File planFile = new File(restoreDir, PLAN_FILE);
+        File tempFile = new File(restoreDir, PLAN_FILE + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            GSON.toJson(plan, writer);
+        }
+        Files.move(tempFile.toPath(), planFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+
+        plugin.getLogger().info("Restore of " + backup.filename + " staged (" + targets.size()
+            + " target(s)); it is applied on the next restart");
+        return plan;
+    }
+
+    /**
+     * The restore waiting for the next restart, or null
+     */
+    public RestorePlan getPending() {
+        return readPlan(restoreDir);
+    }
+
+    /**
+     * Drop the pending restore and its staged files
+     * @return false if there was none
+     */
+    public boolean cancelPending() {
+        File planFile = new File(restoreDir, PLAN_FILE);
+        boolean existed = planFile.delete();
+        deleteRecursively(stagedDir.toPath());
+        return existed;
+    }
+
+    /**
+     * Extract the matching entries of a ZIP archive, one task per entry.
+     * ZipFile does not check CRCs itself, so every entry is checked while it is written.
+     */
+    private void extractZip(File archive, Predicate<String> include, ForkJoinPool pool, BackupProgress progress)
+            throws IOException {
+        String root = stagedDir.getCanonicalPath() + File.separator;
+        try (ZipFile zip = new ZipFile(archive)) {
+            List<ZipEntry> entries = new ArrayList<>();
+            long totalBytes = 0;
+            Enumeration<? extends ZipEntry> all = zip.entries();
+            while (all.hasMoreElements()) {
+                ZipEntry entry = all.nextElement();
+                if (!entry.isDirectory() && include.test(entry.getName())) {
+                    entries.add(entry);
+                    totalBytes += Math.max(0, entry.getSize());
+                }
+            }
+            progress.begin("restoring", entries.size(), totalBytes);
+
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(entries.size());
+            for (ZipEntry entry : entries) {
+                tasks.add(pool.submit(() -> {
+                    try {
+                        extractEntry(zip, entry, root, progress);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            try {
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            } catch (UncheckedIOException e) {
+                tasks.forEach(task -> task.cancel(true));
+                throw e.getCause();
+            }
+        }
+    }
+
+    private void extractEntry(ZipFile zip, ZipEntry entry, String root, BackupProgress progress) throws IOException {
+        File file = new File(stagedDir, entry.getName());
+        if (!file.getCanonicalPath().startsWith(root)) {
+            throw new IOException("Refusing to restore outside the staging directory: " + entry.getName());
+        }
+        file.getParentFile().mkdirs();
+
+        CRC32 crc = new CRC32();
+        long written = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = zip.getInputStream(entry);
+             OutputStream out = new FileOutputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                progress.read(n);
+                crc.update(buffer, 0, n);
+                out.write(buffer, 0, n);
+                written += n;
+            }
+        }
+        if ((entry.getCrc() != -1 && crc.getValue() != entry.getCrc())
+                || (entry.getSize() != -1 && written != entry.getSize())) {
+            throw new IOException("Checksum mismatch while restoring " + entry.getName());
+        }
+        if (entry.getTime() != -1) {
+            file.setLastModified(entry.getTime());
+        }
+        progress.fileDone(0);
+    }
+
+    private String ownDataFolder() {
+        return "plugins/" + plugin.getDataFolder().getName();
+    }
+
+    /**
+     * Swap staged restore targets into place. Runs from onLoad, before worlds are loaded.
+     * Safe to run again after a crash half way: targets that were already swapped have no staged copy left.
+     */
+    public static void applyPending(File restoreDir, Logger logger) {
+        RestorePlan plan = readPlan(restoreDir);
+        if (plan == null) return;
+
+        Path staged = new File(restoreDir, "staged").toPath();
+        Path previous = new File(restoreDir, "previous-" + plan.createdAt).toPath();
+        Path serverRoot = Paths.get("").toAbsolutePath();
+        logger.info("Applying restore of " + plan.backupFilename + " requested by " + plan.requestedBy);
+
+        int applied = 0;
+        for (String target : plan.targets) {
+            Path source = staged.resolve(target).normalize();
+            Path live = serverRoot.resolve(target).normalize();
+            if (!source.startsWith(staged) || !live.startsWith(serverRoot) || !Files.exists(source)) {
+                continue;
+            }
+            try {
+                if (Files.exists(live)) {
+                    Path aside = previous.resolve(target);
+                    Files.createDirectories(aside.getParent());
+                    move(live, aside);
+                }
+                Files.createDirectories(live.getParent());
+                move(source, live);
+                applied++;
+            } catch (IOException e) {
+                logger.severe("Failed to restore " + target + ": " + e.getMessage());
+            }
+        }
+
+        new File(restoreDir, PLAN_FILE).delete();
+        deleteRecursively(staged);
+        logger.info("Restored " + applied + " of " + plan.targets.size() + " target(s); replaced files were kept in "
+            + previous);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+    private static RestorePlan readPlan(File restoreDir) {
+        File planFile = new File(restoreDir, PLAN_FILE);
+        if (!planFile.isFile()) return null;
+        try (Reader reader = new InputStreamReader(new FileInputStream(planFile), StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, RestorePlan.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void deleteRecursively(Path root) {
+        if (!Files.exists(root)) return;
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException ignored) {
+            // Leftovers are removed with the next restore
+        }
+    }
+
+    /**
+     * What to restore: whole top-level paths (a world, a plugin folder, a config file),
+     * a range of region files of one world, or everything when both are empty.
+     */
+    public static class RestoreSelection {
+        public final List<String> paths;
+        public final String regionWorld;
+        public final int minRegionX;
+        public final int minRegionZ;
+        public final int maxRegionX;
+        public final int maxRegionZ;
+
+        public RestoreSelection(List<String> paths, String regionWorld,
+                                int minRegionX, int minRegionZ, int maxRegionX, int maxRegionZ) {
+            this.paths = normalize(paths);
+            this.regionWorld = regionWorld != null && !regionWorld.isBlank() ? regionWorld.trim() : null;
+            this.minRegionX = Math.min(minRegionX, maxRegionX);
+            this.minRegionZ = Math.min(minRegionZ, maxRegionZ);
+            this.maxRegionX = Math.max(minRegionX, maxRegionX);
+            this.maxRegionZ = Math.max(minRegionZ, maxRegionZ);
+            if (this.regionWorld != null && (this.regionWorld.contains("/") || this.regionWorld.contains(".."))) {
+                throw new IllegalArgumentException("Invalid world: " + regionWorld);
+            }
+        }
+
+        /**
+         * Everything in the backup
+         */
+        public static RestoreSelection all() {
+            return new RestoreSelection(List.of(), null, 0, 0, 0, 0);
+        }
+
+        /**
+         * The path that is swapped as a whole to restore a backup entry, or null if the entry is not selected.
+         * Plugin folders are swapped one by one and the panel's own folder (with its database) never.
+         */
+        String targetFor(String path, String ownDataFolder) {
+            if (path.equals(ownDataFolder) || path.startsWith(ownDataFolder + "/")) {
+                return null;
+            }
+
+            if (regionWorld != null && path.startsWith(regionWorld + "/")) {
+                String[] parts = path.split("/");
+                Matcher matcher = REGION_FILE.matcher(parts[parts.length - 1]);
+                if (parts.length >= 3 && REGION_DIRS.contains(parts[parts.length - 2]) && matcher.matches()) {
+                    int x = Integer.parseInt(matcher.group(1));
+                    int z = Integer.parseInt(matcher.group(2));
+                    if (x >= minRegionX && x <= maxRegionX && z >= minRegionZ && z <= maxRegionZ) {
+                        return path;
+                    }
+                }
+            }
+
+            if (paths.isEmpty() && regionWorld == null) {
+                return defaultTarget(path);
+            }
+            for (String selected : paths) {
+                if (path.equals(selected) || path.startsWith(selected + "/")) {
+                    return selected.equals("plugins") ? defaultTarget(path) : selected;
+                }
+            }
+            return null;
+        }
+
+        private static String defaultTarget(String path) {
+            String[] parts = path.split("/");
+            if (parts[0].equals("plugins") && parts.length > 1) {
+                return parts[0] + "/" + parts[1];
+            }
+            return parts[0];
+        }
+
+        private static List<String> normalize(List<String> paths) {
+            List<String> result = new ArrayList<>();
+            if (paths == null) return result;
+            for (String path : paths) {
+                String normalized = path.replace('\\', '/').replaceAll("^/+|/+$", "");
+                if (normalized.isEmpty()) continue;
+                if (Arrays.asList(normalized.split("/")).contains("..")) {
+                    throw new IllegalArgumentException("Invalid path: " + path);
+                }
+                result.add(normalized);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A staged restore waiting for the next restart
+     */
+    public static class RestorePlan {
+        public final int backupId;
+        public final String backupFilename;
+        public final String requestedBy;
+        public final long createdAt;
+        public final List<String> targets;
+
+        public RestorePlan(int backupId, String backupFilename, String requestedBy, long createdAt,
+                           List<String> targets) {
+            this.backupId = backupId;
+            this.backupFilename = backupFilename;
+            this.requestedBy = requestedBy;
+            this.createdAt = createdAt;
+            this.targets = targets;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package de.kaicraft.adminpanel.backup;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Takes a consistent copy of the world folders while the server keeps running.
+ *
+ * On the main thread it runs save-all flush and turns off auto-save for every
+ * world, which only blocks the tick for as long as the flush takes. The world
+ * folders are then cloned into a staging directory off the main thread, using
+ * copy-on-write reflinks where the filesystem supports them and a plain copy
+ * otherwise. The plain copy reports progress and can be cancelled, but is not
+ * throttled: auto-save stays off until it finishes, so it runs at full disk speed
+ * and only the later compression is rate limited. Saving is switched back on as
+ * soon as the clone exists, and the backup is compressed from the staged copy. Hard links are not an option:
+ * the server rewrites region files in place, which would change the snapshot too.
+ */
+public class SnapshotCoordinator {
+    private static final long MAIN_THREAD_TIMEOUT_SECONDS = 120;
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final ServerAdminPanelPlugin plugin;
+    private final File stagingRoot;
+
+    public SnapshotCoordinator(ServerAdminPanelPlugin plugin, File stagingRoot) {
+        this.plugin = plugin;
+        this.stagingRoot = stagingRoot;
+
+        // Staged copies are temporary; anything left over is from an interrupted backup
+        if (stagingRoot.exists()) {
+            deleteRecursively(stagingRoot.toPath());
+        }
+    }
+
+    /**
+     * Flush the worlds and stage a copy of the given world folders.
+     * Close the result to remove the staged copy.
+     * @param progress reports a plain copy and cancels it between blocks
+     */
+    public StagedWorlds stage(BackupProgress progress, String... worldDirs) throws IOException {
+        if (!plugin.getConfigManager().isBackupSnapshotEnabled() || Bukkit.isPrimaryThread()) {
+            // Waiting for the main thread from the main thread would deadlock; read the live folders
+            Map<String, File> live = new LinkedHashMap<>();
+            for (String name : worldDirs) {
+                live.put(name, new File(name));
+            }
+            return new StagedWorlds(live, null);
+        }
+
+        File stagingDir = new File(stagingRoot, "snapshot-" + System.currentTimeMillis());
+        Map<World, Boolean> autoSave = null;
+        long start = System.currentTimeMillis();
+        try {
+            autoSave = pauseSaving();
+
+            Map<String, File> staged = new LinkedHashMap<>();
+            Map<Path, Path> copies = new LinkedHashMap<>();
+            for (String name : worldDirs) {
+                File source = new File(name);
+                if (!source.isDirectory()) continue;
+
+                File target = new File(stagingDir, name);
+                Files.createDirectories(target.getParentFile().toPath());
+                if (!plugin.getConfigManager().isBackupSnapshotReflink() || !reflink(source.toPath(), target.toPath())) {
+                    copies.put(source.toPath(), target.toPath());
+                }
+                staged.put(name, target);
+            }
+            if (!copies.isEmpty()) {
+                plugin.getLogger().warning("Could not reflink the worlds, staging them with a plain copy;"
+                    + " auto-save stays off until the copy is done");
+                copyDirectories(copies, progress);
+            }
+            plugin.getLogger().info(String.format("Staged world snapshot in %dms", System.currentTimeMillis() - start));
+            return new StagedWorlds(staged, stagingDir);
+        } catch (IOException | RuntimeException e) {
+            deleteRecursively(stagingDir.toPath());
+            throw e;
+        } finally {
+            if (autoSave != null) {
+                resumeSaving(autoSave);
+            }
+        }
+    }
+
+    /**
+     * Flush everything to disk and stop auto-save, on the main thread.
+     *
+     * If the main thread does not get to it in time, the task is cancelled. A task
+     * that starts anyway does nothing, and one that was already running when we
+     * gave up puts auto-save back itself, so it is never left switched off.
+     * @return previous auto-save setting of each world
+     */
+    private Map<World, Boolean> pauseSaving() throws IOException {
+        // Set by whichever side finishes first: the task handing over its result, or the caller giving up
+        AtomicBoolean settled = new AtomicBoolean();
+        AtomicReference<Map<World, Boolean>> result = new AtomicReference<>();
+
+        Future<Map<World, Boolean>> future = Bukkit.getScheduler().callSyncMethod(plugin, () -> {
+            if (settled.get()) {
+                return null;
+            }
+            long start = System.nanoTime();
+            Map<World, Boolean> previous = new LinkedHashMap<>();
+            try {
+                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "save-all flush");
+                for (World world : Bukkit.getWorlds()) {
+                    previous.put(world, world.isAutoSave());
+                    world.setAutoSave(false);
+                }
+            } catch (RuntimeException e) {
+                previous.forEach(World::setAutoSave);
+                throw e;
+            }
+
+            result.set(previous);
+            if (!settled.compareAndSet(false, true)) {
+                // The backup gave up waiting while we were flushing
+                previous.forEach(World::setAutoSave);
+                return null;
+            }
+            plugin.getLogger().info(String.format("Flushed worlds for backup, main thread paused %.1fms",
+                (System.nanoTime() - start) / 1_000_000.0));
+            return previous;
+        });
+
+        try {
+            return future.get(MAIN_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (abandon(settled, future)) {
+                resumeSaving(result.get());
+            }
+            throw new IOException("Interrupted while flushing worlds", e);
+        } catch (TimeoutException e) {
+            if (abandon(settled, future)) {
+                return result.get();
+            }
+            throw new IOException("Main thread did not flush the worlds within " + MAIN_THREAD_TIMEOUT_SECONDS + "s", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to flush worlds before backup: " + e.getCause().getMessage(), e);
+        }
+    }
+
+    /**
+     * Give up on the flush task
+     * @return true if the task finished just before, so auto-save is off and its result must be used
+     */
+    private boolean abandon(AtomicBoolean settled, Future<?> future) {
+        if (settled.compareAndSet(false, true)) {
+            future.cancel(false);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Put auto-save back the way it was; does not wait for the main thread
+     */
+    private void resumeSaving(Map<World, Boolean> previous) {
+        Bukkit.getScheduler().runTask(plugin, () -> previous.forEach(World::setAutoSave));
+    }
+
+    /**
+     * Copy directory trees block by block, reported as the "staging" phase.
+     * Not throttled, since auto-save is off until it is done. Cancelling the job stops
+     * the copy at the next block.
+     */
+    private void copyDirectories(Map<Path, Path> copies, BackupProgress progress) throws IOException {
+        List<Path[]> files = new ArrayList<>();
+        long totalBytes = 0;
+        for (Map.Entry<Path, Path> copy : copies.entrySet()) {
+            Path source = copy.getKey();
+            Path target = copy.getValue();
+            try (var paths = Files.walk(source)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    Path destination = target.resolve(source.relativize(path));
+                    if (Files.isDirectory(path)) {
+                        Files.createDirectories(destination);
+                    } else if (Files.isRegularFile(path) && !path.getFileName().toString().equals("session.lock")) {
+                        // session.lock is held open by the server and is useless in a backup
+                        files.add(new Path[]{path, destination});
+                        totalBytes += Files.size(path);
+                    }
+                }
+            }
+        }
+
+        progress.begin("staging", files.size(), totalBytes);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+        for (Path[] file : files) {
+            progress.checkCancelled();
+            copyFile(file[0], file[1], buffer, progress);
+        }
+    }
+
+    private void copyFile(Path source, Path target, ByteBuffer buffer, BackupProgress progress) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(source);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.clear();
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                progress.readUnthrottled(n);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        // Incremental backups recognise unchanged files by their mtime
+        Files.setLastModifiedTime(target, modified);
+        progress.fileDone(0);
+    }
+
+    /**
+     * Clone with cp --reflink=always (btrfs, XFS, ...). Keeps timestamps so incremental
+     * backups still recognise unchanged files.
+     * @return false if the filesystem or platform does not support it
+     */
+    private boolean reflink(Path source, Path target) {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
+            return false;
+        }
+        try {
+            Process process = new ProcessBuilder("cp", "-R", "--reflink=always", "--preserve=timestamps",
+                    source.toString(), target.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            if (process.waitFor() == 0) {
+                return true;
+            }
+        } catch (IOException e) {
+            // cp not available
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deleteRecursively(target);
+        return false;
+    }
+
+    private void deleteRecursively(Path root) {
+        if (!Files.exists(root)) return;
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not remove staging directory " + root + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * World folders to back up from; closing removes the staged copy
+     */
+    public class StagedWorlds implements Closeable {
+        private final Map<String, File> directories;
+        private final File stagingDir;
+
+        private StagedWorlds(Map<String, File> directories, File stagingDir) {
+            this.directories = directories;
+            this.stagingDir = stagingDir;
+        }
+
+        /**
+         * Folder to read a world from, or null if the world does not exist
+         */
+        public File getDirectory(String worldDir) {
+            File dir = directories.get(worldDir);
+            return dir != null && dir.isDirectory() ? dir : null;
+        }
+
+        @Override
+        public void close() {
+            if (stagingDir != null) {
+                deleteRecursively(stagingDir.toPath());
+            }
+        }
+    }
+}
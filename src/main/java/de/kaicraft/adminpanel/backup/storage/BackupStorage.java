@@ -0,0 +1,51 @@
+package de.kaicraft.adminpanel.backup.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A place backup archives are written to: a local directory or an S3-compatible bucket.
+ *
+ * Archives are written as a stream, so the same bytes can go to several storages in
+ * one pass while the archive is being compressed.
+ */
+public interface BackupStorage {
+
+    /**
+     * Start writing an object. Closing the upload publishes it under the key;
+     * until then no reader sees a partial object.
+     */
+    Upload openUpload(String key) throws IOException;
+
+    /**
+     * Read a stored object
+     * @throws java.io.FileNotFoundException if there is no such object
+     */
+    InputStream openRead(String key) throws IOException;
+
+    /**
+     * Size of a stored object in bytes, or -1 if it does not exist
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * Remove an object; removing one that does not exist is not an error
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Human-readable location for logs, e.g. a directory or s3://bucket/prefix
+     */
+    String describe();
+
+    /**
+     * An object being written. close() completes it, abort() throws it away.
+     */
+    abstract class Upload extends OutputStream {
+        /**
+         * Discard everything written so far. Safe to call more than once and after a failed close().
+         */
+        public abstract void abort();
+    }
+}
@@ -0,0 +1,106 @@
+package de.kaicraft.adminpanel.backup.storage;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Stores backups as files in a directory, such as the server's backups folder or a mounted NAS share.
+ * Objects are written to a .part file and renamed into place when complete.
+ */
+public class LocalBackupStorage implements BackupStorage {
+    private final File dir;
+
+    public LocalBackupStorage(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * The file an object is stored in
+     */
+    public File getFile(String key) throws IOException {
+        File file = new File(dir, key);
+        if (!file.getCanonicalPath().startsWith(dir.getCanonicalPath() + File.separator)) {
+            throw new IOException("Invalid backup key: " + key);
+        }
+        return file;
+    }
+
+    @Override
+    public Upload openUpload(String key) throws IOException {
+        File target = getFile(key);
+        File partial = new File(target.getPath() + ".part");
+        target.getParentFile().mkdirs();
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(partial), 256 * 1024);
+
+        return new Upload() {
+            private boolean finished;
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (finished) return;
+                finished = true;
+                try {
+                    out.close();
+                    try {
+                        Files.move(partial.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(partial.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch (IOException e) {
+                    partial.delete();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void abort() {
+                finished = true;
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                    // The file is deleted anyway
+                }
+                partial.delete();
+            }
+        };
+    }
+
+    @Override
+    public InputStream openRead(String key) throws IOException {
+        return new FileInputStream(getFile(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        File file = getFile(key);
+        return file.isFile() ? file.length() : -1;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(getFile(key).toPath());
+    }
+
+    @Override
+    public String describe() {
+        return dir.getAbsolutePath();
+    }
+}
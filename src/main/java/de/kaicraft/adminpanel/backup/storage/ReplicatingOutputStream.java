@@ -0,0 +1,136 @@
+package de.kaicraft.adminpanel.backup.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes the same bytes to the uploads of several targets.
+ *
+ * A target that fails is aborted and dropped while the others carry on, so an unreachable bucket
+ * does not cost the local backup. The stream only fails once every target has failed.
+ */
+public class ReplicatingOutputStream extends OutputStream {
+    private final Map<StorageTarget, BackupStorage.Upload> uploads;
+    private final BiConsumer<StorageTarget, IOException> onFailure;
+    private final List<StorageTarget> stored = new ArrayList<>();
+    private IOException lastFailure;
+    private boolean closed;
+
+    /**
+     * @param onFailure told about each target that is dropped
+     */
+    public ReplicatingOutputStream(Map<StorageTarget, BackupStorage.Upload> uploads,
+                                   BiConsumer<StorageTarget, IOException> onFailure) {
+        this.uploads = new LinkedHashMap<>(uploads);
+        this.onFailure = onFailure;
+    }
+
+    /**
+     * Open an upload of the key on every target; targets that cannot start one are skipped
+     */
+    public static ReplicatingOutputStream open(List<StorageTarget> targets, String key,
+                                               BiConsumer<StorageTarget, IOException> onFailure) throws IOException {
+        Map<StorageTarget, BackupStorage.Upload> uploads = new LinkedHashMap<>();
+        IOException last = null;
+        for (StorageTarget target : targets) {
+            try {
+                uploads.put(target, target.getStorage().openUpload(key));
+            } catch (IOException e) {
+                onFailure.accept(target, e);
+                last = e;
+            }
+        }
+        if (uploads.isEmpty()) {
+            throw last != null ? last : new IOException("No storage target configured");
+        }
+        return new ReplicatingOutputStream(uploads, onFailure);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for (Map.Entry<StorageTarget, BackupStorage.Upload> entry : new ArrayList<>(uploads.entrySet())) {
+            try {
+                entry.getValue().write(b, off, len);
+            } catch (IOException e) {
+                drop(entry.getKey(), e);
+            }
+        }
+        checkRemaining();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (Map.Entry<StorageTarget, BackupStorage.Upload> entry : new ArrayList<>(uploads.entrySet())) {
+            try {
+                entry.getValue().flush();
+            } catch (IOException e) {
+                drop(entry.getKey(), e);
+            }
+        }
+        checkRemaining();
+    }
+
+    /**
+     * Complete every remaining upload
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        for (Map.Entry<StorageTarget, BackupStorage.Upload> entry : new ArrayList<>(uploads.entrySet())) {
+            try {
+                entry.getValue().close();
+                stored.add(entry.getKey());
+            } catch (IOException e) {
+                drop(entry.getKey(), e);
+            }
+        }
+        uploads.clear();
+        if (stored.isEmpty()) {
+            throw lastFailure != null ? lastFailure : new IOException("No storage target stored the backup");
+        }
+    }
+
+    /**
+     * Throw away every upload, e.g. after the archive itself failed
+     */
+    public void abort() {
+        closed = true;
+        for (BackupStorage.Upload upload : uploads.values()) {
+            upload.abort();
+        }
+        uploads.clear();
+    }
+
+    /**
+     * Targets that hold the complete object after close()
+     */
+    public List<StorageTarget> getStored() {
+        return stored;
+    }
+
+    private void drop(StorageTarget target, IOException e) {
+        BackupStorage.Upload upload = uploads.remove(target);
+        if (upload != null) {
+            upload.abort();
+        }
+        lastFailure = e;
+        onFailure.accept(target, e);
+    }
+
+    private void checkRemaining() throws IOException {
+        if (uploads.isEmpty()) {
+            throw lastFailure;
+        }
+    }
+}
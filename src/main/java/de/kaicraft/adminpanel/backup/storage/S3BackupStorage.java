@@ -0,0 +1,507 @@
+package de.kaicraft.adminpanel.backup.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stores backups in an S3-compatible bucket (AWS S3, MinIO, Backblaze B2, Wasabi, ...).
+ *
+ * Requests are signed with AWS Signature Version 4 over the JDK HTTP client, so no SDK is needed.
+ * Uploads are multipart: the stream is cut into parts that are sent in parallel while the archive
+ * is still being written, with at most parallel-parts + 1 part buffers in memory at a time.
+ * An object smaller than one part is sent with a single PUT.
+ */
+public class S3BackupStorage implements BackupStorage {
+    // S3 rejects parts below 5 MiB (except the last) and uploads with more than 10000 parts
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+    private static final int PART_ATTEMPTS = 3;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String prefix;
+    private final String accessKey;
+    private final String secretKey;
+    private final boolean pathStyle;
+    private final int partSize;
+    private final int parallelParts;
+    private final HttpClient client;
+
+    public S3BackupStorage(Settings settings) {
+        String url = settings.endpoint.endsWith("/") ? settings.endpoint.substring(0, settings.endpoint.length() - 1)
+            : settings.endpoint;
+        this.endpoint = URI.create(url);
+        if (endpoint.getScheme() == null || endpoint.getHost() == null) {
+            throw new IllegalArgumentException("Invalid S3 endpoint: " + settings.endpoint);
+        }
+        if (settings.bucket == null || settings.bucket.isEmpty()) {
+            throw new IllegalArgumentException("S3 bucket is not set");
+        }
+        this.region = settings.region;
+        this.bucket = settings.bucket;
+        String trimmed = settings.prefix == null ? "" : settings.prefix.replaceAll("^/+|/+$", "");
+        this.prefix = trimmed.isEmpty() ? "" : trimmed + "/";
+        this.accessKey = settings.accessKey;
+        this.secretKey = settings.secretKey;
+        this.pathStyle = settings.pathStyle;
+        this.partSize = Math.max(MIN_PART_SIZE, settings.partSize);
+        this.parallelParts = Math.max(1, settings.parallelParts);
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    }
+
+    @Override
+    public Upload openUpload(String key) {
+        return new MultipartUpload(prefix + key);
+    }
+
+    @Override
+    public InputStream openRead(String key) throws IOException {
+        HttpResponse<InputStream> response = send("GET", prefix + key, Map.of(),
+            HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 200) {
+            return response.body();
+        }
+        String body = readError(response.body());
+        if (response.statusCode() == 404) {
+            throw new FileNotFoundException("Object not found: " + prefix + key);
+        }
+        throw failure("GET", response.statusCode(), body);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", prefix + key, Map.of(),
+            HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return -1;
+        }
+        if (response.statusCode() != 200) {
+            throw failure("HEAD", response.statusCode(), "");
+        }
+        return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = send("DELETE", prefix + key, Map.of(),
+            HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256, HttpResponse.BodyHandlers.ofString());
+        // S3 answers 204 whether or not the object existed; some implementations use 404
+        if (response.statusCode() >= 300 && response.statusCode() != 404) {
+            throw failure("DELETE", response.statusCode(), response.body());
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "s3://" + bucket + "/" + prefix;
+    }
+
+    /**
+     * Buffers the stream into parts and uploads full parts in the background
+     */
+    private class MultipartUpload extends Upload {
+        private final String key;
+        private final Semaphore buffers = new Semaphore(parallelParts + 1);
+        private final List<Future<String>> parts = new ArrayList<>();
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private ExecutorService executor;
+        // Set once by the writer; part threads get their own copy
+        private volatile String uploadId;
+        private byte[] buffer;
+        private int position;
+        private boolean finished;
+
+        private MultipartUpload(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (finished) throw new IOException("Upload already finished");
+            while (len > 0) {
+                if (buffer == null) {
+                    acquireBuffer();
+                }
+                int n = Math.min(len, partSize - position);
+                System.arraycopy(b, off, buffer, position, n);
+                position += n;
+                off += n;
+                len -= n;
+                if (position == partSize) {
+                    submitPart();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (finished) return;
+            finished = true;
+            try {
+                if (uploadId == null) {
+                    // Smaller than one part: a single PUT
+                    byte[] data = buffer != null ? buffer : new byte[0];
+                    putObject(data, position);
+                    return;
+                }
+                if (position > 0) {
+                    submitPart();
+                }
+                List<String> etags = new ArrayList<>(parts.size());
+                for (Future<String> part : parts) {
+                    etags.add(await(part));
+                }
+                completeMultipart(etags);
+            } catch (IOException | RuntimeException e) {
+                abortQuietly();
+                throw e;
+            } finally {
+                shutdown();
+            }
+        }
+
+        @Override
+        public void abort() {
+            finished = true;
+            for (Future<String> part : parts) {
+                part.cancel(true);
+            }
+            abortQuietly();
+            shutdown();
+        }
+
+        private void acquireBuffer() throws IOException {
+            try {
+                // Blocks the writer while every buffer is in flight, so memory stays bounded
+                buffers.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Upload interrupted");
+            }
+            buffer = new byte[partSize];
+            position = 0;
+        }
+
+        private void submitPart() throws IOException {
+            if (uploadId == null) {
+                uploadId = createMultipart();
+                executor = Executors.newFixedThreadPool(parallelParts, r -> {
+                    Thread thread = new Thread(r, "PaperPanel-Upload");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            if (parts.size() >= MAX_PARTS) {
+                throw new IOException("Backup is too large for " + MAX_PARTS + " parts; raise part-size-mb");
+            }
+            // Fail early instead of buffering the rest of the archive when a part has already failed
+            for (Future<String> part : parts) {
+                if (part.isDone()) await(part);
+            }
+
+            String id = uploadId;
+            int partNumber = parts.size() + 1;
+            byte[] data = buffer;
+            int length = position;
+            buffer = null;
+            position = 0;
+            parts.add(executor.submit(() -> {
+                try {
+                    return uploadPart(id, partNumber, data, length);
+                } finally {
+                    buffers.release();
+                }
+            }));
+        }
+
+        private String createMultipart() throws IOException {
+            HttpResponse<String> response = send("POST", key, Map.of("uploads", ""),
+                HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw failure("CreateMultipartUpload", response.statusCode(), response.body());
+            }
+            Matcher matcher = UPLOAD_ID.matcher(response.body());
+            if (!matcher.find()) {
+                throw new IOException("CreateMultipartUpload returned no UploadId");
+            }
+            return matcher.group(1);
+        }
+
+        private String uploadPart(String id, int partNumber, byte[] data, int length) throws IOException {
+            String hash = hex(sha256(data, length));
+            Map<String, String> query = Map.of("partNumber", String.valueOf(partNumber), "uploadId", id);
+            IOException last = null;
+            for (int attempt = 1; attempt <= PART_ATTEMPTS; attempt++) {
+                try {
+                    HttpResponse<String> response = send("PUT", key, query,
+                        HttpRequest.BodyPublishers.ofByteArray(data, 0, length), hash,
+                        HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200) {
+                        return response.headers().firstValue("ETag")
+                            .orElseThrow(() -> new IOException("UploadPart returned no ETag"));
+                    }
+                    last = failure("UploadPart " + partNumber, response.statusCode(), response.body());
+                    if (response.statusCode() < 500) break;
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    last = e;
+                }
+                sleepBeforeRetry(attempt);
+            }
+            throw last;
+        }
+
+        private void completeMultipart(List<String> etags) throws IOException {
+            StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags.get(i).replace("&", "&amp;")).append("</ETag></Part>");
+            }
+            xml.append("</CompleteMultipartUpload>");
+            byte[] body = xml.toString().getBytes(StandardCharsets.UTF_8);
+
+            HttpResponse<String> response = send("POST", key, Map.of("uploadId", uploadId),
+                HttpRequest.BodyPublishers.ofByteArray(body), hex(sha256(body, body.length)),
+                HttpResponse.BodyHandlers.ofString());
+            // S3 can report a failed completion inside a 200 response
+            if (response.statusCode() != 200 || response.body().contains("<Error>")) {
+                throw failure("CompleteMultipartUpload", response.statusCode(), response.body());
+            }
+        }
+
+        private void putObject(byte[] data, int length) throws IOException {
+            HttpResponse<String> response = send("PUT", key, Map.of(),
+                HttpRequest.BodyPublishers.ofByteArray(data, 0, length), hex(sha256(data, length)),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw failure("PUT", response.statusCode(), response.body());
+            }
+        }
+
+        private void abortQuietly() {
+            String id = uploadId;
+            if (id == null || !aborted.compareAndSet(false, true)) return;
+            try {
+                send("DELETE", key, Map.of("uploadId", id), HttpRequest.BodyPublishers.noBody(), EMPTY_SHA256,
+                    HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                // Left for the bucket's lifecycle rules to clean up
+            }
+        }
+
+        private void shutdown() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            buffer = null;
+        }
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, Map<String, String> query,
+                                     HttpRequest.BodyPublisher body, String payloadHash,
+                                     HttpResponse.BodyHandler<T> handler) throws IOException {
+        String path = pathStyle ? "/" + bucket + "/" + key : "/" + key;
+        String host = pathStyle ? endpoint.getHost() : bucket + "." + endpoint.getHost();
+        if (endpoint.getPort() != -1) {
+            host += ":" + endpoint.getPort();
+        }
+
+        String canonicalPath = encodePath(endpoint.getRawPath() + path);
+        String canonicalQuery = canonicalQuery(query);
+        URI uri = URI.create(endpoint.getScheme() + "://" + host + canonicalPath
+            + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery));
+
+        String amzDate = ZonedDateTime.now(ZoneOffset.UTC).format(AMZ_DATE);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(REQUEST_TIMEOUT)
+            .method(method, body)
+            .header("x-amz-content-sha256", payloadHash)
+            .header("x-amz-date", amzDate)
+            .header("Authorization", authorization(method, canonicalPath, canonicalQuery, host, payloadHash,
+                amzDate, region, accessKey, secretKey))
+            .build();
+        try {
+            return client.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3 request interrupted");
+        }
+    }
+
+    /**
+     * SigV4 Authorization header for a request signing host, x-amz-content-sha256 and x-amz-date
+     */
+    static String authorization(String method, String canonicalPath, String canonicalQuery, String host,
+                                String payloadHash, String amzDate, String region, String accessKey,
+                                String secretKey) {
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        String canonicalRequest = method + "\n" + canonicalPath + "\n" + canonicalQuery + "\n"
+            + "host:" + host + "\n"
+            + "x-amz-content-sha256:" + payloadHash + "\n"
+            + "x-amz-date:" + amzDate + "\n\n"
+            + signedHeaders + "\n" + payloadHash;
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+            + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        String signature = hex(hmac(signingKey(secretKey, date, region, "s3"), stringToSign));
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+            + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    /**
+     * Derive the SigV4 signing key for one day, region and service
+     */
+    static byte[] signingKey(String secretKey, String date, String region, String service) {
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, service);
+        return hmac(key, "aws4_request");
+    }
+
+    static String canonicalQuery(Map<String, String> query) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, String> param : new TreeMap<>(query).entrySet()) {
+            if (result.length() > 0) result.append('&');
+            result.append(encode(param.getKey())).append('=').append(encode(param.getValue()));
+        }
+        return result.toString();
+    }
+
+    static String encodePath(String path) {
+        StringJoiner result = new StringJoiner("/");
+        for (String segment : path.split("/", -1)) {
+            result.add(encode(segment));
+        }
+        return result.toString();
+    }
+
+    /**
+     * RFC 3986 percent-encoding as required by SigV4: everything but unreserved characters
+     */
+    private static String encode(String value) {
+        StringBuilder result = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                result.append(c);
+            } else {
+                result.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return result.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        return sha256(data, data.length);
+    }
+
+    private static byte[] sha256(byte[] data, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data, 0, length);
+            return digest.digest();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static String await(Future<String> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Upload interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Part upload failed", e.getCause());
+        }
+    }
+
+    private static void sleepBeforeRetry(int attempt) throws InterruptedIOException {
+        if (attempt >= PART_ATTEMPTS) return;
+        try {
+            Thread.sleep(1000L << (attempt - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Upload interrupted");
+        }
+    }
+
+    private static String readError(InputStream body) {
+        try (body) {
+            return new String(body.readNBytes(2048), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static IOException failure(String operation, int status, String body) {
+        Matcher code = Pattern.compile("<Code>([^<]+)</Code>").matcher(body == null ? "" : body);
+        return new IOException("S3 " + operation + " failed: HTTP " + status + (code.find() ? " " + code.group(1) : ""));
+    }
+
+    /**
+     * Connection settings of one bucket
+     */
+    public static class Settings {
+        public String endpoint;
+        public String region = "us-east-1";
+        public String bucket;
+        public String prefix = "";
+        public String accessKey;
+        public String secretKey;
+        public boolean pathStyle = true;
+        public int partSize = 16 * 1024 * 1024;
+        public int parallelParts = 4;
+    }
+}
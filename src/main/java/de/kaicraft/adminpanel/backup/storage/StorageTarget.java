@@ -0,0 +1,94 @@
+package de.kaicraft.adminpanel.backup.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.File;
+
+/**
+ * A named storage that backups are written to, with an optional retention policy of its own.
+ * Targets without one keep what the auto-backup schedule's retention keeps.
+ */
+public class StorageTarget {
+    /**
+     * Name of the target for the server's own backups directory
+     */
+    public static final String LOCAL = "local";
+
+    private final String name;
+    private final BackupStorage storage;
+    private final String retentionType;
+    private final int retentionValue;
+
+    public StorageTarget(String name, BackupStorage storage, String retentionType, int retentionValue) {
+        this.name = name;
+        this.storage = storage;
+        this.retentionType = retentionType == null || retentionType.isEmpty() ? null : retentionType;
+        this.retentionValue = retentionValue;
+    }
+
+    /**
+     * Build a target from its section under backup.storage.targets
+     * @throws IllegalArgumentException if the section is incomplete
+     */
+    public static StorageTarget fromConfig(String name, ConfigurationSection section) {
+        if (LOCAL.equals(name)) {
+            throw new IllegalArgumentException("'" + LOCAL + "' is reserved for the backups directory");
+        }
+
+        String type = section.getString("type", "s3");
+        BackupStorage storage;
+        if ("s3".equals(type)) {
+            S3BackupStorage.Settings settings = new S3BackupStorage.Settings();
+            settings.endpoint = section.getString("endpoint", "");
+            settings.region = section.getString("region", settings.region);
+            settings.bucket = section.getString("bucket", "");
+            settings.prefix = section.getString("prefix", "");
+            settings.accessKey = section.getString("access-key", "");
+            settings.secretKey = section.getString("secret-key", "");
+            settings.pathStyle = section.getBoolean("path-style", settings.pathStyle);
+            settings.partSize = section.getInt("part-size-mb", 16) * 1024 * 1024;
+            settings.parallelParts = section.getInt("parallel-parts", settings.parallelParts);
+            if (settings.endpoint.isEmpty() || settings.accessKey.isEmpty() || settings.secretKey.isEmpty()) {
+                throw new IllegalArgumentException("endpoint, access-key and secret-key are required");
+            }
+            storage = new S3BackupStorage(settings);
+        } else if ("local".equals(type)) {
+            String path = section.getString("path", "");
+            if (path.isEmpty()) {
+                throw new IllegalArgumentException("path is required");
+            }
+            storage = new LocalBackupStorage(new File(path));
+        } else {
+            throw new IllegalArgumentException("Unknown storage type: " + type);
+        }
+
+        return new StorageTarget(name, storage, section.getString("retention-type"),
+            section.getInt("retention-value", 0));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BackupStorage getStorage() {
+        return storage;
+    }
+
+    public boolean isLocal() {
+        return LOCAL.equals(name);
+    }
+
+    /**
+     * The target's retention type, or the given one if the target has none
+     */
+    public String getRetentionType(String fallback) {
+        return retentionType != null ? retentionType : fallback;
+    }
+
+    /**
+     * The target's retention value, or the given one if the target has no retention of its own
+     */
+    public int getRetentionValue(int fallback) {
+        return retentionType != null ? retentionValue : fallback;
+    }
+}
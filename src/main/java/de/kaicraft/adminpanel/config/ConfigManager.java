@@ -1,6 +1,7 @@
 package de.kaicraft.adminpanel.config;
 
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import java.security.SecureRandom;
@@ -73,6 +74,138 @@ public class ConfigManager {
         return config.getBoolean("console.allow-commands", true);
     }
 
+    public int getConsoleBatchIntervalMs() {
+        return config.getInt("console.stream.batch-interval-ms", 50);
+    }
+
+    public int getConsoleBatchMaxLines() {
+        return config.getInt("console.stream.batch-max-lines", 256);
+    }
+
+    public int getConsoleQueueCapacity() {
+        return config.getInt("console.stream.queue-capacity", 10000);
+    }
+
+    public String getConsoleOverflowPolicy() {
+        return config.getString("console.stream.overflow-policy", "drop-oldest");
+    }
+
+    public int getConsoleClientHighWaterLines() {
+        return config.getInt("console.stream.client-high-water-lines", 5000);
+    }
+
+    public String getConsoleSlowClientPolicy() {
+        return config.getString("console.stream.slow-client-policy", "drop");
+    }
+
+    // Event Stream Configuration
+    public int getEventReplaySize() {
+        return config.getInt("events.replay-size", 1024);
+    }
+
+    public int getEventClientMaxQueued() {
+        return config.getInt("events.client-max-queued", 256);
+    }
+
+    // Metrics Configuration
+    public int getMetricsSampleIntervalTicks() {
+        return config.getInt("metrics.sample-interval-ticks", 20);
+    }
+
+    public int getMetricsRawHistoryMinutes() {
+        return config.getInt("metrics.history.raw-minutes", 60);
+    }
+
+    public int getMetricsMinuteRetentionDays() {
+        return config.getInt("metrics.history.minute-retention-days", 7);
+    }
+
+    public int getMetricsHourRetentionDays() {
+        return config.getInt("metrics.history.hour-retention-days", 90);
+    }
+
+    // Player Stats Configuration
+    public int getStatsFlushIntervalSeconds() {
+        return config.getInt("stats.flush-interval-seconds", 5);
+    }
+
+    // Database Configuration
+    public int getDatabaseReadConnections() {
+        return config.getInt("database.read-connections", 3);
+    }
+
+    public String getDatabaseSynchronous() {
+        return config.getString("database.synchronous", "NORMAL");
+    }
+
+    public int getDatabaseCacheSizeKb() {
+        return config.getInt("database.cache-size-kb", 8192);
+    }
+
+    public int getDatabaseMmapSizeMb() {
+        return config.getInt("database.mmap-size-mb", 256);
+    }
+
+    // Backup Configuration
+    public int getBackupCompressionLevel() {
+        return config.getInt("backup.compression.level", 6);
+    }
+
+    public int getBackupCompressionThreads() {
+        return config.getInt("backup.compression.threads", 0);
+    }
+
+    public int getBackupCompressionChunkSizeMb() {
+        return config.getInt("backup.compression.chunk-size-mb", 4);
+    }
+
+    public boolean isBackupSnapshotEnabled() {
+        return config.getBoolean("backup.snapshot.enabled", true);
+    }
+
+    public boolean isBackupSnapshotReflink() {
+        return config.getBoolean("backup.snapshot.reflink", true);
+    }
+
+    public boolean isBackupIncrementalForSchedules() {
+        return config.getBoolean("backup.incremental.scheduled", true);
+    }
+
+    public int getBackupIncrementalBlockSizeKb() {
+        return config.getInt("backup.incremental.block-size-kb", 1024);
+    }
+
+    public int getBackupIoLimitMbPerSecond() {
+        return Math.max(0, config.getInt("backup.io-limit-mb-per-second", 0));
+    }
+
+    public int getBackupVerifyIntervalHours() {
+        return Math.max(0, config.getInt("backup.verify.interval-hours", 24));
+    }
+
+    public int getBackupVerifyIoLimitMbPerSecond() {
+        return Math.max(0, config.getInt("backup.verify.io-limit-mb-per-second", 20));
+    }
+
+    public boolean isBackupLocalStorageEnabled() {
+        return config.getBoolean("backup.storage.local.enabled", true);
+    }
+
+    public String getBackupLocalRetentionType() {
+        return config.getString("backup.storage.local.retention-type", "");
+    }
+
+    public int getBackupLocalRetentionValue() {
+        return config.getInt("backup.storage.local.retention-value", 0);
+    }
+
+    /**
+     * Remote storage targets, one subsection per target, or null if none are configured
+     */
+    public ConfigurationSection getBackupStorageTargets() {
+        return config.getConfigurationSection("backup.storage.targets");
+    }
+
     // Security Configuration
     public boolean isCorsEnabled() {
         return config.getBoolean("security.enable-cors", true);
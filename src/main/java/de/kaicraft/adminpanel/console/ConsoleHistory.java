@@ -0,0 +1,170 @@
+package de.kaicraft.adminpanel.console;
+
+import de.kaicraft.adminpanel.model.ConsoleLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fixed-capacity ring buffer of console lines.
+ * Every line gets a monotonically increasing sequence id, so clients can ask
+ * for "everything after seq N" when they reconnect instead of the full history.
+ * Ids restart with the plugin, so they are only meaningful together with the {@link #getEpoch() epoch}.
+ */
+public class ConsoleHistory {
+    private final int capacity;
+    private final long[] timestamps;
+    private final String[] levels;
+    private final String[] loggers;
+    private final String[] messages;
+
+    // Sequence ids restart with the plugin; clients holding an id from another epoch start over
+    private final long epoch = System.currentTimeMillis();
+
+    // Sequence id of the next line to be appended; ids start at 1
+    private long nextSeq = 1;
+    // Oldest sequence id still held in the buffer (== nextSeq when empty)
+    private long firstSeq = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConsoleHistory(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.timestamps = new long[this.capacity];
+        this.levels = new String[this.capacity];
+        this.loggers = new String[this.capacity];
+        this.messages = new String[this.capacity];
+    }
+
+    /**
+     * Append a line, overwriting the oldest one when the buffer is full
+     */
+    public ConsoleLine append(long timestamp, String level, String logger, String message) {
+        lock.writeLock().lock();
+        try {
+            long seq = nextSeq++;
+            int slot = slot(seq);
+            timestamps[slot] = timestamp;
+            levels[slot] = level;
+            loggers[slot] = logger;
+            messages[slot] = message;
+
+            if (seq - firstSeq >= capacity) {
+                firstSeq = seq - capacity + 1;
+            }
+            return new ConsoleLine(seq, timestamp, level, logger, message);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get lines with a sequence id greater than {@code sinceSeq}, at most the newest {@code limit} of them.
+     * Pass {@code sinceSeq <= 0} to read from the start of the buffer. A {@code sinceSeq} from another
+     * epoch (or one this history never handed out) also reads from the start and marks the slice as a reset;
+     * pass {@code sinceEpoch = 0} if the caller does not know the epoch.
+     */
+    public Slice since(long sinceEpoch, long sinceSeq, int limit) {
+        lock.readLock().lock();
+        try {
+            long lastSeq = nextSeq - 1;
+            boolean reset = sinceSeq > 0 && ((sinceEpoch != 0 && sinceEpoch != epoch) || sinceSeq > lastSeq);
+            if (reset) {
+                sinceSeq = 0;
+            }
+            long from = Math.max(Math.max(sinceSeq + 1, firstSeq), nextSeq - Math.max(0, limit));
+            // Lines between the client's last id and the first one we return were overwritten or clamped away
+            boolean truncated = sinceSeq > 0 && from > sinceSeq + 1;
+
+            if (from > lastSeq) {
+                return new Slice(Collections.emptyList(), epoch, lastSeq, truncated, reset);
+            }
+
+            List<ConsoleLine> lines = new ArrayList<>((int) (lastSeq - from + 1));
+            for (long seq = from; seq <= lastSeq; seq++) {
+                int slot = slot(seq);
+                lines.add(new ConsoleLine(seq, timestamps[slot], levels[slot], loggers[slot], messages[slot]));
+            }
+            return new Slice(lines, epoch, lastSeq, truncated, reset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop all lines. Sequence ids keep counting so reconnecting clients stay consistent.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            firstSeq = nextSeq;
+            Arrays.fill(levels, null);
+            Arrays.fill(loggers, null);
+            Arrays.fill(messages, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of lines currently held
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return (int) (nextSeq - firstSeq);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sequence id of the newest line (0 if nothing was ever appended)
+     */
+    public long getLastSeq() {
+        lock.readLock().lock();
+        try {
+            return nextSeq - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Instance id that sequence ids belong to; changes whenever the plugin is (re)started
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    /**
+     * Result of a {@link #since(long, long, int)} read
+     */
+    public static class Slice {
+        public final List<ConsoleLine> lines;
+        public final long epoch;
+        public final long lastSeq;
+        public final boolean truncated;
+        // The requested id did not belong to this history, so the slice starts over
+        public final boolean reset;
+
+        public Slice(List<ConsoleLine> lines, long epoch, long lastSeq, boolean truncated, boolean reset) {
+            this.lines = lines;
+            this.epoch = epoch;
+            this.lastSeq = lastSeq;
+            this.truncated = truncated;
+            this.reset = reset;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package de.kaicraft.adminpanel.console;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.api.ConsoleAPI;
+import de.kaicraft.adminpanel.config.ConfigManager;
+import de.kaicraft.adminpanel.model.ConsoleLine;
+import de.kaicraft.adminpanel.web.WebSocketHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands console lines from the Log4j appender over to a dedicated drain thread.
+ * The logging thread only enqueues a small record; history sequencing and
+ * WebSocket fan-out happen on the drain thread in batches.
+ */
+public class ConsoleLogPipeline {
+    private final ServerAdminPanelPlugin plugin;
+    private final ConsoleAPI consoleAPI;
+    private final WebSocketHandler webSocketHandler;
+
+    private final int capacity;
+    private final int batchMaxLines;
+    private final long batchIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+
+    private final ConcurrentLinkedQueue<PendingLine> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // Counters
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong linesSent = new AtomicLong();
+
+    private volatile Thread drainThread;
+    private volatile boolean running = false;
+
+    public ConsoleLogPipeline(ServerAdminPanelPlugin plugin, ConfigManager config,
+                              ConsoleAPI consoleAPI, WebSocketHandler webSocketHandler) {
+        this.plugin = plugin;
+        this.consoleAPI = consoleAPI;
+        this.webSocketHandler = webSocketHandler;
+        this.capacity = Math.max(16, config.getConsoleQueueCapacity());
+        this.batchMaxLines = Math.max(1, config.getConsoleBatchMaxLines());
+        this.batchIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getConsoleBatchIntervalMs()));
+        this.overflowPolicy = OverflowPolicy.fromConfig(config.getConsoleOverflowPolicy());
+    }
+
+    /**
+     * Start the drain thread
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::drainLoop, "PaperPanel-ConsoleDrain");
+        thread.setDaemon(true);
+        drainThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop the drain thread, flushing whatever is still queued
+     */
+    public void stop() {
+        running = false;
+        Thread thread = drainThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            drainThread = null;
+        }
+    }
+
+    /**
+     * Enqueue a log line. Called on the logging thread, so this must never block.
+     * @return false if the line was rejected by the overflow policy
+     */
+    public boolean submit(String level, String loggerName, String message, long timestamp) {
+        if (!running) {
+            return false;
+        }
+
+        int size = queued.incrementAndGet();
+        if (size > capacity) {
+            if (overflowPolicy == OverflowPolicy.DROP_OLDEST && queue.poll() != null) {
+                // Evicted the oldest line; our claimed slot replaces it
+                queued.decrementAndGet();
+                dropped.incrementAndGet();
+            } else {
+                queued.decrementAndGet();
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+
+        queue.offer(new PendingLine(level, loggerName, message, timestamp));
+        accepted.incrementAndGet();
+
+        // Wake the drain thread when a burst starts or a batch is full
+        if (size == 1 || size == batchMaxLines) {
+            Thread thread = drainThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drain loop: wait for the first line, give the batch up to one interval to fill, then flush
+     */
+    private void drainLoop() {
+        List<ConsoleLine> batch = new ArrayList<>(batchMaxLines);
+
+        while (running) {
+            try {
+                if (queued.get() == 0) {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                long deadline = System.nanoTime() + batchIntervalNanos;
+                long remaining;
+                while (running && queued.get() < batchMaxLines
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+
+                drain(batch);
+            } catch (Throwable t) {
+                // Never let the drain thread die; the logger would silently stop streaming
+                batch.clear();
+                plugin.getLogger().warning("Console drain error: " + t.getMessage());
+            }
+        }
+
+        // Flush what is left on shutdown
+        try {
+            drain(batch);
+        } catch (Throwable ignored) {
+        }
+    }
+
+    private void drain(List<ConsoleLine> batch) {
+        PendingLine line;
+        while ((line = queue.poll()) != null) {
+            queued.decrementAndGet();
+
+            String loggerName = line.loggerName != null ? line.loggerName : "";
+            String shortName = loggerName.substring(loggerName.lastIndexOf('.') + 1);
+            String message = line.message != null ? line.message : "";
+
+            batch.add(consoleAPI.addToHistory(line.timestamp, line.level, shortName, message));
+
+            if (batch.size() >= batchMaxLines) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<ConsoleLine> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        webSocketHandler.broadcastLines(batch);
+        batchesSent.incrementAndGet();
+        linesSent.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    // Metrics
+
+    public int getQueuedCount() { return queued.get(); }
+    public int getCapacity() { return capacity; }
+    public long getAcceptedCount() { return accepted.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getBatchesSent() { return batchesSent.get(); }
+    public long getLinesSent() { return linesSent.get(); }
+    public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+
+    /**
+     * What to do with new lines when the handoff queue is full
+     */
+    public enum OverflowPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST;
+
+        static OverflowPolicy fromConfig(String value) {
+            if (value != null && value.trim().equalsIgnoreCase("drop-newest")) {
+                return DROP_NEWEST;
+            }
+            return DROP_OLDEST;
+        }
+    }
+
+    /**
+     * Raw line as captured on the logging thread
+     */
+    private static final class PendingLine {
+        final String level;
+        final String loggerName;
+        final String message;
+        final long timestamp;
+
+        PendingLine(String level, String loggerName, String message, long timestamp) {
+            this.level = level;
+            this.loggerName = loggerName;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+    }
+}
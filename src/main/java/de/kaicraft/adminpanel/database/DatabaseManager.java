@@ -1,33 +1,95 @@
 package de.kaicraft.adminpanel.database;
 
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.config.ConfigManager;
 
 import java.io.File;
 import java.sql.*;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Manages SQLite database connections and operations
+ * Manages SQLite database connections and operations.
+ * All writes go through one writer thread that owns the only read-write
+ * connection; reads borrow from a small pool of read-only connections.
+ * With WAL enabled, readers never block behind the writer.
+ * {@link #queryAsync} and {@link #queryOneAsync} run reads on a reader thread pool
+ * sized to the connection pool, for callers that must not block (HTTP handlers).
  */
 public class DatabaseManager {
+    // Bumped whenever createTables() needs to migrate existing data (PRAGMA user_version)
+    private static final int SCHEMA_VERSION = 6;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    private static final long POOL_TIMEOUT_SECONDS = 10;
+
     private final ServerAdminPanelPlugin plugin;
-    private Connection connection;
     private final File databaseFile;
 
+    private CachedConnection writer;
+    private ExecutorService writeExecutor;
+    private volatile Thread writerThread;
+
+    private BlockingQueue<CachedConnection> readers;
+    private final List<CachedConnection> allReaders = new ArrayList<>();
+    private ExecutorService readExecutor;
+
     public DatabaseManager(ServerAdminPanelPlugin plugin) {
         this.plugin = plugin;
         this.databaseFile = new File(plugin.getDataFolder(), "players.db");
     }
 
     /**
-     * Initialize database connection and create tables
+     * Initialize database connections and create tables
      */
     public void initialize() {
         try {
             Class.forName("org.sqlite.JDBC");
-            connect();
+            ConfigManager config = plugin.getConfigManager();
+
+            if (!databaseFile.getParentFile().exists()) {
+                databaseFile.getParentFile().mkdirs();
+            }
+
+            writer = new CachedConnection(open(false));
+            applyPragmas(writer.connection, config, true);
             createTables();
-            plugin.getLogger().info("Database initialized successfully");
+
+            writeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "PaperPanel-DBWriter");
+                thread.setDaemon(true);
+                writerThread = thread;
+                return thread;
+            });
+
+            int readerCount = Math.max(1, config.getDatabaseReadConnections());
+            readers = new ArrayBlockingQueue<>(readerCount);
+            for (int i = 0; i < readerCount; i++) {
+                CachedConnection reader = new CachedConnection(open(true));
+                applyPragmas(reader.connection, config, false);
+                allReaders.add(reader);
+                readers.add(reader);
+            }
+
+            AtomicInteger readerThreads = new AtomicInteger();
+            readExecutor = Executors.newFixedThreadPool(readerCount, runnable -> {
+                Thread thread = new Thread(runnable, "PaperPanel-DBReader-" + readerThreads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            plugin.getLogger().info("Database initialized successfully (" + readerCount + " read connections)");
         } catch (Exception e) {
             plugin.getLogger().severe("Failed to initialize database: " + e.getMessage());
             e.printStackTrace();
@@ -35,24 +97,50 @@ public class DatabaseManager {
     }
 
     /**
-     * Connect to SQLite database
+     * Open a connection to the SQLite database
      */
-    private void connect() throws SQLException {
-        if (!databaseFile.getParentFile().exists()) {
-            databaseFile.getParentFile().mkdirs();
+    private Connection open(boolean readOnly) throws SQLException {
+        Properties properties = new Properties();
+        if (readOnly) {
+            properties.setProperty("open_mode", "1"); // SQLITE_OPEN_READONLY
         }
-
         String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
-        connection = DriverManager.getConnection(url);
+        return DriverManager.getConnection(url, properties);
+    }
+
+    private void applyPragmas(Connection connection, ConfigManager config, boolean writable) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            if (writable) {
+                // WAL is persistent in the database file, so setting it once on the writer is enough
+                stmt.execute("PRAGMA journal_mode = WAL");
+                stmt.execute("PRAGMA synchronous = " + synchronousMode(config.getDatabaseSynchronous()));
+                stmt.execute("PRAGMA temp_store = MEMORY");
+            }
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            // Negative cache_size is in KiB
+            stmt.execute("PRAGMA cache_size = -" + Math.max(0, config.getDatabaseCacheSizeKb()));
+            stmt.execute("PRAGMA mmap_size = " + Math.max(0L, config.getDatabaseMmapSizeMb()) * 1024L * 1024L);
+        }
+    }
+
+    private static String synchronousMode(String value) {
+        String mode = value != null ? value.trim().toUpperCase() : "";
+        return switch (mode) {
+            case "OFF", "NORMAL", "FULL", "EXTRA" -> mode;
+            default -> "NORMAL";
+        };
     }
 
     /**
      * Create database tables if they don't exist
      */
     private void createTables() throws SQLException {
+        migrateSchema();
+
         String createPlayersTable = """
             CREATE TABLE IF NOT EXISTS players (
-                uuid TEXT PRIMARY KEY,
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                uuid TEXT NOT NULL UNIQUE,
                 name TEXT NOT NULL,
                 first_join INTEGER NOT NULL,
                 last_seen INTEGER NOT NULL,
@@ -60,18 +148,22 @@ public class DatabaseManager {
             )
         """;
 
-        String createPlayerStatsTable = """
-            CREATE TABLE IF NOT EXISTS player_stats (
+        String createStatTypesTable = """
+            CREATE TABLE IF NOT EXISTS stat_types (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
-                uuid TEXT NOT NULL,
-                stat_type TEXT NOT NULL,
-                stat_value INTEGER DEFAULT 0,
-                updated_at INTEGER NOT NULL,
-                FOREIGN KEY (uuid) REFERENCES players(uuid),
-                UNIQUE(uuid, stat_type)
+                name TEXT NOT NULL UNIQUE
             )
         """;
 
+        String createPlayerStatsTable = """
+            CREATE TABLE IF NOT EXISTS player_stats (
+                player_id INTEGER NOT NULL REFERENCES players(id),
+                stat_id INTEGER NOT NULL REFERENCES stat_types(id),
+                value INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (player_id, stat_id)
+            ) WITHOUT ROWID
+        """;
+
         String createBackupsTable = """
             CREATE TABLE IF NOT EXISTS backups (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -84,7 +176,80 @@ public class DatabaseManager {
                 includes_worlds BOOLEAN DEFAULT 0,
                 includes_plugins BOOLEAN DEFAULT 0,
                 includes_configs BOOLEAN DEFAULT 0,
-                notes TEXT
+                notes TEXT,
+                format TEXT NOT NULL DEFAULT 'zip',
+                sha256 TEXT,
+                verified_at INTEGER,
+                verify_status TEXT,
+                verify_error TEXT,
+                stored_locally BOOLEAN NOT NULL DEFAULT 1
+            )
+        """;
+
+        // Copies of a backup on remote storage targets; the local copy is tracked by backups.stored_locally
+        String createBackupCopiesTable = """
+            CREATE TABLE IF NOT EXISTS backup_copies (
+                backup_id INTEGER NOT NULL,
+                target TEXT NOT NULL,
+                size INTEGER NOT NULL,
+                stored_at INTEGER NOT NULL,
+                PRIMARY KEY (backup_id, target)
+            ) WITHOUT ROWID
+        """;
+
+        // Entry catalogue of ZIP backups, so their contents can be browsed without opening the archive
+        String createBackupEntriesTable = """
+            CREATE TABLE IF NOT EXISTS backup_entries (
+                backup_id INTEGER NOT NULL,
+                path TEXT NOT NULL,
+                size INTEGER NOT NULL,
+                compressed_size INTEGER NOT NULL,
+                crc INTEGER NOT NULL,
+                mtime INTEGER NOT NULL,
+                PRIMARY KEY (backup_id, path)
+            ) WITHOUT ROWID
+        """;
+
+        // Manifest of incremental backups; blocks is the concatenated SHA-256 of each stored block,
+        // or for region files (layout 1) the hash of the block listing their chunks
+        String createBackupFilesTable = """
+            CREATE TABLE IF NOT EXISTS backup_files (
+                backup_id INTEGER NOT NULL,
+                path TEXT NOT NULL,
+                size INTEGER NOT NULL,
+                mtime INTEGER NOT NULL,
+                hash BLOB NOT NULL,
+                blocks BLOB NOT NULL,
+                layout INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (backup_id, path)
+            ) WITHOUT ROWID
+        """;
+
+        // Backup job queue; queued and running jobs are picked up again after a restart
+        String createBackupJobsTable = """
+            CREATE TABLE IF NOT EXISTS backup_jobs (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                kind TEXT NOT NULL,
+                state TEXT NOT NULL,
+                requested_by TEXT,
+                includes_worlds BOOLEAN DEFAULT 0,
+                includes_plugins BOOLEAN DEFAULT 0,
+                includes_configs BOOLEAN DEFAULT 0,
+                incremental BOOLEAN DEFAULT 0,
+                retention_type TEXT,
+                retention_value INTEGER,
+                backup_id INTEGER,
+                selection TEXT,
+                created_at INTEGER NOT NULL,
+                started_at INTEGER,
+                finished_at INTEGER,
+                phase TEXT,
+                bytes_done INTEGER NOT NULL DEFAULT 0,
+                bytes_total INTEGER NOT NULL DEFAULT 0,
+                files_done INTEGER NOT NULL DEFAULT 0,
+                files_total INTEGER NOT NULL DEFAULT 0,
+                backup_filename TEXT,
+                error TEXT
             )
         """;
 
@@ -139,64 +304,504 @@ public class DatabaseManager {
             )
         """;
 
-        try (Statement stmt = connection.createStatement()) {
+        String createMetricsRollupTable = """
+            CREATE TABLE IF NOT EXISTS metrics_rollup (
+                metric INTEGER NOT NULL,
+                resolution INTEGER NOT NULL,
+                bucket INTEGER NOT NULL,
+                min_value REAL NOT NULL,
+                max_value REAL NOT NULL,
+                sum_value REAL NOT NULL,
+                samples INTEGER NOT NULL,
+                PRIMARY KEY (metric, resolution, bucket)
+            ) WITHOUT ROWID
+        """;
+
+        try (Statement stmt = writer.connection.createStatement()) {
             stmt.execute(createPlayersTable);
+            stmt.execute(createStatTypesTable);
             stmt.execute(createPlayerStatsTable);
             stmt.execute(createBackupsTable);
+            stmt.execute(createBackupFilesTable);
+            stmt.execute(createBackupEntriesTable);
+            stmt.execute(createBackupCopiesTable);
+            stmt.execute(createBackupJobsTable);
             stmt.execute(createUpdateHistoryTable);
             stmt.execute(createScheduledUpdatesTable);
             stmt.execute(createAutoBackupSchedulesTable);
+            stmt.execute(createMetricsRollupTable);
+
+            // Keyset pagination of the player list; rowid is the tie-breaker
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_players_last_seen ON players(last_seen)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_players_name ON players(name COLLATE NOCASE)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_backup_jobs_state ON backup_jobs(state)");
+
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
         }
     }
 
     /**
-     * Get database connection
+     * Bring databases created by older versions up to the current schema
      */
-    public Connection getConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
-                connect();
+    private void migrateSchema() throws SQLException {
+        int version;
+        try (Statement stmt = writer.connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+
+        if (version < 1 && hasColumn("player_stats", "stat_type")) {
+            migrateStatsToDictionary();
+        }
+
+        // v1 -> v2: backups can be incremental snapshots instead of ZIP files
+        if (version < 2 && hasColumn("backups", "id") && !hasColumn("backups", "format")) {
+            try (Statement stmt = writer.connection.createStatement()) {
+                stmt.execute("ALTER TABLE backups ADD COLUMN format TEXT NOT NULL DEFAULT 'zip'");
+            }
+        }
+
+        // v2 -> v3: region files are backed up per chunk
+        if (version < 3 && hasColumn("backup_files", "path") && !hasColumn("backup_files", "layout")) {
+            try (Statement stmt = writer.connection.createStatement()) {
+                stmt.execute("ALTER TABLE backup_files ADD COLUMN layout INTEGER NOT NULL DEFAULT 0");
+            }
+        }
+
+        // v3 -> v4: the backup queue also stages restores
+        if (version < 4 && hasColumn("backup_jobs", "id") && !hasColumn("backup_jobs", "backup_id")) {
+            try (Statement stmt = writer.connection.createStatement()) {
+                stmt.execute("ALTER TABLE backup_jobs ADD COLUMN backup_id INTEGER");
+                stmt.execute("ALTER TABLE backup_jobs ADD COLUMN selection TEXT");
+            }
+        }
+
+        // v4 -> v5: archive checksums and verification results
+        if (version < 5 && hasColumn("backups", "id") && !hasColumn("backups", "sha256")) {
+            try (Statement stmt = writer.connection.createStatement()) {
+                stmt.execute("ALTER TABLE backups ADD COLUMN sha256 TEXT");
+                stmt.execute("ALTER TABLE backups ADD COLUMN verified_at INTEGER");
+                stmt.execute("ALTER TABLE backups ADD COLUMN verify_status TEXT");
+                stmt.execute("ALTER TABLE backups ADD COLUMN verify_error TEXT");
+            }
+        }
+
+        // v5 -> v6: backups can live on remote storage only
+        if (version < 6 && hasColumn("backups", "id") && !hasColumn("backups", "stored_locally")) {
+            try (Statement stmt = writer.connection.createStatement()) {
+                stmt.execute("ALTER TABLE backups ADD COLUMN stored_locally BOOLEAN NOT NULL DEFAULT 1");
             }
+        }
+    }
+
+    /**
+     * v0 -> v1: players get an integer id, stat names move into stat_types and
+     * player_stats becomes (player_id, stat_id, value)
+     */
+    private void migrateStatsToDictionary() throws SQLException {
+        plugin.getLogger().info("Migrating player stats to the normalized schema...");
+
+        String[] steps = {
+            """
+            CREATE TABLE players_v1 (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                uuid TEXT NOT NULL UNIQUE,
+                name TEXT NOT NULL,
+                first_join INTEGER NOT NULL,
+                last_seen INTEGER NOT NULL,
+                total_playtime INTEGER DEFAULT 0
+            )
+            """,
+            """
+            INSERT INTO players_v1 (uuid, name, first_join, last_seen, total_playtime)
+            SELECT uuid, name, first_join, last_seen, total_playtime FROM players
+            ORDER BY first_join
+            """,
+            // Stats recorded for players missing from the players table
+            """
+            INSERT OR IGNORE INTO players_v1 (uuid, name, first_join, last_seen)
+            SELECT uuid, uuid, MIN(updated_at), MAX(updated_at) FROM player_stats GROUP BY uuid
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS stat_types (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL UNIQUE
+            )
+            """,
+            "INSERT OR IGNORE INTO stat_types (name) SELECT DISTINCT stat_type FROM player_stats",
+            """
+            CREATE TABLE player_stats_v1 (
+                player_id INTEGER NOT NULL REFERENCES players(id),
+                stat_id INTEGER NOT NULL REFERENCES stat_types(id),
+                value INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (player_id, stat_id)
+            ) WITHOUT ROWID
+            """,
+            """
+            INSERT INTO player_stats_v1 (player_id, stat_id, value)
+            SELECT p.id, t.id, s.stat_value
+            FROM player_stats s
+            JOIN players_v1 p ON p.uuid = s.uuid
+            JOIN stat_types t ON t.name = s.stat_type
+            """,
+            "DROP TABLE player_stats",
+            "DROP TABLE players",
+            "ALTER TABLE players_v1 RENAME TO players",
+            "ALTER TABLE player_stats_v1 RENAME TO player_stats"
+        };
+
+        boolean autoCommit = writer.connection.getAutoCommit();
+        writer.connection.setAutoCommit(false);
+        try (Statement stmt = writer.connection.createStatement()) {
+            for (String step : steps) {
+                stmt.execute(step);
+            }
+            stmt.execute("PRAGMA user_version = 1");
+            writer.connection.commit();
         } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to get database connection: " + e.getMessage());
+            writer.connection.rollback();
+            throw e;
+        } finally {
+            writer.connection.setAutoCommit(autoCommit);
+        }
+
+        try (Statement stmt = writer.connection.createStatement()) {
+            stmt.execute("VACUUM");
+        }
+        plugin.getLogger().info("Player stats migration complete");
+    }
+
+    private boolean hasColumn(String table, String column) throws SQLException {
+        try (Statement stmt = writer.connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
         }
-        return connection;
+        return false;
     }
 
     /**
-     * Close database connection
+     * Close database connections, letting queued writes finish first
      */
     public void close() {
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                plugin.getLogger().info("Database connection closed");
+            if (writeExecutor != null) {
+                writeExecutor.shutdown();
+                if (!writeExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    plugin.getLogger().warning("Database writer did not finish in time; pending writes were dropped");
+                    writeExecutor.shutdownNow();
+                }
             }
-        } catch (SQLException e) {
-            plugin.getLogger().severe("Error closing database: " + e.getMessage());
+            if (readExecutor != null) {
+                readExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (CachedConnection reader : allReaders) {
+            reader.close();
+        }
+        allReaders.clear();
+
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            plugin.getLogger().info("Database connection closed");
         }
     }
 
+    // ===== Reads (pooled read-only connections) =====
+
     /**
-     * Execute a query
+     * Run a query and map every row
      */
-    public ResultSet executeQuery(String query, Object... params) throws SQLException {
-        PreparedStatement stmt = connection.prepareStatement(query);
-        for (int i = 0; i < params.length; i++) {
-            stmt.setObject(i + 1, params[i]);
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        CachedConnection reader = borrowReader();
+        try {
+            return reader.query(sql, mapper, params);
+        } finally {
+            readers.offer(reader);
         }
-        return stmt.executeQuery();
     }
 
     /**
-     * Execute an update
+     * Run a query and map the first row, or return null if there is none
      */
-    public int executeUpdate(String query, Object... params) throws SQLException {
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+    public <T> T queryOne(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        CachedConnection reader = borrowReader();
+        try {
+            return reader.queryOne(sql, mapper, params);
+        } finally {
+            readers.offer(reader);
+        }
+    }
+
+    /**
+     * Run a query on the reader pool without blocking the caller
+     */
+    public <T> CompletableFuture<List<T>> queryAsync(String sql, RowMapper<T> mapper, Object... params) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return query(sql, mapper, params);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, readExecutor);
+    }
+
+    /**
+     * Single-row variant of {@link #queryAsync}
+     */
+    public <T> CompletableFuture<T> queryOneAsync(String sql, RowMapper<T> mapper, Object... params) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return queryOne(sql, mapper, params);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, readExecutor);
+    }
+
+    private CachedConnection borrowReader() throws SQLException {
+        if (readers == null) {
+            throw new SQLException("Database is not initialized");
+        }
+        try {
+            CachedConnection reader = readers.poll(POOL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (reader == null) {
+                throw new SQLException("Timed out waiting for a database read connection");
+            }
+            return reader;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database read connection", e);
+        }
+    }
+
+    // ===== Writes (single writer thread) =====
+
+    /**
+     * Run work inside one transaction on the writer thread
+     */
+    public <T> CompletableFuture<T> transactionAsync(SqlTask<T> task) {
+        if (Thread.currentThread() == writerThread) {
+            // Already on the writer (nested call): run inline instead of deadlocking on our own queue
+            try {
+                return CompletableFuture.completedFuture(runTransaction(task));
+            } catch (SQLException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (writeExecutor == null || writeExecutor.isShutdown()) {
+            return CompletableFuture.failedFuture(new SQLException("Database is not available"));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return runTransaction(task);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, writeExecutor);
+    }
+
+    /**
+     * Run work inside one transaction and wait for the result
+     */
+    public <T> T transaction(SqlTask<T> task) throws SQLException {
+        return await(transactionAsync(task));
+    }
+
+    /**
+     * Execute an insert/update/delete without waiting for it
+     */
+    public CompletableFuture<Integer> updateAsync(String sql, Object... params) {
+        return transactionAsync(session -> session.update(sql, params));
+    }
+
+    /**
+     * Execute an insert/update/delete and return the affected row count
+     */
+    public int update(String sql, Object... params) throws SQLException {
+        return transaction(session -> session.update(sql, params));
+    }
+
+    /**
+     * Execute an insert and return the generated row id
+     */
+    public long insert(String sql, Object... params) throws SQLException {
+        return transaction(session -> session.insert(sql, params));
+    }
+
+    /**
+     * Execute one statement for many parameter rows in a single transaction
+     */
+    public void batch(String sql, List<Object[]> rows) throws SQLException {
+        transaction(session -> {
+            session.batch(sql, rows);
+            return null;
+        });
+    }
+
+    private <T> T runTransaction(SqlTask<T> task) throws SQLException {
+        Connection connection = writer.connection;
+        connection.setAutoCommit(false);
+        try {
+            T result = task.run(writer);
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+
+    // ===== Types =====
+
+    /**
+     * Maps the current row of a result set
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Work executed on the writer connection inside a transaction
+     */
+    @FunctionalInterface
+    public interface SqlTask<T> {
+        T run(Session session) throws SQLException;
+    }
+
+    /**
+     * Statement-level operations available inside a transaction
+     */
+    public interface Session {
+        int update(String sql, Object... params) throws SQLException;
+
+        long insert(String sql, Object... params) throws SQLException;
+
+        void batch(String sql, List<Object[]> rows) throws SQLException;
+
+        <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException;
+
+        <T> T queryOne(String sql, RowMapper<T> mapper, Object... params) throws SQLException;
+    }
+
+    /**
+     * A connection with an LRU cache of prepared statements.
+     * Only ever used by one thread at a time (the writer thread or a borrower).
+     */
+    private static final class CachedConnection implements Session {
+        final Connection connection;
+        private final LinkedHashMap<String, PreparedStatement> statements =
+                new LinkedHashMap<>(STATEMENT_CACHE_SIZE, 0.75f, true);
+
+        CachedConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        PreparedStatement prepare(String sql, Object... params) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null) {
+                stmt = connection.prepareStatement(sql);
+                statements.put(sql, stmt);
+                evict();
+            } else {
+                stmt.clearParameters();
+            }
             for (int i = 0; i < params.length; i++) {
                 stmt.setObject(i + 1, params[i]);
             }
-            return stmt.executeUpdate();
+            return stmt;
+        }
+
+        private void evict() {
+            if (statements.size() <= STATEMENT_CACHE_SIZE) {
+                return;
+            }
+            Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+            Map.Entry<String, PreparedStatement> eldest = it.next();
+            it.remove();
+            try {
+                eldest.getValue().close();
+            } catch (SQLException ignored) {
+            }
+        }
+
+        @Override
+        public int update(String sql, Object... params) throws SQLException {
+            return prepare(sql, params).executeUpdate();
+        }
+
+        @Override
+        public long insert(String sql, Object... params) throws SQLException {
+            prepare(sql, params).executeUpdate();
+            try (ResultSet rs = prepare("SELECT last_insert_rowid()").executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        }
+
+        @Override
+        public void batch(String sql, List<Object[]> rows) throws SQLException {
+            PreparedStatement stmt = prepare(sql);
+            for (Object[] params : rows) {
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+            List<T> results = new ArrayList<>();
+            try (ResultSet rs = prepare(sql, params).executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public <T> T queryOne(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+            try (ResultSet rs = prepare(sql, params).executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
+        }
+
+        void close() {
+            for (PreparedStatement stmt : statements.values()) {
+                try {
+                    stmt.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
         }
     }
 }
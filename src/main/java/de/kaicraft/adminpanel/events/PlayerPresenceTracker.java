@@ -0,0 +1,247 @@
+package de.kaicraft.adminpanel.events;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerKickEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the set of online players and a versioned log of presence changes
+ * (join, quit, kick, world change, ban, unban).
+ * Every change bumps the version; a client that knows the version it last saw
+ * gets just the missed deltas, or a fresh snapshot if they are no longer retained.
+ */
+public class PlayerPresenceTracker implements Listener {
+    private final ServerAdminPanelPlugin plugin;
+    private final int replaySize;
+    // Versions restart with the plugin; clients holding a version from another epoch get a snapshot
+    private final long epoch = System.currentTimeMillis();
+
+    // Guarded by this
+    private final Map<UUID, PresenceEntry> online = new LinkedHashMap<>();
+    private final ArrayDeque<PresenceEvent> recent = new ArrayDeque<>();
+    private long version = 0;
+    private Consumer<PresenceEvent> subscriber;
+
+    public PlayerPresenceTracker(ServerAdminPanelPlugin plugin) {
+        this.plugin = plugin;
+        this.replaySize = Math.max(16, plugin.getConfigManager().getEventReplaySize());
+    }
+
+    /**
+     * Seed the online set with players already connected (plugin reloads)
+     */
+    public synchronized void initialize() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            online.put(player.getUniqueId(), new PresenceEntry(player.getUniqueId().toString(),
+                    player.getName(), player.getWorld().getName(), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Set the callback that receives every new event. Called while the tracker
+     * lock is held, so it must only enqueue.
+     */
+    public synchronized void setSubscriber(Consumer<PresenceEvent> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * Run the handler with everything a client needs to catch up from the given version,
+     * while no new event can be published. The caller registers for live events inside
+     * the handler, so nothing falls between the sync and the first delta.
+     */
+    public synchronized void sync(long sinceEpoch, long sinceVersion, Consumer<Sync> handler) {
+        List<PresenceEvent> missed = null;
+        if (sinceEpoch == epoch && sinceVersion > 0 && sinceVersion <= version) {
+            PresenceEvent oldest = recent.peekFirst();
+            long oldestKept = oldest != null ? oldest.version : version + 1;
+            if (sinceVersion + 1 >= oldestKept) {
+                missed = new ArrayList<>();
+                for (PresenceEvent event : recent) {
+                    if (event.version > sinceVersion) {
+                        missed.add(event);
+                    }
+                }
+            }
+        }
+
+        if (missed != null) {
+            handler.accept(new Sync(epoch, version, null, missed));
+        } else {
+            handler.accept(new Sync(epoch, version, new ArrayList<>(online.values()), null));
+        }
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized int getOnlineCount() {
+        return online.size();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        String world = player.getWorld().getName();
+        synchronized (this) {
+            online.put(player.getUniqueId(), new PresenceEntry(player.getUniqueId().toString(),
+                    player.getName(), world, System.currentTimeMillis()));
+            publish("join", player.getUniqueId(), player.getName(), world, null);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        synchronized (this) {
+            online.remove(player.getUniqueId());
+            publish("quit", player.getUniqueId(), player.getName(), null, null);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onKick(PlayerKickEvent event) {
+        Player player = event.getPlayer();
+        String reason = PlainTextComponentSerializer.plainText().serialize(event.reason());
+        PlayerKickEvent.Cause cause = event.getCause();
+        boolean banned = cause == PlayerKickEvent.Cause.BANNED || cause == PlayerKickEvent.Cause.IP_BANNED;
+
+        synchronized (this) {
+            // The quit event that follows removes the player from the online set
+            publish("kick", player.getUniqueId(), player.getName(), null, reason);
+            if (banned) {
+                publish("ban", player.getUniqueId(), player.getName(), null, reason);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        Player player = event.getPlayer();
+        String world = player.getWorld().getName();
+        synchronized (this) {
+            PresenceEntry entry = online.get(player.getUniqueId());
+            if (entry != null) {
+                online.put(player.getUniqueId(), new PresenceEntry(entry.uuid, entry.name, world, entry.joinedAt));
+            }
+            publish("world_change", player.getUniqueId(), player.getName(), world, null);
+        }
+    }
+
+    /**
+     * Record a ban or unban made through the panel. Bukkit has no ban event,
+     * so offline bans only show up through here.
+     */
+    public synchronized void recordBan(UUID uuid, String name, boolean banned, String reason) {
+        publish(banned ? "ban" : "unban", uuid, name, null, reason);
+    }
+
+    private void publish(String type, UUID uuid, String name, String world, String reason) {
+        PresenceEvent event = new PresenceEvent(++version, type, uuid.toString(), name, world, reason,
+                System.currentTimeMillis());
+        recent.addLast(event);
+        while (recent.size() > replaySize) {
+            recent.pollFirst();
+        }
+
+        if (subscriber != null) {
+            try {
+                subscriber.accept(event);
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to publish player event: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One online player in the snapshot
+     */
+    public static class PresenceEntry {
+        private final String uuid;
+        private final String name;
+        private final String world;
+        private final long joinedAt;
+
+        public PresenceEntry(String uuid, String name, String world, long joinedAt) {
+            this.uuid = uuid;
+            this.name = name;
+            this.world = world;
+            this.joinedAt = joinedAt;
+        }
+
+        public String getUuid() { return uuid; }
+        public String getName() { return name; }
+        public String getWorld() { return world; }
+        public long getJoinedAt() { return joinedAt; }
+    }
+
+    /**
+     * One presence change. Fields that do not apply to the type are null.
+     */
+    public static class PresenceEvent {
+        private final long version;
+        private final String type;
+        private final String uuid;
+        private final String name;
+        private final String world;
+        private final String reason;
+        private final long timestamp;
+
+        public PresenceEvent(long version, String type, String uuid, String name,
+                             String world, String reason, long timestamp) {
+            this.version = version;
+            this.type = type;
+            this.uuid = uuid;
+            this.name = name;
+            this.world = world;
+            this.reason = reason;
+            this.timestamp = timestamp;
+        }
+
+        public long getVersion() { return version; }
+        public String getType() { return type; }
+        public String getUuid() { return uuid; }
+        public String getName() { return name; }
+        public String getWorld() { return world; }
+        public String getReason() { return reason; }
+        public long getTimestamp() { return timestamp; }
+    }
+
+    /**
+     * What a (re)connecting client needs: either a full snapshot or the deltas it missed
+     */
+    public static class Sync {
+        public final long epoch;
+        public final long version;
+        public final List<PresenceEntry> snapshot;
+        public final List<PresenceEvent> deltas;
+
+        Sync(long epoch, long version, List<PresenceEntry> snapshot, List<PresenceEvent> deltas) {
+            this.epoch = epoch;
+            this.version = version;
+            this.snapshot = snapshot;
+            this.deltas = deltas;
+        }
+    }
+}
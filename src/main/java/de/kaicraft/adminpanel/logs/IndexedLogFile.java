@@ -0,0 +1,248 @@
+package de.kaicraft.adminpanel.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A log file read through memory mappings, with a sparse index of where its lines start.
+ *
+ * The index holds the byte offset of every {@value #CHECKPOINT_INTERVAL}th line, so any line is
+ * reached by scanning at most that many lines, and the line count is known without reading the file.
+ * Log files only grow, so a refresh just indexes the bytes appended since the last one. A file that
+ * shrank, or whose first {@value #HEAD_BYTES} bytes changed because it was replaced by another one,
+ * is indexed again from the start.
+ */
+public class IndexedLogFile {
+    public static final int CHECKPOINT_INTERVAL = 1024;
+    private static final int MAP_CHUNK = 64 * 1024 * 1024;
+    // Longer lines are cut off, so a file without line breaks cannot exhaust the heap
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+    private static final int HEAD_BYTES = 4096;
+
+    private final Path path;
+    private final int mapChunk;
+    private long indexedSize;
+    private long lastModified = -1;
+    private long newlines;
+    private long lastLineStart;
+    // checkpoints[k] is the offset of line k * CHECKPOINT_INTERVAL
+    private long[] checkpoints = new long[16];
+    private int checkpointCount = 1;
+    // Checksum of the first headLength bytes as of the last refresh
+    private int headLength;
+    private long headChecksum;
+
+    public IndexedLogFile(Path path) {
+        this(path, MAP_CHUNK);
+    }
+
+    /**
+     * @param mapChunk bytes mapped at a time
+     */
+    IndexedLogFile(Path path, int mapChunk) {
+        this.path = path;
+        this.mapChunk = mapChunk;
+    }
+
+    /**
+     * Receives the lines of a file in order; the buffer holds the line without its line break
+     */
+    public interface LineVisitor {
+        /**
+         * @param line zero-based line number
+         * @return false to stop reading
+         */
+        boolean visit(long line, ByteBuffer bytes) throws IOException;
+    }
+
+    /**
+     * Bring the index up to date with the file on disk
+     */
+    public synchronized void refresh() throws IOException {
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        if (size == indexedSize && modified == lastModified) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (size <= indexedSize || checksum(channel, headLength) != headChecksum) {
+                // Truncated, rotated or rewritten in place
+                indexedSize = 0;
+                newlines = 0;
+                lastLineStart = 0;
+                checkpointCount = 1;
+                headLength = 0;
+                headChecksum = 0;
+            }
+            index(channel, Math.min(size, channel.size()));
+            if (headLength < HEAD_BYTES && headLength < indexedSize) {
+                headLength = (int) Math.min(HEAD_BYTES, indexedSize);
+                headChecksum = checksum(channel, headLength);
+            }
+        }
+        lastModified = modified;
+    }
+
+    private static long checksum(FileChannel channel, int length) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(length);
+        int read = 0;
+        while (head.hasRemaining() && read >= 0) {
+            read = channel.read(head, head.position());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head.flip());
+        return crc.getValue();
+    }
+
+    private void index(FileChannel channel, long size) throws IOException {
+        long position = indexedSize;
+        while (position < size) {
+            int length = (int) Math.min(mapChunk, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) == '\n') {
+                    newlines++;
+                    lastLineStart = position + i + 1;
+                    if (newlines % CHECKPOINT_INTERVAL == 0) {
+                        addCheckpoint(lastLineStart);
+                    }
+                }
+            }
+            position += length;
+        }
+        indexedSize = size;
+    }
+
+    private void addCheckpoint(long offset) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+
+    /**
+     * Number of lines as of the last refresh, counting a last line without a line break
+     */
+    public synchronized long getLineCount() {
+        return newlines + (lastLineStart < indexedSize ? 1 : 0);
+    }
+
+    public synchronized long getSize() {
+        return indexedSize;
+    }
+
+    public synchronized long getLastModified() {
+        return lastModified;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Read up to count lines starting at a zero-based line number
+     */
+    public List<String> readLines(long fromLine, int count) throws IOException {
+        List<String> lines = new ArrayList<>(Math.max(0, (int) Math.min(count, getLineCount() - fromLine)));
+        forEachLine(fromLine, fromLine + count, (line, bytes) -> {
+            lines.add(StandardCharsets.UTF_8.decode(bytes).toString());
+            return true;
+        });
+        return lines;
+    }
+
+    /**
+     * Visit the lines in [fromLine, toLine) as of the last refresh. Reading starts at the nearest
+     * checkpoint, and only one mapped chunk and one line are held at a time.
+     */
+    public void forEachLine(long fromLine, long toLine, LineVisitor visitor) throws IOException {
+        long start;
+        long line;
+        long end;
+        synchronized (this) {
+            toLine = Math.min(toLine, getLineCount());
+            fromLine = Math.max(0, fromLine);
+            if (fromLine >= toLine) {
+                return;
+            }
+            int checkpoint = (int) Math.min(fromLine / CHECKPOINT_INTERVAL, checkpointCount - 1);
+            start = checkpoints[checkpoint];
+            line = (long) checkpoint * CHECKPOINT_INTERVAL;
+            end = indexedSize;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            end = Math.min(end, channel.size());
+            // Part of a line that started in the previous chunk
+            byte[] carry = new byte[0];
+            int carryLength = 0;
+            long position = start;
+            while (position < end && line < toLine) {
+                int length = (int) Math.min(mapChunk, end - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int lineStart = 0;
+                for (int i = 0; i < length && line < toLine; i++) {
+                    if (buffer.get(i) != '\n') {
+                        continue;
+                    }
+                    if (line >= fromLine) {
+                        ByteBuffer bytes;
+                        if (carryLength == 0) {
+                            bytes = buffer.slice(lineStart, Math.min(i - lineStart, MAX_LINE_BYTES));
+                        } else {
+                            carry = append(carry, carryLength, buffer, lineStart, i);
+                            carryLength = Math.min(carryLength + i - lineStart, MAX_LINE_BYTES);
+                            bytes = ByteBuffer.wrap(carry, 0, carryLength);
+                        }
+                        if (!visitor.visit(line, stripCarriageReturn(bytes))) {
+                            return;
+                        }
+                    }
+                    carryLength = 0;
+                    line++;
+                    lineStart = i + 1;
+                }
+                if (line < toLine && line >= fromLine && lineStart < length) {
+                    carry = append(carry, carryLength, buffer, lineStart, length);
+                    carryLength = Math.min(carryLength + length - lineStart, MAX_LINE_BYTES);
+                }
+                position += length;
+            }
+
+            // Last line without a line break
+            if (line < toLine && line >= fromLine && carryLength > 0) {
+                visitor.visit(line, stripCarriageReturn(ByteBuffer.wrap(carry, 0, carryLength)));
+            }
+        }
+    }
+
+    private static byte[] append(byte[] carry, int carryLength, ByteBuffer buffer, int from, int to) {
+        int length = Math.min(to - from, MAX_LINE_BYTES - carryLength);
+        if (length <= 0) {
+            return carry;
+        }
+        if (carryLength + length > carry.length) {
+            carry = Arrays.copyOf(carry, Math.min(MAX_LINE_BYTES, Math.max(carry.length * 2, carryLength + length)));
+        }
+        buffer.get(from, carry, carryLength, length);
+        return carry;
+    }
+
+    private static ByteBuffer stripCarriageReturn(ByteBuffer bytes) {
+        if (bytes.limit() > bytes.position() && bytes.get(bytes.limit() - 1) == '\r') {
+            bytes.limit(bytes.limit() - 1);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,35 @@
+package de.kaicraft.adminpanel.logs;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Line indexes of the log files, kept between requests and refreshed by size and modification time
+ */
+public class LogIndexCache {
+    private final Map<Path, IndexedLogFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * The indexed file, brought up to date with what is on disk
+     */
+    public IndexedLogFile get(Path path) throws IOException {
+        IndexedLogFile file = files.computeIfAbsent(path.toAbsolutePath().normalize(), IndexedLogFile::new);
+        file.refresh();
+        return file;
+    }
+
+    /**
+     * Drop the indexes of files that no longer exist
+     */
+    public void retain(Collection<Path> existing) {
+        Set<Path> keep = existing.stream()
+            .map(path -> path.toAbsolutePath().normalize())
+            .collect(Collectors.toSet());
+        files.keySet().retainAll(keep);
+    }
+}
@@ -0,0 +1,743 @@
+package de.kaicraft.adminpanel.logs;
+
+import de.kaicraft.adminpanel.model.LogMatch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches log files in parallel, line by line, without loading them into memory.
+ *
+ * Files are split into segments of whole lines using their line index, and the segments are searched
+ * concurrently on a bounded pool. Plain queries are matched case-insensitively on the raw bytes; only
+ * matching lines and their context are decoded. Matches reach the caller in a fixed order, newest file
+ * first and by line within a file, and each one as soon as its context is complete and every match
+ * before it has been handed over. All workers stop once a match beyond the limit turns up.
+ */
+public class LogSearchEngine {
+    public static final int MAX_CONTEXT_LINES = 20;
+    private static final int SEGMENT_LINES = 64 * IndexedLogFile.CHECKPOINT_INTERVAL;
+    // Level and timestamp are always at the start of a line
+    private static final int METADATA_PREFIX_BYTES = 96;
+    // How far back a segment looks for the start of the record its first line belongs to
+    private static final int MAX_RECORD_LINES = 4 * IndexedLogFile.CHECKPOINT_INTERVAL;
+
+    // Log4j / Paper console format: [12:34:56 INFO]: or [2024-01-01 12:34:56] [Server thread/WARN]:
+    private static final Pattern BRACKET_LEVEL = Pattern.compile("\\[[^\\]]*?\\b(INFO|WARN|ERROR|DEBUG|TRACE|FATAL)\\]");
+    // Second line of a java.util.logging.SimpleFormatter record: "<localized level>: message"
+    private static final Pattern JUL_LEVEL = Pattern.compile("^([^:\\[]{1,32}): ");
+    private static final Pattern ISO_TIME = Pattern.compile("^\\[?(\\d{4}-\\d{2}-\\d{2})[ T](\\d{2}:\\d{2}:\\d{2})");
+    // First line of a SimpleFormatter record ("%1$tb %1$td, %1$tY %1$tl:%1$tM:%1$tS %1$Tp %2$s"), which the panel's
+    // own logs use. Month name and AM/PM marker follow the JVM locale, so they are looked up in JulNames.
+    private static final Pattern JUL_TIME = Pattern.compile("^(\\S+) (\\d{2}), (\\d{4}) (\\d{1,2}):(\\d{2}):(\\d{2}) (.+)");
+    private static final Pattern CLOCK_TIME = Pattern.compile("^\\[(\\d{2}:\\d{2}:\\d{2})");
+    private static final Pattern FILE_DATE = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+
+    private final LogIndexCache index;
+    private final ExecutorService pool;
+
+    public LogSearchEngine(LogIndexCache index, int threads) {
+        this.index = index;
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "PaperPanel-LogSearch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stop the search threads; running searches are interrupted
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Receives matches from the search threads; calls are serialized
+     */
+    public interface MatchSink {
+        void accept(LogMatch match) throws IOException;
+    }
+
+    /**
+     * What to search for.
+     *
+     * The level and time filters apply to the record a line belongs to, so stack traces and other
+     * continuation lines are filtered with their record. Lines whose time cannot be told, because the
+     * file has no recognised timestamps, always pass the time filter rather than being dropped.
+     */
+    public static class Query {
+        final int limit;
+        final int context;
+        final Set<String> levels;
+        final long from;
+        final long to;
+        // Set for regular expressions and for text that byte-level case folding cannot handle
+        final Pattern pattern;
+        final byte[] needle;
+        final int[] shift;
+
+        /**
+         * @param levels error, warning, info and/or debug; empty for all
+         * @param from   earliest timestamp in ms, or 0
+         * @param to     latest timestamp in ms, or 0
+         * @throws java.util.regex.PatternSyntaxException if regex is set and the text is not a valid expression
+         */
+        public Query(String text, boolean regex, Collection<String> levels, long from, long to, int context, int limit) {
+            this.limit = Math.max(1, limit);
+            this.context = Math.max(0, Math.min(context, MAX_CONTEXT_LINES));
+            this.levels = new HashSet<>();
+            for (String level : levels) {
+                this.levels.add(level.toLowerCase(Locale.ROOT));
+            }
+            this.from = from;
+            this.to = to;
+
+            boolean ascii = text.chars().allMatch(c -> c < 0x80);
+            if (regex || !ascii) {
+                this.pattern = Pattern.compile(regex ? text : Pattern.quote(text),
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+                this.needle = null;
+                this.shift = null;
+            } else {
+                this.pattern = null;
+                this.needle = text.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+                this.shift = new int[256];
+                Arrays.fill(shift, needle.length);
+                for (int i = 0; i < needle.length - 1; i++) {
+                    shift[needle[i] & 0xFF] = needle.length - 1 - i;
+                }
+            }
+        }
+
+        boolean filtersMetadata() {
+            return !levels.isEmpty() || from > 0 || to > 0;
+        }
+
+        boolean acceptsLevel(LineMetadata metadata) {
+            return levels.isEmpty() || levels.contains(metadata.level);
+        }
+
+        boolean acceptsTime(LineMetadata metadata) {
+            if (metadata.time < 0) {
+                return true;
+            }
+            return (from <= 0 || metadata.time >= from) && (to <= 0 || metadata.time <= to);
+        }
+
+        boolean matches(byte[] line, int length) {
+            if (pattern != null) {
+                return pattern.matcher(new String(line, 0, length, StandardCharsets.UTF_8)).find();
+            }
+            return contains(line, length, needle, shift);
+        }
+    }
+
+    /**
+     * Outcome of a finished search
+     */
+    public static class Summary {
+        public final int matches;
+        // True only if there were more matches than the limit
+        public final boolean limitReached;
+        public final int filesSearched;
+
+        Summary(int matches, boolean limitReached, int filesSearched) {
+            this.matches = matches;
+            this.limitReached = limitReached;
+            this.filesSearched = filesSearched;
+        }
+    }
+
+    /**
+     * Search the files, passing the first {@code limit} matches to the sink in order: newest file first,
+     * then by line. Blocks until the search is done, the limit is exceeded or the sink fails.
+     */
+    public Summary search(List<Path> files, Query query, MatchSink sink) throws IOException, InterruptedException {
+        List<Path> ordered = new ArrayList<>(files);
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path file : ordered) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        ordered.sort(Comparator.comparing((Path file) -> modified.get(file)).reversed());
+
+        List<Segment> segments = new ArrayList<>();
+        int filesSearched = 0;
+        for (Path file : ordered) {
+            // Nothing in a file that was last written before the range starts
+            if (query.from > 0 && modified.get(file) < query.from) {
+                continue;
+            }
+            IndexedLogFile log = index.get(file);
+            LocalDate fileDate = fileDate(file, modified.get(file));
+            long lines = log.getLineCount();
+            filesSearched++;
+            for (long start = 0; start < lines; start += SEGMENT_LINES) {
+                segments.add(new Segment(segments.size(), log, start, Math.min(lines, start + SEGMENT_LINES), fileDate));
+            }
+        }
+
+        Search search = new Search(query, sink, segments.size());
+        List<Future<?>> tasks = new ArrayList<>();
+        for (Segment segment : segments) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    if (!search.stop.get()) {
+                        searchSegment(segment, search);
+                    }
+                } finally {
+                    search.complete(segment.order);
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            search.stop.set(true);
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Log search failed", e.getCause());
+        } catch (InterruptedException e) {
+            search.stop.set(true);
+            throw e;
+        } finally {
+            for (Future<?> task : tasks) {
+                task.cancel(false);
+            }
+        }
+
+        return search.summary(filesSearched);
+    }
+
+    private void searchSegment(Segment segment, Search search) throws IOException {
+        Query query = search.query;
+        IndexedLogFile log = segment.log;
+        long start = segment.start;
+        // Lines before the segment give context to its first matches. With metadata filters the scan
+        // starts at the head of the record the first line belongs to, so a stack trace that crosses
+        // the segment boundary still gets its record's level and time.
+        long from = Math.max(0, start - query.context);
+        if (query.filtersMetadata() && start > 0) {
+            from = Math.min(from, recordStart(log, start, segment.fileDate));
+        }
+
+        SegmentScan scan = new SegmentScan(segment, search);
+        log.forEachLine(from, scan.readEnd(), scan);
+        scan.finish();
+    }
+
+    /**
+     * Line number of the last record header (a line with a timestamp) before the given line,
+     * looking back at most {@value #MAX_RECORD_LINES} lines
+     */
+    static long recordStart(IndexedLogFile log, long line, LocalDate fileDate) throws IOException {
+        long limit = Math.max(0, line - MAX_RECORD_LINES);
+        LineMetadata probe = new LineMetadata(fileDate);
+        byte[][] scratch = {new byte[512]};
+        long to = line;
+        while (to > limit) {
+            long from = Math.max(limit, to - IndexedLogFile.CHECKPOINT_INTERVAL);
+            long[] header = {-1};
+            log.forEachLine(from, to, (current, bytes) -> {
+                int length = bytes.remaining();
+                if (scratch[0].length < length) {
+                    scratch[0] = new byte[length];
+                }
+                bytes.get(bytes.position(), scratch[0], 0, length);
+                if (probe.update(scratch[0], length)) {
+                    header[0] = current;
+                }
+                return true;
+            });
+            if (header[0] >= 0) {
+                return header[0];
+            }
+            to = from;
+        }
+        return limit;
+    }
+
+    /**
+     * Date of the entries in a log file: the date in its name, or else the day it was last written
+     */
+    static LocalDate fileDate(Path file, long lastModified) {
+        Matcher matcher = FILE_DATE.matcher(file.getFileName().toString());
+        if (matcher.find()) {
+            try {
+                return LocalDate.parse(matcher.group(1));
+            } catch (DateTimeParseException ignored) {
+                // Not a date after all
+            }
+        }
+        return Instant.ofEpochMilli(lastModified).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * Case-insensitive (ASCII) Boyer-Moore-Horspool search; the needle is already lower case
+     */
+    static boolean contains(byte[] haystack, int length, byte[] needle, int[] shift) {
+        int n = needle.length;
+        if (n == 0) return true;
+        int i = 0;
+        while (i <= length - n) {
+            int j = n - 1;
+            while (j >= 0 && fold(haystack[i + j]) == needle[j]) {
+                j--;
+            }
+            if (j < 0) return true;
+            i += shift[fold(haystack[i + n - 1]) & 0xFF];
+        }
+        return false;
+    }
+
+    private static byte fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+    }
+
+    /**
+     * A run of whole lines of one file; the order is its place in the result order
+     */
+    private static final class Segment {
+        final int order;
+        final IndexedLogFile log;
+        final long start;
+        final long end;
+        final LocalDate fileDate;
+
+        Segment(int order, IndexedLogFile log, long start, long end, LocalDate fileDate) {
+            this.order = order;
+            this.log = log;
+            this.start = start;
+            this.end = end;
+            this.fileDate = fileDate;
+        }
+    }
+
+    /**
+     * State shared by the workers of one search.
+     *
+     * Segments finish in any order, but their matches reach the sink in segment order: the earliest
+     * unfinished segment hands its matches straight over, later ones buffer theirs until every segment
+     * before them is done. Once the limit is filled, any further match means the limit was exceeded.
+     */
+    private static final class Search {
+        final Query query;
+        final MatchSink sink;
+        final AtomicBoolean stop = new AtomicBoolean();
+
+        // Guarded by this
+        private final List<List<LogMatch>> buffered;
+        private final boolean[] done;
+        private int head;
+        private int emitted;
+        private boolean overflow;
+
+        Search(Query query, MatchSink sink, int segments) {
+            this.query = query;
+            this.sink = sink;
+            this.buffered = new ArrayList<>(Collections.nCopies(segments, null));
+            this.done = new boolean[segments];
+        }
+
+        synchronized void emit(int segment, LogMatch match) throws IOException {
+            if (segment == head || emitted >= query.limit) {
+                deliver(match);
+                return;
+            }
+            List<LogMatch> matches = buffered.get(segment);
+            if (matches == null) {
+                matches = new ArrayList<>();
+                buffered.set(segment, matches);
+            }
+            matches.add(match);
+        }
+
+        /**
+         * Mark a segment done and release the buffered matches that are now next in order
+         */
+        synchronized void complete(int segment) throws IOException {
+            done[segment] = true;
+            while (head < done.length) {
+                List<LogMatch> matches = buffered.set(head, null);
+                if (matches != null) {
+                    for (LogMatch match : matches) {
+                        deliver(match);
+                    }
+                }
+                if (!done[head]) {
+                    break;
+                }
+                head++;
+            }
+        }
+
+        private void deliver(LogMatch match) throws IOException {
+            if (emitted >= query.limit) {
+                overflow = true;
+                stop.set(true);
+                return;
+            }
+            try {
+                sink.accept(match);
+            } catch (IOException e) {
+                stop.set(true);
+                throw e;
+            }
+            emitted++;
+        }
+
+        synchronized Summary summary(int filesSearched) {
+            return new Summary(emitted, overflow, filesSearched);
+        }
+    }
+
+    private static final class PendingMatch {
+        final long lineNumber;
+        final String line;
+        final List<String> before;
+        final List<String> after = new ArrayList<>();
+
+        PendingMatch(long lineNumber, String line, List<String> before) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.before = before;
+        }
+
+        LogMatch toLogMatch(String file) {
+            return new LogMatch((int) Math.min(Integer.MAX_VALUE, lineNumber), line, file, before, after);
+        }
+    }
+
+    /**
+     * The last few lines, kept as bytes in reused buffers and only decoded for a match
+     */
+    private static final class ContextLines {
+        private final byte[][] lines;
+        private final int[] lengths;
+        private int next;
+        private int size;
+
+        ContextLines(int capacity) {
+            this.lines = new byte[capacity][];
+            this.lengths = new int[capacity];
+        }
+
+        void add(byte[] line, int length) {
+            if (lines.length == 0) return;
+            if (lines[next] == null || lines[next].length < length) {
+                lines[next] = new byte[Math.max(length, 128)];
+            }
+            System.arraycopy(line, 0, lines[next], 0, length);
+            lengths[next] = length;
+            next = (next + 1) % lines.length;
+            size = Math.min(size + 1, lines.length);
+        }
+
+        List<String> toList() {
+            List<String> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int slot = (next - size + i + lines.length) % lines.length;
+                result.add(new String(lines[slot], 0, lengths[slot], StandardCharsets.UTF_8));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Scans one segment: tracks the record metadata and context lines, and holds matches
+     * until their after-context is complete
+     */
+    private static final class SegmentScan implements IndexedLogFile.LineVisitor {
+        private final String fileName;
+        private final int order;
+        private final long start;
+        private final long end;
+        private final Search search;
+        private final Query query;
+        private final boolean filterMetadata;
+        private final ContextLines previous;
+        private final LineMetadata metadata;
+        private final List<PendingMatch> pending = new ArrayList<>();
+        // A matching SimpleFormatter header, held until the next line tells its level
+        private PendingMatch header;
+        private byte[] buffer = new byte[512];
+        // Matches taken in this segment; one past the limit is enough to tell it was exceeded
+        private int found;
+
+        SegmentScan(Segment segment, Search search) {
+            this.fileName = segment.log.getPath().getFileName().toString();
+            this.order = segment.order;
+            this.start = segment.start;
+            this.end = segment.end;
+            this.search = search;
+            this.query = search.query;
+            this.filterMetadata = query.filtersMetadata();
+            this.previous = new ContextLines(query.context);
+            this.metadata = new LineMetadata(segment.fileDate);
+        }
+
+        /**
+         * Last line to read: the after-context, and with metadata filters one more line for a header's level
+         */
+        long readEnd() {
+            return end + Math.max(query.context, filterMetadata ? 1 : 0);
+        }
+
+        @Override
+        public boolean visit(long line, ByteBuffer bytes) throws IOException {
+            int length = bytes.remaining();
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            bytes.get(bytes.position(), buffer, 0, length);
+
+            if (filterMetadata) {
+                metadata.update(buffer, length);
+            }
+
+            if (header != null) {
+                PendingMatch match = header;
+                header = null;
+                if (query.acceptsLevel(metadata)) {
+                    accept(match);
+                }
+            }
+
+            // After-context of earlier matches
+            if (!pending.isEmpty()) {
+                String text = new String(buffer, 0, length, StandardCharsets.UTF_8);
+                Iterator<PendingMatch> it = pending.iterator();
+                while (it.hasNext()) {
+                    PendingMatch match = it.next();
+                    match.after.add(text);
+                    if (match.after.size() >= query.context) {
+                        search.emit(order, match.toLogMatch(fileName));
+                        it.remove();
+                    }
+                }
+            }
+
+            if (line >= start && line < end && !isFull() && query.matches(buffer, length)
+                    && (!filterMetadata || query.acceptsTime(metadata))) {
+                PendingMatch match = new PendingMatch(line + 1,
+                    new String(buffer, 0, length, StandardCharsets.UTF_8), previous.toList());
+                if (!filterMetadata || query.levels.isEmpty()) {
+                    accept(match);
+                } else if (metadata.levelPending) {
+                    header = match;
+                } else if (query.acceptsLevel(metadata)) {
+                    accept(match);
+                }
+            }
+
+            previous.add(buffer, length);
+            return !pending.isEmpty() || header != null || (line < end - 1 && !isFull());
+        }
+
+        private boolean isFull() {
+            return found > query.limit || search.stop.get();
+        }
+
+        private void accept(PendingMatch match) throws IOException {
+            if (found > query.limit) {
+                return;
+            }
+            found++;
+            if (query.context == 0) {
+                search.emit(order, match.toLogMatch(fileName));
+            } else {
+                pending.add(match);
+            }
+        }
+
+        /**
+         * Emit matches at the end of the file, or cut short by the limit
+         */
+        void finish() throws IOException {
+            for (PendingMatch match : pending) {
+                search.emit(order, match.toLogMatch(fileName));
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Level and time of the log record a line belongs to. Continuation lines, such as stack traces
+     * or the message line under a SimpleFormatter header, keep those of the record's first line.
+     */
+    static final class LineMetadata {
+        private final LocalDate fileDate;
+        private final JulNames names;
+        String level = "";
+        long time = -1;
+        // Set after a SimpleFormatter header, whose level is on the line that follows it
+        boolean levelPending;
+
+        /**
+         * @param fileDate date for formats that only log the time of day, or null
+         */
+        LineMetadata(LocalDate fileDate) {
+            this.fileDate = fileDate;
+            this.names = JulNames.current();
+        }
+
+        /**
+         * Take over the level and time if the line starts a record
+         * @return true if the line is the first line of a record
+         */
+        boolean update(byte[] line, int length) {
+            String prefix = new String(line, 0, Math.min(length, METADATA_PREFIX_BYTES), StandardCharsets.UTF_8);
+
+            if (levelPending) {
+                levelPending = false;
+                Matcher julLevel = JUL_LEVEL.matcher(prefix);
+                if (julLevel.find()) {
+                    String normalized = names.levels.get(julLevel.group(1));
+                    if (normalized != null) {
+                        level = normalized;
+                        return false;
+                    }
+                }
+            }
+
+            Matcher matcher = ISO_TIME.matcher(prefix);
+            if (matcher.find()) {
+                time = parseTime(matcher.group(1), matcher.group(2));
+                level = bracketLevel(prefix);
+                return true;
+            }
+            matcher = CLOCK_TIME.matcher(prefix);
+            if (matcher.find()) {
+                time = fileDate != null ? parseTime(fileDate.toString(), matcher.group(1)) : -1;
+                level = bracketLevel(prefix);
+                return true;
+            }
+            matcher = JUL_TIME.matcher(prefix);
+            if (matcher.find()) {
+                time = names.parseHeader(matcher);
+                level = "";
+                levelPending = true;
+                return true;
+            }
+            return false;
+        }
+
+        private static long parseTime(String date, String time) {
+            try {
+                return toMillis(LocalDateTime.of(LocalDate.parse(date), LocalTime.parse(time)));
+            } catch (DateTimeParseException e) {
+                // Looked like a timestamp but was not one
+                return -1;
+            }
+        }
+
+        private static String bracketLevel(String prefix) {
+            Matcher matcher = BRACKET_LEVEL.matcher(prefix);
+            return matcher.find() ? normalizeLevel(matcher.group(1)) : "";
+        }
+
+        private static long toMillis(LocalDateTime time) {
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        private static String normalizeLevel(String level) {
+            switch (level) {
+                case "SEVERE":
+                case "ERROR":
+                case "FATAL":
+                    return "error";
+                case "WARNING":
+                case "WARN":
+                    return "warning";
+                case "INFO":
+                    return "info";
+                default:
+                    return "debug";
+            }
+        }
+    }
+
+    /**
+     * Month names, AM/PM markers and level names as SimpleFormatter writes them in the JVM locale,
+     * and in English for files written before a locale change
+     */
+    private static final class JulNames {
+        private static final Map<Locale, JulNames> CACHE = new ConcurrentHashMap<>();
+        private static final List<Level> LEVELS = List.of(
+            Level.SEVERE, Level.WARNING, Level.INFO, Level.CONFIG, Level.FINE, Level.FINER, Level.FINEST);
+
+        private final Map<String, Integer> months = new HashMap<>();
+        // Marker to whether it means PM
+        private final Map<String, Boolean> markers = new HashMap<>();
+        private final Map<String, String> levels = new HashMap<>();
+
+        static JulNames current() {
+            return CACHE.computeIfAbsent(Locale.getDefault(Locale.Category.FORMAT), JulNames::new);
+        }
+
+        private JulNames(Locale locale) {
+            for (Locale names : List.of(Locale.ENGLISH, locale)) {
+                for (int month = 1; month <= 12; month++) {
+                    months.put(key(String.format(names, "%tb", LocalDate.of(2000, month, 1))), month);
+                }
+                markers.put(key(String.format(names, "%Tp", LocalTime.of(9, 0))), false);
+                markers.put(key(String.format(names, "%Tp", LocalTime.of(21, 0))), true);
+            }
+            for (Level level : LEVELS) {
+                String normalized = LineMetadata.normalizeLevel(level.getName());
+                levels.put(level.getName(), normalized);
+                levels.put(level.getLocalizedName(), normalized);
+            }
+        }
+
+        /**
+         * Time of a header matched by JUL_TIME
+         * @return -1 if the month or AM/PM marker is not one we know
+         */
+        long parseHeader(Matcher header) {
+            Integer month = months.get(key(header.group(1)));
+            String rest = key(header.group(7));
+            Boolean pm = null;
+            for (Map.Entry<String, Boolean> marker : markers.entrySet()) {
+                if (rest.startsWith(marker.getKey() + " ")) {
+                    pm = marker.getValue();
+                    break;
+                }
+            }
+            if (month == null || pm == null) {
+                return -1;
+            }
+            try {
+                int hour = Integer.parseInt(header.group(4)) % 12 + (pm ? 12 : 0);
+                return LineMetadata.toMillis(LocalDateTime.of(Integer.parseInt(header.group(3)), month,
+                    Integer.parseInt(header.group(2)), hour, Integer.parseInt(header.group(5)),
+                    Integer.parseInt(header.group(6))));
+            } catch (DateTimeException e) {
+                return -1;
+            }
+        }
+
+        private static String key(String text) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package de.kaicraft.adminpanel.metrics;
+
+/**
+ * Series recorded by the metrics history. The id is what gets stored in the
+ * database, so existing ids must never change.
+ */
+public enum Metric {
+    TPS(1, "tps"),
+    MSPT(2, "mspt"),
+    PLAYERS(3, "players"),
+    HEAP_MB(4, "heap"),
+    CHUNKS(5, "chunks"),
+    ENTITIES(6, "entities"),
+    GC_PAUSE_MS(7, "gc");
+
+    private final int id;
+    private final String key;
+
+    Metric(int id, String key) {
+        this.id = id;
+        this.key = key;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Read this metric's value from a sample
+     */
+    public double valueOf(MetricsSnapshot snapshot) {
+        switch (this) {
+            case TPS: return snapshot.getTps();
+            case MSPT: return snapshot.getMspt();
+            case PLAYERS: return snapshot.getOnlinePlayers();
+            case HEAP_MB: return snapshot.getHeapUsed() / (1024.0 * 1024.0);
+            case CHUNKS: return snapshot.getLoadedChunks();
+            case ENTITIES: return snapshot.getEntities();
+            case GC_PAUSE_MS: return snapshot.getGcPauseMs();
+            default: return 0;
+        }
+    }
+
+    /**
+     * Look up a metric by its API key
+     * @return null if unknown
+     */
+    public static Metric fromKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        for (Metric metric : values()) {
+            if (metric.key.equalsIgnoreCase(key.trim())) {
+                return metric;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package de.kaicraft.adminpanel.metrics;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.model.DashboardStats;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * Samples server metrics on the main thread at a fixed cadence and publishes
+ * them as an immutable snapshot. Web requests only read the latest snapshot,
+ * so any number of open dashboards costs nothing on the server side.
+ */
+public class MetricsCollector {
+    private final ServerAdminPanelPlugin plugin;
+    private final MetricsHistory history;
+    private final long intervalTicks;
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+
+    // Fixed for the lifetime of the server
+    private final String version;
+    private final String bukkitVersion;
+    private final int maxPlayers;
+
+    private volatile MetricsSnapshot snapshot;
+    private BukkitTask task;
+    private long lastGcTimeMs = -1;
+
+    public MetricsCollector(ServerAdminPanelPlugin plugin, MetricsHistory history) {
+        this.plugin = plugin;
+        this.history = history;
+        this.intervalTicks = Math.max(1, plugin.getConfigManager().getMetricsSampleIntervalTicks());
+        this.version = Bukkit.getVersion();
+        this.bukkitVersion = Bukkit.getBukkitVersion();
+        this.maxPlayers = Bukkit.getMaxPlayers();
+    }
+
+    /**
+     * Take a first sample right away, then keep sampling on the main thread
+     */
+    public void start() {
+        sample();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::sample, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Stop sampling and save the partially filled history buckets
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        history.flush();
+    }
+
+    /**
+     * Latest sample; never null once started
+     */
+    public MetricsSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Recorded history of all samples
+     */
+    public MetricsHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Collect one sample. Runs on the main thread, where the world counters are safe to read.
+     */
+    private void sample() {
+        try {
+            long now = System.currentTimeMillis();
+
+            double tps = Math.round(Bukkit.getTPS()[0] * 100.0) / 100.0;
+            double mspt = Math.round(Bukkit.getAverageTickTime() * 100.0) / 100.0;
+            int onlinePlayers = Bukkit.getOnlinePlayers().size();
+
+            // Counters only; getLoadedChunks()/getEntities() would copy whole arrays
+            List<World> worlds = Bukkit.getWorlds();
+            int chunks = 0;
+            int entities = 0;
+            for (World world : worlds) {
+                chunks += world.getChunkCount();
+                entities += world.getEntityCount();
+            }
+
+            MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+            long used = heap.getUsed();
+            long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+
+            long gcCount = 0;
+            long gcTimeMs = 0;
+            for (GarbageCollectorMXBean gc : gcBeans) {
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcTimeMs += Math.max(0, gc.getCollectionTime());
+            }
+            long gcPauseMs = lastGcTimeMs >= 0 ? gcTimeMs - lastGcTimeMs : 0;
+            lastGcTimeMs = gcTimeMs;
+
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            int plugins = Bukkit.getPluginManager().getPlugins().length;
+
+            DashboardStats.MemoryInfo memory = new DashboardStats.MemoryInfo(
+                    used,
+                    max,
+                    used / (1024 * 1024),
+                    max / (1024 * 1024),
+                    (int) Math.round((double) used / max * 100)
+            );
+
+            DashboardStats stats = new DashboardStats(
+                    tps, onlinePlayers, maxPlayers, memory, uptime, formatUptime(uptime),
+                    version, bukkitVersion, worlds.size(), chunks, plugins,
+                    mspt, entities, gcCount, gcTimeMs, now
+            );
+
+            MetricsSnapshot sample = new MetricsSnapshot(now, tps, mspt, onlinePlayers, chunks, entities,
+                    used, max, gcCount, gcTimeMs, gcPauseMs, stats);
+            snapshot = sample;
+            history.record(sample);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to sample server metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Format uptime in human-readable format
+     */
+    static String formatUptime(long millis) {
+        long seconds = millis / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+        long days = hours / 24;
+
+        seconds %= 60;
+        minutes %= 60;
+        hours %= 24;
+
+        if (days > 0) {
+            return String.format("%dd %dh %dm %ds", days, hours, minutes, seconds);
+        } else if (hours > 0) {
+            return String.format("%dh %dm %ds", hours, minutes, seconds);
+        } else if (minutes > 0) {
+            return String.format("%dm %ds", minutes, seconds);
+        } else {
+            return String.format("%ds", seconds);
+        }
+    }
+}
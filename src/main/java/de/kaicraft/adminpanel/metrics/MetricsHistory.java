@@ -0,0 +1,388 @@
+package de.kaicraft.adminpanel.metrics;
+
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.config.ConfigManager;
+import de.kaicraft.adminpanel.database.DatabaseManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Time-series history of the sampled metrics.
+ * Raw samples live in primitive ring buffers (the last hour by default). Every sample
+ * also feeds open 1-minute and 1-hour buckets (min/max/sum/count); closed buckets are
+ * written to the metrics_rollup table, so long ranges are answered from a handful of rows.
+ */
+public class MetricsHistory {
+    public static final int RAW = 0;
+    public static final int MINUTE = 60;
+    public static final int HOUR = 3600;
+
+    private static final int DEFAULT_POINTS = 300;
+    private static final int MAX_POINTS = 2000;
+
+    private static final String UPSERT_ROLLUP = """
+        INSERT INTO metrics_rollup (metric, resolution, bucket, min_value, max_value, sum_value, samples)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT(metric, resolution, bucket) DO UPDATE SET
+            min_value = MIN(min_value, excluded.min_value),
+            max_value = MAX(max_value, excluded.max_value),
+            sum_value = sum_value + excluded.sum_value,
+            samples = samples + excluded.samples
+    """;
+
+    private final ServerAdminPanelPlugin plugin;
+    private final DatabaseManager database;
+    private final Metric[] metrics = Metric.values();
+    private final int rawCapacity;
+    private final long minuteRetentionSeconds;
+    private final long hourRetentionSeconds;
+
+    // Raw ring, guarded by this. rawValues is [metric ordinal][slot].
+    private final long[] rawTimes;
+    private final double[][] rawValues;
+    private int rawNext = 0;
+    private int rawSize = 0;
+
+    // Open buckets, guarded by this
+    private final Rollup minute;
+    private final Rollup hour;
+
+    public MetricsHistory(ServerAdminPanelPlugin plugin, DatabaseManager database) {
+        this.plugin = plugin;
+        this.database = database;
+
+        ConfigManager config = plugin.getConfigManager();
+        double secondsPerSample = Math.max(1, config.getMetricsSampleIntervalTicks()) / 20.0;
+        this.rawCapacity = Math.max(60, (int) Math.ceil(config.getMetricsRawHistoryMinutes() * 60 / secondsPerSample));
+        this.minuteRetentionSeconds = Math.max(1, config.getMetricsMinuteRetentionDays()) * 86400L;
+        this.hourRetentionSeconds = Math.max(1, config.getMetricsHourRetentionDays()) * 86400L;
+
+        this.rawTimes = new long[rawCapacity];
+        this.rawValues = new double[metrics.length][rawCapacity];
+        this.minute = new Rollup(MINUTE, metrics.length);
+        this.hour = new Rollup(HOUR, metrics.length);
+    }
+
+    /**
+     * Record one sample. Cheap enough for the main thread: array writes only,
+     * closed buckets are handed to the database writer.
+     */
+    public void record(MetricsSnapshot snapshot) {
+        long time = snapshot.getSampledAt();
+        double[] values = new double[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+            values[i] = metrics[i].valueOf(snapshot);
+        }
+
+        List<Object[]> closedMinute;
+        List<Object[]> closedHour;
+        synchronized (this) {
+            rawTimes[rawNext] = time;
+            for (int i = 0; i < metrics.length; i++) {
+                rawValues[i][rawNext] = values[i];
+            }
+            rawNext = (rawNext + 1) % rawCapacity;
+            if (rawSize < rawCapacity) {
+                rawSize++;
+            }
+
+            closedMinute = minute.add(time, values);
+            closedHour = hour.add(time, values);
+        }
+
+        if (closedMinute != null || closedHour != null) {
+            persist(closedMinute, closedHour, time / 1000);
+        }
+    }
+
+    /**
+     * Write the open buckets (partial) so a restart loses nothing. Later samples in the
+     * same bucket are merged into the stored row.
+     */
+    public void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        synchronized (this) {
+            List<Object[]> minuteRows = minute.drain();
+            List<Object[]> hourRows = hour.drain();
+            if (minuteRows != null) {
+                rows.addAll(minuteRows);
+            }
+            if (hourRows != null) {
+                rows.addAll(hourRows);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            database.batch(UPSERT_ROLLUP, rows);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Failed to save metrics history: " + e.getMessage());
+        }
+    }
+
+    private void persist(List<Object[]> minuteRows, List<Object[]> hourRows, long nowSeconds) {
+        database.transactionAsync(session -> {
+            if (minuteRows != null) {
+                session.batch(UPSERT_ROLLUP, minuteRows);
+            }
+            if (hourRows != null) {
+                session.batch(UPSERT_ROLLUP, hourRows);
+                // Prune once per hour
+                session.update("DELETE FROM metrics_rollup WHERE resolution = ? AND bucket < ?",
+                        MINUTE, nowSeconds - minuteRetentionSeconds);
+                session.update("DELETE FROM metrics_rollup WHERE resolution = ? AND bucket < ?",
+                        HOUR, nowSeconds - hourRetentionSeconds);
+            }
+            return null;
+        }).exceptionally(e -> {
+            plugin.getLogger().warning("Failed to save metrics history: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Downsample one metric over [fromMs, toMs] into buckets of stepSeconds (0 = pick one).
+     * Reads the coarsest stored resolution that still fits the step: raw samples for
+     * short ranges, minute or hour rollups for longer ones.
+     */
+    public Series query(Metric metric, long fromMs, long toMs, int stepSeconds) throws SQLException {
+        if (toMs <= fromMs) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+
+        long fromSec = fromMs / 1000;
+        long toSec = toMs / 1000;
+        long span = Math.max(1, toSec - fromSec);
+
+        long step = stepSeconds > 0 ? stepSeconds : Math.max(1, span / DEFAULT_POINTS);
+        step = Math.max(step, (span + MAX_POINTS - 1) / MAX_POINTS);
+
+        int resolution = pickResolution(fromMs, step);
+        if (resolution > RAW) {
+            // Whole stored buckets only
+            step = ((step + resolution - 1) / resolution) * resolution;
+        }
+
+        Buckets buckets = new Buckets(fromSec, toSec, step);
+        int m = metric.ordinal();
+
+        if (resolution == RAW) {
+            synchronized (this) {
+                for (int i = 0; i < rawSize; i++) {
+                    int slot = (rawNext - rawSize + i + rawCapacity) % rawCapacity;
+                    double value = rawValues[m][slot];
+                    buckets.add(rawTimes[slot] / 1000, value, value, value, 1);
+                }
+            }
+        } else {
+            String sql = """
+                SELECT bucket, min_value, max_value, sum_value, samples
+                FROM metrics_rollup
+                WHERE metric = ? AND resolution = ? AND bucket >= ? AND bucket <= ?
+                ORDER BY bucket
+            """;
+            database.query(sql, rs -> {
+                buckets.add(rs.getLong("bucket"), rs.getDouble("min_value"), rs.getDouble("max_value"),
+                        rs.getDouble("sum_value"), rs.getLong("samples"));
+                return null;
+            }, metric.getId(), resolution, buckets.start, toSec);
+
+            // The open bucket has not been written yet
+            synchronized (this) {
+                Rollup open = resolution == MINUTE ? minute : hour;
+                if (open.count > 0) {
+                    buckets.add(open.bucket, open.min[m], open.max[m], open.sum[m], open.count);
+                }
+            }
+        }
+
+        return buckets.toSeries(metric.getKey(), resolution, step);
+    }
+
+    private int pickResolution(long fromMs, long step) {
+        long now = System.currentTimeMillis();
+        if (step < MINUTE) {
+            synchronized (this) {
+                int oldest = (rawNext - rawSize + rawCapacity) % rawCapacity;
+                if (rawSize > 0 && rawTimes[oldest] <= fromMs) {
+                    return RAW;
+                }
+            }
+        }
+        if (step < HOUR && fromMs / 1000 >= now / 1000 - minuteRetentionSeconds) {
+            return MINUTE;
+        }
+        return HOUR;
+    }
+
+    /**
+     * One open aggregation bucket across all metrics
+     */
+    private static final class Rollup {
+        final int resolution;
+        final double[] min;
+        final double[] max;
+        final double[] sum;
+        long bucket = -1;
+        int count = 0;
+
+        Rollup(int resolution, int metricCount) {
+            this.resolution = resolution;
+            this.min = new double[metricCount];
+            this.max = new double[metricCount];
+            this.sum = new double[metricCount];
+        }
+
+        /**
+         * Add a sample; returns the rows of the bucket this closed, if any
+         */
+        List<Object[]> add(long timeMs, double[] values) {
+            long start = Math.floorDiv(timeMs / 1000, resolution) * resolution;
+            List<Object[]> closed = null;
+            if (start != bucket) {
+                closed = drain();
+                bucket = start;
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                double value = values[i];
+                if (count == 0) {
+                    min[i] = value;
+                    max[i] = value;
+                    sum[i] = value;
+                } else {
+                    min[i] = Math.min(min[i], value);
+                    max[i] = Math.max(max[i], value);
+                    sum[i] += value;
+                }
+            }
+            count++;
+            return closed;
+        }
+
+        /**
+         * Take the current bucket as database rows and reset the counters
+         */
+        List<Object[]> drain() {
+            if (count == 0) {
+                return null;
+            }
+            Metric[] metrics = Metric.values();
+            List<Object[]> rows = new ArrayList<>(metrics.length);
+            for (Metric metric : metrics) {
+                int i = metric.ordinal();
+                rows.add(new Object[] { metric.getId(), resolution, bucket, min[i], max[i], sum[i], count });
+            }
+            count = 0;
+            return rows;
+        }
+    }
+
+    /**
+     * Output buckets for one query
+     */
+    private static final class Buckets {
+        final long start;
+        final long step;
+        final double[] min;
+        final double[] max;
+        final double[] sum;
+        final long[] count;
+
+        Buckets(long fromSec, long toSec, long step) {
+            this.start = Math.floorDiv(fromSec, step) * step;
+            this.step = step;
+            int size = (int) ((toSec - start) / step) + 1;
+            this.min = new double[size];
+            this.max = new double[size];
+            this.sum = new double[size];
+            this.count = new long[size];
+        }
+
+        void add(long timeSec, double minValue, double maxValue, double sumValue, long samples) {
+            long offset = timeSec - start;
+            if (offset < 0 || samples <= 0) {
+                return;
+            }
+            long index = offset / step;
+            if (index >= count.length) {
+                return;
+            }
+            int i = (int) index;
+            if (count[i] == 0) {
+                min[i] = minValue;
+                max[i] = maxValue;
+            } else {
+                min[i] = Math.min(min[i], minValue);
+                max[i] = Math.max(max[i], maxValue);
+            }
+            sum[i] += sumValue;
+            count[i] += samples;
+        }
+
+        Series toSeries(String metric, int resolution, long step) {
+            int points = 0;
+            for (long c : count) {
+                if (c > 0) {
+                    points++;
+                }
+            }
+
+            long[] timestamps = new long[points];
+            double[] outMin = new double[points];
+            double[] outMax = new double[points];
+            double[] outAvg = new double[points];
+            int p = 0;
+            for (int i = 0; i < count.length; i++) {
+                if (count[i] == 0) {
+                    continue;
+                }
+                timestamps[p] = (start + i * this.step) * 1000;
+                outMin[p] = round(min[i]);
+                outMax[p] = round(max[i]);
+                outAvg[p] = round(sum[i] / count[i]);
+                p++;
+            }
+            return new Series(metric, resolution, step, timestamps, outMin, outMax, outAvg);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 1000.0) / 1000.0;
+        }
+    }
+
+    /**
+     * Downsampled series in columnar form; empty buckets are left out
+     */
+    public static class Series {
+        private final String metric;
+        private final int resolution;
+        private final long step;
+        private final long[] timestamps;
+        private final double[] min;
+        private final double[] max;
+        private final double[] avg;
+
+        public Series(String metric, int resolution, long step, long[] timestamps,
+                      double[] min, double[] max, double[] avg) {
+            this.metric = metric;
+            this.resolution = resolution;
+            this.step = step;
+            this.timestamps = timestamps;
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+        }
+
+        public String getMetric() { return metric; }
+        public int getResolution() { return resolution; }
+        public long getStep() { return step; }
+        public long[] getTimestamps() { return timestamps; }
+        public double[] getMin() { return min; }
+        public double[] getMax() { return max; }
+        public double[] getAvg() { return avg; }
+    }
+}
@@ -0,0 +1,56 @@
+package de.kaicraft.adminpanel.metrics;
+
+import de.kaicraft.adminpanel.model.DashboardStats;
+
+/**
+ * Immutable set of server metrics taken in one sample.
+ * Readers on any thread get a consistent view without touching Bukkit.
+ */
+public final class MetricsSnapshot {
+    private final long sampledAt;
+    private final double tps;
+    private final double mspt;
+    private final int onlinePlayers;
+    private final int loadedChunks;
+    private final int entities;
+    private final long heapUsed;
+    private final long heapMax;
+    private final long gcCount;
+    private final long gcTimeMs;
+    private final long gcPauseMs;
+    private final DashboardStats dashboardStats;
+
+    public MetricsSnapshot(long sampledAt, double tps, double mspt, int onlinePlayers, int loadedChunks,
+                           int entities, long heapUsed, long heapMax, long gcCount, long gcTimeMs,
+                           long gcPauseMs, DashboardStats dashboardStats) {
+        this.sampledAt = sampledAt;
+        this.tps = tps;
+        this.mspt = mspt;
+        this.onlinePlayers = onlinePlayers;
+        this.loadedChunks = loadedChunks;
+        this.entities = entities;
+        this.heapUsed = heapUsed;
+        this.heapMax = heapMax;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+        this.gcPauseMs = gcPauseMs;
+        this.dashboardStats = dashboardStats;
+    }
+
+    public long getSampledAt() { return sampledAt; }
+    public double getTps() { return tps; }
+    public double getMspt() { return mspt; }
+    public int getOnlinePlayers() { return onlinePlayers; }
+    public int getLoadedChunks() { return loadedChunks; }
+    public int getEntities() { return entities; }
+    public long getHeapUsed() { return heapUsed; }
+    public long getHeapMax() { return heapMax; }
+    /** Total collections since JVM start */
+    public long getGcCount() { return gcCount; }
+    /** Total collection time since JVM start */
+    public long getGcTimeMs() { return gcTimeMs; }
+    /** Collection time spent since the previous sample */
+    public long getGcPauseMs() { return gcPauseMs; }
+    /** Dashboard response built from this sample */
+    public DashboardStats getDashboardStats() { return dashboardStats; }
+}
@@ -0,0 +1,30 @@
+package de.kaicraft.adminpanel.model;
+
+import de.kaicraft.adminpanel.util.TypeScriptType;
+
+/**
+ * A single console line with its history sequence number
+ */
+@TypeScriptType
+public class ConsoleLine {
+    private final long seq;
+    private final long timestamp;
+    private final String level;
+    private final String logger;
+    private final String message;
+
+    public ConsoleLine(long seq, long timestamp, String level, String logger, String message) {
+        this.seq = seq;
+        this.timestamp = timestamp;
+        this.level = level;
+        this.logger = logger;
+        this.message = message;
+    }
+
+    // Getters
+    public long getSeq() { return seq; }
+    public long getTimestamp() { return timestamp; }
+    public String getLevel() { return level; }
+    public String getLogger() { return logger; }
+    public String getMessage() { return message; }
+}
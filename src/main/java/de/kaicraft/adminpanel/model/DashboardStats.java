@@ -20,6 +20,11 @@ public class DashboardStats {
     private int worlds;
     private int loadedChunks;
     private int plugins;
+    private double mspt;
+    private int entities;
+    private long gcCount;
+    private long gcTimeMs;
+    private long sampledAt;
 
     public static class MemoryInfo {
         private long used;
@@ -47,7 +52,8 @@ public class DashboardStats {
     // Constructor
     public DashboardStats(double tps, int onlinePlayers, int maxPlayers, MemoryInfo memory,
                          long uptime, String uptimeFormatted, String version, String bukkitVersion,
-                         int worlds, int loadedChunks, int plugins) {
+                         int worlds, int loadedChunks, int plugins, double mspt, int entities,
+                         long gcCount, long gcTimeMs, long sampledAt) {
         this.tps = tps;
         this.onlinePlayers = onlinePlayers;
         this.maxPlayers = maxPlayers;
@@ -59,6 +65,11 @@ public class DashboardStats {
         this.worlds = worlds;
         this.loadedChunks = loadedChunks;
         this.plugins = plugins;
+        this.mspt = mspt;
+        this.entities = entities;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+        this.sampledAt = sampledAt;
     }
 
     // Getters
@@ -73,4 +84,9 @@ public class DashboardStats {
     public int getWorlds() { return worlds; }
     public int getLoadedChunks() { return loadedChunks; }
     public int getPlugins() { return plugins; }
+    public double getMspt() { return mspt; }
+    public int getEntities() { return entities; }
+    public long getGcCount() { return gcCount; }
+    public long getGcTimeMs() { return gcTimeMs; }
+    public long getSampledAt() { return sampledAt; }
 }
@@ -11,15 +11,25 @@ public class LogMatch {
     private int lineNumber;
     private String line;
     private String file;
-    
+    private List<String> before; // context lines preceding the match
+    private List<String> after; // context lines following the match
+
     public LogMatch(int lineNumber, String line, String file) {
+        this(lineNumber, line, file, List.of(), List.of());
+    }
+
+    public LogMatch(int lineNumber, String line, String file, List<String> before, List<String> after) {
         this.lineNumber = lineNumber;
         this.line = line;
         this.file = file;
+        this.before = before;
+        this.after = after;
     }
-    
+
     // Getters
     public int getLineNumber() { return lineNumber; }
     public String getLine() { return line; }
     public String getFile() { return file; }
+    public List<String> getBefore() { return before; }
+    public List<String> getAfter() { return after; }
 }
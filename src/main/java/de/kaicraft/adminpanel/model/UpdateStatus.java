@@ -17,10 +17,14 @@ public class UpdateStatus {
     private boolean needsCheck;
     private String backupStatus; // idle, running, completed, failed, skipped
     private int backupProgress; // 0-100
+    private String downloadStatus; // idle, downloading, verifying, completed, failed
+    private long downloadedBytes;
+    private long downloadTotalBytes;
 
     public UpdateStatus(boolean updateAvailable, boolean updateDownloaded, String currentVersion,
                        String latestVersion, String latestBuild, String downloadUrl,
-                       long lastCheck, boolean needsCheck, String backupStatus, int backupProgress) {
+                       long lastCheck, boolean needsCheck, String backupStatus, int backupProgress,
+                       String downloadStatus, long downloadedBytes, long downloadTotalBytes) {
         this.updateAvailable = updateAvailable;
         this.updateDownloaded = updateDownloaded;
         this.currentVersion = currentVersion;
@@ -31,6 +35,9 @@ public class UpdateStatus {
         this.needsCheck = needsCheck;
         this.backupStatus = backupStatus;
         this.backupProgress = backupProgress;
+        this.downloadStatus = downloadStatus;
+        this.downloadedBytes = downloadedBytes;
+        this.downloadTotalBytes = downloadTotalBytes;
     }
 
     // Getters
@@ -44,4 +51,7 @@ public class UpdateStatus {
     public boolean isNeedsCheck() { return needsCheck; }
     public String getBackupStatus() { return backupStatus; }
     public int getBackupProgress() { return backupProgress; }
+    public String getDownloadStatus() { return downloadStatus; }
+    public long getDownloadedBytes() { return downloadedBytes; }
+    public long getDownloadTotalBytes() { return downloadTotalBytes; }
 }
@@ -0,0 +1,201 @@
+package de.kaicraft.adminpanel.scheduler;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Standard five-field cron expression: minute, hour, day of month, month, day of week.
+ *
+ * Supports *, lists (1,15), ranges (1-5), steps (*&#47;15, 0-30/5, 10/20), month and
+ * weekday names (JAN, MON), 7 as Sunday, and the @hourly/@daily/@weekly/@monthly/@yearly
+ * shortcuts. As in Vixie cron, when both day of month and day of week are restricted,
+ * a day matches if either one does. Times are evaluated in the server's time zone.
+ */
+public final class CronExpression {
+    // Give up on expressions that never match, such as 30 February
+    private static final int MAX_YEARS_AHEAD = 5;
+
+    private static final Map<String, String> MACROS = Map.of(
+        "@yearly", "0 0 1 1 *",
+        "@annually", "0 0 1 1 *",
+        "@monthly", "0 0 1 * *",
+        "@weekly", "0 0 * * 0",
+        "@daily", "0 0 * * *",
+        "@midnight", "0 0 * * *",
+        "@hourly", "0 * * * *"
+    );
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN",
+        "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] WEEKDAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private final String expression;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, null, 0);
+        this.hours = parseField(fields[1], 0, 23, null, 0);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null, 0);
+        this.months = parseField(fields[3], 1, 12, MONTHS, 1);
+        long weekdays = parseField(fields[4], 0, 7, WEEKDAYS, 0);
+        // 7 is another name for Sunday
+        this.daysOfWeek = (weekdays & (1L << 7)) != 0 ? (weekdays | 1L) & ~(1L << 7) : weekdays;
+        this.dayOfMonthRestricted = !fields[2].startsWith("*");
+        this.dayOfWeekRestricted = !fields[4].startsWith("*");
+    }
+
+    /**
+     * Parse an expression
+     * @throws IllegalArgumentException if it is not a valid cron expression
+     */
+    public static CronExpression parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Cron expression is empty");
+        }
+        String trimmed = expression.trim();
+        String expanded = MACROS.getOrDefault(trimmed.toLowerCase(Locale.ROOT), trimmed);
+        String[] fields = expanded.split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Cron expression needs 5 fields (minute hour day month weekday): "
+                + expression);
+        }
+        return new CronExpression(trimmed, fields);
+    }
+
+    /**
+     * First time after the given instant (epoch millis) at which the expression fires
+     * @return epoch millis, or -1 if it never fires within the next few years
+     */
+    public long nextAfter(long epochMillis, ZoneId zone) {
+        LocalDateTime time = ZonedDateTime.ofInstant(java.time.Instant.ofEpochMilli(epochMillis), zone)
+            .toLocalDateTime()
+            .truncatedTo(ChronoUnit.MINUTES)
+            .plusMinutes(1);
+        LocalDateTime limit = time.plusYears(MAX_YEARS_AHEAD);
+
+        while (time.isBefore(limit)) {
+            if (!matches(months, time.getMonthValue())) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+            if (!dayMatches(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if (!matches(hours, time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if (!matches(minutes, time.getMinute())) {
+                time = time.plusMinutes(1);
+                continue;
+            }
+            // Inside a DST gap the zone moves the time forward to the first valid instant
+            long next = time.atZone(zone).toInstant().toEpochMilli();
+            if (next > epochMillis) {
+                return next;
+            }
+            time = time.plusMinutes(1);
+        }
+        return -1;
+    }
+
+    /**
+     * Next fire time in the server's time zone
+     */
+    public long nextAfter(long epochMillis) {
+        return nextAfter(epochMillis, ZoneId.systemDefault());
+    }
+
+    private boolean dayMatches(LocalDateTime time) {
+        boolean dom = matches(daysOfMonth, time.getDayOfMonth());
+        boolean dow = matches(daysOfWeek, time.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dom || dow;
+        }
+        return dom && dow;
+    }
+
+    private static boolean matches(long mask, int value) {
+        return (mask & (1L << value)) != 0;
+    }
+
+    /**
+     * Parse one field into a bit mask of allowed values
+     */
+    private static long parseField(String field, int min, int max, String[] names, int nameOffset) {
+        long mask = 0;
+        for (String part : field.split(",")) {
+            if (part.isEmpty()) {
+                throw new IllegalArgumentException("Empty list entry in cron field: " + field);
+            }
+
+            int step = 1;
+            int slash = part.indexOf('/');
+            String range = part;
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, null, 0);
+                range = part.substring(0, slash);
+            }
+
+            int start;
+            int end;
+            if (range.equals("*")) {
+                start = min;
+                end = max;
+            } else {
+                int dash = range.indexOf('-', 1);
+                if (dash >= 0) {
+                    start = parseNumber(range.substring(0, dash), min, max, names, nameOffset);
+                    end = parseNumber(range.substring(dash + 1), min, max, names, nameOffset);
+                    if (end < start) {
+                        throw new IllegalArgumentException("Cron range goes backwards: " + range);
+                    }
+                } else {
+                    start = parseNumber(range, min, max, names, nameOffset);
+                    // "10/20" means from 10 to the end in steps of 20
+                    end = slash >= 0 ? max : start;
+                }
+            }
+
+            for (int value = start; value <= end; value += step) {
+                mask |= 1L << value;
+            }
+        }
+        return mask;
+    }
+
+    private static int parseNumber(String value, int min, int max, String[] names, int nameOffset) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return i + nameOffset;
+                }
+            }
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < min || number > max) {
+                throw new IllegalArgumentException("Cron value " + number + " is outside " + min + "-" + max);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron value: " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
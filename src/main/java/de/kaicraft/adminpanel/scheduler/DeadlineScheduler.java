@@ -0,0 +1,169 @@
+package de.kaicraft.adminpanel.scheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs keyed one-shot tasks at wall-clock times on a single thread.
+ *
+ * Pending tasks are kept in a priority queue ordered by due time; the thread sleeps until
+ * the earliest one is due or the queue changes. Scheduling a key again replaces its task.
+ * Recurring tasks reschedule themselves when they run.
+ */
+public class DeadlineScheduler {
+    // Wake up at least this often so wall-clock jumps (suspend, NTP) are noticed
+    private static final long MAX_SLEEP_MS = 60_000;
+
+    private final Logger logger;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Map<String, Entry> byKey = new HashMap<>();
+    private long sequence;
+    private Thread thread;
+    private volatile boolean running;
+
+    public DeadlineScheduler(Logger logger) {
+        this.logger = logger;
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (running) return;
+            running = true;
+            thread = new Thread(this::loop, "PaperPanel-Scheduler");
+            thread.setDaemon(true);
+            thread.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void stop() {
+        Thread current;
+        lock.lock();
+        try {
+            running = false;
+            queue.clear();
+            byKey.clear();
+            current = thread;
+            thread = null;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (current != null) {
+            try {
+                current.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Run the task at the given time (epoch millis), replacing anything scheduled under the same key.
+     * Times in the past run immediately.
+     */
+    public void schedule(String key, long dueAt, Runnable task) {
+        lock.lock();
+        try {
+            Entry previous = byKey.remove(key);
+            if (previous != null) {
+                queue.remove(previous);
+            }
+            Entry entry = new Entry(key, dueAt, sequence++, task);
+            byKey.put(key, entry);
+            queue.add(entry);
+            if (queue.peek() == entry) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a pending task
+     * @return false if nothing was scheduled under the key
+     */
+    public boolean cancel(String key) {
+        lock.lock();
+        try {
+            Entry entry = byKey.remove(key);
+            if (entry == null) return false;
+            queue.remove(entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Due time of a pending task, or -1
+     */
+    public long getDueAt(String key) {
+        lock.lock();
+        try {
+            Entry entry = byKey.get(key);
+            return entry != null ? entry.dueAt : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            Entry due;
+            lock.lock();
+            try {
+                Entry next = queue.peek();
+                long now = System.currentTimeMillis();
+                if (next == null || next.dueAt > now) {
+                    long wait = next == null ? MAX_SLEEP_MS : Math.min(next.dueAt - now, MAX_SLEEP_MS);
+                    changed.await(wait, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                due = queue.poll();
+                byKey.remove(due.key);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                due.task.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Scheduled task " + due.key + " failed", e);
+            }
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final String key;
+        final long dueAt;
+        final long sequence;
+        final Runnable task;
+
+        Entry(String key, long dueAt, long sequence, Runnable task) {
+            this.key = key;
+            this.dueAt = dueAt;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = Long.compare(dueAt, other.dueAt);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package de.kaicraft.adminpanel.stats;
 
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
 import io.papermc.paper.event.player.AsyncChatEvent;
+import org.bukkit.Material;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.*;
@@ -20,8 +21,20 @@ public class PlayerStatsListener implements Listener {
     private final PlayerStatsManager statsManager;
     private final Map<UUID, Long> joinTimes = new HashMap<>();
 
+    // Stat ids resolved once, so handlers don't build strings per event
+    private final int joinsId;
+    private final int deathsId;
+    private final int messagesSentId;
+    private final int blocksBrokenId;
+    private final int blocksPlacedId;
+
     public PlayerStatsListener(PlayerStatsManager statsManager) {
         this.statsManager = statsManager;
+        this.joinsId = statsManager.getStatId(PlayerStatsManager.JOINS);
+        this.deathsId = statsManager.getStatId(PlayerStatsManager.DEATHS);
+        this.messagesSentId = statsManager.getStatId(PlayerStatsManager.MESSAGES_SENT);
+        this.blocksBrokenId = statsManager.getStatId(PlayerStatsManager.BLOCKS_BROKEN);
+        this.blocksPlacedId = statsManager.getStatId(PlayerStatsManager.BLOCKS_PLACED);
     }
 
     @EventHandler
@@ -36,7 +49,7 @@ public class PlayerStatsListener implements Listener {
         joinTimes.put(uuid, System.currentTimeMillis());
 
         // Increment join count
-        statsManager.incrementStat(uuid, "JOINS", 1);
+        statsManager.incrementStat(uuid, joinsId, 1);
     }
 
     @EventHandler
@@ -52,35 +65,38 @@ public class PlayerStatsListener implements Listener {
 
         // Update last seen
         statsManager.updatePlayer(uuid, event.getPlayer().getName());
+
+        // Persist this player's buffered stats without waiting for the next cycle
+        statsManager.flushAsync();
     }
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
-        String blockType = event.getBlock().getType().name();
+        Material blockType = event.getBlock().getType();
 
-        statsManager.incrementStat(uuid, "BLOCKS_BROKEN", 1);
-        statsManager.incrementStat(uuid, "BLOCKS_BROKEN_" + blockType, 1);
+        statsManager.incrementStat(uuid, blocksBrokenId, 1);
+        statsManager.incrementStat(uuid, statsManager.getBlockBrokenStatId(blockType), 1);
     }
 
     @EventHandler
     public void onBlockPlace(BlockPlaceEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
-        String blockType = event.getBlock().getType().name();
+        Material blockType = event.getBlock().getType();
 
-        statsManager.incrementStat(uuid, "BLOCKS_PLACED", 1);
-        statsManager.incrementStat(uuid, "BLOCKS_PLACED_" + blockType, 1);
+        statsManager.incrementStat(uuid, blocksPlacedId, 1);
+        statsManager.incrementStat(uuid, statsManager.getBlockPlacedStatId(blockType), 1);
     }
 
     @EventHandler
     public void onPlayerDeath(PlayerDeathEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
-        statsManager.incrementStat(uuid, "DEATHS", 1);
+        statsManager.incrementStat(uuid, deathsId, 1);
     }
 
     @EventHandler
     public void onPlayerChat(AsyncChatEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
-        statsManager.incrementStat(uuid, "MESSAGES_SENT", 1);
+        statsManager.incrementStat(uuid, messagesSentId, 1);
     }
 }
@@ -2,59 +2,323 @@ package de.kaicraft.adminpanel.stats;
 
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
 import de.kaicraft.adminpanel.database.DatabaseManager;
+import org.bukkit.Material;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Manages player statistics and database operations
+ * Manages player statistics and database operations.
+ * Stat increments are aggregated in memory and written behind in batches,
+ * so event handlers never touch SQLite.
  */
 public class PlayerStatsManager {
+    public static final String JOINS = "JOINS";
+    public static final String DEATHS = "DEATHS";
+    public static final String MESSAGES_SENT = "MESSAGES_SENT";
+    public static final String BLOCKS_BROKEN = "BLOCKS_BROKEN";
+    public static final String BLOCKS_PLACED = "BLOCKS_PLACED";
+
+    private static final String UPSERT_STAT = """
+        INSERT INTO player_stats (player_id, stat_id, value)
+        VALUES (?, ?, ?)
+        ON CONFLICT(player_id, stat_id) DO UPDATE SET
+            value = value + excluded.value
+    """;
+
     private final ServerAdminPanelPlugin plugin;
     private final DatabaseManager database;
 
+    // Stat name <-> id from the stat_types table; ids index the per-player counter arrays
+    private final Map<String, Integer> statIds = new ConcurrentHashMap<>();
+    private volatile String[] statNames = new String[0];
+
+    // Per-block stat ids, indexed by Material ordinal (0 = not a block)
+    private int[] blockBrokenIds = new int[0];
+    private int[] blockPlacedIds = new int[0];
+
+    // Row id in the players table, filled on join
+    private final Map<UUID, Integer> playerIds = new ConcurrentHashMap<>();
+
+    // Unflushed deltas per player
+    private final ConcurrentHashMap<UUID, PendingStats> pending = new ConcurrentHashMap<>();
+
+    // Held exclusively while a flush is writing, so reads never see a delta
+    // both in the database and in memory
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private int flushTaskId = -1;
+
     public PlayerStatsManager(ServerAdminPanelPlugin plugin, DatabaseManager database) {
         this.plugin = plugin;
         this.database = database;
     }
 
     /**
-     * Update player's last seen time
+     * Register every known stat type up front and build the Material lookup
+     * tables, so event handlers only ever do array lookups.
      */
-    public void updatePlayer(UUID uuid, String name) {
-        try {
-            long now = System.currentTimeMillis();
-            String query = """
-                INSERT INTO players (uuid, name, first_join, last_seen)
-                VALUES (?, ?, ?, ?)
-                ON CONFLICT(uuid) DO UPDATE SET
-                    name = excluded.name,
-                    last_seen = excluded.last_seen
-            """;
+    public void initialize() {
+        Material[] materials = Material.values();
+        List<Object[]> names = new ArrayList<>();
+        for (String base : new String[]{JOINS, DEATHS, MESSAGES_SENT, BLOCKS_BROKEN, BLOCKS_PLACED}) {
+            names.add(new Object[]{base});
+        }
+        for (Material material : materials) {
+            if (material.isBlock() && !material.isLegacy()) {
+                names.add(new Object[]{BLOCKS_BROKEN + "_" + material.name()});
+                names.add(new Object[]{BLOCKS_PLACED + "_" + material.name()});
+            }
+        }
 
-            database.executeUpdate(query, uuid.toString(), name, now, now);
+        try {
+            database.batch("INSERT OR IGNORE INTO stat_types (name) VALUES (?)", names);
+            loadStatTypes();
         } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to load stat types: " + e.getMessage());
+        }
+
+        int[] broken = new int[materials.length];
+        int[] placed = new int[materials.length];
+        for (Material material : materials) {
+            if (material.isBlock() && !material.isLegacy()) {
+                broken[material.ordinal()] = statIds.getOrDefault(BLOCKS_BROKEN + "_" + material.name(), 0);
+                placed[material.ordinal()] = statIds.getOrDefault(BLOCKS_PLACED + "_" + material.name(), 0);
+            }
+        }
+        blockBrokenIds = broken;
+        blockPlacedIds = placed;
+    }
+
+    private void loadStatTypes() throws SQLException {
+        Map<Integer, String> loaded = new HashMap<>();
+        database.query("SELECT id, name FROM stat_types",
+                rs -> loaded.put(rs.getInt("id"), rs.getString("name")));
+
+        int maxId = loaded.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        String[] names = new String[maxId + 1];
+        loaded.forEach((id, name) -> {
+            names[id] = name;
+            statIds.put(name, id);
+        });
+        statNames = names;
+    }
+
+    /**
+     * Start the periodic background flush
+     */
+    public void startFlusher() {
+        long periodTicks = 20L * Math.max(1, plugin.getConfigManager().getStatsFlushIntervalSeconds());
+        flushTaskId = plugin.getServer().getScheduler().runTaskTimerAsynchronously(
+            plugin,
+            this::flush,
+            periodTicks,
+            periodTicks
+        ).getTaskId();
+    }
+
+    /**
+     * Stop the periodic flush and write out everything still pending
+     */
+    public void shutdown() {
+        if (flushTaskId != -1) {
+            plugin.getServer().getScheduler().cancelTask(flushTaskId);
+            flushTaskId = -1;
+        }
+        flush();
+    }
+
+    /**
+     * Schedule a flush off the main thread (e.g. when a player quits)
+     */
+    public void flushAsync() {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::flush);
+    }
+
+    /**
+     * Update player's last seen time (queued on the database writer)
+     */
+    public void updatePlayer(UUID uuid, String name) {
+        long now = System.currentTimeMillis();
+        String query = """
+            INSERT INTO players (uuid, name, first_join, last_seen)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT(uuid) DO UPDATE SET
+                name = excluded.name,
+                last_seen = excluded.last_seen
+        """;
+
+        database.transactionAsync(session -> {
+            session.update(query, uuid.toString(), name, now, now);
+            return session.queryOne("SELECT id FROM players WHERE uuid = ?",
+                    rs -> rs.getInt("id"), uuid.toString());
+        }).thenAccept(id -> {
+            if (id != null) {
+                playerIds.put(uuid, id);
+            }
+        }).exceptionally(e -> {
             plugin.getLogger().warning("Failed to update player: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Resolve the players.id for a UUID, or -1 if the player has never joined
+     */
+    private int lookupPlayerId(UUID uuid) throws SQLException {
+        Integer cached = playerIds.get(uuid);
+        if (cached != null) {
+            return cached;
+        }
+        Integer id = database.queryOne("SELECT id FROM players WHERE uuid = ?",
+                rs -> rs.getInt("id"), uuid.toString());
+        if (id == null) {
+            return -1;
         }
+        playerIds.put(uuid, id);
+        return id;
     }
 
     /**
      * Increment a player stat
      */
     public void incrementStat(UUID uuid, String statType, int amount) {
+        incrementStat(uuid, getStatId(statType), amount);
+    }
+
+    /**
+     * Increment a player stat by id. Safe to call from any thread; never blocks
+     * on I/O and does not allocate once the player has an entry.
+     */
+    public void incrementStat(UUID uuid, int statId, int amount) {
+        if (statId <= 0) {
+            return;
+        }
+        while (true) {
+            PendingStats stats = pending.get(uuid);
+            if (stats == null) {
+                stats = pending.computeIfAbsent(uuid, key -> new PendingStats());
+            }
+            synchronized (stats) {
+                // A retired entry was just removed by the flusher; retry with a fresh one
+                if (!stats.retired) {
+                    stats.add(statId, amount);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stat id for breaking a given block type
+     */
+    public int getBlockBrokenStatId(Material material) {
+        int[] ids = blockBrokenIds;
+        int ordinal = material.ordinal();
+        return ordinal < ids.length ? ids[ordinal] : 0;
+    }
+
+    /**
+     * Stat id for placing a given block type
+     */
+    public int getBlockPlacedStatId(Material material) {
+        int[] ids = blockPlacedIds;
+        int ordinal = material.ordinal();
+        return ordinal < ids.length ? ids[ordinal] : 0;
+    }
+
+    /**
+     * Resolve the id for a stat name, registering it in stat_types if it is new
+     */
+    public int getStatId(String statType) {
+        Integer id = statIds.get(statType);
+        if (id != null) {
+            return id;
+        }
+        synchronized (statIds) {
+            id = statIds.get(statType);
+            if (id != null) {
+                return id;
+            }
+            try {
+                id = database.transaction(session -> {
+                    session.update("INSERT OR IGNORE INTO stat_types (name) VALUES (?)", statType);
+                    return session.queryOne("SELECT id FROM stat_types WHERE name = ?",
+                            rs -> rs.getInt("id"), statType);
+                });
+                if (id == null) {
+                    return 0;
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to register stat type " + statType + ": " + e.getMessage());
+                return 0;
+            }
+
+            String[] names = statNames;
+            if (id >= names.length) {
+                names = Arrays.copyOf(names, id + 1);
+            } else {
+                names = names.clone();
+            }
+            names[id] = statType;
+            statNames = names;
+            statIds.put(statType, id);
+            return id;
+        }
+    }
+
+    /**
+     * Write all pending deltas in one transaction.
+     * Deltas are moved to a per-player "flushing" array first and only
+     * discarded after the commit, so a failed flush is retried next time.
+     */
+    public void flush() {
+        flushLock.writeLock().lock();
         try {
-            long now = System.currentTimeMillis();
-            String query = """
-                INSERT INTO player_stats (uuid, stat_type, stat_value, updated_at)
-                VALUES (?, ?, ?, ?)
-                ON CONFLICT(uuid, stat_type) DO UPDATE SET
-                    stat_value = stat_value + excluded.stat_value,
-                    updated_at = excluded.updated_at
-            """;
+            List<Object[]> rows = new ArrayList<>();
+            List<Map.Entry<UUID, PendingStats>> flushed = new ArrayList<>();
 
-            database.executeUpdate(query, uuid.toString(), statType, amount, now);
+            for (Map.Entry<UUID, PendingStats> entry : pending.entrySet()) {
+                int playerId = lookupPlayerId(entry.getKey());
+                if (playerId < 0) {
+                    continue; // Not in players yet; keep the deltas until the join is recorded
+                }
+
+                PendingStats stats = entry.getValue();
+                synchronized (stats) {
+                    stats.beginFlush();
+                    long[] deltas = stats.flushing;
+                    for (int i = 0; i < deltas.length; i++) {
+                        if (deltas[i] != 0) {
+                            rows.add(new Object[]{playerId, i, deltas[i]});
+                        }
+                    }
+                }
+                flushed.add(entry);
+            }
+
+            if (!rows.isEmpty()) {
+                database.batch(UPSERT_STAT, rows);
+            }
+
+            // Committed: forget the flushed deltas and retire idle entries
+            for (Map.Entry<UUID, PendingStats> entry : flushed) {
+                PendingStats stats = entry.getValue();
+                synchronized (stats) {
+                    stats.endFlush();
+                    if (stats.isEmpty()) {
+                        stats.retired = true;
+                        pending.remove(entry.getKey(), stats);
+                    }
+                }
+            }
         } catch (SQLException e) {
-            plugin.getLogger().warning("Failed to increment stat: " + e.getMessage());
+            plugin.getLogger().warning("Failed to flush player stats: " + e.getMessage());
+        } finally {
+            flushLock.writeLock().unlock();
         }
     }
 
@@ -64,71 +328,274 @@ public class PlayerStatsManager {
     public Map<String, Object> getPlayerStats(UUID uuid) {
         Map<String, Object> stats = new HashMap<>();
 
+        flushLock.readLock().lock();
         try {
             // Get player info
             String playerQuery = "SELECT * FROM players WHERE uuid = ?";
-            try (ResultSet rs = database.executeQuery(playerQuery, uuid.toString())) {
-                if (rs.next()) {
-                    stats.put("uuid", rs.getString("uuid"));
-                    stats.put("name", rs.getString("name"));
-                    stats.put("firstJoin", rs.getLong("first_join"));
-                    stats.put("lastSeen", rs.getLong("last_seen"));
-                    stats.put("totalPlaytime", rs.getLong("total_playtime"));
-                }
+            Map<String, Object> player = database.queryOne(playerQuery, PlayerStatsManager::mapPlayer, uuid.toString());
+            if (player != null) {
+                stats.putAll(player);
             }
 
             // Get player stats
-            String statsQuery = "SELECT stat_type, stat_value FROM player_stats WHERE uuid = ?";
-            Map<String, Integer> playerStats = new HashMap<>();
-            try (ResultSet rs = database.executeQuery(statsQuery, uuid.toString())) {
-                while (rs.next()) {
-                    playerStats.put(rs.getString("stat_type"), rs.getInt("stat_value"));
+            String statsQuery = """
+                SELECT t.name, s.value
+                FROM player_stats s
+                JOIN players p ON p.id = s.player_id
+                JOIN stat_types t ON t.id = s.stat_id
+                WHERE p.uuid = ?
+            """;
+            Map<String, Long> playerStats = new HashMap<>();
+            database.query(statsQuery, rs -> playerStats.put(rs.getString("name"), rs.getLong("value")),
+                    uuid.toString());
+
+            // Merge deltas that have not been written yet
+            PendingStats pendingStats = pending.get(uuid);
+            if (pendingStats != null) {
+                synchronized (pendingStats) {
+                    String[] names = statNames;
+                    for (int i = 0; i < pendingStats.pending.length; i++) {
+                        long delta = pendingStats.pending[i] + pendingStats.flushing[i];
+                        if (delta != 0 && i < names.length && names[i] != null) {
+                            playerStats.merge(names[i], delta, Long::sum);
+                        }
+                    }
                 }
             }
             stats.put("stats", playerStats);
 
         } catch (SQLException e) {
             plugin.getLogger().warning("Failed to get player stats: " + e.getMessage());
+        } finally {
+            flushLock.readLock().unlock();
         }
 
         return stats;
     }
 
     /**
-     * Get all players
+     * Get one page of players in the given order, continuing after the cursor.
+     * Both orders walk an index (last_seen or name NOCASE) with the row id as
+     * tie-breaker, so a page costs the same no matter how deep it is.
+     * @param prefix optional case-insensitive name prefix
+     * @throws IllegalArgumentException if the cursor is malformed
      */
-    public List<Map<String, Object>> getAllPlayers() {
-        List<Map<String, Object>> players = new ArrayList<>();
+    public PlayerPage getPlayerPage(PlayerSort sort, String cursor, String prefix, int limit) throws SQLException {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
 
-        try {
-            String query = "SELECT * FROM players ORDER BY last_seen DESC";
-            try (ResultSet rs = database.executeQuery(query)) {
-                while (rs.next()) {
-                    Map<String, Object> player = new HashMap<>();
-                    player.put("uuid", rs.getString("uuid"));
-                    player.put("name", rs.getString("name"));
-                    player.put("firstJoin", rs.getLong("first_join"));
-                    player.put("lastSeen", rs.getLong("last_seen"));
-                    player.put("totalPlaytime", rs.getLong("total_playtime"));
-                    players.add(player);
-                }
+        if (prefix != null && !prefix.isEmpty()) {
+            // A key range on idx_players_name; LIKE would not be matched against a NOCASE index
+            conditions.add("name >= ? COLLATE NOCASE");
+            params.add(prefix);
+            String end = nocasePrefixEnd(prefix);
+            if (end != null) {
+                conditions.add("name < ? COLLATE NOCASE");
+                params.add(end);
             }
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Failed to get all players: " + e.getMessage());
         }
 
-        return players;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] after = decodeCursor(cursor);
+            if (sort == PlayerSort.NAME) {
+                conditions.add("(name COLLATE NOCASE, id) > (?, ?)");
+                params.add(after[0]);
+            } else {
+                conditions.add("(last_seen, id) < (?, ?)");
+                params.add(parseCursorNumber(after[0]));
+            }
+            params.add(parseCursorNumber(after[1]));
+        }
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, uuid, name, first_join, last_seen, total_playtime FROM players");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(sort == PlayerSort.NAME
+                ? " ORDER BY name COLLATE NOCASE, id"
+                : " ORDER BY last_seen DESC, id DESC");
+        sql.append(" LIMIT ?");
+        // One extra row tells us whether there is a next page
+        params.add(limit + 1);
+
+        List<Long> ids = new ArrayList<>();
+        List<Map<String, Object>> players = database.query(sql.toString(), rs -> {
+            ids.add(rs.getLong("id"));
+            return mapPlayer(rs);
+        }, params.toArray());
+
+        String nextCursor = null;
+        if (players.size() > limit) {
+            players.remove(limit);
+            Map<String, Object> last = players.get(limit - 1);
+            Object key = sort == PlayerSort.NAME ? last.get("name") : last.get("lastSeen");
+            nextCursor = encodeCursor(key, ids.get(limit - 1));
+        }
+        return new PlayerPage(players, nextCursor);
     }
 
     /**
-     * Update player's total playtime
+     * Of the given players, return those that have no row yet (joined moments ago,
+     * insert still queued on the writer). Uses the id cache and at most one lookup.
      */
-    public void updatePlaytime(UUID uuid, long additionalTime) {
+    public List<UUID> findUnrecordedPlayers(Collection<UUID> uuids) throws SQLException {
+        List<UUID> unknown = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            if (!playerIds.containsKey(uuid)) {
+                unknown.add(uuid);
+            }
+        }
+        if (unknown.isEmpty()) {
+            return unknown;
+        }
+
+        Object[] params = unknown.stream().map(UUID::toString).toArray();
+        String sql = "SELECT id, uuid FROM players WHERE uuid IN ("
+                + String.join(", ", Collections.nCopies(params.length, "?")) + ")";
+        database.query(sql, rs -> {
+            UUID uuid = UUID.fromString(rs.getString("uuid"));
+            playerIds.put(uuid, rs.getInt("id"));
+            unknown.remove(uuid);
+            return null;
+        }, params);
+        return unknown;
+    }
+
+    /**
+     * First string after all names that start with the prefix, in NOCASE order.
+     * NOCASE only folds ASCII letters, so the prefix is folded the same way before its last character is bumped.
+     * @return null if no string sorts after the prefix
+     */
+    private static String nocasePrefixEnd(String prefix) {
+        char[] chars = prefix.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        int last = chars.length - 1;
+        while (last >= 0 && chars[last] == Character.MAX_VALUE) {
+            last--;
+        }
+        if (last < 0) {
+            return null;
+        }
+        char next = (char) (chars[last] + 1);
+        // Upper case letters sort as lower case, so what follows '@' is '['
+        chars[last] = next >= 'A' && next <= 'Z' ? '[' : next;
+        return new String(chars, 0, last + 1);
+    }
+
+    private static String encodeCursor(Object key, long id) {
+        String raw = key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int split = raw.lastIndexOf(':');
+        if (split < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new String[] { raw.substring(0, split), raw.substring(split + 1) };
+    }
+
+    private static long parseCursorNumber(String value) {
         try {
-            String query = "UPDATE players SET total_playtime = total_playtime + ? WHERE uuid = ?";
-            database.executeUpdate(query, additionalTime, uuid.toString());
-        } catch (SQLException e) {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static Map<String, Object> mapPlayer(ResultSet rs) throws SQLException {
+        Map<String, Object> player = new HashMap<>();
+        player.put("uuid", rs.getString("uuid"));
+        player.put("name", rs.getString("name"));
+        player.put("firstJoin", rs.getLong("first_join"));
+        player.put("lastSeen", rs.getLong("last_seen"));
+        player.put("totalPlaytime", rs.getLong("total_playtime"));
+        return player;
+    }
+
+    /**
+     * Update player's total playtime (queued on the database writer)
+     */
+    public void updatePlaytime(UUID uuid, long additionalTime) {
+        String query = "UPDATE players SET total_playtime = total_playtime + ? WHERE uuid = ?";
+        database.updateAsync(query, additionalTime, uuid.toString()).exceptionally(e -> {
             plugin.getLogger().warning("Failed to update playtime: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Sort orders supported by the player list, each backed by an index
+     */
+    public enum PlayerSort {
+        LAST_SEEN,
+        NAME;
+
+        public static PlayerSort fromParam(String value) {
+            if (value != null && value.trim().equalsIgnoreCase("name")) {
+                return NAME;
+            }
+            return LAST_SEEN;
+        }
+    }
+
+    /**
+     * One page of the player list plus the cursor for the next one (null on the last page)
+     */
+    public static class PlayerPage {
+        private final List<Map<String, Object>> players;
+        private final String nextCursor;
+
+        public PlayerPage(List<Map<String, Object>> players, String nextCursor) {
+            this.players = players;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Map<String, Object>> getPlayers() { return players; }
+        public String getNextCursor() { return nextCursor; }
+    }
+
+    /**
+     * In-memory counters for one player, indexed by stat id. Guarded by its own monitor.
+     */
+    private static final class PendingStats {
+        long[] pending = new long[16];
+        long[] flushing = new long[16];
+        boolean retired = false;
+
+        void add(int statId, long amount) {
+            if (statId >= pending.length) {
+                int size = Math.max(statId + 1, pending.length * 2);
+                pending = Arrays.copyOf(pending, size);
+                flushing = Arrays.copyOf(flushing, size);
+            }
+            pending[statId] += amount;
+        }
+
+        void beginFlush() {
+            for (int i = 0; i < pending.length; i++) {
+                flushing[i] += pending[i];
+                pending[i] = 0;
+            }
+        }
+
+        void endFlush() {
+            Arrays.fill(flushing, 0);
+        }
+
+        boolean isEmpty() {
+            for (long value : pending) {
+                if (value != 0) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 }
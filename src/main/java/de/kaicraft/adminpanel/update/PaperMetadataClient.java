@@ -0,0 +1,273 @@
+package de.kaicraft.adminpanel.update;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Reads project metadata from the Paper API with conditional requests.
+ *
+ * Every response is kept in memory and on disk together with its ETag and Last-Modified headers,
+ * so a repeated check costs a 304 with no body, and a restart does not lose the validators.
+ * Concurrent requests for the same resource share one in-flight request. Only the fields the
+ * updater needs are read from the JSON, with a streaming reader instead of building the tree.
+ */
+public class PaperMetadataClient {
+    private final HttpClient client;
+    private final String baseUrl;
+    private final File cacheDir;
+    private final String userAgent;
+    private final Logger logger;
+
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public PaperMetadataClient(HttpClient client, String baseUrl, File cacheDir, String userAgent, Logger logger) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.cacheDir = cacheDir;
+        this.userAgent = userAgent;
+        this.logger = logger;
+    }
+
+    /**
+     * Server JAR of a build as listed under downloads.application
+     */
+    public static class BuildDownload {
+        public final String name;
+        public final String sha256;
+
+        public BuildDownload(String name, String sha256) {
+            this.name = name;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Highest build number published for a Minecraft version, or -1 if there are none
+     */
+    public CompletableFuture<Integer> fetchLatestBuild(String version) {
+        return get("/versions/" + version).thenApply(response -> parse(response, PaperMetadataClient::readLatestBuild));
+    }
+
+    /**
+     * Download details of one build
+     */
+    public CompletableFuture<BuildDownload> fetchBuildDownload(String version, String build) {
+        return get("/versions/" + version + "/builds/" + build)
+            .thenApply(response -> parse(response, PaperMetadataClient::readBuildDownload));
+    }
+
+    /**
+     * Fetch a resource, joining the request already running for it if there is one
+     */
+    private CompletableFuture<CachedResponse> get(String path) {
+        CompletableFuture<CachedResponse> created = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> running = inFlight.putIfAbsent(path, created);
+        if (running != null) {
+            return running;
+        }
+
+        CompletableFuture<CachedResponse> fetched;
+        try {
+            fetched = fetch(path);
+        } catch (RuntimeException e) {
+            // A bad URI or a rejected send throws before there is a future to complete ours
+            inFlight.remove(path, created);
+            created.completeExceptionally(e);
+            return created;
+        }
+
+        fetched.whenComplete((response, error) -> {
+            inFlight.remove(path, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(response);
+            }
+        });
+        return created;
+    }
+
+    private CompletableFuture<CachedResponse> fetch(String path) {
+        CachedResponse cached = cache.computeIfAbsent(path, this::loadFromDisk);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(10))
+            .header("User-Agent", userAgent)
+            .header("Accept", "application/json")
+            .GET();
+        if (cached != CachedResponse.NONE) {
+            if (cached.etag != null) {
+                request.header("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                request.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).handle((response, error) -> {
+            if (error != null || (response.statusCode() != 200 && response.statusCode() != 304)) {
+                String reason = error != null ? error.getMessage() : "HTTP " + response.statusCode();
+                if (cached != CachedResponse.NONE) {
+                    logger.warning("Paper API request for " + path + " failed (" + reason + "); using cached response");
+                    return cached;
+                }
+                throw new CompletionException(new IOException("Paper API request for " + path + " failed: " + reason));
+            }
+
+            if (response.statusCode() == 304 && cached != CachedResponse.NONE) {
+                return cached;
+            }
+
+            CachedResponse fresh = new CachedResponse(
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                response.body());
+            cache.put(path, fresh);
+            saveToDisk(path, fresh);
+            return fresh;
+        });
+    }
+
+    private CachedResponse loadFromDisk(String path) {
+        File bodyFile = new File(cacheDir, cacheName(path) + ".json");
+        File metaFile = new File(cacheDir, cacheName(path) + ".properties");
+        if (!bodyFile.isFile() || !metaFile.isFile()) {
+            return CachedResponse.NONE;
+        }
+
+        Properties meta = new Properties();
+        try (InputStream in = new FileInputStream(metaFile)) {
+            meta.load(in);
+            return new CachedResponse(meta.getProperty("etag"), meta.getProperty("last-modified"),
+                Files.readAllBytes(bodyFile.toPath()));
+        } catch (IOException e) {
+            logger.warning("Could not read cached Paper API response for " + path + ": " + e.getMessage());
+            return CachedResponse.NONE;
+        }
+    }
+
+    private void saveToDisk(String path, CachedResponse response) {
+        File bodyFile = new File(cacheDir, cacheName(path) + ".json");
+        File metaFile = new File(cacheDir, cacheName(path) + ".properties");
+        Properties meta = new Properties();
+        if (response.etag != null) {
+            meta.setProperty("etag", response.etag);
+        }
+        if (response.lastModified != null) {
+            meta.setProperty("last-modified", response.lastModified);
+        }
+
+        try {
+            Files.createDirectories(cacheDir.toPath());
+            // Body first: validators without their body would turn the next 304 into a cache miss
+            Path tempBody = Files.createTempFile(cacheDir.toPath(), cacheName(path), ".tmp");
+            Files.write(tempBody, response.body);
+            Files.move(tempBody, bodyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            try (OutputStream out = new FileOutputStream(metaFile)) {
+                meta.store(out, path);
+            }
+        } catch (IOException e) {
+            logger.warning("Could not cache Paper API response for " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static String cacheName(String path) {
+        return path.replaceFirst("^/", "").replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private interface FieldReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    private static <T> T parse(CachedResponse response, FieldReader<T> fields) {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(response.body), StandardCharsets.UTF_8))) {
+            return fields.read(reader);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new CompletionException(new IOException("Malformed Paper API response: " + e.getMessage(), e));
+        }
+    }
+
+    private static Integer readLatestBuild(JsonReader reader) throws IOException {
+        int latest = -1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("builds".equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    latest = Math.max(latest, reader.nextInt());
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return latest;
+    }
+
+    private static BuildDownload readBuildDownload(JsonReader reader) throws IOException {
+        String name = null;
+        String sha256 = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!"downloads".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"application".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if ("name".equals(field)) {
+                        name = reader.nextString();
+                    } else if ("sha256".equals(field)) {
+                        sha256 = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        return new BuildDownload(name, sha256);
+    }
+
+    private static final class CachedResponse {
+        // Marks a resource that has never been fetched, since the cache map cannot hold null
+        static final CachedResponse NONE = new CachedResponse(null, null, new byte[0]);
+
+        final String etag;
+        final String lastModified;
+        final byte[] body;
+
+        CachedResponse(String etag, String lastModified, byte[] body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+    }
+}
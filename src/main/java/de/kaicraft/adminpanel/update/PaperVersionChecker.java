@@ -1,25 +1,22 @@
 package de.kaicraft.adminpanel.update;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.backup.BackupJob;
 import org.bukkit.entity.Player;
 
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.nio.file.*;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.CompletionException;
 
 /**
  * Manages Paper server updates with full workflow
  */
 public class PaperVersionChecker {
     private final ServerAdminPanelPlugin plugin;
-    private final Gson gson;
 
     private String currentVersion;
     private String latestVersion;
@@ -35,9 +32,21 @@ public class PaperVersionChecker {
     private volatile boolean updateBackupCompleted = false;
     private volatile String updateBackupFilename = null;
     private boolean createBackupBeforeUpdate = true; // Default to true for safety
+    private boolean incrementalUpdateBackup = true; // Only store data changed since the last snapshot
+    private volatile BackupJob updateBackupJob = null;
     private volatile String backupStatus = "idle"; // idle, running, completed, failed
     private volatile int backupProgress = 0; // 0-100
 
+    // Download progress, shown in the panel instead of the log
+    private final HttpClient httpClient;
+    private volatile String downloadStatus = "idle"; // idle, downloading, verifying, completed, failed
+    private volatile long downloadedBytes = 0;
+    private volatile long downloadTotalBytes = 0;
+
+    // Paper API metadata, fetched conditionally and cached on disk
+    private final PaperMetadataClient metadataClient;
+    private CompletableFuture<Boolean> runningCheck;
+
     // Scheduled task tracking for proper shutdown
     private Integer periodicCheckTaskId = null;
     private Integer cleanupTaskId = null;
@@ -48,7 +57,6 @@ public class PaperVersionChecker {
 
     public PaperVersionChecker(ServerAdminPanelPlugin plugin) {
         this.plugin = plugin;
-        this.gson = new Gson();
         this.updateAvailable = false;
         this.updateDownloaded = false;
         this.lastCheck = 0;
@@ -56,8 +64,16 @@ public class PaperVersionChecker {
 
         // Load config setting for backup before update
         this.createBackupBeforeUpdate = plugin.getConfig().getBoolean("update-settings.create-backup-before-update", true);
+        this.incrementalUpdateBackup = plugin.getConfig().getBoolean("update-settings.incremental-backup", true);
         plugin.getLogger().info("Update backup setting: " + (createBackupBeforeUpdate ? "enabled" : "disabled"));
 
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        this.metadataClient = new PaperMetadataClient(httpClient, PAPER_API_BASE,
+            new File(plugin.getDataFolder(), "cache/paper-api"), "PaperPanel/2.0.0", plugin.getLogger());
+
         loadInstalledBuildNumber();
         extractVersionNumber();
     }
@@ -86,67 +102,71 @@ public class PaperVersionChecker {
     }
 
     /**
-     * Check for updates (can be called manually or automatically)
+     * Check for updates (can be called manually or automatically).
+     * Checks that overlap, e.g. several admins clicking check at once, share one request.
      */
-    public CompletableFuture<Boolean> checkForUpdates() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                plugin.getLogger().info("Checking for Paper server updates...");
-                
-                String mcVersion = extractMinecraftVersion();
-                if (mcVersion == null) {
-                    plugin.getLogger().warning("Could not determine Minecraft version");
-                    return false;
-                }
-                
-                String apiUrl = PAPER_API_BASE + "/versions/" + mcVersion;
-                JsonObject versionData = fetchJson(apiUrl);
-                
-                if (versionData == null) {
-                    plugin.getLogger().warning("Could not fetch version data from Paper API");
-                    return false;
-                }
-                
-                JsonArray builds = versionData.getAsJsonArray("builds");
-                if (builds == null || builds.size() == 0) {
-                    return false;
-                }
-                
-                int latestBuildNum = builds.get(builds.size() - 1).getAsInt();
-                this.latestBuild = String.valueOf(latestBuildNum);
-                this.latestVersion = mcVersion;
+    public synchronized CompletableFuture<Boolean> checkForUpdates() {
+        if (runningCheck != null && !runningCheck.isDone()) {
+            return runningCheck;
+        }
+        runningCheck = CompletableFuture.supplyAsync(this::runUpdateCheck);
+        return runningCheck;
+    }
 
-                int currentBuildNum = extractBuildNumber();
+    private boolean runUpdateCheck() {
+        try {
+            plugin.getLogger().info("Checking for Paper server updates...");
 
-                // Use persisted build number if extraction fails
-                if (currentBuildNum == 0 && installedBuildNumber > 0) {
-                    currentBuildNum = installedBuildNumber;
-                    plugin.getLogger().info("Using persisted build number: " + installedBuildNumber);
-                }
+            String mcVersion = extractMinecraftVersion();
+            if (mcVersion == null) {
+                plugin.getLogger().warning("Could not determine Minecraft version");
+                return false;
+            }
 
-                if (latestBuildNum > currentBuildNum) {
-                    this.updateAvailable = true;
-                    this.downloadUrl = String.format(
-                        "https://api.papermc.io/v2/projects/paper/versions/%s/builds/%d/downloads/paper-%s-%d.jar",
-                        mcVersion, latestBuildNum, mcVersion, latestBuildNum
-                    );
-                    
-                    plugin.getLogger().warning("Paper server update available!");
-                    plugin.getLogger().warning("Current: Build #" + currentBuildNum);
-                    plugin.getLogger().warning("Latest: Build #" + latestBuildNum);
-                } else {
-                    this.updateAvailable = false;
-                    plugin.getLogger().info("Paper server is up to date (Build #" + currentBuildNum + ")");
-                }
-                
-                this.lastCheck = System.currentTimeMillis();
-                return this.updateAvailable;
-                
-            } catch (Exception e) {
-                plugin.getLogger().warning("Failed to check for updates: " + e.getMessage());
+            int latestBuildNum;
+            try {
+                latestBuildNum = metadataClient.fetchLatestBuild(mcVersion).join();
+            } catch (CompletionException e) {
+                plugin.getLogger().warning("Could not fetch version data from Paper API: " + e.getCause().getMessage());
                 return false;
             }
-        });
+            if (latestBuildNum < 0) {
+                return false;
+            }
+
+            this.latestBuild = String.valueOf(latestBuildNum);
+            this.latestVersion = mcVersion;
+
+            int currentBuildNum = extractBuildNumber();
+
+            // Use persisted build number if extraction fails
+            if (currentBuildNum == 0 && installedBuildNumber > 0) {
+                currentBuildNum = installedBuildNumber;
+                plugin.getLogger().info("Using persisted build number: " + installedBuildNumber);
+            }
+
+            if (latestBuildNum > currentBuildNum) {
+                this.updateAvailable = true;
+                this.downloadUrl = String.format(
+                    "https://api.papermc.io/v2/projects/paper/versions/%s/builds/%d/downloads/paper-%s-%d.jar",
+                    mcVersion, latestBuildNum, mcVersion, latestBuildNum
+                );
+
+                plugin.getLogger().warning("Paper server update available!");
+                plugin.getLogger().warning("Current: Build #" + currentBuildNum);
+                plugin.getLogger().warning("Latest: Build #" + latestBuildNum);
+            } else {
+                this.updateAvailable = false;
+                plugin.getLogger().info("Paper server is up to date (Build #" + currentBuildNum + ")");
+            }
+
+            this.lastCheck = System.currentTimeMillis();
+            return this.updateAvailable;
+
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to check for updates: " + e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -176,8 +196,12 @@ public class PaperVersionChecker {
                     return new UpdateResult(true, "Update already downloaded", UpdatePhase.DOWNLOADED);
                 }
                 
-                // Download
-                boolean success = downloadFile(downloadUrl, newJar);
+                // Download, verified against the checksum the Paper API publishes for the build
+                String sha256 = fetchBuildChecksum(latestVersion, latestBuild);
+                if (sha256 == null) {
+                    plugin.getLogger().warning("No checksum published for build #" + latestBuild + "; download is not verified");
+                }
+                boolean success = downloadFile(downloadUrl, newJar, sha256);
                 if (!success) {
                     return new UpdateResult(false, "Download failed", UpdatePhase.ERROR);
                 }
@@ -233,81 +257,54 @@ public class PaperVersionChecker {
         plugin.getLogger().info("Starting update installation...");
         plugin.getLogger().info("========================================");
 
-        // Phase 1: Create backup first (if enabled)
+        // Phase 1: Start the backup (if enabled); it runs on the backup queue during the countdown
         if (createBackupBeforeUpdate) {
-            plugin.getLogger().info("[UPDATE] Phase 1: Creating pre-update backup...");
-            plugin.getLogger().info("[UPDATE] The server will restart after backup completes.");
-
-            backupStatus = "running";
-            backupProgress = 0;
-            updateBackupCompleted = false;
-            updateBackupFilename = null;
-
-            broadcastUpdate("§e§l[UPDATE] Creating backup before update...");
-            broadcastUpdate("§e§lThis may take several minutes. Please be patient.");
-
-            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
-                try {
-                    backupProgress = 10;
-                    if (plugin.getBackupManager() != null) {
-                        backupProgress = 20;
-                        var result = plugin.getBackupManager().createUpdateBackup("update-system");
-                        backupProgress = 90;
-
-                        if (result.success) {
-                            updateBackupFilename = result.filename;
-                            plugin.getLogger().info("✓ Update backup created: " + result.filename);
-                            backupStatus = "completed";
-                            backupProgress = 100;
-                        } else {
-                            plugin.getLogger().warning("✗ Update backup failed: " + result.message);
-                            backupStatus = "failed";
-                        }
-                    } else {
-                        // Fallback to built-in backup if BackupManager is not available
-                        backupProgress = 20;
-                        boolean success = createBackup();
-                        backupProgress = 90;
-
-                        if (success) {
-                            plugin.getLogger().info("✓ Update backup created (fallback method)");
-                            backupStatus = "completed";
-                            backupProgress = 100;
-                        } else {
-                            plugin.getLogger().warning("✗ Update backup failed (fallback method)");
-                            backupStatus = "failed";
-                        }
-                    }
+            startUpdateBackup();
+        } else {
+            plugin.getLogger().info("[UPDATE] Backup disabled - proceeding directly to countdown");
+            backupStatus = "skipped";
+            updateBackupCompleted = true;
+        }
 
-                    updateBackupCompleted = true;
+        startCountdownPhase();
+    }
 
-                    // After backup completes, start the countdown on main thread
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        startCountdownPhase();
-                    });
+    /**
+     * Queue the pre-update backup without waiting for it
+     */
+    private void startUpdateBackup() {
+        plugin.getLogger().info("[UPDATE] Phase 1: Creating pre-update backup during the countdown...");
 
-                } catch (Exception e) {
-                    plugin.getLogger().warning("✗ Update backup error: " + e.getMessage());
-                    e.printStackTrace();
-                    backupStatus = "failed";
-                    updateBackupCompleted = true;
+        backupStatus = "running";
+        backupProgress = 0;
+        updateBackupCompleted = false;
+        updateBackupFilename = null;
 
-                    // Even if backup fails, continue with update
-                    plugin.getServer().getScheduler().runTask(plugin, () -> {
-                        startCountdownPhase();
-                    });
-                }
-            });
-        } else {
-            plugin.getLogger().info("[UPDATE] Backup disabled - proceeding directly to countdown");
-            backupStatus = "skipped";
+        if (plugin.getBackupManager() == null) {
+            plugin.getLogger().warning("✗ Backup system is unavailable - continuing without a backup");
+            backupStatus = "failed";
             updateBackupCompleted = true;
-            startCountdownPhase();
+            return;
         }
+
+        BackupJob job = plugin.getBackupManager().getJobQueue().submitUpdateBackup("update-system", incrementalUpdateBackup);
+        updateBackupJob = job;
+        job.getResult().whenComplete((result, error) -> {
+            if (error == null && result.success) {
+                updateBackupFilename = result.filename;
+                plugin.getLogger().info("✓ Update backup created: " + result.filename);
+                backupStatus = "completed";
+                backupProgress = 100;
+            } else {
+                plugin.getLogger().warning("✗ Update backup failed: " + (error != null ? error.getMessage() : result.message));
+                backupStatus = "failed";
+            }
+            updateBackupCompleted = true;
+        });
     }
 
     /**
-     * Start the 5-minute countdown phase after backup completes
+     * Start the 5-minute countdown phase; the backup runs alongside it
      */
     private void startCountdownPhase() {
         plugin.getLogger().info("========================================");
@@ -315,7 +312,6 @@ public class PaperVersionChecker {
         plugin.getLogger().info("========================================");
 
         // Phase 2: 5-minute countdown with broadcasts
-        broadcastUpdate("§a§l[UPDATE] Backup complete!");
         broadcastUpdate("§e§l[UPDATE] Server will restart in 5 minutes!");
         broadcastUpdate("§e§lPlease finish your activities and prepare to disconnect.");
 
@@ -323,10 +319,36 @@ public class PaperVersionChecker {
 
         // Phase 3: After 5 minutes, execute installation
         plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            executeInstallationSteps();
+            finishCountdown();
         }, 20L * 60 * 5); // 5 minutes
     }
 
+    /**
+     * Install once the countdown is over and the backup is done. If the backup needs longer than
+     * the countdown, players stay online until it finishes, so the server is only down for the restart.
+     */
+    private void finishCountdown() {
+        BackupJob job = updateBackupJob;
+        if (createBackupBeforeUpdate && job != null && !updateBackupCompleted) {
+            broadcastUpdate("§e§l[UPDATE] Waiting for the backup to finish (" + getBackupProgress() + "%)...");
+            job.getResult().whenComplete((result, error) ->
+                plugin.getServer().getScheduler().runTask(plugin, this::executeInstallationSteps));
+            return;
+        }
+        executeInstallationSteps();
+    }
+
+    /**
+     * Progress of the running update backup, from the bytes the backup queue has written so far
+     */
+    private int getBackupProgress() {
+        BackupJob job = updateBackupJob;
+        if ("running".equals(backupStatus) && job != null && job.getBytesTotal() > 0) {
+            return (int) Math.min(99, job.getBytesDone() * 100 / job.getBytesTotal());
+        }
+        return backupProgress;
+    }
+
     /**
      * Schedule countdown broadcasts
      */
@@ -357,17 +379,11 @@ public class PaperVersionChecker {
             if (createBackupBeforeUpdate) {
                 plugin.getLogger().info("Step 2/4: Checking backup status...");
 
-                // Backup runs asynchronously - check if it's already done
-                if (updateBackupCompleted) {
-                    if (updateBackupFilename != null) {
-                        plugin.getLogger().info("  ✓ Backup completed: " + updateBackupFilename);
-                    } else {
-                        plugin.getLogger().info("  ✓ Backup completed");
-                    }
+                // The countdown only ends once the backup has finished
+                if (updateBackupFilename != null) {
+                    plugin.getLogger().info("  ✓ Backup completed: " + updateBackupFilename);
                 } else {
-                    // Backup is still running - that's OK, it will complete in background
-                    plugin.getLogger().info("  ℹ Backup is running in background and will complete shortly");
-                    plugin.getLogger().info("  ℹ The backup does not need to complete before server restart");
+                    plugin.getLogger().warning("  ! Backup failed - continuing without it");
                 }
             } else {
                 plugin.getLogger().info("Step 2/4: Skipping backup (disabled in config)...");
@@ -433,97 +449,6 @@ public class PaperVersionChecker {
         }
     }
 
-    /**
-     * Create full server backup
-     */
-    private boolean createBackup() {
-        try {
-            String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new java.util.Date());
-            File backupDir = new File("backups");
-            if (!backupDir.exists()) {
-                backupDir.mkdirs();
-            }
-            
-            File backupFile = new File(backupDir, "server-backup-" + timestamp + ".zip");
-            
-            plugin.getLogger().info("  Creating backup: " + backupFile.getName());
-            
-            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(backupFile))) {
-                // Backup critical directories
-                String[] dirsToBackup = {"world", "world_nether", "world_the_end", "plugins", "config"};
-                
-                for (String dirName : dirsToBackup) {
-                    File dir = new File(dirName);
-                    if (dir.exists()) {
-                        zipDirectory(dir, dir.getName(), zos);
-                        plugin.getLogger().info("    + " + dirName);
-                    }
-                }
-                
-                // Backup critical root files
-                String[] filesToBackup = {
-                    "server.properties", "bukkit.yml", "spigot.yml", "paper.yml", 
-                    "start.sh", "run.sh", "start.bat", "run.bat",
-                    "eula.txt", "ops.json", "whitelist.json", "banned-players.json"
-                };
-                
-                for (String fileName : filesToBackup) {
-                    File file = new File(fileName);
-                    if (file.exists() && file.isFile()) {
-                        try (FileInputStream fis = new FileInputStream(file)) {
-                            ZipEntry zipEntry = new ZipEntry(fileName);
-                            zos.putNextEntry(zipEntry);
-                            
-                            byte[] buffer = new byte[8192];
-                            int length;
-                            while ((length = fis.read(buffer)) > 0) {
-                                zos.write(buffer, 0, length);
-                            }
-                            
-                            zos.closeEntry();
-                            plugin.getLogger().info("    + " + fileName);
-                        }
-                    }
-                }
-            }
-            
-            plugin.getLogger().info("  Backup size: " + (backupFile.length() / 1024 / 1024) + " MB");
-            
-            return true;
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Backup failed: " + e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * Zip directory recursively
-     */
-    private void zipDirectory(File dir, String zipPath, ZipOutputStream zos) throws IOException {
-        File[] files = dir.listFiles();
-        if (files == null) return;
-        
-        for (File file : files) {
-            if (file.isDirectory()) {
-                zipDirectory(file, zipPath + "/" + file.getName(), zos);
-            } else {
-                try (FileInputStream fis = new FileInputStream(file)) {
-                    ZipEntry zipEntry = new ZipEntry(zipPath + "/" + file.getName());
-                    zos.putNextEntry(zipEntry);
-                    
-                    byte[] buffer = new byte[8192];
-                    int length;
-                    while ((length = fis.read(buffer)) > 0) {
-                        zos.write(buffer, 0, length);
-                    }
-                    
-                    zos.closeEntry();
-                }
-            }
-        }
-    }
-
     /**
      * Broadcast message to all players
      */
@@ -548,7 +473,10 @@ public class PaperVersionChecker {
             lastCheck,
             needsCheck,
             backupStatus,
-            backupProgress
+            getBackupProgress(),
+            downloadStatus,
+            downloadedBytes,
+            downloadTotalBytes
         );
     }
 
@@ -667,79 +595,46 @@ public class PaperVersionChecker {
         }
     }
 
-    private JsonObject fetchJson(String urlString) {
+    /**
+     * SHA-256 of a build's server JAR as published by the Paper API, or null if unavailable
+     */
+    private String fetchBuildChecksum(String version, String build) {
         try {
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-            conn.setRequestProperty("User-Agent", "PaperPanel/2.0.0");
-            
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 200) {
-                return null;
-            }
-            
-            BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            reader.close();
-            
-            return gson.fromJson(response.toString(), JsonObject.class);
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to fetch from " + urlString + ": " + e.getMessage());
+            return metadataClient.fetchBuildDownload(version, build).join().sha256;
+        } catch (CompletionException e) {
+            plugin.getLogger().warning("Could not fetch build details: " + e.getCause().getMessage());
             return null;
         }
     }
 
-    private boolean downloadFile(String urlString, File destination) {
-        try {
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            conn.setRequestProperty("User-Agent", "PaperPanel/2.0.0");
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(60000);
-            
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 200) {
-                plugin.getLogger().warning("Download failed with response code: " + responseCode);
+    /**
+     * Download over parallel range requests into a resumable .part file; the destination
+     * only appears once the file is complete and matches the checksum
+     */
+    private boolean downloadFile(String urlString, File destination, String sha256) {
+        synchronized (this) {
+            if ("downloading".equals(downloadStatus) || "verifying".equals(downloadStatus)) {
+                plugin.getLogger().warning("A download is already in progress");
                 return false;
             }
-            
-            long fileSize = conn.getContentLengthLong();
-            plugin.getLogger().info("  File size: " + (fileSize / 1024 / 1024) + " MB");
-            
-            try (InputStream in = conn.getInputStream();
-                 FileOutputStream out = new FileOutputStream(destination)) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                long totalBytesRead = 0;
-                long lastLogTime = System.currentTimeMillis();
-                int lastProgress = 0;
-                
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                    totalBytesRead += bytesRead;
-                    
-                    int progress = (int) ((totalBytesRead * 100) / fileSize);
-                    if (progress >= lastProgress + 10 || System.currentTimeMillis() - lastLogTime > 5000) {
-                        plugin.getLogger().info("  Progress: " + progress + "%");
-                        lastLogTime = System.currentTimeMillis();
-                        lastProgress = progress;
-                    }
-                }
-                
-                return true;
-            }
-            
-        } catch (Exception e) {
+            downloadStatus = "downloading";
+        }
+        downloadedBytes = 0;
+        downloadTotalBytes = 0;
+
+        int connections = plugin.getConfig().getInt("update-settings.download-connections", 4);
+        ParallelDownloader downloader = new ParallelDownloader(httpClient, connections, 2L * 1024 * 1024,
+            "PaperPanel/2.0.0");
+        try {
+            downloader.download(URI.create(urlString), destination, sha256, (phase, done, total) -> {
+                downloadStatus = phase;
+                downloadedBytes = done;
+                downloadTotalBytes = total;
+            });
+            downloadStatus = "completed";
+            return true;
+        } catch (IOException e) {
+            downloadStatus = "failed";
             plugin.getLogger().severe("Download failed: " + e.getMessage());
             return false;
         }
@@ -998,10 +893,14 @@ public class PaperVersionChecker {
         public final boolean needsCheck;
         public final String backupStatus; // idle, running, completed, failed, skipped
         public final int backupProgress; // 0-100
+        public final String downloadStatus; // idle, downloading, verifying, completed, failed
+        public final long downloadedBytes;
+        public final long downloadTotalBytes;
 
         public UpdateStatus(boolean updateAvailable, boolean updateDownloaded, String currentVersion,
                           String latestVersion, String latestBuild, String downloadUrl,
-                          long lastCheck, boolean needsCheck, String backupStatus, int backupProgress) {
+                          long lastCheck, boolean needsCheck, String backupStatus, int backupProgress,
+                          String downloadStatus, long downloadedBytes, long downloadTotalBytes) {
             this.updateAvailable = updateAvailable;
             this.updateDownloaded = updateDownloaded;
             this.currentVersion = currentVersion;
@@ -1012,6 +911,9 @@ public class PaperVersionChecker {
             this.needsCheck = needsCheck;
             this.backupStatus = backupStatus;
             this.backupProgress = backupProgress;
+            this.downloadStatus = downloadStatus;
+            this.downloadedBytes = downloadedBytes;
+            this.downloadTotalBytes = downloadTotalBytes;
         }
     }
 
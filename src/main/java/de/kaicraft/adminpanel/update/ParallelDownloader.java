@@ -0,0 +1,493 @@
+package de.kaicraft.adminpanel.update;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads a file over several HTTP range requests at once, into a .part file that survives restarts.
+ *
+ * The file is split into segments that are fetched in parallel; how far each segment got is kept in a
+ * .part.state file, so an interrupted download continues where it stopped instead of starting over.
+ * While the segments arrive, the contiguous prefix of the file is hashed, and the finished file is
+ * only renamed into place if its SHA-256 matches. Servers without range support are read in one stream.
+ */
+public class ParallelDownloader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SEGMENT_ATTEMPTS = 5;
+    private static final long STALL_TIMEOUT_MS = 60_000;
+    private static final long STATE_SAVE_INTERVAL_MS = 2000;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    private final HttpClient client;
+    private final int connections;
+    private final long minSegmentSize;
+    private final String userAgent;
+
+    /**
+     * @param connections    maximum number of parallel range requests
+     * @param minSegmentSize files are not split into segments smaller than this
+     */
+    public ParallelDownloader(HttpClient client, int connections, long minSegmentSize, String userAgent) {
+        this.client = client;
+        this.connections = Math.max(1, connections);
+        this.minSegmentSize = Math.max(BUFFER_SIZE, minSegmentSize);
+        this.userAgent = userAgent;
+    }
+
+    /**
+     * Progress of a running download
+     */
+    public interface Listener {
+        /**
+         * @param phase "downloading" or "verifying"
+         */
+        void onProgress(String phase, long bytesDone, long bytesTotal);
+    }
+
+    /**
+     * Download the file and move it to the destination once complete and verified
+     * @param expectedSha256 hex SHA-256 the file must have, or null to skip the check
+     * @throws IOException on network failure (the .part file is kept for resuming) or checksum mismatch
+     */
+    public void download(URI uri, File destination, String expectedSha256, Listener listener) throws IOException {
+        File partFile = new File(destination.getPath() + ".part");
+        File stateFile = new File(destination.getPath() + ".part.state");
+
+        // A zero-length range tells us the size and whether ranges are supported at all
+        HttpResponse<InputStream> probe = send(uri, "bytes=0-0");
+        long size;
+        if (probe.statusCode() == 206) {
+            size = parseContentRange(probe).total;
+            probe.body().close();
+        } else if (probe.statusCode() == 200) {
+            streamWhole(probe, partFile, stateFile, listener);
+            finish(partFile, stateFile, destination, expectedSha256, listener);
+            return;
+        } else {
+            probe.body().close();
+            throw new IOException("Download failed with HTTP " + probe.statusCode());
+        }
+
+        Segments segments = Segments.load(stateFile, size, expectedSha256);
+        if (segments == null || !partFile.isFile()) {
+            segments = Segments.plan(size, expectedSha256, Math.min(connections,
+                (int) Math.max(1, (size + minSegmentSize - 1) / minSegmentSize)));
+        }
+
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(partFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            channel.truncate(size);
+            fetchSegments(uri, channel, segments, stateFile, digest, listener);
+            channel.force(false);
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        if (expectedSha256 != null && !hash.equalsIgnoreCase(expectedSha256)) {
+            partFile.delete();
+            stateFile.delete();
+            throw new IOException("Checksum mismatch: expected " + expectedSha256 + ", got " + hash);
+        }
+        moveIntoPlace(partFile, destination);
+        stateFile.delete();
+    }
+
+    /**
+     * Run one worker per unfinished segment and hash the file's contiguous prefix as it grows
+     */
+    private void fetchSegments(URI uri, FileChannel channel, Segments segments, File stateFile,
+                               MessageDigest digest, Listener listener) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(segments.count(), r -> {
+            Thread thread = new Thread(r, "PaperPanel-Download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Set<InputStream> open = ConcurrentHashMap.newKeySet();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < segments.count(); i++) {
+            if (!segments.isComplete(i)) {
+                int segment = i;
+                workers.add(pool.submit(() -> {
+                    fetchSegment(uri, channel, segments, segment, open);
+                    return null;
+                }));
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long hashed = 0;
+        long lastSave = System.currentTimeMillis();
+        long lastDone = -1;
+        long lastProgress = System.currentTimeMillis();
+        try {
+            while (true) {
+                // Hash whatever is contiguous from the start of the file
+                long available = segments.contiguous();
+                while (hashed < available) {
+                    buffer.clear().limit((int) Math.min(BUFFER_SIZE, available - hashed));
+                    int n = channel.read(buffer, hashed);
+                    if (n < 0) throw new EOFException("Part file shorter than expected");
+                    digest.update(buffer.array(), 0, n);
+                    hashed += n;
+                }
+
+                long done = segments.done();
+                long now = System.currentTimeMillis();
+                listener.onProgress("downloading", done, segments.size);
+                if (done != lastDone) {
+                    lastDone = done;
+                    lastProgress = now;
+                } else if (now - lastProgress > STALL_TIMEOUT_MS) {
+                    // Closing the bodies makes the stalled workers fail and retry from where they are
+                    for (InputStream in : open) {
+                        closeQuietly(in);
+                    }
+                    lastProgress = now;
+                }
+                if (now - lastSave > STATE_SAVE_INTERVAL_MS) {
+                    segments.save(stateFile, channel);
+                    lastSave = now;
+                }
+
+                if (hashed >= segments.size) break;
+                if (allDone(workers)) {
+                    // Surfaces the failure of a worker that gave up
+                    for (Future<?> worker : workers) {
+                        await(worker);
+                    }
+                    if (segments.contiguous() <= hashed) {
+                        throw new IOException("Download ended before the file was complete");
+                    }
+                    continue;
+                }
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download interrupted");
+        } finally {
+            pool.shutdownNow();
+            for (InputStream in : open) {
+                closeQuietly(in);
+            }
+            try {
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            segments.save(stateFile, channel);
+        }
+        listener.onProgress("verifying", segments.size, segments.size);
+    }
+
+    /**
+     * Fetch the rest of one segment, retrying from the current offset when the connection drops
+     */
+    private void fetchSegment(URI uri, FileChannel channel, Segments segments, int segment,
+                              Set<InputStream> open) throws IOException {
+        IOException last = null;
+        for (int attempt = 1; attempt <= SEGMENT_ATTEMPTS && !segments.isComplete(segment); attempt++) {
+            long offset = segments.position(segment);
+            long end = segments.end(segment);
+            try {
+                HttpResponse<InputStream> response = send(uri, "bytes=" + offset + "-" + (end - 1));
+                try (InputStream in = response.body()) {
+                    if (response.statusCode() != 206 || parseContentRange(response).start != offset) {
+                        throw new IOException("Server ignored the range request (HTTP " + response.statusCode() + ")");
+                    }
+                    open.add(in);
+                    try {
+                        byte[] data = new byte[BUFFER_SIZE];
+                        int n;
+                        while (offset < end && (n = in.read(data, 0, (int) Math.min(data.length, end - offset))) > 0) {
+                            ByteBuffer buffer = ByteBuffer.wrap(data, 0, n);
+                            while (buffer.hasRemaining()) {
+                                offset += channel.write(buffer, offset);
+                            }
+                            segments.advance(segment, offset);
+                            attempt = 1;
+                        }
+                    } finally {
+                        open.remove(in);
+                    }
+                }
+                if (!segments.isComplete(segment)) {
+                    throw new EOFException("Connection closed at byte " + offset);
+                }
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Download interrupted");
+                last = e;
+                sleepBeforeRetry(attempt);
+            }
+        }
+        if (!segments.isComplete(segment)) {
+            throw last != null ? last : new IOException("Segment " + segment + " incomplete");
+        }
+    }
+
+    /**
+     * Read a response without range support straight into the part file
+     */
+    private void streamWhole(HttpResponse<InputStream> response, File partFile, File stateFile, Listener listener)
+            throws IOException {
+        stateFile.delete();
+        long total = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long done = 0;
+        try (InputStream in = response.body();
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(partFile), BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+                done += n;
+                listener.onProgress("downloading", done, total);
+            }
+        }
+        if (total >= 0 && done != total) {
+            throw new EOFException("Connection closed at byte " + done + " of " + total);
+        }
+    }
+
+    private void finish(File partFile, File stateFile, File destination, String expectedSha256, Listener listener)
+            throws IOException {
+        listener.onProgress("verifying", partFile.length(), partFile.length());
+        if (expectedSha256 != null) {
+            MessageDigest digest = sha256();
+            try (InputStream in = new FileInputStream(partFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (!hash.equalsIgnoreCase(expectedSha256)) {
+                partFile.delete();
+                throw new IOException("Checksum mismatch: expected " + expectedSha256 + ", got " + hash);
+            }
+        }
+        moveIntoPlace(partFile, destination);
+        stateFile.delete();
+    }
+
+    private HttpResponse<InputStream> send(URI uri, String range) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofSeconds(30))
+            .header("User-Agent", userAgent)
+            .header("Range", range)
+            .GET()
+            .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download interrupted");
+        }
+    }
+
+    private static ContentRange parseContentRange(HttpResponse<?> response) throws IOException {
+        String header = response.headers().firstValue("Content-Range").orElse("");
+        Matcher matcher = CONTENT_RANGE.matcher(header);
+        if (!matcher.find()) {
+            throw new IOException("Missing or invalid Content-Range: " + header);
+        }
+        return new ContentRange(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(3)));
+    }
+
+    private static void moveIntoPlace(File partFile, File destination) throws IOException {
+        try {
+            Files.move(partFile.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean allDone(List<Future<?>> workers) {
+        for (Future<?> worker : workers) {
+            if (!worker.isDone()) return false;
+        }
+        return true;
+    }
+
+    private static void await(Future<?> worker) throws IOException, InterruptedException {
+        try {
+            worker.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Download failed", e.getCause());
+        }
+    }
+
+    private static void sleepBeforeRetry(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(Math.min(30_000, 1000L << (attempt - 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download interrupted");
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Only used to unblock a stalled read
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class ContentRange {
+        final long start;
+        final long total;
+
+        ContentRange(long start, long total) {
+            this.start = start;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Byte ranges of the file and how far each one got. Segment i covers [start(i), end(i)).
+     */
+    private static final class Segments {
+        final long size;
+        final String sha256;
+        final long[] starts;
+        final AtomicLongArray positions;
+
+        private Segments(long size, String sha256, long[] starts, long[] positions) {
+            this.size = size;
+            this.sha256 = sha256;
+            this.starts = starts;
+            this.positions = new AtomicLongArray(positions);
+        }
+
+        static Segments plan(long size, String sha256, int count) {
+            long[] starts = new long[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = size * i / count;
+            }
+            return new Segments(size, sha256, starts, starts.clone());
+        }
+
+        /**
+         * Load the progress of an earlier attempt, or null if it was for a different file
+         */
+        static Segments load(File stateFile, long size, String sha256) {
+            if (!stateFile.isFile()) return null;
+            Properties state = new Properties();
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+                if (Long.parseLong(state.getProperty("size", "-1")) != size
+                        || !Objects.equals(state.getProperty("sha256"), sha256)) {
+                    return null;
+                }
+                String[] starts = state.getProperty("starts", "").split(",");
+                String[] positions = state.getProperty("positions", "").split(",");
+                if (starts.length == 0 || starts.length != positions.length) return null;
+                long[] s = new long[starts.length];
+                long[] p = new long[positions.length];
+                for (int i = 0; i < s.length; i++) {
+                    s[i] = Long.parseLong(starts[i]);
+                    p[i] = Long.parseLong(positions[i]);
+                }
+                return new Segments(size, sha256, s, p);
+            } catch (IOException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Record the progress so far. The positions are taken before the part file is flushed to disk,
+         * so a crash can never leave a state that claims bytes the part file does not have.
+         */
+        void save(File stateFile, FileChannel channel) {
+            Properties state = new Properties();
+            state.setProperty("size", String.valueOf(size));
+            if (sha256 != null) {
+                state.setProperty("sha256", sha256);
+            }
+            StringJoiner s = new StringJoiner(",");
+            StringJoiner p = new StringJoiner(",");
+            for (int i = 0; i < starts.length; i++) {
+                s.add(String.valueOf(starts[i]));
+                p.add(String.valueOf(positions.get(i)));
+            }
+            state.setProperty("starts", s.toString());
+            state.setProperty("positions", p.toString());
+            try {
+                channel.force(false);
+                try (OutputStream out = new FileOutputStream(stateFile)) {
+                    state.store(out, null);
+                }
+            } catch (IOException ignored) {
+                // Resuming is best effort; the worst case is starting over
+            }
+        }
+
+        int count() {
+            return starts.length;
+        }
+
+        long end(int segment) {
+            return segment + 1 < starts.length ? starts[segment + 1] : size;
+        }
+
+        long position(int segment) {
+            return positions.get(segment);
+        }
+
+        void advance(int segment, long position) {
+            positions.set(segment, position);
+        }
+
+        boolean isComplete(int segment) {
+            return positions.get(segment) >= end(segment);
+        }
+
+        /**
+         * Bytes downloaded over all segments
+         */
+        long done() {
+            long done = 0;
+            for (int i = 0; i < starts.length; i++) {
+                done += positions.get(i) - starts[i];
+            }
+            return done;
+        }
+
+        /**
+         * Length of the prefix of the file that is completely downloaded
+         */
+        long contiguous() {
+            for (int i = 0; i < starts.length; i++) {
+                if (!isComplete(i)) return positions.get(i);
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package de.kaicraft.adminpanel.web;
+
+import com.google.gson.Gson;
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.auth.AuthManager;
+import de.kaicraft.adminpanel.auth.Permission;
+import de.kaicraft.adminpanel.backup.BackupJob;
+import de.kaicraft.adminpanel.backup.BackupJobQueue;
+import de.kaicraft.adminpanel.config.ConfigManager;
+import io.javalin.websocket.WsCloseContext;
+import io.javalin.websocket.WsConnectContext;
+import io.javalin.websocket.WsMessageContext;
+import org.eclipse.jetty.websocket.api.StatusCode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket handler for the /ws/backups stream.
+ * A connecting client gets the active backup jobs, then one frame per state change
+ * and progress updates of the running job a few times per second.
+ */
+public class BackupJobStreamHandler {
+    private final ServerAdminPanelPlugin plugin;
+    private final AuthManager authManager;
+    private final BackupJobQueue queue;
+    private final Gson gson;
+    private final Map<String, ClientSession> clients = new ConcurrentHashMap<>();
+    private final int clientHighWaterLines;
+    private final int maxQueuedEvents;
+
+    public BackupJobStreamHandler(ServerAdminPanelPlugin plugin, AuthManager authManager,
+                                  BackupJobQueue queue, ConfigManager config) {
+        this.plugin = plugin;
+        this.authManager = authManager;
+        this.queue = queue;
+        this.gson = new Gson();
+        this.clientHighWaterLines = config.getConsoleClientHighWaterLines();
+        this.maxQueuedEvents = Math.max(16, config.getEventClientMaxQueued());
+        queue.setListener(this::broadcast);
+    }
+
+    /**
+     * Handle WebSocket connection
+     */
+    public void onConnect(WsConnectContext ctx) {
+        try {
+            String token = ctx.queryParam("token");
+            String username = token != null && !token.isEmpty() ? authManager.verifyToken(token) : null;
+
+            if (username == null) {
+                ctx.send(gson.toJson(Map.of(
+                        "type", "error",
+                        "message", "Invalid or expired token"
+                )));
+                ctx.closeSession();
+                return;
+            }
+
+            if (!authManager.hasPermission(username, Permission.CREATE_BACKUP)) {
+                ctx.send(gson.toJson(Map.of(
+                        "type", "error",
+                        "message", "You don't have permission to manage backups"
+                )));
+                ctx.closeSession();
+                return;
+            }
+
+            ctx.attribute("username", username);
+
+            String sessionId = ctx.sessionId();
+            ClientSession session = new ClientSession(ctx, username, gson, clientHighWaterLines,
+                    ClientSession.SlowClientPolicy.DISCONNECT, closed -> clients.remove(sessionId, closed));
+
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "jobs");
+            frame.put("jobs", queue.getActiveJobs());
+            session.sendRaw(gson.toJson(frame));
+            clients.put(ctx.sessionId(), session);
+
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error in backup stream connection: " + e.getMessage());
+            try {
+                ctx.closeSession();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Handle incoming messages (only keep-alive pings)
+     */
+    public void onMessage(WsMessageContext ctx) {
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> data = gson.fromJson(ctx.message(), Map.class);
+            ClientSession session = clients.get(ctx.sessionId());
+            if (session != null && data != null && "ping".equals(data.get("type"))) {
+                session.sendControl(Map.of("type", "pong"));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error processing backup stream message: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handle WebSocket disconnection
+     */
+    public void onClose(WsCloseContext ctx) {
+        clients.remove(ctx.sessionId());
+    }
+
+    /**
+     * Handle WebSocket errors
+     */
+    public void onError(io.javalin.websocket.WsErrorContext ctx) {
+        plugin.getLogger().warning("Backup stream error: " + ctx.error().getMessage());
+        clients.remove(ctx.sessionId());
+    }
+
+    /**
+     * Send a job update to every client. Called from backup threads, so it only enqueues.
+     */
+    private void broadcast(BackupJob job) {
+        if (clients.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "job");
+        frame.put("job", job);
+        String json = gson.toJson(frame);
+
+        clients.values().removeIf(client -> {
+            try {
+                if (client.isClosed()) {
+                    return true;
+                }
+                if (client.getQueuedFrames() >= maxQueuedEvents) {
+                    client.close(StatusCode.POLICY_VIOLATION, "Client too slow");
+                    return true;
+                }
+                client.sendRaw(json);
+                return false;
+            } catch (Exception e) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Close all backup stream connections
+     */
+    public void closeAll() {
+        clients.values().forEach(client -> client.close(StatusCode.SHUTDOWN, "Server is shutting down"));
+        clients.clear();
+    }
+}
@@ -0,0 +1,399 @@
+package de.kaicraft.adminpanel.web;
+
+import com.google.gson.Gson;
+import de.kaicraft.adminpanel.model.ConsoleLine;
+import io.javalin.websocket.WsContext;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Outbound side of one console WebSocket connection.
+ * Every client has its own bounded queue and at most one asynchronous write in
+ * flight, so a slow connection only ever delays itself. Log batches that pile up
+ * behind a pending write are coalesced into a single frame.
+ */
+public class ClientSession {
+    private final WsContext ctx;
+    private final String username;
+    private final Gson gson;
+    private final int highWaterLines;
+    private final SlowClientPolicy policy;
+    private final long connectedAt;
+    private final Consumer<ClientSession> onClosed;
+
+    // Guarded by this
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private int queuedLines = 0;
+    private long pendingDropped = 0;
+    private boolean inFlight = false;
+    private boolean pumping = false;
+    private boolean closed = false;
+
+    // Stats (guarded by this)
+    private long droppedLines = 0;
+    private long lagEvents = 0;
+    private long framesSent = 0;
+    private long linesSent = 0;
+    private int maxQueuedLines = 0;
+
+    /**
+     * @param onClosed called once when the session closes, including after a failed write,
+     *                 so the owner can drop it from its client map right away
+     */
+    public ClientSession(WsContext ctx, String username, Gson gson, int highWaterLines, SlowClientPolicy policy,
+                         Consumer<ClientSession> onClosed) {
+        this.ctx = ctx;
+        this.username = username;
+        this.gson = gson;
+        this.highWaterLines = Math.max(1, highWaterLines);
+        this.policy = policy;
+        this.connectedAt = System.currentTimeMillis();
+        this.onClosed = onClosed;
+    }
+
+    /**
+     * Queue a control message (welcome, pong, errors). Never dropped.
+     */
+    public void sendControl(Object message) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            queue.add(new Frame(gson.toJson(message)));
+        }
+        pump();
+    }
+
+    /**
+     * Queue a pre-serialized frame as-is (history replay). Never dropped.
+     */
+    public void sendRaw(String json) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            queue.add(new Frame(json));
+        }
+        pump();
+    }
+
+    /**
+     * Queue a broadcast batch of log lines, applying the high-water policy
+     */
+    public void offerLines(LogBatch batch) {
+        boolean disconnect = false;
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            if (queuedLines + batch.lines.size() > highWaterLines) {
+                if (policy == SlowClientPolicy.DISCONNECT) {
+                    disconnect = true;
+                } else {
+                    // Skip ahead: discard everything still waiting and tell the client once
+                    int discarded = discardQueuedLines() + batch.lines.size();
+                    pendingDropped += discarded;
+                    droppedLines += discarded;
+                    lagEvents++;
+                    batch = null;
+                }
+            }
+
+            if (!disconnect && batch != null) {
+                Frame tail = queue.peekLast();
+                if (tail != null && tail.batches != null) {
+                    tail.batches.add(batch);
+                } else {
+                    queue.add(new Frame(batch));
+                }
+                queuedLines += batch.lines.size();
+                maxQueuedLines = Math.max(maxQueuedLines, queuedLines);
+            }
+        }
+
+        if (disconnect) {
+            close(StatusCode.POLICY_VIOLATION, "Client too slow");
+            return;
+        }
+        pump();
+    }
+
+    private int discardQueuedLines() {
+        int discarded = 0;
+        Iterator<Frame> it = queue.iterator();
+        while (it.hasNext()) {
+            Frame frame = it.next();
+            if (frame.batches != null) {
+                discarded += frame.lineCount();
+                it.remove();
+            }
+        }
+        queuedLines = 0;
+        return discarded;
+    }
+
+    /**
+     * Start the next write if none is in flight.
+     * Only one thread pumps a session at a time; writes that complete inline, or
+     * frames queued by other threads meanwhile, are picked up by its loop instead
+     * of recursing. The pumping flag is cleared under the same lock that finds
+     * nothing left to send, so a frame queued concurrently is never stranded.
+     */
+    private void pump() {
+        synchronized (this) {
+            if (pumping) {
+                return;
+            }
+            pumping = true;
+        }
+        boolean released = false;
+        try {
+            while (true) {
+                String json;
+                int lines;
+                synchronized (this) {
+                    if (inFlight || closed) {
+                        pumping = false;
+                        released = true;
+                        return;
+                    }
+                    if (pendingDropped > 0) {
+                        json = gson.toJson(Map.of(
+                                "type", "lagged",
+                                "dropped", pendingDropped
+                        ));
+                        lines = 0;
+                        pendingDropped = 0;
+                    } else {
+                        Frame frame = queue.poll();
+                        if (frame == null) {
+                            pumping = false;
+                            released = true;
+                            return;
+                        }
+                        lines = frame.lineCount();
+                        queuedLines -= lines;
+                        json = frame.batches != null ? toJson(frame.batches) : frame.json;
+                    }
+                    inFlight = true;
+                }
+
+                if (!ctx.session.isOpen()) {
+                    markClosed();
+                    return;
+                }
+
+                final int sentLines = lines;
+                ctx.session.getRemote().sendString(json, new WriteCallback() {
+                    @Override
+                    public void writeSuccess() {
+                        synchronized (ClientSession.this) {
+                            inFlight = false;
+                            framesSent++;
+                            linesSent += sentLines;
+                            ClientSession.this.notifyAll();
+                        }
+                        pump();
+                    }
+
+                    @Override
+                    public void writeFailed(Throwable error) {
+                        markClosed();
+                    }
+                });
+            }
+        } finally {
+            if (!released) {
+                synchronized (this) {
+                    pumping = false;
+                }
+            }
+        }
+    }
+
+    private String toJson(List<LogBatch> batches) {
+        if (batches.size() == 1) {
+            return batches.get(0).json(gson);
+        }
+
+        List<ConsoleLine> lines = new ArrayList<>();
+        for (LogBatch batch : batches) {
+            lines.addAll(batch.lines);
+        }
+        return gson.toJson(Map.of(
+                "type", "logs",
+                "lines", lines,
+                "epoch", batches.get(0).epoch,
+                "lastSeq", lines.get(lines.size() - 1).getSeq()
+        ));
+    }
+
+    private void markClosed() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            inFlight = false;
+            queue.clear();
+            queuedLines = 0;
+            notifyAll();
+        }
+        onClosed.accept(this);
+    }
+
+    /**
+     * Close the connection, discarding anything still queued
+     */
+    public void close(int statusCode, String reason) {
+        markClosed();
+        try {
+            ctx.session.close(statusCode, reason);
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Wait until everything queued so far has been written, the session closed, or the timeout passed
+     * @return true if nothing is left to send
+     */
+    public synchronized boolean awaitDrained(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (!closed && (inFlight || !queue.isEmpty() || pendingDropped > 0)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed || !ctx.session.isOpen();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Snapshot of this client's queue state for status output and the metrics endpoint
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("username", username);
+        stats.put("connectedAt", connectedAt);
+        stats.put("queuedFrames", queue.size());
+        stats.put("queuedLines", queuedLines);
+        stats.put("maxQueuedLines", maxQueuedLines);
+        stats.put("highWaterLines", highWaterLines);
+        stats.put("droppedLines", droppedLines);
+        stats.put("lagEvents", lagEvents);
+        stats.put("framesSent", framesSent);
+        stats.put("linesSent", linesSent);
+        stats.put("writePending", inFlight);
+        return stats;
+    }
+
+    public synchronized int getQueuedFrames() {
+        return queue.size();
+    }
+
+    public synchronized int getQueuedLines() {
+        return queuedLines;
+    }
+
+    public synchronized long getDroppedLines() {
+        return droppedLines;
+    }
+
+    /**
+     * One broadcast batch, shared by all clients so it is serialized at most once
+     */
+    public static class LogBatch {
+        private final long epoch;
+        private final List<ConsoleLine> lines;
+        private volatile String json;
+
+        public LogBatch(long epoch, List<ConsoleLine> lines) {
+            this.epoch = epoch;
+            this.lines = List.copyOf(lines);
+        }
+
+        String json(Gson gson) {
+            String cached = json;
+            if (cached == null) {
+                cached = gson.toJson(Map.of(
+                        "type", "logs",
+                        "lines", lines,
+                        "epoch", epoch,
+                        "lastSeq", lines.get(lines.size() - 1).getSeq()
+                ));
+                json = cached;
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Queued outbound frame: either a ready JSON string or a run of coalesced log batches
+     */
+    private static final class Frame {
+        final String json;
+        final List<LogBatch> batches;
+
+        Frame(String json) {
+            this.json = json;
+            this.batches = null;
+        }
+
+        Frame(LogBatch batch) {
+            this.json = null;
+            this.batches = new ArrayList<>(2);
+            this.batches.add(batch);
+        }
+
+        int lineCount() {
+            if (batches == null) {
+                return 0;
+            }
+            int count = 0;
+            for (LogBatch batch : batches) {
+                count += batch.lines.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * What to do with a client whose queue passes the high-water mark
+     */
+    public enum SlowClientPolicy {
+        DROP,
+        DISCONNECT;
+
+        public static SlowClientPolicy fromConfig(String value) {
+            if (value != null && value.trim().equalsIgnoreCase("disconnect")) {
+                return DISCONNECT;
+            }
+            return DROP;
+        }
+    }
+}
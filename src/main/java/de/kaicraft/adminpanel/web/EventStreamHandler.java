@@ -0,0 +1,189 @@
+package de.kaicraft.adminpanel.web;
+
+import com.google.gson.Gson;
+import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
+import de.kaicraft.adminpanel.auth.AuthManager;
+import de.kaicraft.adminpanel.auth.Permission;
+import de.kaicraft.adminpanel.config.ConfigManager;
+import de.kaicraft.adminpanel.events.PlayerPresenceTracker;
+import io.javalin.websocket.WsCloseContext;
+import io.javalin.websocket.WsConnectContext;
+import io.javalin.websocket.WsMessageContext;
+import org.eclipse.jetty.websocket.api.StatusCode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket handler for the /ws/events stream.
+ * A connecting client gets a snapshot of online players (or just the deltas it missed,
+ * when it passes ?epoch=&since= from its last frame), then one small frame per change.
+ */
+public class EventStreamHandler {
+    private final ServerAdminPanelPlugin plugin;
+    private final AuthManager authManager;
+    private final PlayerPresenceTracker tracker;
+    private final Gson gson;
+    private final Map<String, ClientSession> clients = new ConcurrentHashMap<>();
+    private final int clientHighWaterLines;
+    private final int maxQueuedEvents;
+
+    public EventStreamHandler(ServerAdminPanelPlugin plugin, AuthManager authManager,
+                              PlayerPresenceTracker tracker, ConfigManager config) {
+        this.plugin = plugin;
+        this.authManager = authManager;
+        this.tracker = tracker;
+        this.gson = new Gson();
+        this.clientHighWaterLines = config.getConsoleClientHighWaterLines();
+        this.maxQueuedEvents = Math.max(16, config.getEventClientMaxQueued());
+        tracker.setSubscriber(this::broadcast);
+    }
+
+    /**
+     * Handle WebSocket connection
+     */
+    public void onConnect(WsConnectContext ctx) {
+        try {
+            String token = ctx.queryParam("token");
+            String username = token != null && !token.isEmpty() ? authManager.verifyToken(token) : null;
+
+            if (username == null) {
+                ctx.send(gson.toJson(Map.of(
+                        "type", "error",
+                        "message", "Invalid or expired token"
+                )));
+                ctx.closeSession();
+                return;
+            }
+
+            if (!authManager.hasPermission(username, Permission.VIEW_PLAYERS)) {
+                ctx.send(gson.toJson(Map.of(
+                        "type", "error",
+                        "message", "You don't have permission to view players"
+                )));
+                ctx.closeSession();
+                return;
+            }
+
+            ctx.attribute("username", username);
+
+            String sessionId = ctx.sessionId();
+            ClientSession session = new ClientSession(ctx, username, gson, clientHighWaterLines,
+                    ClientSession.SlowClientPolicy.DISCONNECT, closed -> clients.remove(sessionId, closed));
+
+            long epoch = parseLong(ctx.queryParam("epoch"));
+            long since = parseLong(ctx.queryParam("since"));
+            tracker.sync(epoch, since, sync -> {
+                Map<String, Object> frame = new HashMap<>();
+                frame.put("epoch", sync.epoch);
+                frame.put("version", sync.version);
+                if (sync.snapshot != null) {
+                    frame.put("type", "snapshot");
+                    frame.put("players", sync.snapshot);
+                } else {
+                    frame.put("type", "deltas");
+                    frame.put("events", sync.deltas);
+                }
+                session.sendRaw(gson.toJson(frame));
+                clients.put(ctx.sessionId(), session);
+            });
+
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error in event stream connection: " + e.getMessage());
+            try {
+                ctx.closeSession();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Handle incoming messages (only keep-alive pings)
+     */
+    public void onMessage(WsMessageContext ctx) {
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> data = gson.fromJson(ctx.message(), Map.class);
+            ClientSession session = clients.get(ctx.sessionId());
+            if (session != null && data != null && "ping".equals(data.get("type"))) {
+                session.sendControl(Map.of("type", "pong"));
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error processing event stream message: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handle WebSocket disconnection
+     */
+    public void onClose(WsCloseContext ctx) {
+        clients.remove(ctx.sessionId());
+    }
+
+    /**
+     * Handle WebSocket errors
+     */
+    public void onError(io.javalin.websocket.WsErrorContext ctx) {
+        plugin.getLogger().warning("Event stream error: " + ctx.error().getMessage());
+        clients.remove(ctx.sessionId());
+    }
+
+    /**
+     * Fan one event out to every client. Runs under the tracker lock, so it only enqueues.
+     * A client that stops reading is disconnected rather than buffered without bound;
+     * it resyncs from its last version when it reconnects.
+     */
+    private void broadcast(PlayerPresenceTracker.PresenceEvent event) {
+        if (clients.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "event");
+        frame.put("event", event);
+        String json = gson.toJson(frame);
+
+        clients.values().removeIf(client -> {
+            try {
+                if (client.isClosed()) {
+                    return true;
+                }
+                if (client.getQueuedFrames() >= maxQueuedEvents) {
+                    client.close(StatusCode.POLICY_VIOLATION, "Client too slow");
+                    return true;
+                }
+                client.sendRaw(json);
+                return false;
+            } catch (Exception e) {
+                return true;
+            }
+        });
+    }
+
+    private long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Get number of connected clients
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Close all event stream connections
+     */
+    public void closeAll() {
+        clients.values().forEach(client -> client.close(StatusCode.SHUTDOWN, "Server is shutting down"));
+        clients.clear();
+    }
+}
@@ -0,0 +1,174 @@
+package de.kaicraft.adminpanel.web;
+
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+import jakarta.servlet.ServletOutputStream;
+import org.eclipse.jetty.server.HttpOutput;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Sends a file with support for resuming: ETag / If-None-Match, single byte ranges
+ * (Range, If-Range) and HEAD requests.
+ *
+ * The body is handed to Jetty as memory-mapped slices, which Jetty writes to the
+ * socket without copying them through heap buffers. Outside Jetty it falls back to
+ * FileChannel.transferTo.
+ */
+public final class RangedFileResponse {
+    // Mapped per slice so a 20 GB archive never needs one huge mapping
+    private static final long SLICE_SIZE = 16L * 1024 * 1024;
+
+    private RangedFileResponse() {
+    }
+
+    /**
+     * Answer the request with the file (or the requested part of it).
+     * The file must not change while it is being served; backup archives are written once.
+     */
+    public static void send(Context ctx, File file, String contentType, String downloadName) throws IOException {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String etag = etag(length, lastModified);
+        String lastModifiedHeader = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneOffset.UTC));
+
+        ctx.header("Accept-Ranges", "bytes");
+        ctx.header("ETag", etag);
+        ctx.header("Last-Modified", lastModifiedHeader);
+        ctx.header("Content-Disposition", "attachment; filename=\"" + downloadName + "\"");
+
+        if (matchesAny(ctx.header("If-None-Match"), etag)) {
+            ctx.status(304);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = ctx.header("Range");
+        // Malformed or multi-range requests get the whole file, as RFC 9110 allows
+        long[] parsed = range != null && ifRangeMatches(ctx.header("If-Range"), etag, lastModified)
+            ? parseRange(range, length) : null;
+        if (parsed != null) {
+            if (parsed.length == 0) {
+                ctx.status(416);
+                ctx.header("Content-Range", "bytes */" + length);
+                return;
+            } else {
+                start = parsed[0];
+                end = parsed[1];
+                ctx.status(206);
+                ctx.header("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        ctx.contentType(contentType);
+        ctx.header("Content-Length", String.valueOf(count));
+        if (ctx.method() == HandlerType.HEAD || count <= 0) {
+            return;
+        }
+
+        ServletOutputStream out = ctx.res().getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (out instanceof HttpOutput) {
+                HttpOutput jettyOut = (HttpOutput) out;
+                for (long position = start; position <= end; position += SLICE_SIZE) {
+                    long size = Math.min(SLICE_SIZE, end + 1 - position);
+                    MappedByteBuffer slice = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                    jettyOut.sendContent(slice);
+                }
+            } else {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                while (position <= end) {
+                    long sent = channel.transferTo(position, end + 1 - position, target);
+                    if (sent <= 0) break;
+                    position += sent;
+                }
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Strong validator: backup archives are written once, so size and modification time identify the content
+     */
+    public static String etag(long length, long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    private static boolean matchesAny(String header, String etag) {
+        if (header == null) return false;
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ranges only apply if the client still has the same version of the file
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) return true;
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            // If-Range needs a strong comparison, so weak tags never match
+            return value.equals(etag);
+        }
+        try {
+            long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return lastModified / 1000 == date / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse a single "bytes=" range
+     * @return {start, end} (inclusive), an empty array if unsatisfiable, or null to ignore the header
+     */
+    static long[] parseRange(String header, long length) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = value.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return new long[0];
+                return new long[] {Math.max(0, length - suffix), length - 1};
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start < 0 || start >= length) return new long[0];
+            if (end < start) return null;
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
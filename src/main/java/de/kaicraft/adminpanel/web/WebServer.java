@@ -8,7 +8,10 @@ import de.kaicraft.adminpanel.auth.PermissionMiddleware;
 import de.kaicraft.adminpanel.auth.Permission;
 import de.kaicraft.adminpanel.backup.BackupManager;
 import de.kaicraft.adminpanel.config.ConfigManager;
+import de.kaicraft.adminpanel.console.ConsoleLogPipeline;
 import de.kaicraft.adminpanel.database.DatabaseManager;
+import de.kaicraft.adminpanel.events.PlayerPresenceTracker;
+import de.kaicraft.adminpanel.util.ApiResponse;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 
@@ -27,6 +30,7 @@ public class WebServer {
     // API handlers
     private final AuthAPI authAPI;
     private final DashboardAPI dashboardAPI;
+    private final MetricsAPI metricsAPI;
     private final ConsoleAPI consoleAPI;
     private final PluginAPI pluginAPI;
     private final PlayerAPI playerAPI;
@@ -34,6 +38,9 @@ public class WebServer {
     private final WorldAPI worldAPI;
     private final BroadcastAPI broadcastAPI;
     private final WebSocketHandler webSocketHandler;
+    private final EventStreamHandler eventStreamHandler;
+    private final BackupJobStreamHandler backupJobStreamHandler;
+    private final ConsoleLogPipeline consolePipeline;
     private final UserManagementAPI userManagementAPI;
     private final LogViewerAPI logViewerAPI;
     private final ConfigEditorAPI configEditorAPI;
@@ -48,7 +55,8 @@ public class WebServer {
 
     public WebServer(ServerAdminPanelPlugin plugin, ConfigManager config, AuthManager authManager,
                      PlayerAPI playerAPI, ServerControlAPI serverControlAPI, WorldAPI worldAPI,
-                     BackupManager backupManager, DatabaseManager databaseManager) {
+                     BackupManager backupManager, DatabaseManager databaseManager,
+                     PlayerPresenceTracker presenceTracker) {
         this.plugin = plugin;
         this.config = config;
         this.authManager = authManager;
@@ -58,6 +66,7 @@ public class WebServer {
         // Initialize API handlers
         this.authAPI = new AuthAPI(plugin, authManager);
         this.dashboardAPI = new DashboardAPI(plugin);
+        this.metricsAPI = new MetricsAPI(plugin);
         this.consoleAPI = new ConsoleAPI(plugin, config);
         this.pluginAPI = new PluginAPI(plugin);
         this.playerAPI = playerAPI;
@@ -65,6 +74,9 @@ public class WebServer {
         this.worldAPI = worldAPI;
         this.broadcastAPI = new BroadcastAPI(plugin);
         this.webSocketHandler = new WebSocketHandler(plugin, authManager, consoleAPI, config);
+        this.eventStreamHandler = new EventStreamHandler(plugin, authManager, presenceTracker, config);
+        this.backupJobStreamHandler = new BackupJobStreamHandler(plugin, authManager, backupManager.getJobQueue(), config);
+        this.consolePipeline = new ConsoleLogPipeline(plugin, config, consoleAPI, webSocketHandler);
         this.userManagementAPI = new UserManagementAPI(plugin, authManager);
         this.logViewerAPI = new LogViewerAPI(plugin);
         this.configEditorAPI = new ConfigEditorAPI(plugin);
@@ -114,6 +126,8 @@ public class WebServer {
             setupRoutes();
             setupExceptionHandlers();
 
+            consolePipeline.start();
+
             plugin.getLogger().info("Web server started successfully!");
             plugin.getLogger().info("Access PaperPanel at: http://" +
                     (host.equals("0.0.0.0") ? "localhost" : host) + ":" + port);
@@ -146,6 +160,9 @@ public class WebServer {
         app.before("/api/v1/dashboard/stats", permissionMiddleware.requirePermission(Permission.VIEW_DASHBOARD));
         app.get("/api/v1/dashboard/stats", dashboardAPI::getStats);
         
+        app.before("/api/v1/metrics/series", permissionMiddleware.requirePermission(Permission.VIEW_DASHBOARD));
+        app.get("/api/v1/metrics/series", metricsAPI::getSeries);
+
         app.before("/api/v1/dashboard/update-status", permissionMiddleware.requirePermission(Permission.VIEW_DASHBOARD));
         app.get("/api/v1/dashboard/update-status", dashboardAPI::getUpdateStatus);
         
@@ -161,6 +178,9 @@ public class WebServer {
         // Console routes
         app.before("/api/v1/console/history", permissionMiddleware.requirePermission(Permission.VIEW_CONSOLE));
         app.get("/api/v1/console/history", consoleAPI::getHistory);
+
+        app.before("/api/v1/console/metrics", permissionMiddleware.requirePermission(Permission.VIEW_CONSOLE));
+        app.get("/api/v1/console/metrics", this::consoleMetrics);
         
         app.before("/api/v1/console/command", permissionMiddleware.requirePermission(Permission.EXECUTE_COMMANDS));
         app.post("/api/v1/console/command", consoleAPI::executeCommand);
@@ -353,6 +373,22 @@ public class WebServer {
             ws.onError(webSocketHandler::onError);
         });
 
+        // WebSocket route for player presence snapshots and deltas
+        app.ws("/ws/events", ws -> {
+            ws.onConnect(eventStreamHandler::onConnect);
+            ws.onMessage(eventStreamHandler::onMessage);
+            ws.onClose(eventStreamHandler::onClose);
+            ws.onError(eventStreamHandler::onError);
+        });
+
+        // WebSocket route for backup job progress
+        app.ws("/ws/backups", ws -> {
+            ws.onConnect(backupJobStreamHandler::onConnect);
+            ws.onMessage(backupJobStreamHandler::onMessage);
+            ws.onClose(backupJobStreamHandler::onClose);
+            ws.onError(backupJobStreamHandler::onError);
+        });
+
         // API info endpoint
         app.get("/api/v1/info", ctx -> {
             ctx.json(Map.of(
@@ -364,6 +400,8 @@ public class WebServer {
                             "login", "POST /api/v1/auth/login",
                             "dashboard", "/api/v1/dashboard/stats",
                             "console", "/ws/console",
+                            "events", "/ws/events",
+                            "backupJobs", "/ws/backups",
                             "plugins", "/api/v1/plugins"
                     )
             ));
@@ -445,13 +483,35 @@ public class WebServer {
         app.post("/api/v1/backups/schedules", backupAPI::saveSchedule);
 
         app.before("/api/v1/backups/schedules/{id}", permissionMiddleware.requirePermission(Permission.MANAGE_AUTO_BACKUP));
+        app.put("/api/v1/backups/schedules/{id}", backupAPI::saveSchedule);
         app.delete("/api/v1/backups/schedules/{id}", backupAPI::deleteSchedule);
 
+        // Job and restore routes come before /{id} so "jobs" and "restore" are not taken for a backup ID
+        app.before("/api/v1/backups/jobs", permissionMiddleware.requirePermission(Permission.CREATE_BACKUP));
+        app.get("/api/v1/backups/jobs", backupAPI::listJobs);
+
+        app.before("/api/v1/backups/jobs/{id}/cancel", permissionMiddleware.requirePermission(Permission.CREATE_BACKUP));
+        app.post("/api/v1/backups/jobs/{id}/cancel", backupAPI::cancelJob);
+
+        app.before("/api/v1/backups/restore/pending", permissionMiddleware.requirePermission(Permission.RESTORE_BACKUP));
+        app.get("/api/v1/backups/restore/pending", backupAPI::getPendingRestore);
+        app.delete("/api/v1/backups/restore/pending", backupAPI::cancelPendingRestore);
+
         app.before("/api/v1/backups/{id}", permissionMiddleware.requirePermission(Permission.CREATE_BACKUP));
         app.get("/api/v1/backups/{id}", backupAPI::getBackup);
 
         app.before("/api/v1/backups/{id}/download", permissionMiddleware.requirePermission(Permission.DOWNLOAD_BACKUP));
         app.get("/api/v1/backups/{id}/download", backupAPI::downloadBackup);
+        app.head("/api/v1/backups/{id}/download", backupAPI::downloadBackup);
+
+        app.before("/api/v1/backups/{id}/entries", permissionMiddleware.requirePermission(Permission.CREATE_BACKUP));
+        app.get("/api/v1/backups/{id}/entries", backupAPI::listEntries);
+
+        app.before("/api/v1/backups/{id}/verify", permissionMiddleware.requirePermission(Permission.CREATE_BACKUP));
+        app.post("/api/v1/backups/{id}/verify", backupAPI::verifyBackup);
+
+        app.before("/api/v1/backups/{id}/restore", permissionMiddleware.requirePermission(Permission.RESTORE_BACKUP));
+        app.post("/api/v1/backups/{id}/restore", backupAPI::restoreBackup);
 
         app.delete("/api/v1/backups/{id}", ctx -> {
             permissionMiddleware.requirePermission(Permission.DELETE_BACKUP).handle(ctx);
@@ -526,14 +586,36 @@ public class WebServer {
         ));
     }
 
+    /**
+     * Console stream metrics: shared handoff queue plus per-client outbound queues
+     */
+    private void consoleMetrics(Context ctx) {
+        ctx.json(ApiResponse.success(Map.of(
+                "pipeline", Map.of(
+                        "queued", consolePipeline.getQueuedCount(),
+                        "capacity", consolePipeline.getCapacity(),
+                        "accepted", consolePipeline.getAcceptedCount(),
+                        "dropped", consolePipeline.getDroppedCount(),
+                        "batchesSent", consolePipeline.getBatchesSent(),
+                        "linesSent", consolePipeline.getLinesSent(),
+                        "overflowPolicy", consolePipeline.getOverflowPolicy().name()
+                ),
+                "clients", webSocketHandler.getClientStats()
+        )));
+    }
+
     /**
      * Stop the web server
      */
     public void stop() {
         if (app != null) {
             plugin.getLogger().info("Stopping web server...");
+            consolePipeline.stop();
             webSocketHandler.closeAll();
+            eventStreamHandler.closeAll();
+            backupJobStreamHandler.closeAll();
             app.stop();
+            logViewerAPI.shutdown();
             plugin.getLogger().info("Web server stopped");
         }
     }
@@ -552,6 +634,20 @@ public class WebServer {
         return webSocketHandler;
     }
 
+    /**
+     * Get the player event stream handler
+     */
+    public EventStreamHandler getEventStreamHandler() {
+        return eventStreamHandler;
+    }
+
+    /**
+     * Get the console log pipeline
+     */
+    public ConsoleLogPipeline getConsolePipeline() {
+        return consolePipeline;
+    }
+
     /**
      * Get the Updates API handler
      */
@@ -5,25 +5,37 @@ import de.kaicraft.adminpanel.ServerAdminPanelPlugin;
 import de.kaicraft.adminpanel.api.ConsoleAPI;
 import de.kaicraft.adminpanel.auth.AuthManager;
 import de.kaicraft.adminpanel.config.ConfigManager;
+import de.kaicraft.adminpanel.console.ConsoleHistory;
+import de.kaicraft.adminpanel.model.ConsoleLine;
 import io.javalin.websocket.WsCloseContext;
 import io.javalin.websocket.WsConnectContext;
 import io.javalin.websocket.WsMessageContext;
 import org.bukkit.Bukkit;
+import org.eclipse.jetty.websocket.api.StatusCode;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket handler for real-time console streaming
  */
 public class WebSocketHandler {
+    // How long shutdown waits for the goodbye frames to reach the clients
+    private static final long SHUTDOWN_DRAIN_MILLIS = 2000;
+
     private final ServerAdminPanelPlugin plugin;
     private final AuthManager authManager;
     private final ConsoleAPI consoleAPI;
     private final ConfigManager config;
     private final Gson gson;
-    private final Set<WsConnectContext> clients;
+    private final Map<String, ClientSession> clients;
+    private final int clientHighWaterLines;
+    private final ClientSession.SlowClientPolicy slowClientPolicy;
+    // Orders history replay against live broadcasts so reconnecting clients see no gaps
+    private final Object streamLock = new Object();
 
     public WebSocketHandler(ServerAdminPanelPlugin plugin, AuthManager authManager,
                            ConsoleAPI consoleAPI, ConfigManager config) {
@@ -32,7 +44,9 @@ public class WebSocketHandler {
         this.consoleAPI = consoleAPI;
         this.config = config;
         this.gson = new Gson();
-        this.clients = ConcurrentHashMap.newKeySet();
+        this.clients = new ConcurrentHashMap<>();
+        this.clientHighWaterLines = config.getConsoleClientHighWaterLines();
+        this.slowClientPolicy = ClientSession.SlowClientPolicy.fromConfig(config.getConsoleSlowClientPolicy());
     }
 
     /**
@@ -63,31 +77,42 @@ public class WebSocketHandler {
                 return;
             }
 
-            // Add to clients
-            clients.add(ctx);
             ctx.attribute("username", username);
 
             plugin.getLogger().info("WebSocket client connected: " + username);
 
+            String sessionId = ctx.sessionId();
+            ClientSession session = new ClientSession(ctx, username, gson, clientHighWaterLines, slowClientPolicy,
+                    closed -> clients.remove(sessionId, closed));
+
             // Send welcome message
-            ctx.send(gson.toJson(Map.of(
+            session.sendControl(Map.of(
                     "type", "connected",
                     "message", "Connected to console stream",
                     "username", username
-            )));
+            ));
 
-            // Send recent console history
-            consoleAPI.getHistoryList().forEach(line -> {
-                try {
-                    ctx.send(gson.toJson(Map.of(
-                            "type", "log",
-                            "message", line,
-                            "timestamp", System.currentTimeMillis()
-                    )));
-                } catch (Exception e) {
-                    // Client might have disconnected
+            // Replay history the client has not seen yet (?epoch=<epoch>&since=<seq>) as one frame,
+            // then register for live lines. Lines broadcast while we replay are
+            // re-sent after registration; clients drop sequence ids they already have.
+            // A since from an earlier plugin run is answered with a reset and the full history.
+            long epoch = parseSince(ctx.queryParam("epoch"));
+            long since = parseSince(ctx.queryParam("since"));
+            synchronized (streamLock) {
+                ConsoleHistory.Slice slice = consoleAPI.getHistorySince(epoch, since);
+                if (!slice.lines.isEmpty() || slice.truncated || slice.reset) {
+                    Map<String, Object> frame = new HashMap<>();
+                    frame.put("type", "logs");
+                    frame.put("replay", true);
+                    frame.put("lines", slice.lines);
+                    frame.put("epoch", slice.epoch);
+                    frame.put("lastSeq", slice.lastSeq);
+                    frame.put("truncated", slice.truncated);
+                    frame.put("reset", slice.reset);
+                    session.sendRaw(gson.toJson(frame));
                 }
-            });
+                clients.put(ctx.sessionId(), session);
+            }
 
         } catch (Exception e) {
             plugin.getLogger().severe("Error in WebSocket connection: " + e.getMessage());
@@ -108,16 +133,20 @@ public class WebSocketHandler {
             Map<String, Object> data = gson.fromJson(message, Map.class);
 
             String type = (String) data.get("type");
+            ClientSession session = clients.get(ctx.sessionId());
+            if (session == null) {
+                return;
+            }
 
             if ("command".equals(type)) {
                 String command = (String) data.get("command");
                 String username = ctx.attribute("username");
 
                 if (!config.isCommandExecutionAllowed()) {
-                    ctx.send(gson.toJson(Map.of(
+                    session.sendControl(Map.of(
                             "type", "error",
                             "message", "Command execution is disabled"
-                    )));
+                    ));
                     return;
                 }
 
@@ -129,13 +158,13 @@ public class WebSocketHandler {
                         Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
                     });
 
-                    ctx.send(gson.toJson(Map.of(
+                    session.sendControl(Map.of(
                             "type", "command_sent",
                             "command", command
-                    )));
+                    ));
                 }
             } else if ("ping".equals(type)) {
-                ctx.send(gson.toJson(Map.of("type", "pong")));
+                session.sendControl(Map.of("type", "pong"));
             }
 
         } catch (Exception e) {
@@ -147,7 +176,7 @@ public class WebSocketHandler {
      * Handle WebSocket disconnection
      */
     public void onClose(WsCloseContext ctx) {
-        clients.remove(ctx);
+        clients.remove(ctx.sessionId());
         String username = ctx.attribute("username");
         if (username != null) {
             plugin.getLogger().info("WebSocket client disconnected: " + username);
@@ -159,35 +188,52 @@ public class WebSocketHandler {
      */
     public void onError(io.javalin.websocket.WsErrorContext ctx) {
         plugin.getLogger().warning("WebSocket error: " + ctx.error().getMessage());
-        clients.remove(ctx);
+        clients.remove(ctx.sessionId());
     }
 
     /**
-     * Broadcast a log message to all connected clients
+     * Broadcast a batch of log lines to all connected clients.
+     * Only enqueues; each client's own queue does the (asynchronous) sending.
      */
-    public void broadcast(String message) {
-        if (clients.isEmpty()) {
+    public void broadcastLines(List<ConsoleLine> lines) {
+        if (lines.isEmpty()) {
             return;
         }
 
-        String json = gson.toJson(Map.of(
-                "type", "log",
-                "message", message,
-                "timestamp", System.currentTimeMillis()
-        ));
+        synchronized (streamLock) {
+            if (clients.isEmpty()) {
+                return;
+            }
+
+            ClientSession.LogBatch batch = new ClientSession.LogBatch(consoleAPI.getHistoryEpoch(), lines);
 
-        // Remove disconnected clients while broadcasting
-        clients.removeIf(client -> {
-            try {
-                if (client.session.isOpen()) {
-                    client.send(json);
-                    return false;
+            // Remove disconnected clients while broadcasting
+            clients.values().removeIf(client -> {
+                try {
+                    if (client.isClosed()) {
+                        return true;
+                    }
+                    client.offerLines(batch);
+                    return client.isClosed();
+                } catch (Exception e) {
+                    return true; // Remove on error
                 }
-                return true;
-            } catch (Exception e) {
-                return true; // Remove on error
-            }
-        });
+            });
+        }
+    }
+
+    /**
+     * Parse the ?since= / ?epoch= query parameters, falling back to a full replay
+     */
+    private long parseSince(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     /**
@@ -198,19 +244,41 @@ public class WebSocketHandler {
     }
 
     /**
-     * Close all WebSocket connections
+     * Per-client queue depth and drop counts
+     */
+    public List<Map<String, Object>> getClientStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (ClientSession client : clients.values()) {
+            stats.add(client.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Close all WebSocket connections, giving every client a short, shared grace
+     * period to receive the shutdown message first
      */
     public void closeAll() {
-        clients.forEach(client -> {
+        List<ClientSession> sessions = new ArrayList<>(clients.values());
+        clients.clear();
+
+        for (ClientSession client : sessions) {
             try {
-                client.send(gson.toJson(Map.of(
+                client.sendControl(Map.of(
                         "type", "server_shutdown",
                         "message", "Server is shutting down"
-                )));
-                client.session.close();
+                ));
             } catch (Exception ignored) {
             }
-        });
-        clients.clear();
+        }
+
+        long deadline = System.currentTimeMillis() + SHUTDOWN_DRAIN_MILLIS;
+        for (ClientSession client : sessions) {
+            try {
+                client.awaitDrained(Math.max(0, deadline - System.currentTimeMillis()));
+                client.close(StatusCode.SHUTDOWN, "Server is shutting down");
+            } catch (Exception ignored) {
+            }
+        }
     }
 }
@@ -0,0 +1,119 @@
+package de.kaicraft.adminpanel.backup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnvilRegionTest {
+    private static final int HEADER_SECTORS = 2;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void repackedRegionReadsBackTheSameChunks() throws IOException {
+        // Type byte plus payload; the second chunk needs two sectors
+        byte[][] data = {chunk(100), chunk(5000), chunk(AnvilRegion.SECTOR_SIZE - 4)};
+        List<AnvilRegion.ChunkRef> chunks = List.of(
+            new AnvilRegion.ChunkRef(0, 1000, new byte[] {0}),
+            new AnvilRegion.ChunkRef(31, 2000, new byte[] {1}),
+            new AnvilRegion.ChunkRef(1023, 3000, new byte[] {2}));
+        Path file = region(chunks, data);
+
+        assertEquals((HEADER_SECTORS + 4) * AnvilRegion.SECTOR_SIZE, Files.size(file));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            AnvilRegion.Header header = AnvilRegion.readHeader(channel);
+            assertNotNull(header);
+            assertEquals((HEADER_SECTORS << 8) | 1, header.locations[0]);
+            assertEquals(((HEADER_SECTORS + 1) << 8) | 2, header.locations[31]);
+            assertEquals(((HEADER_SECTORS + 3) << 8) | 1, header.locations[1023]);
+            assertEquals(0, header.locations[1]);
+
+            for (int i = 0; i < chunks.size(); i++) {
+                int slot = chunks.get(i).slot;
+                assertEquals(chunks.get(i).timestamp, header.timestamps[slot]);
+                assertArrayEquals(data[i], AnvilRegion.readChunk(channel, header.locations[slot]));
+            }
+        }
+    }
+
+    @Test
+    void shortFileHasNoHeader() throws IOException {
+        Path file = Files.write(dir.resolve("r.0.0.mca"), new byte[AnvilRegion.SECTOR_SIZE]);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertNull(AnvilRegion.readHeader(channel));
+        }
+    }
+
+    @Test
+    void malformedLocationsAreRejected() throws IOException {
+        Path file = region(List.of(new AnvilRegion.ChunkRef(0, 0, new byte[] {0})), new byte[][] {chunk(100)});
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertNull(AnvilRegion.readChunk(channel, (1 << 8) | 1), "inside the header");
+            assertNull(AnvilRegion.readChunk(channel, HEADER_SECTORS << 8), "no sectors");
+            assertNull(AnvilRegion.readChunk(channel, (100 << 8) | 1), "past the end");
+
+            // A length that runs past the sectors the header gives the chunk
+            long offset = (long) HEADER_SECTORS * AnvilRegion.SECTOR_SIZE;
+            channel.write(ByteBuffer.allocate(4).putInt(0, AnvilRegion.SECTOR_SIZE), offset);
+            assertNull(AnvilRegion.readChunk(channel, (HEADER_SECTORS << 8) | 1));
+        }
+    }
+
+    @Test
+    void chunkTooLargeForARegionFileIsRefused() {
+        List<AnvilRegion.ChunkRef> chunks = List.of(new AnvilRegion.ChunkRef(5, 0, new byte[] {0}));
+        byte[] data = chunk(256 * AnvilRegion.SECTOR_SIZE);
+
+        assertThrows(IOException.class,
+            () -> AnvilRegion.write(chunks, hash -> data, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void indexRoundTrips() throws IOException {
+        List<AnvilRegion.ChunkRef> chunks = List.of(
+            new AnvilRegion.ChunkRef(0, 1, hash(1)),
+            new AnvilRegion.ChunkRef(1023, Integer.MAX_VALUE, hash(2)));
+
+        List<AnvilRegion.ChunkRef> decoded = AnvilRegion.decodeIndex(AnvilRegion.encodeIndex(chunks), 32);
+
+        assertEquals(chunks.size(), decoded.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            assertEquals(chunks.get(i).slot, decoded.get(i).slot);
+            assertEquals(chunks.get(i).timestamp, decoded.get(i).timestamp);
+            assertArrayEquals(chunks.get(i).hash, decoded.get(i).hash);
+        }
+    }
+
+    private Path region(List<AnvilRegion.ChunkRef> chunks, byte[][] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnvilRegion.write(chunks, hash -> data[hash[0]], out);
+        return Files.write(dir.resolve("r.0.0.mca"), out.toByteArray());
+    }
+
+    private static byte[] chunk(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        data[0] = 2; // zlib
+        return data;
+    }
+
+    private static byte[] hash(int seed) {
+        byte[] hash = new byte[32];
+        new Random(seed).nextBytes(hash);
+        return hash;
+    }
+}
@@ -0,0 +1,65 @@
+package de.kaicraft.adminpanel.backup;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelZipWriterTest {
+    @Test
+    void combinesTheCheckValue() {
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+        long combined = ParallelZipWriter.crc32Combine(crc(data, 0, 5), crc(data, 5, 9), 4);
+
+        assertEquals(0xCBF43926L, combined);
+    }
+
+    @Test
+    void emptySecondBlockKeepsTheFirstCrc() {
+        byte[] data = randomBytes(100);
+
+        assertEquals(crc(data, 0, 100), ParallelZipWriter.crc32Combine(crc(data, 0, 100), crc(data, 0, 0), 0));
+    }
+
+    @Test
+    void combinesAtEverySplitOfASmallBlock() {
+        byte[] data = randomBytes(64);
+        long whole = crc(data, 0, data.length);
+        for (int split = 0; split <= data.length; split++) {
+            long combined = ParallelZipWriter.crc32Combine(crc(data, 0, split), crc(data, split, data.length),
+                data.length - split);
+            assertEquals(whole, combined, "split at " + split);
+        }
+    }
+
+    @Test
+    void combinesChunksTheWayTheWriterDoes() {
+        // Uneven chunks, the largest past a power of two so every bit of the length is used
+        byte[] data = randomBytes(3 * 1024 * 1024 + 12345);
+        int[] bounds = {0, 1, 4096, 1024 * 1024 + 1, 3 * 1024 * 1024, data.length};
+        long combined = crc(data, 0, 0);
+        for (int i = 1; i < bounds.length; i++) {
+            combined = ParallelZipWriter.crc32Combine(combined, crc(data, bounds[i - 1], bounds[i]),
+                bounds[i] - bounds[i - 1]);
+        }
+
+        assertEquals(crc(data, 0, data.length), combined);
+    }
+
+    private static long crc(byte[] data, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(Arrays.copyOfRange(data, from, to));
+        return crc.getValue();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
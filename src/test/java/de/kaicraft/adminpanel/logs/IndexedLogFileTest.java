@@ -0,0 +1,88 @@
+package de.kaicraft.adminpanel.logs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedLogFileTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedLinesAreIndexed() throws IOException {
+        Path file = write("first\nsecond\n");
+        IndexedLogFile log = new IndexedLogFile(file);
+        log.refresh();
+
+        Files.writeString(file, "third\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        log.refresh();
+
+        assertEquals(3, log.getLineCount());
+        assertEquals(List.of("first", "second", "third"), log.readLines(0, 10));
+    }
+
+    @Test
+    void replacedFileIsIndexedFromTheStart() throws IOException {
+        Path file = write("old one\n");
+        IndexedLogFile log = new IndexedLogFile(file);
+        log.refresh();
+
+        // Rotated to a longer file: appending would only index its tail
+        write("a\nb\nc\nd\ne\n");
+        log.refresh();
+
+        assertEquals(5, log.getLineCount());
+        assertEquals(List.of("a", "b", "c"), log.readLines(0, 3));
+    }
+
+    @Test
+    void linesCarriedAcrossMappedChunks() throws IOException {
+        // With 16-byte chunks most lines start in one chunk and end in another, some span several
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            lines.add("line " + i + " " + "x".repeat(i % 37));
+        }
+        Path file = write(String.join("\n", lines) + "\n");
+        IndexedLogFile log = new IndexedLogFile(file, 16);
+        log.refresh();
+
+        assertEquals(lines.size(), log.getLineCount());
+        assertEquals(lines, log.readLines(0, lines.size()));
+        // Starting from a checkpoint in the middle of the file
+        assertEquals(lines.subList(2047, 2100), log.readLines(2047, 53));
+    }
+
+    @Test
+    void lineBreakSplitBetweenChunks() throws IOException {
+        // The \r of the first line ends the first chunk, its \n starts the second
+        Path file = write("0123456789abcde\r\nnext\r\nlast");
+        IndexedLogFile log = new IndexedLogFile(file, 16);
+        log.refresh();
+
+        assertEquals(List.of("0123456789abcde", "next", "last"), log.readLines(0, 10));
+    }
+
+    @Test
+    void overlongLineIsCutOff() throws IOException {
+        Path file = write("x".repeat(1536 * 1024) + "\nafter\n");
+        IndexedLogFile log = new IndexedLogFile(file, 64 * 1024);
+        log.refresh();
+
+        List<String> lines = log.readLines(0, 2);
+        assertEquals(1024 * 1024, lines.get(0).length());
+        assertEquals("after", lines.get(1));
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("latest.log"), content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,322 @@
+package de.kaicraft.adminpanel.logs;
+
+import de.kaicraft.adminpanel.model.LogMatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSearchEngineTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 10, 16);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void simpleFormatterRecordInEnglish() {
+        assertSimpleFormatterRecord(Locale.US);
+    }
+
+    @Test
+    void simpleFormatterRecordInGerman() {
+        assertSimpleFormatterRecord(Locale.GERMANY);
+    }
+
+    @Test
+    void paperLogLinesUseTheFileDate() {
+        LogSearchEngine.LineMetadata metadata = new LogSearchEngine.LineMetadata(DAY);
+
+        assertTrue(update(metadata, "[21:04:05] [Server thread/WARN]: Can't keep up!"));
+        assertEquals("warning", metadata.level);
+        assertEquals(millis(DAY.atTime(21, 4, 5)), metadata.time);
+
+        assertTrue(update(metadata, "[21:04:06 ERROR]: Could not pass event"));
+        assertEquals("error", metadata.level);
+        assertEquals(millis(DAY.atTime(21, 4, 6)), metadata.time);
+
+        // A stack trace belongs to the record above it
+        assertFalse(update(metadata, "\tat org.bukkit.plugin.SimplePluginManager.callEvent(SimplePluginManager.java:1)"));
+        assertEquals("error", metadata.level);
+        assertEquals(millis(DAY.atTime(21, 4, 6)), metadata.time);
+    }
+
+    @Test
+    void isoTimestampsCarryTheirOwnDate() {
+        LogSearchEngine.LineMetadata metadata = new LogSearchEngine.LineMetadata(null);
+
+        assertTrue(update(metadata, "[2024-10-15 08:00:01] [main/INFO]: Starting"));
+        assertEquals("info", metadata.level);
+        assertEquals(millis(LocalDateTime.of(2024, 10, 15, 8, 0, 1)), metadata.time);
+    }
+
+    @Test
+    void fileDateFallsBackToTheModificationDay() {
+        long modified = millis(DAY.atTime(12, 0));
+
+        assertEquals(LocalDate.of(2023, 1, 2), LogSearchEngine.fileDate(Path.of("audit-2023-01-02.log"), modified));
+        assertEquals(DAY, LogSearchEngine.fileDate(Path.of("latest.log"), modified));
+    }
+
+    @Test
+    void timeFilterUsesTheModificationDayForUndatedFiles() throws Exception {
+        Path file = write("latest.log",
+            "[09:00:00 INFO]: morning marker",
+            "[18:00:00 INFO]: evening marker");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(millis(DAY.atTime(18, 0))));
+
+        List<LogMatch> matches = search(file, "marker", Set.of(),
+            millis(DAY.atTime(12, 0)), millis(DAY.atTime(23, 0)), 10);
+
+        assertEquals(1, matches.size());
+        assertEquals("[18:00:00 INFO]: evening marker", matches.get(0).getLine());
+    }
+
+    @Test
+    void linesWithoutTimestampsPassTheTimeFilter() throws Exception {
+        Path file = write("notes.log", "marker without any timestamp");
+
+        List<LogMatch> matches = search(file, "marker", Set.of(), 1, millis(DAY.atTime(0, 0)), 10);
+
+        assertEquals(1, matches.size());
+    }
+
+    @Test
+    void levelFilterOnGermanSimpleFormatterLog() throws Exception {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            SimpleFormatter formatter = new SimpleFormatter();
+            StringBuilder text = new StringBuilder();
+            text.append(formatter.format(record(Level.INFO, "login marker", DAY.atTime(9, 15, 0))));
+            text.append(formatter.format(record(Level.WARNING, "failed login marker", DAY.atTime(21, 30, 0))));
+            Path file = dir.resolve("security-" + DAY + ".log");
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+
+            List<LogMatch> matches = search(file, "marker", Set.of("warning"),
+                millis(DAY.atTime(12, 0)), millis(DAY.atTime(23, 0)), 10);
+
+            assertEquals(1, matches.size());
+            assertTrue(matches.get(0).getLine().contains("failed login marker"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void headerLineTakesTheLevelOfItsOwnRecord() throws Exception {
+        SimpleFormatter formatter = new SimpleFormatter();
+        // The source class is on the header line, so a query for it matches the header
+        LogRecord info = record(Level.INFO, "fine", DAY.atTime(9, 0));
+        info.setSourceClassName("de.example.Marker");
+        LogRecord severe = record(Level.SEVERE, "broken", DAY.atTime(9, 1));
+        severe.setSourceClassName("de.example.Marker");
+        Path file = dir.resolve("api-" + DAY + ".log");
+        Files.writeString(file, formatter.format(severe) + formatter.format(info), StandardCharsets.UTF_8);
+
+        List<LogMatch> matches = search(file, "de.example.Marker", Set.of("info"), 0, 0, 10);
+
+        assertEquals(1, matches.size());
+        assertEquals(3, matches.get(0).getLineNumber());
+    }
+
+    @Test
+    void stackTraceAcrossSegmentBoundaryKeepsItsLevel() throws Exception {
+        // The record starts well before the second segment, and its trace runs on into it
+        int segmentLines = 64 * IndexedLogFile.CHECKPOINT_INTERVAL;
+        List<String> lines = new ArrayList<>();
+        while (lines.size() < segmentLines - 100) {
+            lines.add("[08:00:00 INFO]: filler " + lines.size());
+        }
+        lines.add("[08:00:01 ERROR]: Task failed");
+        lines.add("java.lang.IllegalStateException: boom");
+        while (lines.size() < segmentLines + 10) {
+            lines.add("\tat de.example.Frame.call(Frame.java:" + lines.size() + ")");
+        }
+        lines.add("\tat de.example.Marker.run(Marker.java:1)");
+        Path file = write("2024-10-16-1.log", lines.toArray(new String[0]));
+
+        List<LogMatch> matches = search(file, "Marker.run", Set.of("error"), 0, 0, 10);
+
+        assertEquals(1, matches.size());
+        assertEquals(lines.size(), matches.get(0).getLineNumber());
+    }
+
+    @Test
+    void matchesArriveInLineOrderAcrossSegments() throws Exception {
+        // A hit near the end of every segment, so later segments finish with matches to hold back
+        int segmentLines = 64 * IndexedLogFile.CHECKPOINT_INTERVAL;
+        List<String> lines = new ArrayList<>();
+        for (int segment = 0; segment < 4; segment++) {
+            while (lines.size() < (segment + 1) * segmentLines - 1) {
+                lines.add("[08:00:00 INFO]: filler");
+            }
+            lines.add("[08:00:00 INFO]: hit " + segment);
+        }
+        Path file = write("latest.log", lines.toArray(new String[0]));
+
+        List<LogMatch> matches = search(file, "hit", Set.of(), 0, 0, 3);
+
+        assertEquals(3, matches.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals((i + 1) * segmentLines, matches.get(i).getLineNumber());
+        }
+    }
+
+    @Test
+    void limitIsReachedOnlyWhenMoreMatchesExist() throws Exception {
+        Path file = write("latest.log", "[08:00:00 INFO]: hit", "[08:00:01 INFO]: hit", "[08:00:02 INFO]: hit");
+
+        LogSearchEngine.Summary exact = summary(file, "hit", 3);
+        assertEquals(3, exact.matches);
+        assertFalse(exact.limitReached);
+
+        LogSearchEngine.Summary over = summary(file, "hit", 2);
+        assertEquals(2, over.matches);
+        assertTrue(over.limitReached);
+    }
+
+    @Test
+    void plainTextMatchesAnywhereIgnoringAsciiCase() {
+        LogSearchEngine.Query query = query("Timed Out");
+
+        assertTrue(matches(query, "timed out"));
+        assertTrue(matches(query, "Connection TIMED OUT"));
+        assertTrue(matches(query, "[12:00:00 WARN]: Request timed out after 30s"));
+        assertFalse(matches(query, "timed  out"));
+        assertFalse(matches(query, "timed ou"));
+        assertFalse(matches(query, ""));
+    }
+
+    @Test
+    void plainTextMatchAfterAPartialOne() {
+        // Mismatches late in the needle must not skip over the real match
+        assertTrue(matches(query("aab"), "aaab"));
+        assertTrue(matches(query("abcab"), "abcabcab"));
+        assertFalse(matches(query("abcabd"), "abcabcabc"));
+    }
+
+    @Test
+    void plainTextIgnoresBytesPastTheLength() {
+        byte[] line = "prefix needle".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(query("needle").matches(line, 7));
+        assertTrue(query("needle").matches(line, line.length));
+    }
+
+    @Test
+    void plainTextSkipsOverMultiByteCharacters() {
+        assertTrue(matches(query("welt"), "Gr\u00fc\u00dfe an die Welt"));
+        assertFalse(matches(query("welt"), "Gr\u00fc\u00dfe an die W\u00e4lder"));
+    }
+
+    @Test
+    void plainTextAgreesWithStringSearch() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            String haystack = randomText(random, random.nextInt(40));
+            String needle = randomText(random, 1 + random.nextInt(4));
+            assertEquals(haystack.toLowerCase(Locale.ROOT).contains(needle.toLowerCase(Locale.ROOT)),
+                matches(query(needle), haystack), needle + " in " + haystack);
+        }
+    }
+
+    private void assertSimpleFormatterRecord(Locale locale) {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(locale);
+        try {
+            LocalDateTime time = LocalDateTime.of(2024, 10, 16, 21, 4, 5);
+            String[] lines = new SimpleFormatter().format(record(Level.WARNING, "Invalid token", time))
+                .split("\\R");
+            LogSearchEngine.LineMetadata metadata = new LogSearchEngine.LineMetadata(null);
+
+            assertTrue(update(metadata, lines[0]), "header starts a record: " + lines[0]);
+            assertEquals(millis(time), metadata.time, lines[0]);
+
+            assertFalse(update(metadata, lines[1]));
+            assertEquals("warning", metadata.level, lines[1]);
+            assertEquals(millis(time), metadata.time);
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private static LogSearchEngine.Query query(String text) {
+        return new LogSearchEngine.Query(text, false, Set.of(), 0, 0, 0, 1);
+    }
+
+    private static boolean matches(LogSearchEngine.Query query, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return query.matches(bytes, bytes.length);
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append("abAB ".charAt(random.nextInt(5)));
+        }
+        return text.toString();
+    }
+
+    private List<LogMatch> search(Path file, String text, Set<String> levels, long from, long to, int limit)
+            throws IOException, InterruptedException {
+        LogSearchEngine engine = new LogSearchEngine(new LogIndexCache(), 2);
+        try {
+            List<LogMatch> matches = new ArrayList<>();
+            engine.search(List.of(file), new LogSearchEngine.Query(text, false, levels, from, to, 0, limit),
+                matches::add);
+            return matches;
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private LogSearchEngine.Summary summary(Path file, String text, int limit) throws IOException, InterruptedException {
+        LogSearchEngine engine = new LogSearchEngine(new LogIndexCache(), 2);
+        try {
+            return engine.search(List.of(file), new LogSearchEngine.Query(text, false, Set.of(), 0, 0, 0, limit),
+                match -> { });
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static boolean update(LogSearchEngine.LineMetadata metadata, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return metadata.update(bytes, bytes.length);
+    }
+
+    private static LogRecord record(Level level, String message, LocalDateTime time) {
+        LogRecord record = new LogRecord(level, message);
+        record.setInstant(time.atZone(ZoneId.systemDefault()).toInstant());
+        record.setSourceClassName("de.kaicraft.adminpanel.util.AuditLogger");
+        record.setSourceMethodName("logSecurityEvent");
+        return record;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
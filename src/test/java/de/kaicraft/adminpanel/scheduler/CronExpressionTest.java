@@ -0,0 +1,76 @@
+package de.kaicraft.adminpanel.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CronExpressionTest {
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    void dayOfMonthOrDayOfWeekWhenBothAreRestricted() {
+        // The 1st, or any Monday; 30 September 2024 is a Monday
+        CronExpression cron = CronExpression.parse("0 0 1 * MON");
+
+        assertEquals(millis("2024-10-01T00:00"), next(cron, "2024-09-30T00:00"));
+        assertEquals(millis("2024-10-07T00:00"), next(cron, "2024-10-01T00:00"));
+    }
+
+    @Test
+    void steppedDayOfMonthCountsAsUnrestricted() {
+        // Odd days that are also Mondays, as in Vixie cron, where a field starting with * is not a restriction
+        CronExpression cron = CronExpression.parse("0 0 */2 * 1");
+
+        assertEquals(millis("2024-10-07T00:00"), next(cron, "2024-10-01T00:00"));
+    }
+
+    @Test
+    void onlyDayOfWeekRestricted() {
+        assertEquals(millis("2024-10-06T00:00"), next(CronExpression.parse("0 0 * * 7"), "2024-10-01T00:00"));
+        assertEquals(millis("2024-10-06T00:00"), next(CronExpression.parse("@weekly"), "2024-10-01T00:00"));
+    }
+
+    @Test
+    void impossibleDateNeverFires() {
+        assertEquals(-1, CronExpression.parse("0 0 30 FEB *").nextAfter(millis("2024-01-01T00:00"), BERLIN));
+    }
+
+    @Test
+    void timeInsideTheSpringGapFiresAfterIt() {
+        // 31 March 2024: clocks go from 02:00 to 03:00
+        CronExpression cron = CronExpression.parse("30 2 * * *");
+
+        assertEquals(Instant.parse("2024-03-31T01:30:00Z").toEpochMilli(), next(cron, "2024-03-30T12:00"));
+        assertEquals(millis("2024-04-01T02:30"), next(cron, "2024-03-31T03:30"));
+    }
+
+    @Test
+    void repeatedHourInAutumnFiresOnce() {
+        // 27 October 2024: clocks go from 03:00 back to 02:00
+        CronExpression cron = CronExpression.parse("30 2 * * *");
+        long first = next(cron, "2024-10-26T12:00");
+
+        assertEquals(Instant.parse("2024-10-27T00:30:00Z").toEpochMilli(), first);
+        assertEquals(millis("2024-10-28T02:30"), cron.nextAfter(first, BERLIN));
+    }
+
+    @Test
+    void invalidExpressionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 0 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 10-5 * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 * * FUNDAY"));
+    }
+
+    private static long next(CronExpression cron, String after) {
+        return cron.nextAfter(millis(after), BERLIN);
+    }
+
+    private static long millis(String time) {
+        return LocalDateTime.parse(time).atZone(BERLIN).toInstant().toEpochMilli();
+    }
+}
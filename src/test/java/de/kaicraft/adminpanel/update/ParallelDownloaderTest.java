@@ -0,0 +1,185 @@
+package de.kaicraft.adminpanel.update;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Downloads from a local HTTP server that serves one file, with or without range support
+ */
+class ParallelDownloaderTest {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    // Four segments of 256 KiB with the settings below
+    private static final int SIZE = 1024 * 1024;
+    private static final int SEGMENT = SIZE / 4;
+
+    @TempDir
+    Path dir;
+
+    private final byte[] data = new byte[SIZE];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private volatile boolean rangesSupported = true;
+    // Cut the next segment response off halfway through
+    private final AtomicBoolean dropNextSegment = new AtomicBoolean();
+
+    private HttpServer server;
+    private URI uri;
+    private ParallelDownloader downloader;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        new Random(42).nextBytes(data);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/paper.jar", this::serve);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/paper.jar");
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        downloader = new ParallelDownloader(client, 4, 64 * 1024, "PaperPanel-Test");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadsInSegments() throws Exception {
+        File destination = dir.resolve("paper.jar").toFile();
+
+        downloader.download(uri, destination, sha256(data), (phase, done, total) -> {});
+
+        assertArrayEquals(data, Files.readAllBytes(destination.toPath()));
+        assertTrue(ranges.contains("bytes=" + SEGMENT + "-" + (2 * SEGMENT - 1)));
+        assertFalse(new File(destination.getPath() + ".part").exists());
+        assertFalse(new File(destination.getPath() + ".part.state").exists());
+    }
+
+    @Test
+    void resumesFromSavedState() throws Exception {
+        File destination = dir.resolve("paper.jar").toFile();
+        String sha256 = sha256(data);
+
+        // An earlier run finished the first segment before it was interrupted
+        try (RandomAccessFile part = new RandomAccessFile(destination.getPath() + ".part", "rw")) {
+            part.setLength(SIZE);
+            part.write(data, 0, SEGMENT);
+        }
+        Properties state = new Properties();
+        state.setProperty("size", String.valueOf(SIZE));
+        state.setProperty("sha256", sha256);
+        state.setProperty("starts", "0," + SEGMENT + "," + 2 * SEGMENT + "," + 3 * SEGMENT);
+        state.setProperty("positions", SEGMENT + "," + SEGMENT + "," + 2 * SEGMENT + "," + 3 * SEGMENT);
+        try (OutputStream out = Files.newOutputStream(Path.of(destination.getPath() + ".part.state"))) {
+            state.store(out, null);
+        }
+
+        downloader.download(uri, destination, sha256, (phase, done, total) -> {});
+
+        assertArrayEquals(data, Files.readAllBytes(destination.toPath()));
+        assertFalse(ranges.contains("bytes=0-" + (SEGMENT - 1)), "finished segment was fetched again");
+        assertEquals(4, ranges.size(), "probe plus the three unfinished segments");
+        assertFalse(new File(destination.getPath() + ".part.state").exists());
+    }
+
+    @Test
+    void checksumMismatchDeletesPartFile() {
+        File destination = dir.resolve("paper.jar").toFile();
+        String wrong = sha256(new byte[]{1, 2, 3});
+
+        IOException e = assertThrows(IOException.class,
+            () -> downloader.download(uri, destination, wrong, (phase, done, total) -> {}));
+
+        assertTrue(e.getMessage().contains("Checksum mismatch"), e.getMessage());
+        assertFalse(destination.exists());
+        assertFalse(new File(destination.getPath() + ".part").exists());
+        assertFalse(new File(destination.getPath() + ".part.state").exists());
+    }
+
+    @Test
+    void serverWithoutRangesIsReadInOneStream() throws Exception {
+        rangesSupported = false;
+        File destination = dir.resolve("paper.jar").toFile();
+
+        downloader.download(uri, destination, sha256(data), (phase, done, total) -> {});
+
+        assertArrayEquals(data, Files.readAllBytes(destination.toPath()));
+        assertEquals(1, ranges.size());
+    }
+
+    @Test
+    void droppedConnectionResumesSegmentFromItsOffset() throws Exception {
+        dropNextSegment.set(true);
+        File destination = dir.resolve("paper.jar").toFile();
+
+        downloader.download(uri, destination, sha256(data), (phase, done, total) -> {});
+
+        assertArrayEquals(data, Files.readAllBytes(destination.toPath()));
+        // The retry asks for the rest of the segment, not the whole of it again
+        assertTrue(ranges.stream().anyMatch(range -> {
+            Matcher m = RANGE.matcher(range);
+            return m.matches() && Long.parseLong(m.group(1)) % SEGMENT != 0;
+        }), ranges.toString());
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(String.valueOf(range));
+        try (exchange) {
+            Matcher m = RANGE.matcher(range != null ? range : "");
+            if (!rangesSupported || !m.matches()) {
+                exchange.sendResponseHeaders(200, data.length);
+                exchange.getResponseBody().write(data);
+                return;
+            }
+
+            int start = Integer.parseInt(m.group(1));
+            int end = Math.min(Integer.parseInt(m.group(2)), data.length - 1);
+            int length = end - start + 1;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+            exchange.sendResponseHeaders(206, length);
+            if (length > 1 && dropNextSegment.compareAndSet(true, false)) {
+                exchange.getResponseBody().write(data, start, length / 2);
+                exchange.getResponseBody().flush();
+                // Closing short of the announced length makes the server drop the connection
+                return;
+            }
+            exchange.getResponseBody().write(data, start, length);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package de.kaicraft.adminpanel.web;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangedFileResponseTest {
+    private static final long LENGTH = 1000;
+
+    @Test
+    void closedRange() {
+        assertArrayEquals(new long[] {0, 499}, RangedFileResponse.parseRange("bytes=0-499", LENGTH));
+        assertArrayEquals(new long[] {500, 500}, RangedFileResponse.parseRange(" bytes=500-500 ", LENGTH));
+    }
+
+    @Test
+    void openRangeRunsToTheEnd() {
+        assertArrayEquals(new long[] {900, 999}, RangedFileResponse.parseRange("bytes=900-", LENGTH));
+    }
+
+    @Test
+    void endPastTheFileIsClamped() {
+        assertArrayEquals(new long[] {990, 999}, RangedFileResponse.parseRange("bytes=990-5000", LENGTH));
+    }
+
+    @Test
+    void suffixRange() {
+        assertArrayEquals(new long[] {900, 999}, RangedFileResponse.parseRange("bytes=-100", LENGTH));
+        assertArrayEquals(new long[] {0, 999}, RangedFileResponse.parseRange("bytes=-5000", LENGTH));
+    }
+
+    @Test
+    void unsatisfiableRanges() {
+        assertArrayEquals(new long[0], RangedFileResponse.parseRange("bytes=1000-", LENGTH));
+        assertArrayEquals(new long[0], RangedFileResponse.parseRange("bytes=-0", LENGTH));
+        assertArrayEquals(new long[0], RangedFileResponse.parseRange("bytes=-10", 0));
+        assertArrayEquals(new long[0], RangedFileResponse.parseRange("bytes=0-10", 0));
+    }
+
+    @Test
+    void headersThatAreIgnored() {
+        assertNull(RangedFileResponse.parseRange("items=0-10", LENGTH));
+        assertNull(RangedFileResponse.parseRange("bytes=0-10,20-30", LENGTH));
+        assertNull(RangedFileResponse.parseRange("bytes=10", LENGTH));
+        assertNull(RangedFileResponse.parseRange("bytes=-", LENGTH));
+        assertNull(RangedFileResponse.parseRange("bytes=20-10", LENGTH));
+        assertNull(RangedFileResponse.parseRange("bytes=a-b", LENGTH));
+    }
+}
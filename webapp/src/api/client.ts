@@ -54,5 +54,47 @@ client.interceptors.response.use(
   }
 );
 
+/**
+ * POST a JSON body and hand each line of a newline-delimited JSON response to onItem as it arrives.
+ * Uses fetch, since axios cannot read a response body incrementally in the browser.
+ */
+export async function streamNdjson<T>(
+  path: string,
+  body: unknown,
+  onItem: (item: T) => void,
+  signal?: AbortSignal
+): Promise<void> {
+  const token = localStorage.getItem('token');
+  const response = await fetch(API_URL + path, {
+    method: 'POST',
+    headers: {
+      'Content-Type': 'application/json',
+      Accept: 'application/x-ndjson',
+      ...(token ? { Authorization: `Bearer ${token}` } : {})
+    },
+    body: JSON.stringify(body),
+    signal
+  });
+  if (!response.ok || !response.body) {
+    const error = await response.json().catch(() => null);
+    throw new Error(error?.error || `Request failed with status ${response.status}`);
+  }
+
+  const reader = response.body.getReader();
+  const decoder = new TextDecoder();
+  let buffered = '';
+  for (;;) {
+    const { done, value } = await reader.read();
+    if (done) break;
+    buffered += decoder.decode(value, { stream: true });
+    const lines = buffered.split('\n');
+    buffered = lines.pop() ?? '';
+    for (const line of lines) {
+      if (line.trim()) onItem(JSON.parse(line) as T);
+    }
+  }
+  if (buffered.trim()) onItem(JSON.parse(buffered) as T);
+}
+
 export default client;
 export { client as apiClient };
@@ -0,0 +1,110 @@
+import { useEffect, useState } from 'react';
+import client from '../api/client';
+import type { MetricSeries } from '../types/api';
+import { Card } from './Card';
+
+const METRICS = [
+  { key: 'tps', label: 'TPS' },
+  { key: 'mspt', label: 'Tick time (ms)' },
+  { key: 'players', label: 'Players' },
+  { key: 'heap', label: 'Heap (MB)' },
+  { key: 'gc', label: 'GC pause (ms)' },
+  { key: 'entities', label: 'Entities' },
+  { key: 'chunks', label: 'Chunks' },
+];
+
+const RANGES = [
+  { label: '1h', ms: 3600_000 },
+  { label: '24h', ms: 86_400_000 },
+  { label: '7d', ms: 7 * 86_400_000 },
+];
+
+const WIDTH = 600;
+const HEIGHT = 160;
+
+/**
+ * Min/max band and average line for one metric from /metrics/series
+ */
+export function MetricChart() {
+  const [metric, setMetric] = useState('tps');
+  const [range, setRange] = useState(RANGES[0].ms);
+  const [series, setSeries] = useState<MetricSeries | null>(null);
+
+  useEffect(() => {
+    const load = async () => {
+      try {
+        const to = Date.now();
+        const { data } = await client.get<MetricSeries>('/metrics/series', {
+          params: { metric, from: to - range, to }
+        });
+        setSeries(data);
+      } catch (err) {
+        console.error('Error fetching metric history:', err);
+      }
+    };
+    load();
+    const interval = setInterval(load, 60000);
+    return () => clearInterval(interval);
+  }, [metric, range]);
+
+  const points = series?.timestamps.length ?? 0;
+  let band = '';
+  let line = '';
+  if (series && points > 0) {
+    const to = Date.now();
+    const from = to - range;
+    const low = Math.min(...series.min);
+    const high = Math.max(...series.max);
+    const spread = high - low || 1;
+    const x = (t: number) => ((t - from) / range) * WIDTH;
+    const y = (v: number) => HEIGHT - ((v - low) / spread) * HEIGHT;
+
+    line = series.timestamps.map((t, i) => `${x(t).toFixed(1)},${y(series.avg[i]).toFixed(1)}`).join(' ');
+    const upper = series.timestamps.map((t, i) => `${x(t).toFixed(1)},${y(series.max[i]).toFixed(1)}`);
+    const lower = series.timestamps.map((t, i) => `${x(t).toFixed(1)},${y(series.min[i]).toFixed(1)}`).reverse();
+    band = [...upper, ...lower].join(' ');
+  }
+
+  return (
+    <Card>
+      <div className="flex items-center justify-between mb-4">
+        <h2 className="text-xl font-bold text-white">History</h2>
+        <div className="flex gap-2">
+          <select
+            value={metric}
+            onChange={(e) => setMetric(e.target.value)}
+            className="px-3 py-1 bg-gray-900/40 text-white rounded-lg border border-white/20 text-sm"
+          >
+            {METRICS.map(m => <option key={m.key} value={m.key}>{m.label}</option>)}
+          </select>
+          {RANGES.map(r => (
+            <button
+              key={r.label}
+              onClick={() => setRange(r.ms)}
+              className={`px-3 py-1 rounded-lg text-sm border border-white/10 ${
+                range === r.ms ? 'bg-primary-500 text-white' : 'bg-white/5 text-gray-300 hover:bg-white/10'
+              }`}
+            >
+              {r.label}
+            </button>
+          ))}
+        </div>
+      </div>
+      {points === 0 ? (
+        <p className="text-gray-400 text-sm text-center py-12">No data for this range yet</p>
+      ) : (
+        <svg viewBox={`0 0 ${WIDTH} ${HEIGHT}`} className="w-full h-40" preserveAspectRatio="none">
+          <polygon points={band} className="fill-primary-500/20" />
+          <polyline points={line} fill="none" strokeWidth={1.5} className="stroke-primary-500" />
+        </svg>
+      )}
+      {series && points > 0 && (
+        <div className="flex justify-between text-xs text-gray-400 mt-2">
+          <span>min {Math.min(...series.min)}</span>
+          <span>avg {(series.avg.reduce((a, b) => a + b, 0) / points).toFixed(2)}</span>
+          <span>max {Math.max(...series.max)}</span>
+        </div>
+      )}
+    </Card>
+  );
+}
@@ -61,6 +61,7 @@ export enum Permission {
   CREATE_BACKUP = 'create_backup',
   DELETE_BACKUP = 'delete_backup',
   DOWNLOAD_BACKUP = 'download_backup',
+  RESTORE_BACKUP = 'restore_backup',
   MANAGE_AUTO_BACKUP = 'manage_auto_backup',
 }
 
@@ -117,6 +118,7 @@ export const PERMISSION_INFO: Record<Permission, { displayName: string; category
   [Permission.CREATE_BACKUP]: { displayName: 'Create Backups', category: 'backup' },
   [Permission.DELETE_BACKUP]: { displayName: 'Delete Backups', category: 'backup' },
   [Permission.DOWNLOAD_BACKUP]: { displayName: 'Download Backups', category: 'backup' },
+  [Permission.RESTORE_BACKUP]: { displayName: 'Restore Backups', category: 'backup' },
   [Permission.MANAGE_AUTO_BACKUP]: { displayName: 'Manage Auto-Backup', category: 'backup' },
 };
 
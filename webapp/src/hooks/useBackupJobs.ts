@@ -0,0 +1,69 @@
+import { useEffect, useRef, useState } from 'react';
+import type { BackupJob } from '../types/api';
+
+/**
+ * Subscribe to /ws/backups and keep the list of queued and running backup jobs.
+ * The handler receives every job that finished, so callers can reload their backup list.
+ */
+export function useBackupJobs(onFinished?: (job: BackupJob) => void): BackupJob[] {
+  const [jobs, setJobs] = useState<BackupJob[]>([]);
+  const handler = useRef(onFinished);
+  handler.current = onFinished;
+
+  useEffect(() => {
+    let ws: WebSocket | null = null;
+    let retryTimer: ReturnType<typeof setTimeout> | null = null;
+    let pingTimer: ReturnType<typeof setInterval> | null = null;
+    let stopped = false;
+    let attempts = 0;
+
+    const connect = () => {
+      const token = localStorage.getItem('token');
+      if (!token || stopped) return;
+
+      ws = new WebSocket(`ws://${window.location.hostname}:8080/ws/backups?token=${token}`);
+
+      ws.onopen = () => {
+        attempts = 0;
+        pingTimer = setInterval(() => ws?.send(JSON.stringify({ type: 'ping' })), 30000);
+      };
+
+      ws.onmessage = (message) => {
+        try {
+          const data = JSON.parse(message.data);
+          if (data.type === 'jobs') {
+            setJobs(data.jobs);
+          } else if (data.type === 'job') {
+            const job = data.job as BackupJob;
+            const active = job.state === 'queued' || job.state === 'running';
+            setJobs((current) => {
+              const others = current.filter((j) => j.id !== job.id);
+              return active ? [...others, job].sort((a, b) => a.id - b.id) : others;
+            });
+            if (!active) handler.current?.(job);
+          }
+        } catch (err) {
+          console.error('Failed to parse backup job update:', err);
+        }
+      };
+
+      ws.onclose = () => {
+        if (pingTimer) clearInterval(pingTimer);
+        if (stopped) return;
+        const delay = Math.min(2000 * Math.pow(1.5, attempts++), 30000);
+        retryTimer = setTimeout(connect, delay);
+      };
+    };
+
+    connect();
+
+    return () => {
+      stopped = true;
+      if (retryTimer) clearTimeout(retryTimer);
+      if (pingTimer) clearInterval(pingTimer);
+      ws?.close();
+    };
+  }, []);
+
+  return jobs;
+}
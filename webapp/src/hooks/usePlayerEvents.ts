@@ -0,0 +1,50 @@
+import { useCallback, useRef } from 'react';
+import type { PlayerPresence, PlayerPresenceEvent } from '../types/api';
+import { useWebSocket } from './useWebSocket';
+
+export type PlayerEventFrame =
+  | { type: 'snapshot'; epoch: number; version: number; players: PlayerPresence[] }
+  | { type: 'event'; event: PlayerPresenceEvent };
+
+/**
+ * Subscribe to /ws/events. The handler first receives a snapshot of online players,
+ * then one frame per change. Reconnects resume from the last version seen, so only
+ * missed deltas travel over the wire (or a fresh snapshot if the server restarted).
+ */
+export function usePlayerEvents(onFrame: (frame: PlayerEventFrame) => void): boolean {
+  const handler = useRef(onFrame);
+  handler.current = onFrame;
+  const epoch = useRef(0);
+  const version = useRef(0);
+
+  // Both callbacks are stable, so the socket is opened once and not on every render
+  const resumeQuery = useCallback(
+    () => (epoch.current > 0 ? `&epoch=${epoch.current}&since=${version.current}` : ''), []);
+
+  const onMessage = useCallback((data: any) => {
+    if (data.type === 'snapshot') {
+      epoch.current = data.epoch;
+      version.current = data.version;
+      handler.current(data);
+    } else if (data.type === 'deltas') {
+      epoch.current = data.epoch;
+      for (const event of data.events as PlayerPresenceEvent[]) {
+        handler.current({ type: 'event', event });
+      }
+      version.current = data.version;
+    } else if (data.type === 'event') {
+      if (data.event.version <= version.current) return;
+      version.current = data.event.version;
+      handler.current(data);
+    }
+  }, []);
+
+  const { connected } = useWebSocket('/ws/events', {
+    keepMessages: false,
+    pingInterval: 30000,
+    resumeQuery,
+    onMessage,
+  });
+
+  return connected;
+}
@@ -12,6 +12,12 @@ interface UseWebSocketOptions {
   maxReconnectInterval?: number;
   reconnectDecay?: number;
   maxReconnectAttempts?: number;
+  // Keep received frames in `messages`; off for streams that are handled in onMessage
+  keepMessages?: boolean;
+  // Send { type: 'ping' } this often while connected, in ms (0 = never)
+  pingInterval?: number;
+  // Extra query parameters for each (re)connect, e.g. where to resume
+  resumeQuery?: () => string;
   onOpen?: () => void;
   onClose?: (event: CloseEvent) => void;
   onError?: (error: Event) => void;
@@ -38,6 +44,9 @@ export function useWebSocket(
     maxReconnectInterval = 30000,
     reconnectDecay = 1.5,
     maxReconnectAttempts = Infinity,
+    keepMessages = true,
+    pingInterval = 0,
+    resumeQuery = null,
     onOpen = null,
     onClose = null,
     onError = null,
@@ -46,9 +55,14 @@ export function useWebSocket(
 
   const ws = useRef<WebSocket | null>(null);
   const reconnectTimeout = useRef<NodeJS.Timeout | null>(null);
+  const pingTimer = useRef<NodeJS.Timeout | null>(null);
   const reconnectAttempts = useRef(0);
   const shouldReconnect = useRef(true);
   const messageQueue = useRef<string[]>([]);
+  // Highest console sequence id seen; sent as ?since= so reconnects only replay what we missed
+  const lastSeq = useRef(0);
+  // Server history epoch the sequence ids belong to; ids restart when the server restarts
+  const epoch = useRef(0);
 
   const [messages, setMessages] = useState<WebSocketMessage[]>([]);
   const [connected, setConnected] = useState(false);
@@ -83,7 +97,9 @@ export function useWebSocket(
     try {
       console.log(`Connecting to WebSocket: ${url}`);
       const wsUrl = url.startsWith('ws') ? url : `ws://${window.location.hostname}:8080${url}`;
-      ws.current = new WebSocket(`${wsUrl}?token=${token}`);
+      const since = lastSeq.current > 0 ? `&epoch=${epoch.current}&since=${lastSeq.current}` : '';
+      const resume = resumeQuery ? resumeQuery() : '';
+      ws.current = new WebSocket(`${wsUrl}?token=${token}${since}${resume}`);
 
       ws.current.onopen = () => {
         console.log('✓ WebSocket connected');
@@ -92,12 +108,20 @@ export function useWebSocket(
         setConnectionError(null);
         reconnectAttempts.current = 0;
         processMessageQueue();
+        if (pingInterval > 0) {
+          pingTimer.current = setInterval(
+            () => ws.current?.send(JSON.stringify({ type: 'ping' })), pingInterval);
+        }
         if (onOpen) onOpen();
       };
 
       ws.current.onclose = (event) => {
         console.log(`WebSocket disconnected (code: ${event.code})`);
         setConnected(false);
+        if (pingTimer.current) {
+          clearInterval(pingTimer.current);
+          pingTimer.current = null;
+        }
         if (onClose) onClose(event);
 
         if (
@@ -128,7 +152,38 @@ export function useWebSocket(
       ws.current.onmessage = (event) => {
         try {
           const data = JSON.parse(event.data);
-          setMessages(prev => [...prev, data]);
+          if (data.type === 'logs' && Array.isArray(data.lines)) {
+            // Batched console frame: expand into individual log messages,
+            // skipping sequence ids already received before a reconnect
+            const lines: WebSocketMessage[] = [];
+            if (data.reset || (data.epoch !== undefined && data.epoch !== epoch.current)) {
+              // The server restarted: its sequence ids start over
+              if (lastSeq.current > 0) {
+                lines.push({ type: 'log', message: '[PaperPanel] Server restarted, console history starts over' });
+              }
+              lastSeq.current = 0;
+            }
+            if (data.epoch !== undefined) epoch.current = data.epoch;
+            if (data.truncated) {
+              lines.push({ type: 'log', message: '[PaperPanel] Some console lines were missed while disconnected' });
+            }
+            for (const line of data.lines) {
+              if (line.seq <= lastSeq.current) continue;
+              lastSeq.current = line.seq;
+              lines.push({
+                type: 'log',
+                seq: line.seq,
+                level: line.level,
+                message: `[${line.level}] [${line.logger}] ${line.message}`,
+                timestamp: line.timestamp,
+              });
+            }
+            if (lines.length > 0 && keepMessages) {
+              setMessages(prev => [...prev, ...lines]);
+            }
+          } else if (keepMessages) {
+            setMessages(prev => [...prev, data]);
+          }
           if (onMessage) onMessage(data);
         } catch (err) {
           console.error('Failed to parse WebSocket message:', err);
@@ -139,7 +194,8 @@ export function useWebSocket(
       setConnectionError('Failed to connect to WebSocket');
       setReconnecting(false);
     }
-  }, [url, getReconnectDelay, maxReconnectAttempts, processMessageQueue, onOpen, onClose, onError, onMessage]);
+  }, [url, getReconnectDelay, maxReconnectAttempts, keepMessages, pingInterval, resumeQuery, processMessageQueue,
+      onOpen, onClose, onError, onMessage]);
 
   const send = useCallback((data: any) => {
     const message = typeof data === 'string' ? data : JSON.stringify(data);
@@ -158,6 +214,10 @@ export function useWebSocket(
       clearTimeout(reconnectTimeout.current);
       reconnectTimeout.current = null;
     }
+    if (pingTimer.current) {
+      clearInterval(pingTimer.current);
+      pingTimer.current = null;
+    }
     if (ws.current) {
       ws.current.close();
       ws.current = null;
@@ -185,6 +245,9 @@ export function useWebSocket(
       if (reconnectTimeout.current) {
         clearTimeout(reconnectTimeout.current);
       }
+      if (pingTimer.current) {
+        clearInterval(pingTimer.current);
+      }
       if (ws.current) {
         ws.current.close();
       }
@@ -130,6 +130,9 @@ export default function Console() {
               {msg.type === 'error' && (
                 <span className="text-red-400">✗ {msg.message}</span>
               )}
+              {msg.type === 'lagged' && (
+                <span className="text-yellow-400">⚠ Connection too slow, {msg.dropped} lines skipped</span>
+              )}
             </div>
           ))
         )}
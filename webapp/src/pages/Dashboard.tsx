@@ -6,6 +6,7 @@ import { SkeletonGrid, SkeletonInfoCard } from '../components/Skeleton';
 import { StatCard, Card } from '../components/Card';
 import ShinyText from '../components/ShinyText';
 import { ScrollAnimatedItem } from '../components/ScrollAnimatedItem';
+import { MetricChart } from '../components/MetricChart';
 
 export default function Dashboard() {
   const [stats, setStats] = useState<DashboardStats | null>(null);
@@ -230,10 +231,23 @@ export default function Dashboard() {
               <p className="text-gray-300 text-sm mb-1">Loaded Chunks</p>
               <p className="text-white text-2xl font-bold">{stats.loadedChunks.toLocaleString()}</p>
             </div>
+            <div>
+              <p className="text-gray-300 text-sm mb-1">Entities</p>
+              <p className="text-white text-2xl font-bold">{stats.entities.toLocaleString()}</p>
+            </div>
+            <div>
+              <p className="text-gray-300 text-sm mb-1">Tick Time</p>
+              <p className="text-white text-2xl font-bold">{stats.mspt.toFixed(1)} ms</p>
+            </div>
           </div>
         </Card>
       </ScrollAnimatedItem>
 
+      {/* Metric History */}
+      <ScrollAnimatedItem delay={0}>
+        <MetricChart />
+      </ScrollAnimatedItem>
+
       {/* Memory Bar */}
       <ScrollAnimatedItem delay={0.1}>
         <Card>
@@ -1,20 +1,31 @@
 import React, { useEffect, useState, useRef } from 'react';
-import client from '../api/client';
+import client, { streamNdjson } from '../api/client';
 import { Search, Download, RefreshCw, AlertCircle, XCircle } from 'lucide-react';
-import type { LogFileInfo, LogMatch } from '../types/api';
+import type { LogFileInfo, LogMatch, LogPage, LogSearchEvent, LogSearchRequest } from '../types/api';
 import { SkeletonLogViewer } from '../components/Skeleton';
 import { useToast } from '../contexts/ToastContext';
 import { ScrollAnimatedItem } from '../components/ScrollAnimatedItem';
 
+// Lines fetched per request; the server caps pages at 5000
+const PAGE_SIZE = 1000;
+
 export default function LogViewer() {
   const { toast } = useToast();
   const [logFiles, setLogFiles] = useState<LogFileInfo[]>([]);
   const [selectedFile, setSelectedFile] = useState<string | null>(null);
   const [logContent, setLogContent] = useState<string[]>([]);
+  const [firstLine, setFirstLine] = useState(1);
+  const [totalLines, setTotalLines] = useState(0);
+  const [loadingEarlier, setLoadingEarlier] = useState(false);
   const [searchQuery, setSearchQuery] = useState('');
   const [searchResults, setSearchResults] = useState<LogMatch[]>([]);
   const [loading, setLoading] = useState(true);
   const [searching, setSearching] = useState(false);
+  const [useRegex, setUseRegex] = useState(false);
+  const [levelFilter, setLevelFilter] = useState('');
+  const [contextLines, setContextLines] = useState(0);
+  const [limitReached, setLimitReached] = useState(false);
+  const searchAbortRef = useRef<AbortController | null>(null);
   const [error, setError] = useState<string | null>(null);
 
   const logContainerRef = useRef<HTMLDivElement>(null);
@@ -44,41 +55,92 @@ export default function LogViewer() {
       setSearchResults([]);
       setSearchQuery('');
       
-      const response = await client.get<{ lines: string[] }>(`/logs/read/${filename}`);
+      const response = await client.get<LogPage>(`/logs/read/${filename}`, { params: { tail: PAGE_SIZE } });
       setLogContent(response.data.lines || []);
+      setFirstLine(response.data.fromLine || 1);
+      setTotalLines(response.data.totalLines || 0);
       setError(null);
     } catch (err) {
       console.error('Error loading log file:', err);
       setError('Failed to load log content');
       setLogContent([]);
+      setFirstLine(1);
+      setTotalLines(0);
     } finally {
       setLoading(false);
     }
   };
 
+  const loadEarlierLines = async () => {
+    if (!selectedFile || firstLine <= 1) return;
+
+    try {
+      setLoadingEarlier(true);
+      const fromLine = Math.max(1, firstLine - PAGE_SIZE);
+      const response = await client.get<LogPage>(`/logs/read/${selectedFile}`, {
+        params: { fromLine, count: firstLine - fromLine }
+      });
+      setLogContent((current) => [...(response.data.lines || []), ...current]);
+      setFirstLine(response.data.fromLine);
+      setTotalLines(response.data.totalLines);
+    } catch (err) {
+      console.error('Error loading earlier lines:', err);
+      toast.error('Failed to load earlier lines');
+    } finally {
+      setLoadingEarlier(false);
+    }
+  };
+
   const searchLogs = async () => {
     if (!searchQuery.trim()) {
       setSearchResults([]);
       return;
     }
 
+    // A new search replaces the one still streaming
+    searchAbortRef.current?.abort();
+    const controller = new AbortController();
+    searchAbortRef.current = controller;
+
+    const request: LogSearchRequest = {
+      query: searchQuery,
+      files: selectedFile ? [selectedFile] : undefined,
+      limit: 200,
+      regex: useRegex,
+      levels: levelFilter ? [levelFilter] : undefined,
+      context: contextLines
+    };
+
     try {
       setSearching(true);
-      const response = await client.post<LogMatch[]>('/logs/search', {
-        query: searchQuery,
-        files: selectedFile ? [selectedFile] : undefined,
-        limit: 200
-      });
-      setSearchResults(response.data);
+      setSearchResults([]);
+      setLimitReached(false);
       setError(null);
-    } catch (err) {
+      // Matches are shown as the server finds them
+      await streamNdjson<LogSearchEvent>('/logs/search', request, (event) => {
+        if ('match' in event) {
+          setSearchResults((current) => [...current, event.match]);
+        } else if ('done' in event) {
+          setLimitReached(event.limitReached);
+        } else if ('error' in event) {
+          setError(event.error);
+        }
+      }, controller.signal);
+    } catch (err: any) {
+      if (err?.name === 'AbortError') return;
       console.error('Error searching logs:', err);
-      setError('Failed to search logs');
+      setError(err?.message ? 'Failed to search logs: ' + err.message : 'Failed to search logs');
     } finally {
-      setSearching(false);
+      if (searchAbortRef.current === controller) {
+        searchAbortRef.current = null;
+        setSearching(false);
+      }
     }
   };
 
+  // Stop a running search when leaving the page
+  useEffect(() => () => searchAbortRef.current?.abort(), []);
+
   const downloadLog = async (filename: string) => {
     try {
       const response = await client.get(`/logs/download/${filename}`, {
@@ -244,12 +306,52 @@ export default function LogViewer() {
             </button>
           </div>
 
+          {/* Search Options */}
+          <div className="flex flex-wrap items-center gap-4 text-sm text-gray-300">
+            <label className="flex items-center gap-2 cursor-pointer">
+              <input
+                type="checkbox"
+                checked={useRegex}
+                onChange={(e) => setUseRegex(e.target.checked)}
+                className="accent-blue-500"
+              />
+              Regular expression
+            </label>
+            <label className="flex items-center gap-2">
+              Level
+              <select
+                value={levelFilter}
+                onChange={(e) => setLevelFilter(e.target.value)}
+                className="bg-gray-900/40 border border-white/20 text-white rounded-lg px-2 py-1 focus:outline-none focus:border-blue-500"
+              >
+                <option value="">All</option>
+                <option value="error">Error</option>
+                <option value="warning">Warning</option>
+                <option value="info">Info</option>
+                <option value="debug">Debug</option>
+              </select>
+            </label>
+            <label className="flex items-center gap-2">
+              Context
+              <select
+                value={contextLines}
+                onChange={(e) => setContextLines(Number(e.target.value))}
+                className="bg-gray-900/40 border border-white/20 text-white rounded-lg px-2 py-1 focus:outline-none focus:border-blue-500"
+              >
+                <option value={0}>None</option>
+                <option value={2}>2 lines</option>
+                <option value={5}>5 lines</option>
+                <option value={10}>10 lines</option>
+              </select>
+            </label>
+          </div>
+
           {/* Search Results */}
           {searchResults.length > 0 && (
             <div className="bg-gradient-to-br from-gray-900/40 via-black/50 to-gray-900/40 backdrop-blur-3xl backdrop-saturate-150 border border-white/20 shadow-[0_8px_32px_0_rgba(0,0,0,0.6),0_0_60px_0_rgba(138,92,246,0.15),inset_0_1px_0_0_rgba(255,255,255,0.2)] rounded-lg p-4">
               <div className="flex items-center justify-between mb-3">
                 <h3 className="text-white font-semibold">
-                  Search Results ({searchResults.length})
+                  Search Results ({searchResults.length}{limitReached ? ', limit reached' : ''}{searching ? ', searching...' : ''})
                 </h3>
                 <button
                   onClick={() => setSearchResults([])}
@@ -264,11 +366,25 @@ export default function LogViewer() {
                     key={index}
                     className="font-mono text-xs p-2 bg-gray-900/40 backdrop-blur-xl rounded hover:bg-white/10 cursor-pointer"
                   >
-                    <span className="text-gray-500 mr-2">{match.lineNumber}:</span>
-                    <span className="text-gray-300">{match.line}</span>
-                    {match.file && (
-                      <span className="text-gray-600 ml-2">({match.file})</span>
-                    )}
+                    {match.before?.map((line, i) => (
+                      <div key={`b${i}`} className="text-gray-600">
+                        <span className="mr-2">{match.lineNumber - match.before!.length + i}-</span>
+                        {line}
+                      </div>
+                    ))}
+                    <div>
+                      <span className="text-gray-500 mr-2">{match.lineNumber}:</span>
+                      <span className="text-gray-300">{match.line}</span>
+                      {match.file && (
+                        <span className="text-gray-600 ml-2">({match.file})</span>
+                      )}
+                    </div>
+                    {match.after?.map((line, i) => (
+                      <div key={`a${i}`} className="text-gray-600">
+                        <span className="mr-2">{match.lineNumber + 1 + i}-</span>
+                        {line}
+                      </div>
+                    ))}
                   </div>
                 ))}
               </div>
@@ -282,21 +398,30 @@ export default function LogViewer() {
                 {selectedFile || 'No file selected'}
               </h3>
               <span className="text-gray-400 text-sm">
-                {logContent.length} lines
+                {logContent.length < totalLines ? `${logContent.length} of ${totalLines}` : logContent.length} lines
               </span>
             </div>
             <div
               ref={logContainerRef}
               className="p-4 overflow-y-auto font-mono text-sm bg-black/40 max-h-[500px]"
             >
+              {selectedFile && firstLine > 1 && (
+                <button
+                  onClick={loadEarlierLines}
+                  disabled={loadingEarlier}
+                  className="w-full mb-2 py-1 text-xs text-gray-400 hover:text-white bg-gray-900/40 rounded border border-white/10 disabled:cursor-not-allowed"
+                >
+                  {loadingEarlier ? 'Loading...' : `Load earlier lines (${firstLine - 1} more)`}
+                </button>
+              )}
               {logContent.length > 0 ? (
                 logContent.map((line, index) => (
                   <div
-                    key={index}
+                    key={firstLine + index}
                     className="text-gray-300 hover:bg-gray-800/50 px-2 py-0.5 whitespace-pre-wrap break-all"
                   >
                     <span className="text-gray-600 select-none mr-2">
-                      {(index + 1).toString().padStart(4, '0')}
+                      {(firstLine + index).toString().padStart(4, '0')}
                     </span>
                     {line}
                   </div>
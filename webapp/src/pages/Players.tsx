@@ -1,13 +1,14 @@
-import { useEffect, useState, ChangeEvent } from 'react';
+import { useEffect, useRef, useState, ChangeEvent } from 'react';
 import client from '../api/client';
 import { Trash2, MessageSquare, Search, User as UserIcon, Ban, ShieldOff, RefreshCw, X } from 'lucide-react';
-import type { PlayerInfo } from '../types/api';
+import type { PlayerInfo, PlayerPage } from '../types/api';
 import { PermissionTooltip } from '../components/PermissionTooltip';
 import { Permission } from '../constants/permissions';
 import { Card } from '../components/Card';
 import { useToast } from '../contexts/ToastContext';
 import { ConfirmDialog } from '../components/ConfirmDialog';
 import { ScrollAnimatedItem } from '../components/ScrollAnimatedItem';
+import { usePlayerEvents, PlayerEventFrame } from '../hooks/usePlayerEvents';
 
 interface SelectedPlayer {
   uuid: string;
@@ -22,9 +23,16 @@ interface ConfirmState {
   variant: 'danger' | 'warning' | 'info';
 }
 
+const PAGE_SIZE = 50;
+
 export default function Players() {
   const { toast } = useToast();
   const [players, setPlayers] = useState<PlayerInfo[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  // Count from the last page load, until the event stream says who is online
+  const [listedOnlineCount, setListedOnlineCount] = useState<number>(0);
+  const [onlineUuids, setOnlineUuids] = useState<Set<string> | null>(null);
+  const [loadingMore, setLoadingMore] = useState<boolean>(false);
   const [loading, setLoading] = useState<boolean>(true);
   const [error, setError] = useState<string | null>(null);
   const [searchTerm, setSearchTerm] = useState<string>('');
@@ -38,18 +46,93 @@ export default function Players() {
     variant: 'warning'
   });
 
+  const searchRef = useRef<string>('');
+
+  // Search runs on the server; wait for typing to pause before refetching
   useEffect(() => {
-    fetchPlayers();
-    const interval = setInterval(fetchPlayers, 10000); // Refresh every 10 seconds
-    return () => clearInterval(interval);
-  }, []);
+    searchRef.current = searchTerm.trim();
+    const timeout = setTimeout(fetchPlayers, 300);
+    return () => clearTimeout(timeout);
+  }, [searchTerm]);
+
+  const matchesSearch = (name: string) =>
+    name.toLowerCase().startsWith(searchRef.current.toLowerCase());
+
+  const updatePlayer = (uuid: string, update: (player: PlayerInfo) => PlayerInfo) =>
+    setPlayers(prev => prev.map(p => (p.uuid === uuid ? update(p) : p)));
+
+  // Presence changes arrive over /ws/events instead of re-polling the list
+  const applyPlayerEvent = (frame: PlayerEventFrame) => {
+    if (frame.type === 'snapshot') {
+      const online = new Map(frame.players.map(p => [p.uuid, p]));
+      setOnlineUuids(new Set(frame.players.map(p => p.uuid)));
+      setPlayers(prev => {
+        const known = new Set(prev.map(p => p.uuid));
+        const joined = frame.players
+          .filter(p => !known.has(p.uuid) && matchesSearch(p.name))
+          .map(p => ({ uuid: p.uuid, name: p.name, world: p.world, online: true, lastSeen: p.joinedAt }));
+        const updated = prev.map(p => ({
+          ...p,
+          online: online.has(p.uuid),
+          world: online.get(p.uuid)?.world ?? p.world
+        }));
+        return [...joined, ...updated];
+      });
+      return;
+    }
+
+    const { event } = frame;
+    switch (event.type) {
+      case 'join':
+        setOnlineUuids(prev => new Set(prev ?? []).add(event.uuid));
+        setPlayers(prev => {
+          if (prev.some(p => p.uuid === event.uuid)) {
+            return prev.map(p => (p.uuid === event.uuid
+              ? { ...p, online: true, world: event.world, lastSeen: event.timestamp }
+              : p));
+          }
+          if (!matchesSearch(event.name)) return prev;
+          return [{ uuid: event.uuid, name: event.name, world: event.world, online: true,
+            firstJoin: event.timestamp, lastSeen: event.timestamp, totalPlaytime: 0 }, ...prev];
+        });
+        break;
+      case 'quit':
+        setOnlineUuids(prev => {
+          const next = new Set(prev ?? []);
+          next.delete(event.uuid);
+          return next;
+        });
+        updatePlayer(event.uuid, p => ({ ...p, online: false, lastSeen: event.timestamp }));
+        break;
+      case 'world_change':
+        updatePlayer(event.uuid, p => ({ ...p, world: event.world }));
+        break;
+      case 'ban':
+      case 'unban':
+        updatePlayer(event.uuid, p => ({ ...p, banned: event.type === 'ban' }));
+        break;
+    }
+  };
+
+  usePlayerEvents(applyPlayerEvent);
+  // A set, so a join that is replayed after a reconnect is not counted twice
+  const onlineCount = onlineUuids?.size ?? listedOnlineCount;
+
+  const fetchPage = (cursor: string | null) =>
+    client.get<PlayerPage>('/players', {
+      params: {
+        limit: PAGE_SIZE,
+        q: searchRef.current || undefined,
+        cursor: cursor || undefined
+      }
+    });
 
   const fetchPlayers = async () => {
     try {
-      const { data } = await client.get<PlayerInfo[]>('/players');
-      // Ensure data is an array
-      const playersArray = Array.isArray(data) ? data : [];
-      setPlayers(playersArray);
+      const { data } = await fetchPage(null);
+      setPlayers(Array.isArray(data?.players) ? data.players : []);
+      setNextCursor(data?.nextCursor ?? null);
+      setListedOnlineCount(data?.onlineCount ?? 0);
       setError(null);
     } catch (err: any) {
       setError('Failed to load players');
@@ -59,6 +142,24 @@ export default function Players() {
     }
   };
 
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const { data } = await fetchPage(nextCursor);
+      const page = Array.isArray(data?.players) ? data.players : [];
+      setPlayers(prev => {
+        const seen = new Set(prev.map(p => p.uuid));
+        return [...prev, ...page.filter(p => !seen.has(p.uuid))];
+      });
+      setNextCursor(data?.nextCursor ?? null);
+    } catch (err: any) {
+      toast.error(`Failed to load more players: ${err.response?.data?.message || err.message}`);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleKick = (uuid: string, name: string) => {
     setConfirmDialog({
       isOpen: true,
@@ -71,7 +172,6 @@ export default function Players() {
             reason: 'Kicked by administrator'
           });
           toast.success(`${name} has been kicked`);
-          fetchPlayers();
         } catch (err: any) {
           toast.error(`Failed to kick player: ${err.response?.data?.message || err.message}`);
         }
@@ -92,7 +192,6 @@ export default function Players() {
             reason: 'Banned by administrator'
           });
           toast.success(`${name} has been banned`);
-          fetchPlayers();
         } catch (err: any) {
           toast.error(`Failed to ban player: ${err.response?.data?.message || err.message}`);
         }
@@ -111,7 +210,6 @@ export default function Players() {
         try {
           await client.delete(`/players/${uuid}/ban`);
           toast.success(`${name} has been unbanned`);
-          fetchPlayers();
         } catch (err: any) {
           toast.error(`Failed to unban player: ${err.response?.data?.message || err.message}`);
         }
@@ -153,12 +251,8 @@ export default function Players() {
     return date.toLocaleDateString();
   };
 
-  const filteredPlayers = players.filter(player =>
-    player.name.toLowerCase().includes(searchTerm.toLowerCase())
-  );
-
-  const onlinePlayers = filteredPlayers.filter(p => p.online);
-  const offlinePlayers = filteredPlayers.filter(p => !p.online);
+  const onlinePlayers = players.filter(p => p.online);
+  const offlinePlayers = players.filter(p => !p.online);
 
   if (loading) {
     return <Card className="text-white">Loading players...</Card>;
@@ -185,7 +279,7 @@ export default function Players() {
           <div>
             <h1 className="text-3xl font-bold text-white mb-2">Player Management</h1>
             <p className="text-gray-300">
-              {onlinePlayers.length} online • {offlinePlayers.length} offline
+              {onlineCount} online • {players.length} shown{nextCursor ? ' (more available)' : ''}
             </p>
           </div>
           <button
@@ -215,7 +309,7 @@ export default function Players() {
           <Search className="absolute left-3 top-1/2 transform -translate-y-1/2 w-5 h-5 text-gray-400" />
           <input
             type="text"
-            placeholder="Search players..."
+            placeholder="Search players by name..."
             value={searchTerm}
             onChange={(e: ChangeEvent<HTMLInputElement>) => setSearchTerm(e.target.value)}
             className="w-full pl-10 pr-4 py-3 bg-gray-900/40 backdrop-blur-xl text-white placeholder-gray-500 rounded-xl border border-white/20 focus:border-primary-500 focus:outline-none transition-colors"
@@ -277,12 +371,33 @@ export default function Players() {
         </ScrollAnimatedItem>
       )}
 
-      {filteredPlayers.length === 0 && (
+      {players.length === 0 && (
         <div className="text-center text-gray-400 py-8">
           No players found
         </div>
       )}
 
+      {nextCursor && (
+        <div className="flex justify-center">
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="
+              px-4 py-2
+              bg-white/5 backdrop-blur-xl
+              hover:bg-white/10
+              text-white
+              rounded-xl
+              transition-all duration-300
+              border border-white/10
+              disabled:opacity-50 disabled:cursor-not-allowed
+            "
+          >
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </button>
+        </div>
+      )}
+
       {/* Message Modal */}
       {selectedPlayer && (
         <div className="fixed inset-0 bg-black/60 backdrop-blur-md flex items-center justify-center p-4 z-50">
@@ -1,7 +1,7 @@
 import { useEffect, useState } from 'react';
 import client from '../api/client';
-import { Download, RefreshCw, Clock, History, HardDrive, Calendar, Trash2, Settings, Check, X, Archive, Play, Server, Edit } from 'lucide-react';
-import type { UpdateStatus, BackupInfo, AutoBackupSchedule, UpdateHistoryEntry, ScheduledUpdate } from '../types/api';
+import { Download, RefreshCw, Clock, History, HardDrive, Calendar, Trash2, Settings, Check, X, Archive, Play, Server, Edit, RotateCcw, ShieldCheck, ShieldAlert, FolderOpen, Folder, FileText, Cloud } from 'lucide-react';
+import type { UpdateStatus, BackupInfo, AutoBackupSchedule, UpdateHistoryEntry, ScheduledUpdate, BackupJob, RestorePlan, BackupListing } from '../types/api';
 import { PermissionTooltip } from '../components/PermissionTooltip';
 import { Permission } from '../constants/permissions';
 import { Card } from '../components/Card';
@@ -9,6 +9,7 @@ import { useToast } from '../contexts/ToastContext';
 import { TabNavigation, Tab } from '../components/TabNavigation';
 import { ConfirmDialog } from '../components/ConfirmDialog';
 import { ScrollAnimatedItem } from '../components/ScrollAnimatedItem';
+import { useBackupJobs } from '../hooks/useBackupJobs';
 
 type TabType = 'updates' | 'backups';
 
@@ -51,16 +52,18 @@ function UpdatesTab() {
     fetchData();
   }, []);
 
-  // Poll for backup progress when backup is running
+  const downloadRunning = updateStatus?.downloadStatus === 'downloading' || updateStatus?.downloadStatus === 'verifying';
+
+  // Poll for backup and download progress while either is running
   useEffect(() => {
-    if (updateStatus?.backupStatus === 'running') {
+    if (updateStatus?.backupStatus === 'running' || downloadRunning) {
       const pollInterval = setInterval(() => {
         fetchData();
       }, 2000); // Poll every 2 seconds
 
       return () => clearInterval(pollInterval);
     }
-  }, [updateStatus?.backupStatus]);
+  }, [updateStatus?.backupStatus, downloadRunning]);
 
   const fetchData = async () => {
     try {
@@ -96,8 +99,8 @@ function UpdatesTab() {
     setActionLoading('download');
     try {
       await client.post('/updates/download');
-      toast.info('Update download started. Check server logs for progress.');
-      setTimeout(() => fetchData(), 5000);
+      toast.info('Update download started');
+      setTimeout(() => fetchData(), 1000);
     } catch (err: any) {
       toast.error('Failed to download update: ' + (err.response?.data?.error || err.message));
     } finally {
@@ -114,7 +117,7 @@ function UpdatesTab() {
     setActionLoading('install');
     try {
       await client.post('/updates/install');
-      toast.warning('Backup creation started. Server will restart after backup completes + 5 minute countdown.');
+      toast.warning('Update started. A backup is created during the 5 minute countdown before the restart.');
 
       // Trigger the installation timer event for UpdateBanner
       window.dispatchEvent(new Event('update-installing'));
@@ -175,7 +178,7 @@ function UpdatesTab() {
       <ConfirmDialog
         isOpen={showInstallConfirm}
         title="Install Update"
-        message="A backup will be created first, then the server will restart after a 5-minute countdown. Continue?"
+        message="The server will restart after a 5-minute countdown, during which a backup is created. Continue?"
         onConfirm={executeInstallUpdate}
         onCancel={() => setShowInstallConfirm(false)}
         variant="warning"
@@ -235,7 +238,7 @@ function UpdatesTab() {
                   Creating Backup
                 </h3>
                 <p className="text-gray-300 text-sm">
-                  Backup must complete before server restart countdown begins
+                  Runs during the restart countdown; the restart waits for it to finish
                 </p>
               </div>
               <div className="text-right">
@@ -261,6 +264,41 @@ function UpdatesTab() {
         </ScrollAnimatedItem>
       )}
 
+      {/* Download Progress Card */}
+      {updateStatus && downloadRunning && (
+        <ScrollAnimatedItem delay={0.05}>
+        <Card className="bg-blue-600/10 border-blue-500">
+          <div className="space-y-4">
+            <div className="flex items-center justify-between">
+              <div>
+                <h3 className="text-lg font-bold text-white flex items-center gap-2">
+                  <Download className="w-5 h-5 text-blue-400 animate-pulse" />
+                  {updateStatus.downloadStatus === 'verifying' ? 'Verifying Download' : 'Downloading Update'}
+                </h3>
+                <p className="text-gray-300 text-sm">
+                  {(updateStatus.downloadedBytes / 1024 / 1024).toFixed(1)} / {(updateStatus.downloadTotalBytes / 1024 / 1024).toFixed(1)} MB
+                </p>
+              </div>
+              <div className="text-right">
+                <span className="text-2xl font-bold text-white">
+                  {updateStatus.downloadTotalBytes > 0 ? Math.floor(updateStatus.downloadedBytes * 100 / updateStatus.downloadTotalBytes) : 0}%
+                </span>
+                <p className="text-gray-400 text-xs">Progress</p>
+              </div>
+            </div>
+
+            {/* Progress Bar */}
+            <div className="w-full bg-gray-700/50 rounded-full h-3 overflow-hidden">
+              <div
+                className="h-full bg-gradient-to-r from-blue-500 via-blue-400 to-blue-500 transition-all duration-500 ease-out rounded-full"
+                style={{ width: `${updateStatus.downloadTotalBytes > 0 ? updateStatus.downloadedBytes * 100 / updateStatus.downloadTotalBytes : 0}%` }}
+              />
+            </div>
+          </div>
+        </Card>
+        </ScrollAnimatedItem>
+      )}
+
       {/* Update Available Banner */}
       {updateStatus?.updateAvailable && (
         <ScrollAnimatedItem delay={0.1}>
@@ -280,11 +318,11 @@ function UpdatesTab() {
                 <PermissionTooltip permission={Permission.MANAGE_UPDATES}>
                   <button
                     onClick={handleDownloadUpdate}
-                    disabled={actionLoading === 'download'}
+                    disabled={actionLoading === 'download' || downloadRunning}
                     className="px-4 py-2 bg-gradient-to-br from-blue-600/80 via-blue-700/80 to-blue-600/80 backdrop-blur-xl text-white rounded-xl hover:from-blue-600 hover:via-blue-700 hover:to-blue-600 transition-colors font-medium border border-blue-500/50 shadow-[0_4px_16px_0_rgba(37,99,235,0.3),0_0_30px_0_rgba(37,99,235,0.2)] disabled:opacity-50 disabled:cursor-not-allowed flex items-center gap-2"
                   >
                     <Download className="w-4 h-4" />
-                    {actionLoading === 'download' ? 'Downloading...' : 'Download'}
+                    {actionLoading === 'download' || downloadRunning ? 'Downloading...' : 'Download'}
                   </button>
                 </PermissionTooltip>
               ) : (
@@ -442,10 +480,24 @@ function BackupsTab() {
   const [editingSchedule, setEditingSchedule] = useState<AutoBackupSchedule | null>(null);
   const [backupToDelete, setBackupToDelete] = useState<number | null>(null);
   const [scheduleToDelete, setScheduleToDelete] = useState<number | null>(null);
+  const [restoreTarget, setRestoreTarget] = useState<BackupInfo | null>(null);
+  const [pendingRestore, setPendingRestore] = useState<RestorePlan | null>(null);
+  const [browseTarget, setBrowseTarget] = useState<BackupInfo | null>(null);
+  const [browseListing, setBrowseListing] = useState<BackupListing | null>(null);
+  const [restoreForm, setRestoreForm] = useState({
+    paths: '',
+    regionEnabled: false,
+    world: 'world',
+    minX: 0,
+    minZ: 0,
+    maxX: 0,
+    maxZ: 0,
+  });
   const [createOptions, setCreateOptions] = useState({
     includesWorlds: true,
     includesPlugins: true,
     includesConfigs: true,
+    incremental: false,
   });
   const [scheduleForm, setScheduleForm] = useState<Partial<AutoBackupSchedule>>({
     enabled: true,
@@ -458,10 +510,35 @@ function BackupsTab() {
     retentionValue: 7,
   });
 
+  // Live progress of queued and running backups; refresh the list when one finishes
+  const jobs = useBackupJobs((job: BackupJob) => {
+    if (job.state === 'completed' && job.kind === 'restore') {
+      toast.success('Restore staged. It is applied on the next server restart.');
+      fetchPendingRestore();
+    } else if (job.state === 'completed') {
+      toast.success(`Backup created: ${job.backupFilename}`);
+      fetchData();
+    } else if (job.state === 'failed') {
+      toast.error((job.kind === 'restore' ? 'Restore failed: ' : 'Backup failed: ') + job.error);
+    }
+  });
+
   useEffect(() => {
     fetchData();
+    fetchPendingRestore();
   }, []);
 
+  const fetchPendingRestore = async () => {
+    try {
+      // Unwrapped to the plan itself, or left as { success } when nothing is pending
+      const res = await client.get('/backups/restore/pending');
+      setPendingRestore(res.data?.targets ? res.data : null);
+    } catch {
+      // Users without restore permission simply don't see pending restores
+      setPendingRestore(null);
+    }
+  };
+
   const fetchData = async () => {
     try {
       const [backupsRes, schedulesRes] = await Promise.all([
@@ -485,9 +562,8 @@ function BackupsTab() {
     setActionLoading('create');
     try {
       await client.post('/backups/create', createOptions);
-      toast.success('Backup created successfully!');
+      toast.success('Backup queued');
       setShowCreateModal(false);
-      fetchData(); // Refresh immediately
     } catch (err: any) {
       toast.error('Failed to create backup: ' + (err.response?.data?.error || err.message));
     } finally {
@@ -495,6 +571,15 @@ function BackupsTab() {
     }
   };
 
+  const handleCancelJob = async (id: number) => {
+    try {
+      await client.post(`/backups/jobs/${id}/cancel`);
+      toast.info('Backup cancelled');
+    } catch (err: any) {
+      toast.error('Failed to cancel backup: ' + (err.response?.data?.error || err.message));
+    }
+  };
+
   const handleDownloadBackup = async (id: number, filename: string) => {
     try {
       const response = await client.get(`/backups/${id}/download`, { responseType: 'blob' });
@@ -512,6 +597,75 @@ function BackupsTab() {
     }
   };
 
+  const handleRestoreBackup = async () => {
+    if (!restoreTarget) return;
+    const paths = restoreForm.paths.split(',').map(p => p.trim()).filter(p => p.length > 0);
+    const body: Record<string, unknown> = { paths };
+    if (restoreForm.regionEnabled) {
+      body.region = {
+        world: restoreForm.world,
+        minX: restoreForm.minX,
+        minZ: restoreForm.minZ,
+        maxX: restoreForm.maxX,
+        maxZ: restoreForm.maxZ,
+      };
+    }
+    setActionLoading('restore');
+    try {
+      await client.post(`/backups/${restoreTarget.id}/restore`, body);
+      toast.info('Restore queued. Files are staged first and swapped in on the next restart.');
+      setRestoreTarget(null);
+    } catch (err: any) {
+      toast.error('Failed to start restore: ' + (err.response?.data?.error || err.message));
+    } finally {
+      setActionLoading(null);
+    }
+  };
+
+  const handleCancelPendingRestore = async () => {
+    try {
+      await client.delete('/backups/restore/pending');
+      toast.success('Pending restore cancelled');
+      setPendingRestore(null);
+    } catch (err: any) {
+      toast.error('Failed to cancel restore: ' + (err.response?.data?.error || err.message));
+    }
+  };
+
+  const handleBrowseBackup = async (backup: BackupInfo, prefix: string) => {
+    setBrowseTarget(backup);
+    try {
+      const res = await client.get(`/backups/${backup.id}/entries`, { params: { prefix } });
+      setBrowseListing(res.data);
+    } catch (err: any) {
+      toast.error('Failed to list backup contents: ' + (err.response?.data?.error || err.message));
+      setBrowseTarget(null);
+      setBrowseListing(null);
+    }
+  };
+
+  const closeBrowser = () => {
+    setBrowseTarget(null);
+    setBrowseListing(null);
+  };
+
+  const handleVerifyBackup = async (id: number) => {
+    try {
+      await client.post(`/backups/${id}/verify`);
+      toast.info('Verification queued. It runs in the background at a limited read rate.');
+      fetchData();
+    } catch (err: any) {
+      toast.error('Failed to verify backup: ' + (err.response?.data?.error || err.message));
+    }
+  };
+
+  const formatSize = (bytes: number) => {
+    if (bytes >= 1024 * 1024 * 1024) return (bytes / 1024 / 1024 / 1024).toFixed(2) + ' GB';
+    if (bytes >= 1024 * 1024) return (bytes / 1024 / 1024).toFixed(2) + ' MB';
+    if (bytes >= 1024) return (bytes / 1024).toFixed(1) + ' KB';
+    return bytes + ' B';
+  };
+
   const handleDeleteBackup = (id: number) => {
     setBackupToDelete(id);
   };
@@ -551,6 +705,7 @@ function BackupsTab() {
       enabled: schedule.enabled,
       scheduleType: schedule.scheduleType,
       intervalValue: schedule.intervalValue,
+      cronExpression: schedule.cronExpression,
       includesWorlds: schedule.includesWorlds,
       includesPlugins: schedule.includesPlugins,
       includesConfigs: schedule.includesConfigs,
@@ -621,6 +776,35 @@ function BackupsTab() {
       />
 
       <div className="space-y-6">
+      {/* Pending Restore */}
+      {pendingRestore && (
+        <ScrollAnimatedItem delay={0}>
+        <Card className="bg-yellow-600/10 border-yellow-500">
+          <div className="flex items-start justify-between">
+            <div>
+              <h3 className="text-lg font-bold text-white flex items-center gap-2">
+                <RotateCcw className="w-5 h-5 text-yellow-400" />
+                Restore pending
+              </h3>
+              <p className="text-gray-300 text-sm">
+                {pendingRestore.backupFilename} will be restored on the next server restart
+                (requested by {pendingRestore.requestedBy}, {new Date(pendingRestore.createdAt).toLocaleString()})
+              </p>
+              <p className="text-gray-400 text-xs mt-1">{pendingRestore.targets.join(', ')}</p>
+            </div>
+            <PermissionTooltip permission={Permission.RESTORE_BACKUP}>
+              <button
+                onClick={handleCancelPendingRestore}
+                className="px-4 py-2 bg-white/5 backdrop-blur-xl text-white rounded-xl hover:bg-white/10 transition-colors border border-white/10 font-medium"
+              >
+                Cancel Restore
+              </button>
+            </PermissionTooltip>
+          </div>
+        </Card>
+        </ScrollAnimatedItem>
+      )}
+
       {/* Manual Backup Section */}
       <ScrollAnimatedItem delay={0}>
       <Card>
@@ -644,6 +828,48 @@ function BackupsTab() {
             </button>
           </PermissionTooltip>
         </div>
+
+        {/* Queued and running backups */}
+        {jobs.length > 0 && (
+          <div className="space-y-3 mt-4">
+            {jobs.map(job => {
+              const percent = job.bytesTotal > 0 ? Math.min(100, Math.round((job.bytesDone / job.bytesTotal) * 100)) : 0;
+              return (
+                <div key={job.id} className="p-3 bg-gray-900/40 backdrop-blur-xl rounded-lg border border-white/20 space-y-2">
+                  <div className="flex items-center justify-between">
+                    <div>
+                      <p className="text-white font-medium">
+                        {job.kind === 'restore' ? 'Restore' : job.kind === 'update' ? 'Update backup' : job.kind === 'scheduled' ? 'Scheduled backup' : 'Backup'} by {job.requestedBy}
+                      </p>
+                      <p className="text-gray-400 text-sm">
+                        {job.state === 'queued'
+                          ? 'Waiting for the previous backup'
+                          : `${job.phase ?? 'starting'} | ${job.filesDone}/${job.filesTotal} files | ${(job.bytesDone / 1024 / 1024).toFixed(1)} / ${(job.bytesTotal / 1024 / 1024).toFixed(1)} MB`}
+                      </p>
+                    </div>
+                    <PermissionTooltip permission={Permission.CREATE_BACKUP}>
+                      <button
+                        onClick={() => handleCancelJob(job.id)}
+                        className="p-2 bg-gradient-to-br from-red-600/80 via-red-700/80 to-red-600/80 backdrop-blur-xl text-white rounded-xl hover:from-red-600 hover:via-red-700 hover:to-red-600 transition-colors border border-red-500/50"
+                        title="Cancel"
+                      >
+                        <X className="w-4 h-4" />
+                      </button>
+                    </PermissionTooltip>
+                  </div>
+                  {job.state === 'running' && (
+                    <div className="w-full bg-gray-700/50 rounded-full h-2 overflow-hidden">
+                      <div
+                        className="h-full bg-gradient-to-r from-blue-500 via-blue-400 to-blue-500 transition-all duration-500 ease-out rounded-full"
+                        style={{ width: `${percent}%` }}
+                      />
+                    </div>
+                  )}
+                </div>
+              );
+            })}
+          </div>
+        )}
       </Card>
       </ScrollAnimatedItem>
 
@@ -676,7 +902,9 @@ function BackupsTab() {
                     {schedule.enabled ? <Check className="w-4 h-4 text-green-500" /> : <X className="w-4 h-4 text-gray-500" />}
                     {schedule.scheduleType === 'daily' ? 'Daily' :
                      schedule.scheduleType === 'every-6-hours' ? 'Every 6 Hours' :
-                     schedule.scheduleType === 'weekly' ? 'Weekly' : `Every ${schedule.intervalValue}h`}
+                     schedule.scheduleType === 'weekly' ? 'Weekly' :
+                     schedule.scheduleType === 'cron' ? <span className="font-mono">{schedule.cronExpression}</span> :
+                     `Every ${schedule.intervalValue}h`}
                   </p>
                   <p className="text-gray-400 text-sm">
                     {schedule.includesWorlds && 'Worlds '}{schedule.includesPlugins && 'Plugins '}{schedule.includesConfigs && 'Configs'}
@@ -740,12 +968,52 @@ function BackupsTab() {
                   <p className="text-white font-medium">{backup.filename}</p>
                   <p className="text-gray-400 text-sm">
                     {backup.sizeMB.toFixed(2)} MB | {new Date(backup.createdAt).toLocaleString()} | {backup.backupType}
+                    {backup.format === 'incremental' && ' | incremental (new data only)'}
                   </p>
                   <p className="text-gray-400 text-xs">
                     {backup.includesWorlds && 'Worlds '}{backup.includesPlugins && 'Plugins '}{backup.includesConfigs && 'Configs'}
                   </p>
+                  {backup.remoteTargets.length > 0 && (
+                    <p className="text-gray-400 text-xs flex items-center gap-1">
+                      <Cloud className="w-3 h-3" />
+                      {backup.storedLocally ? 'local, ' : ''}{backup.remoteTargets.join(', ')}
+                    </p>
+                  )}
+                  {backup.verifying ? (
+                    <p className="text-gray-400 text-xs">Verification queued...</p>
+                  ) : backup.verifyStatus === 'corrupt' ? (
+                    <p className="text-red-400 text-xs flex items-center gap-1">
+                      <ShieldAlert className="w-3 h-3" />
+                      Corrupt: {backup.verifyError}
+                    </p>
+                  ) : backup.verifyStatus === 'error' ? (
+                    <p className="text-yellow-400 text-xs flex items-center gap-1">
+                      <ShieldAlert className="w-3 h-3" />
+                      Not verified: {backup.verifyError}
+                    </p>
+                  ) : backup.verifyStatus === 'ok' && backup.verifiedAt ? (
+                    <p className="text-green-400 text-xs flex items-center gap-1">
+                      <ShieldCheck className="w-3 h-3" />
+                      Verified {new Date(backup.verifiedAt).toLocaleString()}
+                    </p>
+                  ) : null}
                 </div>
                 <div className="flex gap-2">
+                  <button
+                    onClick={() => handleBrowseBackup(backup, '')}
+                    className="p-2 text-gray-300 hover:bg-white/10 rounded-lg transition-colors"
+                    title="Browse contents"
+                  >
+                    <FolderOpen className="w-4 h-4" />
+                  </button>
+                  <button
+                    onClick={() => handleVerifyBackup(backup.id)}
+                    disabled={backup.verifying}
+                    className="p-2 text-green-500 hover:bg-green-500/10 rounded-lg transition-colors disabled:opacity-50"
+                    title="Verify integrity"
+                  >
+                    <ShieldCheck className="w-4 h-4" />
+                  </button>
                   <PermissionTooltip permission={Permission.DOWNLOAD_BACKUP}>
                     <button
                       onClick={() => handleDownloadBackup(backup.id, backup.filename)}
@@ -755,6 +1023,15 @@ function BackupsTab() {
                       <Download className="w-4 h-4" />
                     </button>
                   </PermissionTooltip>
+                  <PermissionTooltip permission={Permission.RESTORE_BACKUP}>
+                    <button
+                      onClick={() => setRestoreTarget(backup)}
+                      className="p-2 text-yellow-500 hover:bg-yellow-500/10 rounded-lg transition-colors"
+                      title="Restore"
+                    >
+                      <RotateCcw className="w-4 h-4" />
+                    </button>
+                  </PermissionTooltip>
                   <PermissionTooltip permission={Permission.DELETE_BACKUP}>
                     <button
                       onClick={() => handleDeleteBackup(backup.id)}
@@ -772,6 +1049,154 @@ function BackupsTab() {
       </Card>
       </ScrollAnimatedItem>
 
+      {/* Browse Backup Modal */}
+      {browseTarget && browseListing && (
+        <div className="fixed inset-0 bg-black/60 backdrop-blur-md flex items-center justify-center p-4 z-50">
+          <div className="
+            bg-gradient-to-br from-gray-900/40 via-black/50 to-gray-900/40
+            backdrop-blur-3xl backdrop-saturate-150
+            border border-white/20
+            rounded-2xl
+            shadow-[0_20px_60px_0_rgba(0,0,0,0.7),0_0_80px_0_rgba(138,92,246,0.2),inset_0_1px_0_0_rgba(255,255,255,0.2)]
+            max-w-2xl w-full
+            animate-scale-in
+          ">
+            <div className="flex items-center justify-between p-6 border-b border-white/10">
+              <div>
+                <h3 className="text-xl font-bold text-white">{browseTarget.filename}</h3>
+                <p className="text-gray-400 text-sm font-mono">/{browseListing.prefix}</p>
+              </div>
+              <button onClick={closeBrowser}>
+                <X className="w-5 h-5 text-gray-300" />
+              </button>
+            </div>
+            <div className="p-6 space-y-1 max-h-[60vh] overflow-y-auto">
+              {browseListing.prefix && (
+                <button
+                  onClick={() => handleBrowseBackup(browseTarget, browseListing.prefix.replace(/[^/]*\/$/, ''))}
+                  className="w-full flex items-center gap-2 p-2 text-gray-300 hover:bg-white/10 rounded-lg text-left"
+                >
+                  <Folder className="w-4 h-4" />
+                  ..
+                </button>
+              )}
+              {browseListing.directories.map(dir => (
+                <button
+                  key={dir.path}
+                  onClick={() => handleBrowseBackup(browseTarget, dir.path)}
+                  className="w-full flex items-center justify-between gap-2 p-2 text-white hover:bg-white/10 rounded-lg text-left"
+                >
+                  <span className="flex items-center gap-2">
+                    <Folder className="w-4 h-4 text-yellow-400" />
+                    {dir.path.substring(browseListing.prefix.length)}
+                  </span>
+                  <span className="text-gray-400 text-xs">{dir.files} files, {formatSize(dir.size)}</span>
+                </button>
+              ))}
+              {browseListing.files.map(entry => (
+                <div key={entry.path} className="flex items-center justify-between gap-2 p-2 text-gray-300">
+                  <span className="flex items-center gap-2">
+                    <FileText className="w-4 h-4" />
+                    {entry.path.substring(browseListing.prefix.length)}
+                  </span>
+                  <span className="text-gray-400 text-xs">
+                    {formatSize(entry.size)} | {new Date(entry.mtime).toLocaleString()}
+                  </span>
+                </div>
+              ))}
+              {browseListing.directories.length === 0 && browseListing.files.length === 0 && (
+                <p className="text-gray-400 text-center py-4">Empty</p>
+              )}
+            </div>
+          </div>
+        </div>
+      )}
+
+      {/* Restore Modal */}
+      {restoreTarget && (
+        <div className="fixed inset-0 bg-black/60 backdrop-blur-md flex items-center justify-center p-4 z-50">
+          <div className="
+            bg-gradient-to-br from-gray-900/40 via-black/50 to-gray-900/40
+            backdrop-blur-3xl backdrop-saturate-150
+            border border-white/20
+            rounded-2xl
+            shadow-[0_20px_60px_0_rgba(0,0,0,0.7),0_0_80px_0_rgba(138,92,246,0.2),inset_0_1px_0_0_rgba(255,255,255,0.2)]
+            max-w-md w-full
+            animate-scale-in
+          ">
+            <div className="flex items-center justify-between p-6 border-b border-white/10">
+              <h3 className="text-xl font-bold text-white">Restore Backup</h3>
+              <button onClick={() => setRestoreTarget(null)}>
+                <X className="w-5 h-5 text-gray-300" />
+              </button>
+            </div>
+            <div className="p-6 space-y-4">
+              <p className="text-gray-300">
+                Files from <span className="text-white">{restoreTarget.filename}</span> are extracted and verified now,
+                then replace the live files on the next server restart. Replaced files are kept in backups/restore.
+              </p>
+              <div>
+                <label className="block text-white mb-1">Paths (comma separated, empty = everything)</label>
+                <input
+                  type="text"
+                  value={restoreForm.paths}
+                  onChange={(e) => setRestoreForm(prev => ({ ...prev, paths: e.target.value }))}
+                  placeholder="world_nether, plugins/Essentials"
+                  className="w-full px-3 py-2 bg-white/5 border border-white/20 rounded-lg text-white"
+                />
+              </div>
+              <label className="flex items-center gap-3 cursor-pointer">
+                <input
+                  type="checkbox"
+                  checked={restoreForm.regionEnabled}
+                  onChange={(e) => setRestoreForm(prev => ({ ...prev, regionEnabled: e.target.checked }))}
+                  className="w-5 h-5 rounded border-white/20 text-primary-500 focus:ring-primary-500"
+                />
+                <span className="text-white">Restore a range of region files</span>
+              </label>
+              {restoreForm.regionEnabled && (
+                <div className="grid grid-cols-2 gap-3">
+                  <input
+                    type="text"
+                    value={restoreForm.world}
+                    onChange={(e) => setRestoreForm(prev => ({ ...prev, world: e.target.value }))}
+                    placeholder="World folder"
+                    className="col-span-2 px-3 py-2 bg-white/5 border border-white/20 rounded-lg text-white"
+                  />
+                  {(['minX', 'minZ', 'maxX', 'maxZ'] as const).map(key => (
+                    <label key={key} className="text-gray-300 text-sm">
+                      Region {key}
+                      <input
+                        type="number"
+                        value={restoreForm[key]}
+                        onChange={(e) => setRestoreForm(prev => ({ ...prev, [key]: parseInt(e.target.value) || 0 }))}
+                        className="w-full px-3 py-2 bg-white/5 border border-white/20 rounded-lg text-white"
+                      />
+                    </label>
+                  ))}
+                </div>
+              )}
+            </div>
+            <div className="flex gap-3 p-6 border-t border-white/10">
+              <button
+                onClick={() => setRestoreTarget(null)}
+                className="flex-1 px-4 py-2 bg-white/5 backdrop-blur-xl text-white rounded-xl hover:bg-white/10 transition-colors border border-white/10 font-medium"
+              >
+                Cancel
+              </button>
+              <button
+                onClick={handleRestoreBackup}
+                disabled={actionLoading === 'restore'}
+                className="flex-1 px-4 py-2 bg-gradient-to-br from-yellow-600/80 via-yellow-700/80 to-yellow-600/80 backdrop-blur-xl text-white rounded-xl hover:from-yellow-600 hover:via-yellow-700 hover:to-yellow-600 transition-colors font-medium border border-yellow-500/50 disabled:opacity-50 disabled:cursor-not-allowed flex items-center gap-2"
+              >
+                <RotateCcw className="w-4 h-4" />
+                {actionLoading === 'restore' ? 'Queuing...' : 'Restore'}
+              </button>
+            </div>
+          </div>
+        </div>
+      )}
+
       {/* Create Backup Modal */}
       {showCreateModal && (
         <div className="fixed inset-0 bg-black/60 backdrop-blur-md flex items-center justify-center p-4 z-50">
@@ -820,6 +1245,15 @@ function BackupsTab() {
                   />
                   <span className="text-white">Configs (server.properties, yml files, etc.)</span>
                 </label>
+                <label className="flex items-center gap-3 cursor-pointer pt-3 border-t border-white/10">
+                  <input
+                    type="checkbox"
+                    checked={createOptions.incremental}
+                    onChange={(e) => setCreateOptions(prev => ({ ...prev, incremental: e.target.checked }))}
+                    className="w-5 h-5 rounded border-white/20 text-primary-500 focus:ring-primary-500"
+                  />
+                  <span className="text-white">Incremental (only store files changed since the last snapshot)</span>
+                </label>
               </div>
             </div>
             <div className="flex gap-3 p-6 border-t border-white/10">
@@ -871,9 +1305,26 @@ function BackupsTab() {
                   <option value="every-6-hours">Every 6 Hours</option>
                   <option value="weekly">Weekly</option>
                   <option value="custom">Custom</option>
+                  <option value="cron">Cron Expression</option>
                 </select>
               </div>
 
+              {scheduleForm.scheduleType === 'cron' && (
+                <div>
+                  <label className="block text-gray-300 mb-2">Cron Expression</label>
+                  <input
+                    type="text"
+                    value={scheduleForm.cronExpression || ''}
+                    onChange={(e) => setScheduleForm(prev => ({ ...prev, cronExpression: e.target.value }))}
+                    className="w-full px-4 py-2 bg-gray-900/40 backdrop-blur-xl text-white font-mono rounded-lg border border-white/20 focus:border-primary-500 focus:outline-none"
+                    placeholder="0 4 * * *"
+                  />
+                  <p className="text-gray-400 text-xs mt-1">
+                    minute hour day month weekday, in server time (e.g. <span className="font-mono">30 3 * * MON-FRI</span> or <span className="font-mono">@daily</span>)
+                  </p>
+                </div>
+              )}
+
               {scheduleForm.scheduleType === 'custom' && (
                 <div>
                   <label className="block text-gray-300 mb-2">Interval (hours)</label>
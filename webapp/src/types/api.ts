@@ -39,6 +39,21 @@ export interface DashboardStats {
   worlds: number;
   loadedChunks: number;
   plugins: number;
+  mspt: number;
+  entities: number;
+  gcCount: number;
+  gcTimeMs: number;
+  sampledAt: number;
+}
+
+export interface MetricSeries {
+  metric: string;
+  resolution: number; // seconds per stored bucket, 0 = raw samples
+  step: number; // seconds per returned bucket
+  timestamps: number[];
+  min: number[];
+  max: number[];
+  avg: number[];
 }
 
 export interface UpdateStatus {
@@ -52,6 +67,9 @@ export interface UpdateStatus {
   needsCheck: boolean;
   backupStatus: string; // idle, running, completed, failed, skipped
   backupProgress: number; // 0-100
+  downloadStatus: string; // idle, downloading, verifying, completed, failed
+  downloadedBytes: number;
+  downloadTotalBytes: number;
 }
 
 export interface SecurityStatus {
@@ -88,6 +106,29 @@ export interface PlayerInfo {
   stats?: Record<string, number>;
 }
 
+export interface PlayerPage {
+  players: PlayerInfo[];
+  nextCursor: string | null;
+  onlineCount: number;
+}
+
+export interface PlayerPresence {
+  uuid: string;
+  name: string;
+  world: string;
+  joinedAt: number;
+}
+
+export interface PlayerPresenceEvent {
+  version: number;
+  type: 'join' | 'quit' | 'kick' | 'world_change' | 'ban' | 'unban';
+  uuid: string;
+  name: string;
+  world?: string;
+  reason?: string;
+  timestamp: number;
+}
+
 /**
  * Plugin Types
  */
@@ -225,18 +266,39 @@ export interface LogFileInfo {
   lines?: number;
 }
 
+export interface LogPage {
+  lines: string[];
+  fromLine: number; // 1-based number of the first line
+  totalLines: number;
+}
+
 export interface LogMatch {
   lineNumber: number;
   line: string;
   file?: string;
+  before?: string[]; // context lines preceding the match
+  after?: string[]; // context lines following the match
 }
 
 export interface LogSearchRequest {
   query: string;
   files?: string[];
   limit?: number;
+  regex?: boolean;
+  levels?: string[]; // error, warning, info, debug
+  from?: number; // ms
+  to?: number; // ms
+  context?: number; // lines before and after each match, max 20
 }
 
+/**
+ * One line of the streamed (application/x-ndjson) log search response
+ */
+export type LogSearchEvent =
+  | { match: LogMatch }
+  | { done: true; matches: number; limitReached: boolean; filesSearched: number }
+  | { error: string };
+
 export interface LogStreamMessage {
   type: 'line' | 'error' | 'connected' | 'disconnected';
   data?: string;
@@ -258,13 +320,43 @@ export interface BackupInfo {
   includesPlugins: boolean;
   includesConfigs: boolean;
   notes?: string;
+  format: 'zip' | 'incremental';
+  sha256?: string;
+  verifiedAt?: number;
+  verifyStatus?: 'ok' | 'corrupt' | 'error';
+  verifyError?: string;
+  verifying: boolean;
+  storedLocally: boolean;
+  remoteTargets: string[];
+}
+
+export interface BackupEntry {
+  path: string;
+  size: number;
+  mtime: number;
+  compressedSize?: number;
+  crc?: number;
+  sha256?: string;
+}
+
+export interface BackupDirectory {
+  path: string;
+  files: number;
+  size: number;
+}
+
+export interface BackupListing {
+  prefix: string;
+  directories: BackupDirectory[];
+  files: BackupEntry[];
 }
 
 export interface AutoBackupSchedule {
   id: number;
   enabled: boolean;
-  scheduleType: 'daily' | 'every-6-hours' | 'weekly' | 'custom';
+  scheduleType: 'daily' | 'every-6-hours' | 'weekly' | 'custom' | 'cron';
   intervalValue: number;
+  cronExpression?: string;
   includesWorlds: boolean;
   includesPlugins: boolean;
   includesConfigs: boolean;
@@ -280,6 +372,39 @@ export interface BackupCreateRequest {
   includesWorlds: boolean;
   includesPlugins: boolean;
   includesConfigs: boolean;
+  incremental?: boolean;
+}
+
+export interface RestorePlan {
+  backupId: number;
+  backupFilename: string;
+  requestedBy: string;
+  createdAt: number;
+  targets: string[];
+}
+
+export type BackupJobState = 'queued' | 'running' | 'completed' | 'failed' | 'cancelled';
+
+export interface BackupJob {
+  id: number;
+  kind: 'manual' | 'scheduled' | 'update' | 'restore';
+  backupId: number;
+  requestedBy: string;
+  state: BackupJobState;
+  includesWorlds: boolean;
+  includesPlugins: boolean;
+  includesConfigs: boolean;
+  incremental: boolean;
+  createdAt: number;
+  startedAt: number;
+  finishedAt: number;
+  phase?: string;
+  bytesDone: number;
+  bytesTotal: number;
+  filesDone: number;
+  filesTotal: number;
+  backupFilename?: string;
+  error?: string;
 }
 
 /**